@@ -0,0 +1,71 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.loader.ClasspathLoader;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures attribute access on a bean heavy model: every row of the "beans" page reads seven
+ * getters of a product, calls a method with an argument which has to be coerced and reads
+ * attributes of the returned JDK objects. The accessors are either generated or reflective, see
+ * {@link PebbleEngine.Builder#generateAttributeAccessors(boolean)}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttributeBenchmark {
+
+  @Param({"1000"})
+  public int products;
+
+  @Param({"false", "true"})
+  public boolean generateAttributeAccessors;
+
+  private PebbleTemplate template;
+
+  private Map<String, Object> context;
+
+  @Setup
+  public void setup() {
+    this.template = new PebbleEngine.Builder()
+        .loader(new ClasspathLoader())
+        .generateAttributeAccessors(this.generateAttributeAccessors)
+        .build()
+        .getTemplate(BenchmarkTemplates.BEANS);
+    this.context = Collections.singletonMap("products", BenchmarkModel.products(this.products));
+  }
+
+  @Benchmark
+  public StringWriter renderBeans() throws IOException {
+    StringWriter writer = new StringWriter();
+    this.template.evaluate(writer, this.context);
+    return writer;
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the (read-only) evaluation contexts used by the render benchmarks. The data is
+ * deterministic so that the rendered output is identical between runs.
+ */
+public final class BenchmarkModel {
+
+  private static final String DESCRIPTION = "A <b>hand-made</b> product & accessory with \"quoted\""
+      + " features, designed for people who care about details. Ships in 2-3 days, comes with a "
+      + "lifetime warranty and free returns within 30 days of purchase.";
+
+  private static final List<String> TAGS = Arrays.asList("new", "sale", "eco", "bestseller");
+
+  private BenchmarkModel() {
+  }
+
+  /**
+   * Creates the context for the "products" page which extends a four level layout chain and
+   * includes a macro heavy partial for every product.
+   *
+   * @param productCount The number of products in the listing
+   * @return The evaluation context
+   */
+  public static Map<String, Object> productPage(int productCount) {
+    Map<String, Object> context = new HashMap<>();
+    context.put("site", site());
+    context.put("user", user());
+    context.put("categories", categories());
+    context.put("section", section(productCount));
+    context.put("products", products(productCount));
+    return context;
+  }
+
+  /**
+   * Creates the context for the "table" page which is a single big loop of autoescaped prints.
+   *
+   * @param rowCount The number of rows in the table
+   * @return The evaluation context
+   */
+  public static Map<String, Object> tablePage(int rowCount) {
+    Map<String, Object> context = new HashMap<>();
+    context.put("rows", products(rowCount));
+    return context;
+  }
+
+  public static List<Product> products(int count) {
+    List<Product> products = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      products.add(new Product(i, "Product <" + i + ">", DESCRIPTION,
+          "https://cdn.example.com/img/" + i + ".jpg", BigDecimal.valueOf(1999 + i * 37L, 2),
+          i % 7, i % 5 == 0, TAGS.subList(0, 1 + i % TAGS.size())));
+    }
+    return products;
+  }
+
+  private static Map<String, Object> site() {
+    Map<String, Object> site = new HashMap<>();
+    site.put("name", "Pebble & Co.");
+    site.put("baseUrl", "https://shop.example.com");
+    site.put("assetsUrl", "https://cdn.example.com");
+    site.put("year", 2019);
+    List<Map<String, Object>> navigation = new ArrayList<>();
+    for (String label : Arrays.asList("Home", "Products", "Deals", "About", "Contact")) {
+      Map<String, Object> item = new HashMap<>();
+      item.put("label", label);
+      item.put("url", "https://shop.example.com/" + label.toLowerCase());
+      item.put("active", "Products".equals(label));
+      navigation.add(item);
+    }
+    site.put("navigation", navigation);
+    return site;
+  }
+
+  private static Map<String, Object> user() {
+    Map<String, Object> user = new HashMap<>();
+    user.put("name", "Jane <Doe>");
+    user.put("email", "jane@example.com");
+    return user;
+  }
+
+  private static List<Map<String, Object>> categories() {
+    List<Map<String, Object>> categories = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      Map<String, Object> category = new HashMap<>();
+      category.put("name", "Category " + i);
+      category.put("slug", "category-" + i);
+      category.put("count", i * 13);
+      categories.add(category);
+    }
+    return categories;
+  }
+
+  private static Map<String, Object> section(int productCount) {
+    Map<String, Object> section = new HashMap<>();
+    section.put("title", "All products");
+    section.put("total", productCount * 10);
+    section.put("page", 1);
+    section.put("pages", 10);
+    List<Map<String, Object>> breadcrumbs = new ArrayList<>();
+    for (String label : Arrays.asList("Home", "Shop", "All products")) {
+      Map<String, Object> crumb = new HashMap<>();
+      crumb.put("label", label);
+      crumb.put("url", "https://shop.example.com/" + label.toLowerCase());
+      breadcrumbs.add(crumb);
+    }
+    section.put("breadcrumbs", breadcrumbs);
+    return section;
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suites twice, once single-threaded and once with one thread per available
+ * processor, with the GC profiler enabled so that allocation rates are reported alongside
+ * throughput.
+ * <p>
+ * Usage: {@code java -cp target/benchmarks.jar com.mitchellbosecke.pebble.benchmark.BenchmarkRunner
+ * [includeRegex] [threads]}. The jar's main class is the regular JMH launcher, so
+ * {@code java -jar target/benchmarks.jar} accepts all of the usual JMH options.
+ */
+public class BenchmarkRunner {
+
+  public static void main(String[] args) throws RunnerException {
+    String include = args.length > 0 ? args[0] : ".*Benchmark.*";
+    int maxThreads = args.length > 1 ? Integer.parseInt(args[1])
+        : Runtime.getRuntime().availableProcessors();
+
+    run(include, 1);
+    if (maxThreads > 1) {
+      run(include, maxThreads);
+    }
+  }
+
+  private static void run(String include, int threads) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(include)
+        .threads(threads)
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(options).run();
+  }
+}
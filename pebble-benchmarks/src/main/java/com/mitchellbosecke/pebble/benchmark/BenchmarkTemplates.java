@@ -0,0 +1,86 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.loader.ClasspathLoader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shared helpers to load the benchmark templates and to build engines.
+ */
+public final class BenchmarkTemplates {
+
+  public static final String PRODUCTS = "templates/products.peb";
+
+  public static final String TABLE = "templates/table.peb";
+
+  public static final String BEANS = "templates/beans.peb";
+
+  public static final String PRODUCT_CARD = "templates/partials/product-card.peb";
+
+  public static final String BASE_LAYOUT = "templates/layout/base.peb";
+
+  private BenchmarkTemplates() {
+  }
+
+  /**
+   * Creates an engine which loads the benchmark templates from the classpath.
+   *
+   * @param cacheActive Whether or not the template and tag caches are enabled
+   * @return The engine
+   */
+  public static PebbleEngine engine(boolean cacheActive) {
+    return engine(cacheActive, false);
+  }
+
+  /**
+   * Creates an engine which loads the benchmark templates from the classpath.
+   *
+   * @param cacheActive Whether or not the template and tag caches are enabled
+   * @param compileToBytecode Whether or not the templates are compiled to bytecode
+   * @return The engine
+   */
+  public static PebbleEngine engine(boolean cacheActive, boolean compileToBytecode) {
+    return new PebbleEngine.Builder()
+        .loader(new ClasspathLoader())
+        .cacheActive(cacheActive)
+        .compileToBytecode(compileToBytecode)
+        .build();
+  }
+
+  /**
+   * Reads the raw source of a template so that lexing can be measured without the loader I/O.
+   *
+   * @param name The name of the template
+   * @return The template source
+   */
+  public static String source(String name) {
+    InputStream is = BenchmarkTemplates.class.getClassLoader().getResourceAsStream(name);
+    if (is == null) {
+      throw new IllegalArgumentException("Could not find template \"" + name + "\"");
+    }
+    try (Reader reader = new InputStreamReader(is, StandardCharsets.UTF_8)) {
+      StringBuilder builder = new StringBuilder();
+      char[] buffer = new char[4096];
+      int read;
+      while ((read = reader.read(buffer)) != -1) {
+        builder.append(buffer, 0, read);
+      }
+      return builder.toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link PebbleEngine#getTemplate(String)}. The cold variant uses an engine without a
+ * template cache, so every call loads, lexes, parses and visits the template. The warm variant
+ * measures the cost of a cache hit.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompileBenchmark {
+
+  @Param({BenchmarkTemplates.PRODUCTS, BenchmarkTemplates.BASE_LAYOUT,
+      BenchmarkTemplates.PRODUCT_CARD, BenchmarkTemplates.TABLE})
+  public String templateName;
+
+  private PebbleEngine coldEngine;
+
+  private PebbleEngine warmEngine;
+
+  @Setup
+  public void setup() {
+    this.coldEngine = BenchmarkTemplates.engine(false);
+    this.warmEngine = BenchmarkTemplates.engine(true);
+    this.warmEngine.getTemplate(this.templateName);
+  }
+
+  @Benchmark
+  public PebbleTemplate getTemplateCold() {
+    return this.coldEngine.getTemplate(this.templateName);
+  }
+
+  @Benchmark
+  public PebbleTemplate getTemplateWarm() {
+    return this.warmEngine.getTemplate(this.templateName);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.extension.ExtensionRegistry;
+import com.mitchellbosecke.pebble.lexer.LexerImpl;
+import com.mitchellbosecke.pebble.lexer.TokenStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link LexerImpl#tokenize} on the raw template sources, without any loader I/O.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LexerBenchmark {
+
+  @Param({BenchmarkTemplates.PRODUCTS, BenchmarkTemplates.BASE_LAYOUT,
+      BenchmarkTemplates.PRODUCT_CARD, BenchmarkTemplates.TABLE})
+  public String templateName;
+
+  private String source;
+
+  private LexerImpl lexer;
+
+  @Setup
+  public void setup() {
+    PebbleEngine engine = BenchmarkTemplates.engine(true);
+    ExtensionRegistry registry = engine.getExtensionRegistry();
+    this.source = BenchmarkTemplates.source(this.templateName);
+    this.lexer = new LexerImpl(engine.getSyntax(), registry.getUnaryOperators().values(),
+        registry.getBinaryOperators().values());
+  }
+
+  @Benchmark
+  public TokenStream tokenize() {
+    return this.lexer.tokenize(new StringReader(this.source), this.templateName);
+  }
+}
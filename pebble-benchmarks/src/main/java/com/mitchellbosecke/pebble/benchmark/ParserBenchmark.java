@@ -0,0 +1,72 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.extension.ExtensionRegistry;
+import com.mitchellbosecke.pebble.lexer.LexerImpl;
+import com.mitchellbosecke.pebble.lexer.Token;
+import com.mitchellbosecke.pebble.lexer.TokenStream;
+import com.mitchellbosecke.pebble.node.RootNode;
+import com.mitchellbosecke.pebble.parser.ParserImpl;
+import com.mitchellbosecke.pebble.parser.ParserOptions;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ParserImpl#parse} on pre-lexed tokens. Tokens are never modified by the parser
+ * so the same list is replayed into a fresh {@link TokenStream} on every invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+  @Param({BenchmarkTemplates.PRODUCTS, BenchmarkTemplates.BASE_LAYOUT,
+      BenchmarkTemplates.PRODUCT_CARD, BenchmarkTemplates.TABLE})
+  public String templateName;
+
+  private ExtensionRegistry registry;
+
+  private List<Token> tokens;
+
+  @Setup
+  public void setup() {
+    PebbleEngine engine = BenchmarkTemplates.engine(true);
+    this.registry = engine.getExtensionRegistry();
+    LexerImpl lexer = new LexerImpl(engine.getSyntax(),
+        this.registry.getUnaryOperators().values(), this.registry.getBinaryOperators().values());
+    this.tokens = lexer
+        .tokenize(new StringReader(BenchmarkTemplates.source(this.templateName)),
+            this.templateName)
+        .getTokens();
+  }
+
+  @Benchmark
+  public RootNode parse() {
+    ParserImpl parser = new ParserImpl(this.registry.getUnaryOperators(),
+        this.registry.getBinaryOperators(), this.registry.getTokenParsers(), new ParserOptions());
+    return parser.parse(new TokenStream(this.tokens, this.templateName));
+  }
+}
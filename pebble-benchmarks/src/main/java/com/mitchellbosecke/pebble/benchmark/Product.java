@@ -0,0 +1,79 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A plain java bean used by the benchmark templates so that attribute access goes through the
+ * reflection based attribute resolver rather than the map resolver.
+ */
+public class Product {
+
+  private final long id;
+
+  private final String name;
+
+  private final String description;
+
+  private final String imageUrl;
+
+  private final BigDecimal price;
+
+  private final int stock;
+
+  private final boolean featured;
+
+  private final List<String> tags;
+
+  public Product(long id, String name, String description, String imageUrl, BigDecimal price,
+      int stock, boolean featured, List<String> tags) {
+    this.id = id;
+    this.name = name;
+    this.description = description;
+    this.imageUrl = imageUrl;
+    this.price = price;
+    this.stock = stock;
+    this.featured = featured;
+    this.tags = tags;
+  }
+
+  public long getId() {
+    return this.id;
+  }
+
+  public String getName() {
+    return this.name;
+  }
+
+  public String getDescription() {
+    return this.description;
+  }
+
+  public String getImageUrl() {
+    return this.imageUrl;
+  }
+
+  public BigDecimal getPrice() {
+    return this.price;
+  }
+
+  public int getStock() {
+    return this.stock;
+  }
+
+  public boolean isFeatured() {
+    return this.featured;
+  }
+
+  public List<String> getTags() {
+    return this.tags;
+  }
+}
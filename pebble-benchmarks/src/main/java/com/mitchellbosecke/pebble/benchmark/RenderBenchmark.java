@@ -0,0 +1,100 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.benchmark;
+
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link PebbleTemplate#evaluate} on realistic pages:
+ * <ul>
+ * <li>"products": a four level {@code extends} chain, an {@code include} per product and heavy
+ * {@code macro} use from an imported template.</li>
+ * <li>"table": one big {@code for} loop of autoescaped prints over java beans.</li>
+ * </ul>
+ * Both pages are rendered by the interpreter and by the bytecode compiled templates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class ProductsPage {
+
+    @Param({"24", "240"})
+    public int products;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private PebbleTemplate template;
+
+    private Map<String, Object> context;
+
+    @Setup
+    public void setup() throws IOException {
+      this.template = BenchmarkTemplates.engine(true, this.compiled).getTemplate(BenchmarkTemplates.PRODUCTS);
+      this.context = BenchmarkModel.productPage(this.products);
+
+      // render once so that every template of the hierarchy is compiled before measuring
+      this.template.evaluate(new StringWriter(), this.context);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class TablePage {
+
+    @Param({"100", "1000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private PebbleTemplate template;
+
+    private Map<String, Object> context;
+
+    @Setup
+    public void setup() {
+      this.template = BenchmarkTemplates.engine(true, this.compiled).getTemplate(BenchmarkTemplates.TABLE);
+      this.context = BenchmarkModel.tablePage(this.rows);
+    }
+  }
+
+  @Benchmark
+  public StringWriter renderProducts(ProductsPage page) throws IOException {
+    StringWriter writer = new StringWriter();
+    page.template.evaluate(writer, page.context);
+    return writer;
+  }
+
+  @Benchmark
+  public StringWriter renderTable(TablePage page) throws IOException {
+    StringWriter writer = new StringWriter();
+    page.template.evaluate(writer, page.context);
+    return writer;
+  }
+}
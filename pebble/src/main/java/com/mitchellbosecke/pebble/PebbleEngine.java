@@ -9,22 +9,34 @@
 package com.mitchellbosecke.pebble;
 
 
+import com.mitchellbosecke.pebble.TemplateDependencyGraph.Invalidation;
 import com.mitchellbosecke.pebble.cache.CacheKey;
+import com.mitchellbosecke.pebble.cache.CacheStatistics;
+import com.mitchellbosecke.pebble.cache.MacroCacheKey;
 import com.mitchellbosecke.pebble.cache.PebbleCache;
+import com.mitchellbosecke.pebble.cache.macro.LruMacroCache;
+import com.mitchellbosecke.pebble.cache.macro.NoOpMacroCache;
+import com.mitchellbosecke.pebble.cache.snapshot.TemplateSnapshotStore;
 import com.mitchellbosecke.pebble.cache.tag.ConcurrentMapTagCache;
 import com.mitchellbosecke.pebble.cache.tag.NoOpTagCache;
 import com.mitchellbosecke.pebble.cache.template.ConcurrentMapTemplateCache;
 import com.mitchellbosecke.pebble.cache.template.NoOpTemplateCache;
+import com.mitchellbosecke.pebble.compiler.BytecodeTemplateCompiler;
+import com.mitchellbosecke.pebble.compiler.TemplateCompiler;
 import com.mitchellbosecke.pebble.error.LoaderException;
+import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.Extension;
 import com.mitchellbosecke.pebble.extension.ExtensionRegistry;
 import com.mitchellbosecke.pebble.extension.NodeVisitorFactory;
 import com.mitchellbosecke.pebble.extension.core.AttributeResolverExtension;
 import com.mitchellbosecke.pebble.extension.core.CoreExtension;
+import com.mitchellbosecke.pebble.extension.core.LinkingNodeVisitor;
+import com.mitchellbosecke.pebble.extension.core.TemplateReferenceNodeVisitor;
 import com.mitchellbosecke.pebble.extension.escaper.EscaperExtension;
 import com.mitchellbosecke.pebble.extension.escaper.EscapingStrategy;
 import com.mitchellbosecke.pebble.extension.i18n.I18nExtension;
 import com.mitchellbosecke.pebble.lexer.LexerImpl;
+import com.mitchellbosecke.pebble.lexer.OperatorTrie;
 import com.mitchellbosecke.pebble.lexer.Syntax;
 import com.mitchellbosecke.pebble.lexer.TokenStream;
 import com.mitchellbosecke.pebble.loader.ClasspathLoader;
@@ -42,10 +54,20 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * The main class used for compiling templates. The PebbleEngine is responsible for delegating
@@ -53,7 +75,9 @@ import java.util.concurrent.ExecutorService;
  *
  * @author Mitchell
  */
-public class PebbleEngine {
+public class PebbleEngine implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(PebbleEngine.class);
 
   private final Loader<?> loader;
 
@@ -65,16 +89,38 @@ public class PebbleEngine {
 
   private final PebbleCache<CacheKey, Object> tagCache;
 
+  private final PebbleCache<MacroCacheKey, Object> macroCache;
+
+  private final CacheStatistics macroCacheStatistics = new CacheStatistics();
+
   private final ExecutorService executorService;
 
   private final PebbleCache<Object, PebbleTemplate> templateCache;
 
   private final ExtensionRegistry extensionRegistry;
 
+  private final OperatorTrie operatorTrie;
+
   private final ParserOptions parserOptions;
 
   private final EvaluationOptions evaluationOptions;
 
+  private final TemplateCompiler templateCompiler;
+
+  private final TemplateSnapshotter templateSnapshotter;
+
+  private final TemplateDependencyGraph dependencyGraph = new TemplateDependencyGraph();
+
+  /**
+   * Whether dependencies are recorded, which is pointless without a template cache.
+   */
+  private final boolean recordDependencies;
+
+  /**
+   * The listener through which the loader reports the templates which changed, if any.
+   */
+  private volatile ChangeListener changeListener;
+
   /**
    * Constructor for the Pebble Engine given an instantiated Loader. This method does only load
    * those userProvidedExtensions listed here.
@@ -87,22 +133,33 @@ public class PebbleEngine {
       boolean strictVariables,
       Locale defaultLocale,
       PebbleCache<CacheKey, Object> tagCache,
+      PebbleCache<MacroCacheKey, Object> macroCache,
       PebbleCache<Object, PebbleTemplate> templateCache,
       ExecutorService executorService,
       ExtensionRegistry extensionRegistry,
       ParserOptions parserOptions,
-      EvaluationOptions evaluationOptions) {
+      EvaluationOptions evaluationOptions,
+      TemplateCompiler templateCompiler,
+      TemplateSnapshotStore templateSnapshotStore,
+      String configuration) {
 
     this.loader = loader;
     this.syntax = syntax;
     this.strictVariables = strictVariables;
     this.defaultLocale = defaultLocale;
     this.tagCache = tagCache;
+    this.macroCache = macroCache;
     this.executorService = executorService;
     this.templateCache = templateCache;
+    this.recordDependencies = !(templateCache instanceof NoOpTemplateCache);
     this.extensionRegistry = extensionRegistry;
+    this.operatorTrie = new OperatorTrie(extensionRegistry.getUnaryOperators().values(),
+        extensionRegistry.getBinaryOperators().values());
     this.parserOptions = parserOptions;
     this.evaluationOptions = evaluationOptions;
+    this.templateCompiler = templateCompiler;
+    this.templateSnapshotter = templateSnapshotStore == null ? null
+        : new TemplateSnapshotter(this, templateSnapshotStore, configuration);
   }
 
   /**
@@ -150,22 +207,14 @@ public class PebbleEngine {
     Reader templateReader = loader.getReader(cacheKey);
 
     try {
-      LexerImpl lexer = new LexerImpl(this.syntax,
-          this.extensionRegistry.getUnaryOperators().values(),
-          this.extensionRegistry.getBinaryOperators().values());
-      TokenStream tokenStream = lexer.tokenize(templateReader, templateName);
-
-      Parser parser = new ParserImpl(this.extensionRegistry.getUnaryOperators(),
-          this.extensionRegistry.getBinaryOperators(), this.extensionRegistry.getTokenParsers(),
-          this.parserOptions);
-      RootNode root = parser.parse(tokenStream);
-
-      PebbleTemplateImpl instance = new PebbleTemplateImpl(this, root, templateName);
-
-      for (NodeVisitorFactory visitorFactory : this.extensionRegistry.getNodeVisitors()) {
-        visitorFactory.createVisitor(instance).visit(root);
+      if (this.templateSnapshotter != null) {
+        return this.templateSnapshotter.getTemplate(templateName, loader, cacheKey, templateReader);
       }
 
+      RootNode root = this.parse(templateName, templateReader);
+      PebbleTemplateImpl instance = new PebbleTemplateImpl(this, root, templateName);
+      this.visit(instance, root);
+      this.link(instance, root, cacheKey);
       return instance;
 
     } finally {
@@ -177,6 +226,189 @@ public class PebbleEngine {
     }
   }
 
+  RootNode parse(String templateName, Reader templateReader) {
+    LexerImpl lexer = new LexerImpl(this.syntax, this.operatorTrie);
+    TokenStream tokenStream = lexer.tokenize(templateReader, templateName);
+
+    Parser parser = new ParserImpl(this.extensionRegistry.getUnaryOperators(),
+        this.extensionRegistry.getBinaryOperators(), this.extensionRegistry.getTokenParsers(),
+        this.parserOptions);
+    return parser.parse(tokenStream);
+  }
+
+  void visit(PebbleTemplateImpl instance, RootNode root) {
+    for (NodeVisitorFactory visitorFactory : this.extensionRegistry.getNodeVisitors()) {
+      visitorFactory.createVisitor(instance).visit(root);
+    }
+  }
+
+  void link(PebbleTemplateImpl instance, RootNode root, Object cacheKey) {
+    // bind filters, tests and functions once all visitors have rewritten the tree
+    new LinkingNodeVisitor(instance, this.extensionRegistry).visit(root);
+
+    if (this.templateCompiler != null) {
+      this.templateCompiler.compile(instance, root);
+    }
+
+    if (!this.recordDependencies) {
+      return;
+    }
+    TemplateReferenceNodeVisitor references = new TemplateReferenceNodeVisitor(instance);
+    references.visit(root);
+    Set<Object> referenceKeys = new HashSet<>();
+    for (String reference : references.getReferences()) {
+      referenceKeys.add(this.loader.createCacheKey(instance.resolveRelativePath(reference)));
+    }
+    this.dependencyGraph.record(cacheKey, instance, referenceKeys, references.getCacheNodes(),
+        instance.getMacros().values());
+  }
+
+  /**
+   * Removes a template from the template cache along with all of the templates which extend,
+   * include, import or embed it, directly or indirectly. The fragments kept by their cache tags and
+   * the output of their cached macros are removed as well. The templates are compiled again the
+   * next time they are used, all other templates stay in the cache.
+   * <p>
+   * Only the templates which are referenced by a literal name are known to depend on each other.
+   *
+   * @param templateName The name of the template which changed
+   */
+  public void invalidate(String templateName) {
+    Invalidation invalidation = this.dependencyGraph
+        .remove(this.loader.createCacheKey(templateName));
+    for (Object cacheKey : invalidation.getCacheKeys()) {
+      this.templateCache.invalidate(cacheKey);
+    }
+    this.evictFragments(invalidation);
+  }
+
+  /**
+   * Compiles a template again and then swaps it into the template cache, while the previous
+   * compilation keeps being served. The templates which extend, include, import or embed it stay
+   * compiled, as they look it up when they are rendered, but the fragments kept by their cache tags
+   * and the output of their cached macros are removed. If the template can not be compiled, e.g.
+   * because it is being edited, the previous compilation stays in use; if it can not be found
+   * anymore, it is invalidated.
+   * <p>
+   * This is called by loaders which detect changes, such as a {@link FileLoader} with change
+   * detection enabled, on their own thread.
+   *
+   * @param templateName The name of the template which changed
+   */
+  public void reload(String templateName) {
+    Object cacheKey = this.loader.createCacheKey(templateName);
+    Invalidation invalidation = this.dependencyGraph.collect(cacheKey);
+    PebbleTemplate template;
+    try {
+      template = this.getPebbleTemplate(templateName, this.loader, cacheKey);
+    } catch (LoaderException e) {
+      logger.debug("Template {} can not be found anymore", templateName, e);
+      this.invalidate(templateName);
+      return;
+    } catch (PebbleException e) {
+      logger.warn("Could not reload template {}, its previous version stays in use", templateName,
+          e);
+      return;
+    }
+    this.templateCache.put(cacheKey, template);
+    this.evictFragments(invalidation);
+  }
+
+  /**
+   * Stops listening for the templates which the loader reports as changed, so that a loader which
+   * outlives the engine does not keep it reachable. A {@link FileLoader} stops watching the files
+   * of the templates once no engine listens to it anymore. The engine can still be used
+   * afterwards, but its templates are no longer reloaded.
+   */
+  @Override
+  public void close() {
+    ChangeListener listener = this.changeListener;
+    if (listener != null) {
+      this.changeListener = null;
+      this.loader.removeChangeListener(listener);
+    }
+  }
+
+  private void listenForChanges() {
+    this.changeListener = new ChangeListener(this, this.loader);
+    this.loader.addChangeListener(this.changeListener);
+  }
+
+  /**
+   * Removes the fragments which the cache tags keep under a name, in every locale and in every
+   * template.
+   *
+   * @param name The name of the fragments, as given to the cache tag
+   */
+  public void invalidateFragments(String name) {
+    this.tagCache.invalidateAll(key -> name.equals(key.getName()));
+  }
+
+  /**
+   * Removes the fragments which the cache tags keep for a group, i.e. those of the cache tags
+   * which list the group in their {@code groups} option.
+   *
+   * @param group The name of the group
+   */
+  public void invalidateFragmentGroup(String group) {
+    this.tagCache.invalidateAll(key -> key.getGroups().contains(group));
+  }
+
+  private void evictFragments(Invalidation invalidation) {
+    if (invalidation.hasCacheNodes()) {
+      this.tagCache.invalidateAll(key -> invalidation.hasCacheNode(key.getNode()));
+    }
+    if (invalidation.hasMacros()) {
+      this.macroCache.invalidateAll(key -> invalidation.hasMacro(key.getMacro()));
+    }
+  }
+
+  /**
+   * Compiles the given templates into the template cache ahead of their first use, along with the
+   * templates they extend, include, import or embed by a literal name. The templates are compiled
+   * on the executor service of this engine if it has one, and one after the other otherwise.
+   *
+   * @param templateNames The names of the templates
+   * @return The time it took to compile each template and the errors of the ones which failed
+   */
+  public PrecompilationReport precompile(Collection<String> templateNames) {
+    return this.precompile(templateNames,
+        this.executorService != null ? this.executorService : Runnable::run);
+  }
+
+  /**
+   * Compiles the given templates into the template cache ahead of their first use, along with the
+   * templates they extend, include, import or embed by a literal name.
+   *
+   * @param templateNames The names of the templates
+   * @param executor The executor to compile the templates on in parallel
+   * @return The time it took to compile each template and the errors of the ones which failed
+   */
+  public PrecompilationReport precompile(Collection<String> templateNames, Executor executor) {
+    return new TemplatePrecompiler(this, executor).precompile(templateNames);
+  }
+
+  /**
+   * Compiles all of the templates which the loader can list ahead of their first use.
+   *
+   * @return The time it took to compile each template and the errors of the ones which failed
+   * @see Loader#listTemplateNames()
+   */
+  public PrecompilationReport precompileAll() {
+    return this.precompile(this.loader.listTemplateNames());
+  }
+
+  /**
+   * Compiles all of the templates which the loader can list ahead of their first use.
+   *
+   * @param executor The executor to compile the templates on in parallel
+   * @return The time it took to compile each template and the errors of the ones which failed
+   * @see Loader#listTemplateNames()
+   */
+  public PrecompilationReport precompileAll(Executor executor) {
+    return this.precompile(this.loader.listTemplateNames(), executor);
+  }
+
   /**
    * Returns the loader
    *
@@ -249,6 +481,24 @@ public class PebbleEngine {
     return this.tagCache;
   }
 
+  /**
+   * Returns the cache used by macros which are declared as "cached"
+   *
+   * @return The macro cache
+   */
+  public PebbleCache<MacroCacheKey, Object> getMacroCache() {
+    return this.macroCache;
+  }
+
+  /**
+   * Returns the hit and miss counts of the macro cache
+   *
+   * @return The statistics of the macro cache
+   */
+  public CacheStatistics getMacroCacheStatistics() {
+    return this.macroCacheStatistics;
+  }
+
   /**
    * A builder to configure and construct an instance of a PebbleEngine.
    */
@@ -274,6 +524,8 @@ public class PebbleEngine {
 
     private PebbleCache<CacheKey, Object> tagCache;
 
+    private PebbleCache<MacroCacheKey, Object> macroCache;
+
     private EscaperExtension escaperExtension = new EscaperExtension();
 
     private boolean allowUnsafeMethods;
@@ -284,6 +536,16 @@ public class PebbleEngine {
 
     private boolean allowOverrideCoreOperators = false;
 
+    private boolean compileToBytecode = false;
+
+    private boolean generateAttributeAccessors = true;
+
+    private TemplateSnapshotStore templateSnapshotStore;
+
+    private boolean autoEscaping = true;
+
+    private String defaultEscapingStrategy;
+
     /**
      * Creates the builder.
      */
@@ -412,6 +674,19 @@ public class PebbleEngine {
       return this;
     }
 
+    /**
+     * Sets the cache used to store the output of macros which are declared as "cached", for
+     * example <code>{% macro icon(name) cached %}</code>. The output is keyed by the macro, the
+     * locale and the values of the arguments.
+     *
+     * @param macroCache The macro cache
+     * @return This builder object
+     */
+    public Builder macroCache(PebbleCache<MacroCacheKey, Object> macroCache) {
+      this.macroCache = macroCache;
+      return this;
+    }
+
     /**
      * Sets whether or not escaping should be performed automatically.
      *
@@ -420,6 +695,7 @@ public class PebbleEngine {
      */
     public Builder autoEscaping(boolean autoEscaping) {
       this.escaperExtension.setAutoEscaping(autoEscaping);
+      this.autoEscaping = autoEscaping;
       return this;
     }
 
@@ -442,6 +718,7 @@ public class PebbleEngine {
      */
     public Builder defaultEscapingStrategy(String strategy) {
       this.escaperExtension.setDefaultStrategy(strategy);
+      this.defaultEscapingStrategy = strategy;
       return this;
     }
 
@@ -459,7 +736,7 @@ public class PebbleEngine {
 
     /**
      * Enable/disable all caches, i.e. cache used by the engine to store compiled PebbleTemplate
-     * instances and tags cache
+     * instances, tags cache and macro cache
      *
      * @param cacheActive toggle to enable/disable all caches
      * @return This builder object
@@ -518,6 +795,57 @@ public class PebbleEngine {
       return this;
     }
 
+    /**
+     * Enable/disable the compilation of templates to JVM bytecode. Default is disabled, i.e. the
+     * parsed node tree is interpreted. When enabled, every template is turned into a generated
+     * class which writes static text directly and evaluates "if" and "for" tags as straight-line
+     * code, which gives the JIT much better opportunities for inlining. The output is identical to
+     * the interpreted one.
+     * <p>
+     * Requires the optional "org.ow2.asm:asm" dependency on the classpath, without it a warning is
+     * logged and the templates are interpreted.
+     *
+     * @param compileToBytecode toggle to enable/disable the compilation to bytecode
+     * @return This builder object
+     * @see BytecodeTemplateCompiler
+     */
+    public Builder compileToBytecode(boolean compileToBytecode) {
+      this.compileToBytecode = compileToBytecode;
+      return this;
+    }
+
+    /**
+     * Enable/disable generated accessors for the getters, methods and fields which are used as
+     * attributes. Default is enabled. If enabled, the first access to an attribute of a class
+     * builds an accessor with method handles (and the LambdaMetafactory for public getters) which
+     * the JIT can inline. If disabled, attributes are always read through reflection.
+     *
+     * @param generateAttributeAccessors toggle to enable/disable generated attribute accessors
+     * @return This builder object
+     */
+    public Builder generateAttributeAccessors(boolean generateAttributeAccessors) {
+      this.generateAttributeAccessors = generateAttributeAccessors;
+      return this;
+    }
+
+    /**
+     * Sets the store which keeps the parsed templates across restarts of the application. Every
+     * template is then restored from its snapshot instead of being lexed and parsed, as long as the
+     * engine is configured the same way, with the same extensions, and the source of the template
+     * did not change. Otherwise the template is parsed and its snapshot is replaced.
+     * <p>
+     * Templates which contain nodes that are not serializable, for example nodes of an extension
+     * which keep a reference to a service, are always parsed.
+     *
+     * @param templateSnapshotStore The snapshot store, for example a
+     * {@link com.mitchellbosecke.pebble.cache.snapshot.MappedFileTemplateSnapshotStore}
+     * @return This builder object
+     */
+    public Builder templateSnapshotStore(TemplateSnapshotStore templateSnapshotStore) {
+      this.templateSnapshotStore = templateSnapshotStore;
+      return this;
+    }
+
     /**
      * Creates the PebbleEngine instance.
      *
@@ -549,9 +877,14 @@ public class PebbleEngine {
         if (this.tagCache == null) {
           this.tagCache = new ConcurrentMapTagCache();
         }
+
+        if (this.macroCache == null) {
+          this.macroCache = new LruMacroCache();
+        }
       } else {
         this.templateCache = new NoOpTemplateCache();
         this.tagCache = new NoOpTagCache();
+        this.macroCache = new NoOpMacroCache();
       }
 
       if (this.syntax == null) {
@@ -565,10 +898,60 @@ public class PebbleEngine {
       EvaluationOptions evaluationOptions = new EvaluationOptions();
       evaluationOptions.setAllowUnsafeMethods(this.allowUnsafeMethods);
       evaluationOptions.setGreedyMatchMethod(this.greedyMatchMethod);
+      evaluationOptions.setGenerateAttributeAccessors(this.generateAttributeAccessors);
+
+      TemplateCompiler templateCompiler = null;
+      if (this.compileToBytecode) {
+        if (BytecodeTemplateCompiler.isAvailable()) {
+          templateCompiler = new BytecodeTemplateCompiler();
+        } else {
+          logger.warn("Templates are interpreted instead of compiled to bytecode, as "
+              + "org.ow2.asm:asm is missing from the class path.");
+        }
+      }
+
+      PebbleEngine engine = new PebbleEngine(this.loader, this.syntax, this.strictVariables,
+          this.defaultLocale, this.tagCache, this.macroCache, this.templateCache,
+          this.executorService, extensionRegistry, parserOptions, evaluationOptions,
+          templateCompiler, this.templateSnapshotStore,
+          this.describeConfiguration(extensionRegistry));
 
-      return new PebbleEngine(this.loader, this.syntax, this.strictVariables, this.defaultLocale,
-          this.tagCache, this.templateCache,
-          this.executorService, extensionRegistry, parserOptions, evaluationOptions);
+      if (this.cacheActive) {
+        engine.listenForChanges();
+      }
+      return engine;
+    }
+
+    /**
+     * Describes everything which determines the tree a template is parsed into, which snapshots
+     * are stamped with. The version of Pebble is part of it because its nodes declare their
+     * serialVersionUID, so that a changed node class is not recognized by its serialized form.
+     */
+    private String describeConfiguration(ExtensionRegistry extensionRegistry) {
+      List<String> extensions = new ArrayList<>();
+      for (Extension extension : this.userProvidedExtensions) {
+        extensions.add(extension.getClass().getName());
+      }
+      List<String> nodeVisitors = new ArrayList<>();
+      for (NodeVisitorFactory nodeVisitor : extensionRegistry.getNodeVisitors()) {
+        nodeVisitors.add(nodeVisitor.getClass().getName());
+      }
+      return "version=" + PebbleEngine.class.getPackage().getImplementationVersion()
+          + ";syntax=" + Arrays.asList(this.syntax.getCommentOpenDelimiter(),
+          this.syntax.getCommentCloseDelimiter(), this.syntax.getExecuteOpenDelimiter(),
+          this.syntax.getExecuteCloseDelimiter(), this.syntax.getPrintOpenDelimiter(),
+          this.syntax.getPrintCloseDelimiter(), this.syntax.getInterpolationOpenDelimiter(),
+          this.syntax.getInterpolationCloseDelimiter(), this.syntax.getWhitespaceTrim(),
+          this.syntax.isEnableNewLineTrimming())
+          + ";literalDecimalTreatedAsInteger=" + this.literalDecimalTreatedAsInteger
+          + ";autoEscaping=" + this.autoEscaping
+          + ";defaultEscapingStrategy=" + this.defaultEscapingStrategy
+          + ";allowOverrideCoreOperators=" + this.allowOverrideCoreOperators
+          + ";extensions=" + extensions
+          + ";nodeVisitors=" + nodeVisitors
+          + ";tokenParsers=" + new TreeSet<>(extensionRegistry.getTokenParsers().keySet())
+          + ";unaryOperators=" + new TreeSet<>(extensionRegistry.getUnaryOperators().keySet())
+          + ";binaryOperators=" + new TreeSet<>(extensionRegistry.getBinaryOperators().keySet());
     }
 
     private ExtensionRegistry buildExtensionRegistry() {
@@ -595,4 +978,31 @@ public class PebbleEngine {
   public EvaluationOptions getEvaluationOptions() {
     return this.evaluationOptions;
   }
+
+  /**
+   * Reloads the templates which changed. It only refers weakly to the engine, so that an engine
+   * which has not been closed can still be garbage collected, after which the listener removes
+   * itself from the loader on the next change.
+   */
+  private static final class ChangeListener implements Consumer<String> {
+
+    private final WeakReference<PebbleEngine> engine;
+
+    private final Loader<?> loader;
+
+    private ChangeListener(PebbleEngine engine, Loader<?> loader) {
+      this.engine = new WeakReference<>(engine);
+      this.loader = loader;
+    }
+
+    @Override
+    public void accept(String templateName) {
+      PebbleEngine engine = this.engine.get();
+      if (engine == null) {
+        this.loader.removeChangeListener(this);
+      } else {
+        engine.reload(templateName);
+      }
+    }
+  }
 }
@@ -0,0 +1,132 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of compiling templates ahead of their first use with
+ * {@link PebbleEngine#precompile(java.util.Collection)} or {@link PebbleEngine#precompileAll()}.
+ */
+public final class PrecompilationReport {
+
+  private final List<TemplateResult> results;
+
+  private final long elapsedNanos;
+
+  PrecompilationReport(List<TemplateResult> results, long elapsedNanos) {
+    this.results = Collections.unmodifiableList(results);
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return The results of all of the templates which were compiled, ordered by their names
+   */
+  public List<TemplateResult> getResults() {
+    return this.results;
+  }
+
+  /**
+   * @return The results of the templates which could not be compiled
+   */
+  public List<TemplateResult> getFailures() {
+    List<TemplateResult> failures = new ArrayList<>();
+    for (TemplateResult result : this.results) {
+      if (!result.isSuccessful()) {
+        failures.add(result);
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * @return Whether all of the templates could be compiled
+   */
+  public boolean isSuccessful() {
+    return this.getFailures().isEmpty();
+  }
+
+  /**
+   * @param unit The unit of the returned time
+   * @return The time it took to compile all of the templates
+   */
+  public long getElapsedTime(TimeUnit unit) {
+    return unit.convert(this.elapsedNanos, TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("PrecompilationReport[templates=%d, failures=%d, elapsed=%dms]",
+        this.results.size(), this.getFailures().size(), this.getElapsedTime(TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * The outcome of compiling a single template.
+   */
+  public static final class TemplateResult {
+
+    private final String templateName;
+
+    private final String referencedBy;
+
+    private final long compilationNanos;
+
+    private final RuntimeException error;
+
+    TemplateResult(String templateName, String referencedBy, long compilationNanos,
+        RuntimeException error) {
+      this.templateName = templateName;
+      this.referencedBy = referencedBy;
+      this.compilationNanos = compilationNanos;
+      this.error = error;
+    }
+
+    public String getTemplateName() {
+      return this.templateName;
+    }
+
+    /**
+     * @return The name of the template which referenced this template, or null if this template
+     * was one of the templates to precompile
+     */
+    public String getReferencedBy() {
+      return this.referencedBy;
+    }
+
+    /**
+     * @param unit The unit of the returned time
+     * @return The time it took to compile the template, which is close to zero if it had already
+     * been compiled
+     */
+    public long getCompilationTime(TimeUnit unit) {
+      return unit.convert(this.compilationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return The exception thrown while compiling the template, or null if it could be compiled
+     */
+    public RuntimeException getError() {
+      return this.error;
+    }
+
+    public boolean isSuccessful() {
+      return this.error == null;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s: %s in %dms", this.templateName,
+          this.error == null ? "compiled" : "failed (" + this.error.getMessage() + ")",
+          this.getCompilationTime(TimeUnit.MILLISECONDS));
+    }
+  }
+}
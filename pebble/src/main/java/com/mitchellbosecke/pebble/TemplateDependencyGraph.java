@@ -0,0 +1,216 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import com.mitchellbosecke.pebble.node.CacheNode;
+import com.mitchellbosecke.pebble.template.Macro;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which templates extend, include, import or embed which other templates as they are
+ * compiled, along with the cache tags and macros of every template, so that a template can be
+ * invalidated together with everything that depends on it. Templates are identified by the cache
+ * keys which the loader creates for them.
+ * <p>
+ * The compiled templates, their cache tags and macros are only referenced weakly, so that a
+ * template which has been evicted from the template cache is forgotten once it is collected.
+ */
+final class TemplateDependencyGraph {
+
+  /**
+   * What is recorded about every compiled template, by its cache key.
+   */
+  private final Map<Object, Template> templates = new HashMap<>();
+
+  /**
+   * The cache keys of the templates which reference a template, by the cache key of the latter.
+   */
+  private final Map<Object, Set<Object>> dependents = new HashMap<>();
+
+  /**
+   * The records of the templates which have been collected.
+   */
+  private final ReferenceQueue<PebbleTemplateImpl> collected = new ReferenceQueue<>();
+
+  /**
+   * Records a template which has just been compiled, replacing what was recorded about a previous
+   * compilation of it.
+   *
+   * @param cacheKey The cache key of the template
+   * @param instance The compiled template
+   * @param references The cache keys of the templates it references
+   * @param cacheNodes The cache tags of the template
+   * @param macros The macros of the template
+   */
+  synchronized void record(Object cacheKey, PebbleTemplateImpl instance, Set<Object> references,
+      Collection<CacheNode> cacheNodes, Collection<Macro> macros) {
+    this.purge();
+    this.forget(cacheKey);
+    this.templates.put(cacheKey,
+        new Template(cacheKey, instance, references, cacheNodes, macros, this.collected));
+    for (Object reference : references) {
+      this.dependents.computeIfAbsent(reference, k -> new HashSet<>()).add(cacheKey);
+    }
+  }
+
+  /**
+   * Forgets a template and all of the templates which depend on it, directly or indirectly.
+   *
+   * @param cacheKey The cache key of the template
+   * @return The forgotten templates along with their cache tags and macros
+   */
+  synchronized Invalidation remove(Object cacheKey) {
+    Invalidation invalidation = this.collect(cacheKey);
+    for (Object invalidated : invalidation.cacheKeys) {
+      this.forget(invalidated);
+    }
+    return invalidation;
+  }
+
+  /**
+   * Collects a template and all of the templates which depend on it, directly or indirectly,
+   * without forgetting them.
+   *
+   * @param cacheKey The cache key of the template
+   * @return The templates along with their cache tags and macros
+   */
+  synchronized Invalidation collect(Object cacheKey) {
+    this.purge();
+    Invalidation invalidation = new Invalidation();
+    Deque<Object> pending = new ArrayDeque<>();
+    pending.add(cacheKey);
+    Object key;
+    while ((key = pending.poll()) != null) {
+      if (!invalidation.cacheKeys.add(key)) {
+        continue;
+      }
+      pending.addAll(this.dependents.getOrDefault(key, Collections.emptySet()));
+      Template template = this.templates.get(key);
+      if (template != null) {
+        addReferents(template.cacheNodes, invalidation.cacheNodes);
+        addReferents(template.macros, invalidation.macros);
+      }
+    }
+    return invalidation;
+  }
+
+  /**
+   * Forgets the templates which have been collected, unless they have been compiled again since.
+   */
+  private void purge() {
+    Reference<? extends PebbleTemplateImpl> reference;
+    while ((reference = this.collected.poll()) != null) {
+      Template template = (Template) reference;
+      if (this.templates.get(template.cacheKey) == template) {
+        this.forget(template.cacheKey);
+      }
+    }
+  }
+
+  private void forget(Object cacheKey) {
+    Template template = this.templates.remove(cacheKey);
+    if (template == null) {
+      return;
+    }
+    for (Object reference : template.references) {
+      Set<Object> dependents = this.dependents.get(reference);
+      if (dependents != null) {
+        dependents.remove(cacheKey);
+        if (dependents.isEmpty()) {
+          this.dependents.remove(reference);
+        }
+      }
+    }
+  }
+
+  private static <T> List<WeakReference<T>> weakly(Collection<T> values) {
+    List<WeakReference<T>> references = new ArrayList<>(values.size());
+    for (T value : values) {
+      references.add(new WeakReference<>(value));
+    }
+    return references;
+  }
+
+  private static <T> void addReferents(List<WeakReference<T>> references, Set<T> values) {
+    for (WeakReference<T> reference : references) {
+      T value = reference.get();
+      if (value != null) {
+        values.add(value);
+      }
+    }
+  }
+
+  private static final class Template extends WeakReference<PebbleTemplateImpl> {
+
+    private final Object cacheKey;
+
+    private final Set<Object> references;
+
+    private final List<WeakReference<CacheNode>> cacheNodes;
+
+    private final List<WeakReference<Macro>> macros;
+
+    private Template(Object cacheKey, PebbleTemplateImpl instance, Set<Object> references,
+        Collection<CacheNode> cacheNodes, Collection<Macro> macros,
+        ReferenceQueue<PebbleTemplateImpl> queue) {
+      super(instance, queue);
+      this.cacheKey = cacheKey;
+      this.references = references;
+      this.cacheNodes = weakly(cacheNodes);
+      this.macros = weakly(macros);
+    }
+  }
+
+  /**
+   * The templates which have to be removed from the caches of the engine.
+   */
+  static final class Invalidation {
+
+    private final Set<Object> cacheKeys = new LinkedHashSet<>();
+
+    private final Set<CacheNode> cacheNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final Set<Macro> macros = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Set<Object> getCacheKeys() {
+      return this.cacheKeys;
+    }
+
+    boolean hasCacheNode(CacheNode cacheNode) {
+      return this.cacheNodes.contains(cacheNode);
+    }
+
+    boolean hasMacro(Macro macro) {
+      return this.macros.contains(macro);
+    }
+
+    boolean hasCacheNodes() {
+      return !this.cacheNodes.isEmpty();
+    }
+
+    boolean hasMacros() {
+      return !this.macros.isEmpty();
+    }
+  }
+}
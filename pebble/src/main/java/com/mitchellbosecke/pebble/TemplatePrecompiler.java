@@ -0,0 +1,89 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import com.mitchellbosecke.pebble.PrecompilationReport.TemplateResult;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+
+/**
+ * Compiles templates into the template cache of an engine in parallel, following the templates they
+ * reference by a literal name.
+ */
+final class TemplatePrecompiler {
+
+  private final PebbleEngine engine;
+
+  private final Executor executor;
+
+  private final Set<String> submitted = ConcurrentHashMap.newKeySet();
+
+  /**
+   * The compilations which have not been waited for yet. A compilation submits the compilations of
+   * the templates it references before it completes, so that all of them have been submitted once
+   * this queue has been drained.
+   */
+  private final Queue<CompletableFuture<Void>> pending = new ConcurrentLinkedQueue<>();
+
+  private final Queue<TemplateResult> results = new ConcurrentLinkedQueue<>();
+
+  TemplatePrecompiler(PebbleEngine engine, Executor executor) {
+    this.engine = engine;
+    this.executor = executor;
+  }
+
+  PrecompilationReport precompile(Collection<String> templateNames) {
+    long start = System.nanoTime();
+    for (String templateName : templateNames) {
+      this.submit(templateName, null);
+    }
+    CompletableFuture<Void> compilation;
+    while ((compilation = this.pending.poll()) != null) {
+      compilation.join();
+    }
+    List<TemplateResult> results = new ArrayList<>(this.results);
+    results.sort(Comparator.comparing(TemplateResult::getTemplateName));
+    return new PrecompilationReport(results, System.nanoTime() - start);
+  }
+
+  private void submit(String templateName, String referencedBy) {
+    if (this.submitted.add(templateName)) {
+      this.pending.add(CompletableFuture
+          .runAsync(() -> this.compile(templateName, referencedBy), this.executor));
+    }
+  }
+
+  private void compile(String templateName, String referencedBy) {
+    long start = System.nanoTime();
+    PebbleTemplate template;
+    try {
+      template = this.engine.getTemplate(templateName);
+    } catch (RuntimeException e) {
+      this.results.add(new TemplateResult(templateName, referencedBy, System.nanoTime() - start, e));
+      return;
+    }
+    this.results.add(new TemplateResult(templateName, referencedBy, System.nanoTime() - start, null));
+
+    if (template instanceof PebbleTemplateImpl) {
+      for (String reference : ((PebbleTemplateImpl) template).getReferencedTemplateNames()) {
+        this.submit(reference, templateName);
+      }
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import com.mitchellbosecke.pebble.cache.snapshot.TemplateSnapshot;
+import com.mitchellbosecke.pebble.cache.snapshot.TemplateSnapshotStore;
+import com.mitchellbosecke.pebble.error.ParserException;
+import com.mitchellbosecke.pebble.loader.Loader;
+import com.mitchellbosecke.pebble.node.RootNode;
+import com.mitchellbosecke.pebble.template.Block;
+import com.mitchellbosecke.pebble.template.Macro;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Restores templates from the snapshots of a {@link TemplateSnapshotStore}, and parses the
+ * templates whose snapshots are missing or out of date and stores new snapshots of them.
+ * <p>
+ * A snapshot holds the node tree as it is after the node visitors have run, along with the blocks
+ * and macros they registered, but before the tree is linked. Restoring a template therefore only
+ * leaves linking and the optional compilation to bytecode to be done.
+ */
+final class TemplateSnapshotter {
+
+  private static final Logger logger = LoggerFactory.getLogger(TemplateSnapshotter.class);
+
+  /**
+   * The classes besides those of Pebble itself which the node tree of a template may hold, such as
+   * the values of literals and of folded constants.
+   */
+  private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+      "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Double",
+      "java.lang.Enum", "java.lang.Float", "java.lang.Integer", "java.lang.Long",
+      "java.lang.Number", "java.lang.Short", "java.lang.String", "java.math.BigDecimal",
+      "java.math.BigInteger", "java.util.ArrayList", "java.util.Arrays$ArrayList",
+      "java.util.HashMap", "java.util.HashSet", "java.util.LinkedHashMap",
+      "java.util.LinkedHashSet", "java.util.LinkedList", "java.util.TreeMap",
+      "java.util.TreeSet"));
+
+  private static final String PEBBLE_PACKAGE = "com.mitchellbosecke.pebble.";
+
+  private final PebbleEngine engine;
+
+  private final TemplateSnapshotStore store;
+
+  private final String configuration;
+
+  TemplateSnapshotter(PebbleEngine engine, TemplateSnapshotStore store, String configuration) {
+    this.engine = engine;
+    this.store = store;
+    this.configuration = configuration;
+  }
+
+  PebbleTemplateImpl getTemplate(String templateName, Loader<?> loader, Object cacheKey,
+      Reader templateReader) {
+    String source = read(templateReader, templateName);
+    byte[] contentHash = TemplateSnapshot.hash(source);
+
+    TemplateSnapshot snapshot = this.store.load(loader, cacheKey);
+    if (snapshot != null && snapshot.isValid(this.configuration, contentHash)) {
+      PebbleTemplateImpl instance = this.restore(templateName, cacheKey, snapshot.getTree());
+      if (instance != null) {
+        return instance;
+      }
+    }
+
+    RootNode root = this.engine.parse(templateName, new StringReader(source));
+    PebbleTemplateImpl instance = new PebbleTemplateImpl(this.engine, root, templateName);
+    this.engine.visit(instance, root);
+    ByteBuffer tree = this.write(templateName, root, instance);
+    this.engine.link(instance, root, cacheKey);
+
+    if (tree != null) {
+      this.store.store(loader, cacheKey, new TemplateSnapshot(this.configuration, contentHash, tree));
+    }
+    return instance;
+  }
+
+  @SuppressWarnings("unchecked")
+  private PebbleTemplateImpl restore(String templateName, Object cacheKey, ByteBuffer tree) {
+    RootNode root;
+    Map<String, Block> blocks;
+    Map<String, Macro> macros;
+    try (ObjectInputStream in = new SnapshotInputStream(new ByteBufferInputStream(tree))) {
+      root = (RootNode) in.readObject();
+      blocks = (Map<String, Block>) in.readObject();
+      macros = (Map<String, Macro>) in.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      // the classes of the nodes changed since the snapshot has been taken, or the snapshot holds
+      // a class which a template never does
+      logger.debug("Could not restore template {} from its snapshot", templateName, e);
+      return null;
+    }
+
+    PebbleTemplateImpl instance = new PebbleTemplateImpl(this.engine, root, templateName);
+    for (Block block : blocks.values()) {
+      instance.registerBlock(block);
+    }
+    for (Entry<String, Macro> macro : macros.entrySet()) {
+      instance.registerMacro(macro.getKey(), macro.getValue());
+    }
+    this.engine.link(instance, root, cacheKey);
+    return instance;
+  }
+
+  private ByteBuffer write(String templateName, RootNode root, PebbleTemplateImpl instance) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(root);
+      out.writeObject(new HashMap<>(instance.getBlocks()));
+      out.writeObject(new HashMap<>(instance.getMacros()));
+    } catch (IOException e) {
+      // a node which is not serializable
+      logger.debug("Could not take a snapshot of template {}", templateName, e);
+      return null;
+    }
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  private static String read(Reader reader, String templateName) {
+    StringBuilder source = new StringBuilder();
+    char[] buffer = new char[1024 * 4];
+    int amountJustRead;
+    try {
+      while ((amountJustRead = reader.read(buffer)) != -1) {
+        source.append(buffer, 0, amountJustRead);
+      }
+    } catch (IOException e) {
+      throw new ParserException(e, "Can not convert template Reader into a String", 0,
+          templateName);
+    }
+    return source.toString();
+  }
+
+  /**
+   * Only resolves the classes which the node tree of a template is made of, so that a tampered
+   * snapshot can not make any other class be instantiated.
+   */
+  private static final class SnapshotInputStream extends ObjectInputStream {
+
+    SnapshotInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc)
+        throws IOException, ClassNotFoundException {
+      if (!isAllowed(desc.getName())) {
+        throw new InvalidClassException(desc.getName(), "Not allowed in a template snapshot");
+      }
+      return super.resolveClass(desc);
+    }
+
+    @Override
+    protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+      throw new InvalidClassException("Proxies are not allowed in a template snapshot");
+    }
+
+    private static boolean isAllowed(String className) {
+      String name = className;
+      if (name.startsWith("[")) {
+        String component = name.substring(name.lastIndexOf('[') + 1);
+        if (!component.startsWith("L")) {
+          // an array of primitives
+          return true;
+        }
+        name = component.substring(1, component.length() - 1);
+      }
+      return name.startsWith(PEBBLE_PACKAGE)
+          || ALLOWED_CLASSES.contains(name)
+          || name.startsWith("java.util.Collections$");
+    }
+  }
+
+  /**
+   * Reads a buffer, which is typically a memory-mapped file, without copying it first.
+   */
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, this.buffer.remaining());
+      this.buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return this.buffer.remaining();
+    }
+  }
+}
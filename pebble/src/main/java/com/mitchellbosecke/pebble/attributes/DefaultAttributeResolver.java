@@ -3,16 +3,13 @@ package com.mitchellbosecke.pebble.attributes;
 import com.mitchellbosecke.pebble.node.ArgumentsNode;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.MacroAttributeProvider;
-import com.mitchellbosecke.pebble.utils.TypeUtils;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Member;
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 
 public class DefaultAttributeResolver implements AttributeResolver {
 
+  private static final Class<?>[] NO_ARGUMENT_TYPES = new Class<?>[0];
+
   private final MemberCacheUtils memberCacheUtils = new MemberCacheUtils();
 
   @Override
@@ -23,12 +20,30 @@ public class DefaultAttributeResolver implements AttributeResolver {
       EvaluationContextImpl context,
       String filename,
       int lineNumber) {
+    return this.resolve(instance, attributeNameValue, argumentValues, args, context, filename,
+        lineNumber, null);
+  }
+
+  /**
+   * Resolves the attribute like {@link #resolve(Object, Object, Object[], ArgumentsNode,
+   * EvaluationContextImpl, String, int)} and additionally records the member that was used, if
+   * any, in the given inline cache of the call site.
+   */
+  public ResolvedAttribute resolve(Object instance,
+      Object attributeNameValue,
+      Object[] argumentValues,
+      ArgumentsNode args,
+      EvaluationContextImpl context,
+      String filename,
+      int lineNumber,
+      MemberInlineCache inlineCache) {
     if (instance != null) {
       String attributeName = String.valueOf(attributeNameValue);
 
       Class<?>[] argumentTypes = this.getArgumentTypes(argumentValues);
-      Member member = this.memberCacheUtils.getMember(instance, attributeName, argumentTypes);
-      if (member == null) {
+      MemberAccessor accessor = this.memberCacheUtils
+          .getMember(instance, attributeName, argumentTypes);
+      if (accessor == null || accessor == MemberCacheUtils.MISSING) {
         if (argumentValues == null) {
 
           // first we check maps
@@ -59,12 +74,18 @@ public class DefaultAttributeResolver implements AttributeResolver {
                   lineNumber);
         }
 
-        member = this.memberCacheUtils
-            .cacheMember(instance, attributeName, argumentTypes, context, filename, lineNumber);
+        // attributes which are known not to exist are not looked up again
+        if (accessor == null) {
+          accessor = this.memberCacheUtils
+              .cacheMember(instance, attributeName, argumentTypes, context, filename, lineNumber);
+        }
       }
 
-      if (member != null) {
-        return new ResolvedAttribute(this.invokeMember(instance, member, argumentValues));
+      if (accessor != MemberCacheUtils.MISSING) {
+        if (inlineCache != null) {
+          inlineCache.record(instance.getClass(), attributeNameValue, argumentTypes, accessor);
+        }
+        return new ResolvedAttribute(accessor.invoke(instance, argumentValues));
       }
     }
     return null;
@@ -85,26 +106,29 @@ public class DefaultAttributeResolver implements AttributeResolver {
       return argumentTypes;
     }
 
-    return new Class<?>[0];
+    return NO_ARGUMENT_TYPES;
   }
 
   /**
-   * Invoke the "Member" that was found via reflection.
+   * Returns how often a class had to be searched via reflection for an attribute, i.e. how often
+   * an attribute was neither found in the member cache nor known to be missing.
    */
-  private Object invokeMember(Object object, Member member, Object[] argumentValues) {
-    Object result = null;
-    try {
-      if (member instanceof Method) {
-        argumentValues = TypeUtils
-            .compatibleCast(argumentValues, ((Method) member).getParameterTypes());
-        result = ((Method) member).invoke(object, argumentValues);
-      } else if (member instanceof Field) {
-        result = ((Field) member).get(object);
-      }
+  public long getReflectiveLookups() {
+    return this.memberCacheUtils.getReflectiveLookups();
+  }
 
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      throw new RuntimeException(e);
-    }
-    return result;
+  /**
+   * Returns the number of members which are invoked through reflection, either because no accessor
+   * could be generated for them or because generated accessors are disabled.
+   */
+  public long getReflectiveAccessors() {
+    return this.memberCacheUtils.getReflectiveAccessors();
+  }
+
+  /**
+   * Returns how often an attribute was skipped because it is known not to exist.
+   */
+  public long getMissingMemberHits() {
+    return this.memberCacheUtils.getMissingMemberHits();
   }
 }
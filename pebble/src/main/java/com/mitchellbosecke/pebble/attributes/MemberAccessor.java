@@ -0,0 +1,20 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.attributes;
+
+/**
+ * Reads an attribute of an object through the "Member" (method or field) that was found via
+ * reflection, coercing the arguments to the parameter types of a method if necessary.
+ *
+ * @see MemberAccessors
+ */
+interface MemberAccessor {
+
+  Object invoke(Object instance, Object[] argumentValues);
+}
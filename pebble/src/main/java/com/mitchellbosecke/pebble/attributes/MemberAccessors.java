@@ -0,0 +1,224 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.attributes;
+
+import com.mitchellbosecke.pebble.utils.TypeUtils;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the {@link MemberAccessor}s used by the {@link DefaultAttributeResolver}.
+ * <p>
+ * Generated accessors are built once per member: public getters of public classes become a
+ * {@link Function} spun by the {@link LambdaMetafactory}, every other member a {@link MethodHandle}
+ * which already contains the coercion of each argument to its parameter type. If an accessor can
+ * not be generated, the member is invoked through reflection instead.
+ */
+final class MemberAccessors {
+
+  private static final Logger logger = LoggerFactory.getLogger(MemberAccessors.class);
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  private static final MethodType GENERIC_TYPE = MethodType
+      .methodType(Object.class, Object.class, Object[].class);
+
+  private static final MethodHandle COMPATIBLE_CAST;
+
+  static {
+    try {
+      COMPATIBLE_CAST = LOOKUP.findStatic(TypeUtils.class, "compatibleCast",
+          MethodType.methodType(Object.class, Object.class, Class.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  private MemberAccessors() {
+  }
+
+  static MemberAccessor reflective(Member member) {
+    return new ReflectiveAccessor(member);
+  }
+
+  static boolean isReflective(MemberAccessor accessor) {
+    return accessor instanceof ReflectiveAccessor;
+  }
+
+  static MemberAccessor generate(Member member) {
+    try {
+      if (member instanceof Method) {
+        Method method = (Method) member;
+        if (method.getParameterCount() == 0 && isLinkable(method)) {
+          return new FunctionAccessor(method, spinGetter(method));
+        }
+        return new MethodHandleAccessor(member, methodHandle(method));
+      }
+      return new MethodHandleAccessor(member, fieldHandle((Field) member));
+    } catch (Throwable e) {
+      logger.debug("Could not generate an accessor for {}, using reflection instead.", member, e);
+      return reflective(member);
+    }
+  }
+
+  /**
+   * A lambda can only be spun for a method which the generated class (defined next to this class)
+   * is able to link against.
+   */
+  private static boolean isLinkable(Method method) {
+    Class<?> declaringClass = method.getDeclaringClass();
+    if (!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers())
+        || !Modifier.isPublic(declaringClass.getModifiers())
+        || method.getReturnType() == void.class) {
+      return false;
+    }
+    try {
+      return Class.forName(declaringClass.getName(), false,
+          MemberAccessors.class.getClassLoader()) == declaringClass;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Function<Object, Object> spinGetter(Method method) throws Throwable {
+    MethodHandle target = LOOKUP.unreflect(method);
+    CallSite site = LambdaMetafactory.metafactory(LOOKUP,
+        "apply",
+        MethodType.methodType(Function.class),
+        MethodType.methodType(Object.class, Object.class),
+        target,
+        target.type().wrap());
+    return (Function<Object, Object>) site.getTarget().invokeExact();
+  }
+
+  private static MethodHandle methodHandle(Method method) throws IllegalAccessException {
+    MethodHandle handle = LOOKUP.unreflect(method);
+    if (Modifier.isStatic(method.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    Class<?>[] parameterTypes = method.getParameterTypes();
+    for (int i = 0; i < parameterTypes.length; i++) {
+      MethodHandle cast = MethodHandles.insertArguments(COMPATIBLE_CAST, 1, parameterTypes[i])
+          .asType(MethodType.methodType(parameterTypes[i], Object.class));
+      handle = MethodHandles.filterArguments(handle, i + 1, cast);
+    }
+    return handle.asType(handle.type().generic())
+        .asSpreader(Object[].class, parameterTypes.length);
+  }
+
+  private static MethodHandle fieldHandle(Field field) throws IllegalAccessException {
+    MethodHandle handle = LOOKUP.unreflectGetter(field);
+    if (Modifier.isStatic(field.getModifiers())) {
+      handle = MethodHandles.dropArguments(handle, 0, Object.class);
+    }
+    return MethodHandles.dropArguments(handle.asType(handle.type().generic()), 1, Object[].class);
+  }
+
+  /**
+   * Wraps exceptions the same way as {@link Method#invoke(Object, Object...)} does so that
+   * generated and reflective accessors fail identically.
+   */
+  private static RuntimeException wrap(Throwable e) {
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    return new RuntimeException(new InvocationTargetException(e));
+  }
+
+  private static final class FunctionAccessor implements MemberAccessor {
+
+    private final Method method;
+
+    private final Function<Object, Object> getter;
+
+    FunctionAccessor(Method method, Function<Object, Object> getter) {
+      this.method = method;
+      this.getter = getter;
+    }
+
+    @Override
+    public Object invoke(Object instance, Object[] argumentValues) {
+      try {
+        return this.getter.apply(instance);
+      } catch (RuntimeException e) {
+        throw wrap(e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return this.method.toString();
+    }
+  }
+
+  private static final class MethodHandleAccessor implements MemberAccessor {
+
+    private final Member member;
+
+    private final MethodHandle handle;
+
+    MethodHandleAccessor(Member member, MethodHandle handle) {
+      this.member = member;
+      this.handle = handle.asType(GENERIC_TYPE);
+    }
+
+    @Override
+    public Object invoke(Object instance, Object[] argumentValues) {
+      try {
+        return (Object) this.handle.invokeExact(instance, argumentValues);
+      } catch (Throwable e) {
+        throw wrap(e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return this.member.toString();
+    }
+  }
+
+  private static final class ReflectiveAccessor implements MemberAccessor {
+
+    private final Member member;
+
+    ReflectiveAccessor(Member member) {
+      this.member = member;
+    }
+
+    @Override
+    public Object invoke(Object instance, Object[] argumentValues) {
+      Object result = null;
+      try {
+        if (this.member instanceof Method) {
+          argumentValues = TypeUtils
+              .compatibleCast(argumentValues, ((Method) this.member).getParameterTypes());
+          result = ((Method) this.member).invoke(instance, argumentValues);
+        } else if (this.member instanceof Field) {
+          result = ((Field) this.member).get(instance);
+        }
+
+      } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+        throw new RuntimeException(e);
+      }
+      return result;
+    }
+  }
+}
@@ -14,28 +14,86 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Resolves and caches the members which are used to read attributes of java objects.
+ * <p>
+ * The resolved members of a class are kept in a table which is attached to the class itself
+ * through a {@link ClassValue}, so that the cache does not keep the class (and its class loader)
+ * alive once it is no longer used elsewhere. Attributes which do not exist are recorded too, so
+ * that a missing attribute only reflects over the class once.
+ */
 class MemberCacheUtils {
+
+  /**
+   * Recorded for attributes which do not exist on a class.
+   */
+  static final MemberAccessor MISSING = (instance, argumentValues) -> {
+    throw new IllegalStateException("Attribute does not exist");
+  };
+
   private final UnsafeMethods unsafeMethods = new UnsafeMethods();
-  private final ConcurrentHashMap<MemberCacheKey, Member> memberCache = new ConcurrentHashMap<>(100,
-      0.9f, 1);
 
-  Member getMember(Object instance, String attributeName, Class<?>[] argumentTypes) {
-    return this.memberCache.get(new MemberCacheKey(instance.getClass(), attributeName, argumentTypes));
+  private final ClassValue<ClassMembers> classMembers = new ClassMembersValue();
+
+  private final LongAdder reflectiveLookups = new LongAdder();
+
+  private final LongAdder reflectiveAccessors = new LongAdder();
+
+  private final LongAdder missingMemberHits = new LongAdder();
+
+  /**
+   * Returns the cached accessor, {@link #MISSING} if the attribute is known not to exist or null if
+   * it has not been looked up yet.
+   */
+  MemberAccessor getMember(Object instance, String attributeName, Class<?>[] argumentTypes) {
+    MemberAccessor accessor = this.classMembers.get(instance.getClass())
+        .get(attributeName, argumentTypes);
+    if (accessor == MISSING) {
+      this.missingMemberHits.increment();
+    }
+    return accessor;
   }
 
-  Member cacheMember(Object instance,
+  /**
+   * Looks the member up via reflection and caches the result, returns {@link #MISSING} if there
+   * is no such member.
+   */
+  MemberAccessor cacheMember(Object instance,
       String attributeName,
       Class<?>[] argumentTypes,
       EvaluationContextImpl context,
       String filename,
       int lineNumber) {
+    this.reflectiveLookups.increment();
     Member member = this.reflect(instance, attributeName, argumentTypes, filename, lineNumber,
         context.getEvaluationOptions());
-    if (member != null) {
-      this.memberCache.put(new MemberCacheKey(instance.getClass(), attributeName, argumentTypes), member);
+    MemberAccessor accessor;
+    if (member == null) {
+      accessor = MISSING;
+    } else {
+      accessor = context.getEvaluationOptions().isGenerateAttributeAccessors()
+          ? MemberAccessors.generate(member)
+          : MemberAccessors.reflective(member);
+      if (MemberAccessors.isReflective(accessor)) {
+        this.reflectiveAccessors.increment();
+      }
     }
-    return member;
+    this.classMembers.get(instance.getClass()).put(attributeName, argumentTypes, accessor);
+    return accessor;
+  }
+
+  long getReflectiveLookups() {
+    return this.reflectiveLookups.sum();
+  }
+
+  long getReflectiveAccessors() {
+    return this.reflectiveAccessors.sum();
+  }
+
+  long getMissingMemberHits() {
+    return this.missingMemberHits.sum();
   }
 
   /**
@@ -228,14 +286,48 @@ class MemberCacheUtils {
     return Number.class.isAssignableFrom(widenType) && Number.class.isAssignableFrom(type2);
   }
 
-  private class MemberCacheKey {
+  private static final class ClassMembersValue extends ClassValue<ClassMembers> {
+
+    @Override
+    protected ClassMembers computeValue(Class<?> type) {
+      return new ClassMembers();
+    }
+  }
+
+  /**
+   * The resolution table of a single class. Attributes without arguments, i.e. getters and fields,
+   * are looked up by their name alone.
+   */
+  private static final class ClassMembers {
+
+    private final ConcurrentHashMap<String, MemberAccessor> properties =
+        new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<MemberCacheKey, MemberAccessor> methods =
+        new ConcurrentHashMap<>();
+
+    MemberAccessor get(String attributeName, Class<?>[] argumentTypes) {
+      if (argumentTypes.length == 0) {
+        return this.properties.get(attributeName);
+      }
+      return this.methods.get(new MemberCacheKey(attributeName, argumentTypes));
+    }
+
+    void put(String attributeName, Class<?>[] argumentTypes, MemberAccessor accessor) {
+      if (argumentTypes.length == 0) {
+        this.properties.put(attributeName, accessor);
+      } else {
+        this.methods.put(new MemberCacheKey(attributeName, argumentTypes), accessor);
+      }
+    }
+  }
+
+  private static final class MemberCacheKey {
 
-    private final Class<?> clazz;
     private final String attributeName;
     private final Class<?>[] methodParameterTypes;
 
-    public MemberCacheKey(Class<?> clazz, String attributeName, Class<?>[] methodParameterTypes) {
-      this.clazz = clazz;
+    MemberCacheKey(String attributeName, Class<?>[] methodParameterTypes) {
       this.attributeName = attributeName;
       this.methodParameterTypes = methodParameterTypes;
     }
@@ -251,9 +343,6 @@ class MemberCacheUtils {
 
       MemberCacheKey that = (MemberCacheKey) o;
 
-      if (!this.clazz.equals(that.clazz)) {
-        return false;
-      }
       if (!this.attributeName.equals(that.attributeName)) {
         return false;
       }
@@ -263,8 +352,7 @@ class MemberCacheUtils {
 
     @Override
     public int hashCode() {
-      int result = this.clazz.hashCode();
-      result = 31 * result + this.attributeName.hashCode();
+      int result = this.attributeName.hashCode();
       result = 31 * result + Arrays.hashCode(this.methodParameterTypes);
       return result;
     }
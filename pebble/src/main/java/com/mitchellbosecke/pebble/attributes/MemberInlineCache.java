@@ -0,0 +1,104 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.attributes;
+
+/**
+ * A small inline cache which is stored on a single attribute access of a template, for example
+ * the "city" in {@code user.address.city}. It remembers the accessors of the members that the
+ * {@link DefaultAttributeResolver} found for the last few receiver classes (and argument classes)
+ * so that a hit invokes the accessor directly, without allocating a lookup key or consulting the
+ * shared member cache.
+ * <p>
+ * Once more than {@link #MAX_ENTRIES} different receivers have been seen the call site is
+ * considered megamorphic and nothing is cached any more.
+ */
+public final class MemberInlineCache {
+
+  /**
+   * Returned by {@link #invoke(Object, Object, Object[])} if there is no cached member for the
+   * given receiver and arguments.
+   */
+  public static final Object MISS = new Object();
+
+  static final int MAX_ENTRIES = 4;
+
+  private static final Entry[] EMPTY = new Entry[0];
+
+  private volatile Entry[] entries = EMPTY;
+
+  private volatile boolean megamorphic;
+
+  public Object invoke(Object instance, Object attributeNameValue, Object[] argumentValues) {
+    Class<?> clazz = instance.getClass();
+    for (Entry entry : this.entries) {
+      if (entry.clazz == clazz && entry.matches(attributeNameValue, argumentValues)) {
+        return entry.invoke(instance, argumentValues);
+      }
+    }
+    return MISS;
+  }
+
+  void record(Class<?> clazz, Object attributeNameValue, Class<?>[] argumentTypes,
+      MemberAccessor accessor) {
+    if (this.megamorphic || attributeNameValue == null) {
+      return;
+    }
+    Entry[] current = this.entries;
+    if (current.length == MAX_ENTRIES) {
+      this.megamorphic = true;
+      this.entries = EMPTY;
+      return;
+    }
+    Entry[] updated = new Entry[current.length + 1];
+    System.arraycopy(current, 0, updated, 0, current.length);
+    updated[current.length] = new Entry(clazz, attributeNameValue, argumentTypes, accessor);
+    this.entries = updated;
+  }
+
+  private static final class Entry {
+
+    private final Class<?> clazz;
+
+    private final Object attributeNameValue;
+
+    private final Class<?>[] argumentTypes;
+
+    private final MemberAccessor accessor;
+
+    Entry(Class<?> clazz, Object attributeNameValue, Class<?>[] argumentTypes,
+        MemberAccessor accessor) {
+      this.clazz = clazz;
+      this.attributeNameValue = attributeNameValue;
+      this.argumentTypes = argumentTypes;
+      this.accessor = accessor;
+    }
+
+    boolean matches(Object attributeNameValue, Object[] argumentValues) {
+      if (this.attributeNameValue != attributeNameValue
+          && !this.attributeNameValue.equals(attributeNameValue)) {
+        return false;
+      }
+      int length = argumentValues == null ? 0 : argumentValues.length;
+      if (length != this.argumentTypes.length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        Object argument = argumentValues[i];
+        if ((argument == null ? null : argument.getClass()) != this.argumentTypes[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    Object invoke(Object instance, Object[] argumentValues) {
+      return this.accessor.invoke(instance, argumentValues);
+    }
+  }
+}
@@ -1,7 +1,10 @@
 package com.mitchellbosecke.pebble.cache;
 
 import com.mitchellbosecke.pebble.node.CacheNode;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Locale;
+import java.util.Set;
 
 /**
  * Key to be used in the cache
@@ -13,11 +16,67 @@ public final class CacheKey {
   private final CacheNode node;
   private final String name;
   private final Locale locale;
+  private final Duration timeToLive;
+  private final Set<String> groups;
 
   public CacheKey(CacheNode node, String name, Locale locale) {
+    this(node, name, locale, null, Collections.emptySet());
+  }
+
+  /**
+   * The time to live and the groups describe the fragment which is cached under the key. They are
+   * not part of its identity.
+   *
+   * @param node The cache tag
+   * @param name The name of the fragment
+   * @param locale The locale the fragment is rendered in
+   * @param timeToLive How long the fragment is kept after it has been rendered, or {@code null} to
+   *        keep it until it is evicted
+   * @param groups The groups which invalidate the fragment together
+   */
+  public CacheKey(CacheNode node, String name, Locale locale, Duration timeToLive,
+      Set<String> groups) {
     this.node = node;
     this.name = name;
     this.locale = locale;
+    this.timeToLive = timeToLive;
+    this.groups = groups;
+  }
+
+  /**
+   * @return The cache tag which rendered the fragment
+   */
+  public CacheNode getNode() {
+    return this.node;
+  }
+
+  /**
+   * @return The name of the fragment
+   */
+  public String getName() {
+    return this.name;
+  }
+
+  /**
+   * @return The locale the fragment is rendered in
+   */
+  public Locale getLocale() {
+    return this.locale;
+  }
+
+  /**
+   * @return How long the fragment is kept after it has been rendered, or {@code null} if it is kept
+   * until it is evicted
+   */
+  public Duration getTimeToLive() {
+    return this.timeToLive;
+  }
+
+  /**
+   * @return The groups which invalidate the fragment together
+   */
+  public Set<String> getGroups() {
+    return this.groups;
   }
 
   /**
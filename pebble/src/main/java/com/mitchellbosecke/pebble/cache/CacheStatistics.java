@@ -0,0 +1,57 @@
+package com.mitchellbosecke.pebble.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the lookups of a cache and how many of them had to compute the value, as well as the
+ * values which were computed without a lookup since they could not be cached.
+ */
+public final class CacheStatistics {
+
+  private final LongAdder requests = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  private final LongAdder uncacheable = new LongAdder();
+
+  public void recordRequest() {
+    this.requests.increment();
+  }
+
+  public void recordMiss() {
+    this.misses.increment();
+  }
+
+  public void recordUncacheable() {
+    this.uncacheable.increment();
+  }
+
+  public long getRequestCount() {
+    return this.requests.sum();
+  }
+
+  public long getHitCount() {
+    return Math.max(0, this.requests.sum() - this.misses.sum());
+  }
+
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  public long getUncacheableCount() {
+    return this.uncacheable.sum();
+  }
+
+  public void reset() {
+    this.requests.reset();
+    this.misses.reset();
+    this.uncacheable.reset();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("CacheStatistics[requests=%d, hits=%d, misses=%d, uncacheable=%d]",
+        this.getRequestCount(), this.getHitCount(), this.getMissCount(),
+        this.getUncacheableCount());
+  }
+}
@@ -0,0 +1,74 @@
+package com.mitchellbosecke.pebble.cache;
+
+import com.mitchellbosecke.pebble.template.Macro;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Key of the output of a cached macro: the macro itself, the locale and the values of all
+ * arguments.
+ */
+public final class MacroCacheKey {
+
+  private final Macro macro;
+
+  private final Locale locale;
+
+  private final Map<String, Object> args;
+
+  /**
+   * @param macro The macro
+   * @param locale The locale of the evaluation
+   * @param args The arguments, which must not change afterwards
+   */
+  public MacroCacheKey(Macro macro, Locale locale, Map<String, Object> args) {
+    this.macro = macro;
+    this.locale = locale;
+    this.args = args;
+  }
+
+  public Macro getMacro() {
+    return this.macro;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see Object#equals(Object)
+   */
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (obj == null || this.getClass() != obj.getClass()) {
+      return false;
+    }
+    MacroCacheKey other = (MacroCacheKey) obj;
+    if (this.macro != other.macro) {
+      return false;
+    }
+    if (this.locale == null) {
+      if (other.locale != null) {
+        return false;
+      }
+    } else if (!this.locale.equals(other.locale)) {
+      return false;
+    }
+    return this.args.equals(other.args);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    final int prime = 31;
+    int result = System.identityHashCode(this.macro);
+    result = prime * result + ((this.locale == null) ? 0 : this.locale.hashCode());
+    result = prime * result + this.args.hashCode();
+    return result;
+  }
+}
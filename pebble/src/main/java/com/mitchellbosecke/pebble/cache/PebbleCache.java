@@ -1,10 +1,41 @@
 package com.mitchellbosecke.pebble.cache;
 
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public interface PebbleCache<K, V> {
 
   V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction);
 
+  /**
+   * Associates a value with a key, replacing the previous value in one step. Caches which can not
+   * replace values remove the entry instead, so that the value is computed again on its next use.
+   *
+   * @param key The key
+   * @param value The new value
+   */
+  default void put(K key, V value) {
+    this.invalidate(key);
+  }
+
+  /**
+   * Removes the entry of a key. Caches which can not remove single entries remove all of them.
+   *
+   * @param key The key
+   */
+  default void invalidate(K key) {
+    this.invalidateAll();
+  }
+
+  /**
+   * Removes the entries whose keys match. Caches which can not enumerate their keys remove all
+   * entries.
+   *
+   * @param predicate Whether the entry of a key has to be removed
+   */
+  default void invalidateAll(Predicate<? super K> predicate) {
+    this.invalidateAll();
+  }
+
   void invalidateAll();
 }
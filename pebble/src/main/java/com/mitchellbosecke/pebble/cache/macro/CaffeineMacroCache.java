@@ -0,0 +1,53 @@
+package com.mitchellbosecke.pebble.cache.macro;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mitchellbosecke.pebble.cache.MacroCacheKey;
+import com.mitchellbosecke.pebble.cache.PebbleCache;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the output of cached macros in a Caffeine cache. The output is computed outside of the
+ * cache because a cached macro may call another cached macro.
+ */
+public class CaffeineMacroCache implements PebbleCache<MacroCacheKey, Object> {
+
+  private final Cache<MacroCacheKey, Object> macroCache;
+
+  public CaffeineMacroCache() {
+    this.macroCache = Caffeine.newBuilder()
+        .maximumSize(1000)
+        .build();
+  }
+
+  public CaffeineMacroCache(Cache<MacroCacheKey, Object> macroCache) {
+    this.macroCache = macroCache;
+  }
+
+  @Override
+  public Object computeIfAbsent(MacroCacheKey key,
+      Function<? super MacroCacheKey, ?> mappingFunction) {
+    Object value = this.macroCache.getIfPresent(key);
+    if (value == null) {
+      value = mappingFunction.apply(key);
+      this.macroCache.put(key, value);
+    }
+    return value;
+  }
+
+  @Override
+  public void invalidate(MacroCacheKey key) {
+    this.macroCache.invalidate(key);
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super MacroCacheKey> predicate) {
+    this.macroCache.asMap().keySet().removeIf(predicate);
+  }
+
+  @Override
+  public void invalidateAll() {
+    this.macroCache.invalidateAll();
+  }
+}
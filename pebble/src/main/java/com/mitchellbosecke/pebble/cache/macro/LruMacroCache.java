@@ -0,0 +1,81 @@
+package com.mitchellbosecke.pebble.cache.macro;
+
+import com.mitchellbosecke.pebble.cache.MacroCacheKey;
+import com.mitchellbosecke.pebble.cache.PebbleCache;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the output of cached macros in a map. Once the map holds the maximum number of entries,
+ * the least recently used output is evicted.
+ * <p>
+ * A cached macro may call another cached macro while its output is computed, which is why the
+ * output is computed outside of the lock of the map.
+ */
+public class LruMacroCache implements PebbleCache<MacroCacheKey, Object> {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 1000;
+
+  /**
+   * Access ordered, guarded by itself.
+   */
+  private final Map<MacroCacheKey, Object> macroCache;
+
+  public LruMacroCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public LruMacroCache(int maximumSize) {
+    this.macroCache = new LinkedHashMap<MacroCacheKey, Object>(16, 0.75f, true) {
+
+      private static final long serialVersionUID = 6867005965880882181L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<MacroCacheKey, Object> eldest) {
+        return this.size() > maximumSize;
+      }
+    };
+  }
+
+  @Override
+  public Object computeIfAbsent(MacroCacheKey key,
+      Function<? super MacroCacheKey, ?> mappingFunction) {
+    Object value;
+    synchronized (this.macroCache) {
+      value = this.macroCache.get(key);
+    }
+    if (value == null) {
+      value = mappingFunction.apply(key);
+      synchronized (this.macroCache) {
+        Object previous = this.macroCache.putIfAbsent(key, value);
+        if (previous != null) {
+          value = previous;
+        }
+      }
+    }
+    return value;
+  }
+
+  @Override
+  public void invalidate(MacroCacheKey key) {
+    synchronized (this.macroCache) {
+      this.macroCache.remove(key);
+    }
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super MacroCacheKey> predicate) {
+    synchronized (this.macroCache) {
+      this.macroCache.keySet().removeIf(predicate);
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    synchronized (this.macroCache) {
+      this.macroCache.clear();
+    }
+  }
+}
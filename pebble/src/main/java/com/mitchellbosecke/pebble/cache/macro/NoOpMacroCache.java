@@ -0,0 +1,24 @@
+package com.mitchellbosecke.pebble.cache.macro;
+
+import com.mitchellbosecke.pebble.cache.MacroCacheKey;
+import com.mitchellbosecke.pebble.cache.PebbleCache;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+public class NoOpMacroCache implements PebbleCache<MacroCacheKey, Object> {
+
+  @Override
+  public Object computeIfAbsent(MacroCacheKey key,
+      Function<? super MacroCacheKey, ?> mappingFunction) {
+    return mappingFunction.apply(key);
+  }
+
+  @Override
+  public void invalidate(MacroCacheKey key) {}
+
+  @Override
+  public void invalidateAll(Predicate<? super MacroCacheKey> predicate) {}
+
+  @Override
+  public void invalidateAll() {}
+}
@@ -0,0 +1,127 @@
+package com.mitchellbosecke.pebble.cache.snapshot;
+
+import com.mitchellbosecke.pebble.loader.Loader;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps every snapshot in a file of a directory. The files are memory-mapped when they are loaded,
+ * so that the node tree is deserialized straight from the page cache.
+ * <p>
+ * The name of a file is the hash of the class of the loader and of the cache key, which is why the
+ * cache keys have to describe the template by their string representation. Files are replaced
+ * atomically, so the directory can be shared by several engines. It must not be writable by
+ * anybody who should not be able to run code in the application, as snapshots are deserialized.
+ */
+public class MappedFileTemplateSnapshotStore implements TemplateSnapshotStore {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(MappedFileTemplateSnapshotStore.class);
+
+  private static final int MAGIC = 0x50454253;
+
+  private static final int VERSION = 1;
+
+  private static final String SUFFIX = ".snapshot";
+
+  private final Path directory;
+
+  /**
+   * @param directory The directory of the snapshot files, which is created if necessary
+   */
+  public MappedFileTemplateSnapshotStore(Path directory) {
+    this.directory = directory;
+  }
+
+  @Override
+  public TemplateSnapshot load(Loader<?> loader, Object cacheKey) {
+    Path file = this.getFile(loader, cacheKey);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+      String configuration = new String(readBytes(buffer), StandardCharsets.UTF_8);
+      byte[] contentHash = readBytes(buffer);
+      return new TemplateSnapshot(configuration, contentHash, buffer.slice());
+    } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+      logger.debug("Could not read template snapshot {}", file, e);
+      return null;
+    }
+  }
+
+  @Override
+  public void store(Loader<?> loader, Object cacheKey, TemplateSnapshot snapshot) {
+    Path file = this.getFile(loader, cacheKey);
+    Path temporaryFile = null;
+    try {
+      Files.createDirectories(this.directory);
+      temporaryFile = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+
+      byte[] configuration = snapshot.getConfiguration().getBytes(StandardCharsets.UTF_8);
+      byte[] contentHash = snapshot.getContentHash();
+      ByteBuffer header = ByteBuffer.allocate(16 + configuration.length + contentHash.length);
+      header.putInt(MAGIC).putInt(VERSION);
+      header.putInt(configuration.length).put(configuration);
+      header.putInt(contentHash.length).put(contentHash);
+      ((Buffer) header).flip();
+
+      try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+        ByteBuffer tree = snapshot.getTree();
+        ByteBuffer[] buffers = {header, tree};
+        while (header.hasRemaining() || tree.hasRemaining()) {
+          channel.write(buffers);
+        }
+      }
+      try {
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      logger.warn("Could not write template snapshot {}", file, e);
+      if (temporaryFile != null) {
+        try {
+          Files.deleteIfExists(temporaryFile);
+        } catch (IOException ignored) {
+          // nothing else to do about it
+        }
+      }
+    }
+  }
+
+  private Path getFile(Loader<?> loader, Object cacheKey) {
+    byte[] hash = TemplateSnapshot.hash(loader.getClass().getName() + '\n' + cacheKey);
+    StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+    for (byte b : hash) {
+      name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return this.directory.resolve(name.append(SUFFIX).toString());
+  }
+
+  private static byte[] readBytes(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IllegalArgumentException("Corrupt snapshot header");
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return bytes;
+  }
+}
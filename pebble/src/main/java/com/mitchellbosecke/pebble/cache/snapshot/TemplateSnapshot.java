@@ -0,0 +1,72 @@
+package com.mitchellbosecke.pebble.cache.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * A parsed template in its binary form, as kept by a {@link TemplateSnapshotStore}.
+ * <p>
+ * A snapshot is stamped with the configuration of the engine which parsed the template and with
+ * the hash of the source it was parsed from. It can only be used by an engine with the same
+ * configuration, as long as the source has not changed.
+ */
+public final class TemplateSnapshot {
+
+  private final String configuration;
+
+  private final byte[] contentHash;
+
+  private final ByteBuffer tree;
+
+  /**
+   * @param configuration The configuration of the engine which parsed the template
+   * @param contentHash The hash of the source of the template, see {@link #hash(String)}
+   * @param tree The serialized node tree along with the registered blocks and macros
+   */
+  public TemplateSnapshot(String configuration, byte[] contentHash, ByteBuffer tree) {
+    this.configuration = configuration;
+    this.contentHash = contentHash;
+    this.tree = tree;
+  }
+
+  public String getConfiguration() {
+    return this.configuration;
+  }
+
+  public byte[] getContentHash() {
+    return this.contentHash.clone();
+  }
+
+  /**
+   * @return The serialized node tree, which may be backed by a memory-mapped file
+   */
+  public ByteBuffer getTree() {
+    return this.tree.asReadOnlyBuffer();
+  }
+
+  /**
+   * @param configuration The configuration of the engine which wants to use the snapshot
+   * @param contentHash The hash of the current source of the template
+   * @return Whether the snapshot is up to date
+   */
+  public boolean isValid(String configuration, byte[] contentHash) {
+    return this.configuration.equals(configuration)
+        && Arrays.equals(this.contentHash, contentHash);
+  }
+
+  /**
+   * @param source The source of a template
+   * @return The SHA-256 hash of the source
+   */
+  public static byte[] hash(String source) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
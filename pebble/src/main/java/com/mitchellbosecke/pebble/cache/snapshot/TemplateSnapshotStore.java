@@ -0,0 +1,31 @@
+package com.mitchellbosecke.pebble.cache.snapshot;
+
+import com.mitchellbosecke.pebble.loader.Loader;
+
+/**
+ * Keeps the snapshots of parsed templates across restarts of the application, so that an engine
+ * only has to lex and parse the templates which changed since the last start.
+ * <p>
+ * Snapshots are identified by the loader which found the template and by the cache key it created
+ * for the template. The engine checks whether a snapshot is still valid, stores only have to hand
+ * back what they were given.
+ */
+public interface TemplateSnapshotStore {
+
+  /**
+   * @param loader The loader of the template
+   * @param cacheKey The cache key created by the loader
+   * @return The stored snapshot, or null if there is none or it can not be read
+   */
+  TemplateSnapshot load(Loader<?> loader, Object cacheKey);
+
+  /**
+   * Stores a snapshot, replacing the previous one of the same template. Failures are not reported
+   * because the template can always be parsed again.
+   *
+   * @param loader The loader of the template
+   * @param cacheKey The cache key created by the loader
+   * @param snapshot The snapshot
+   */
+  void store(Loader<?> loader, Object cacheKey, TemplateSnapshot snapshot);
+}
@@ -2,20 +2,46 @@ package com.mitchellbosecke.pebble.cache.tag;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Weigher;
 import com.mitchellbosecke.pebble.cache.CacheKey;
 import com.mitchellbosecke.pebble.cache.PebbleCache;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
+/**
+ * Keeps the fragments in a Caffeine cache which is bounded by the size of the fragments in bytes,
+ * so that a few large fragments do not push out many small ones. Fragments with a time to live
+ * expire after it.
+ */
 public class CaffeineTagCache implements PebbleCache<CacheKey, Object> {
 
+  /**
+   * The default bound of the size of all fragments together, in bytes.
+   */
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 32 * 1024 * 1024;
+
   private final Cache<CacheKey, Object> tagCache;
 
   public CaffeineTagCache() {
+    this(DEFAULT_MAXIMUM_WEIGHT);
+  }
+
+  /**
+   * @param maximumWeight The bound of the size of all fragments together, in bytes
+   */
+  public CaffeineTagCache(long maximumWeight) {
     this.tagCache = Caffeine.newBuilder()
-        .maximumSize(200)
+        .maximumWeight(maximumWeight)
+        .weigher(weigher())
+        .expireAfter(expiry())
         .build();
   }
 
+  /**
+   * Caches built elsewhere need {@link #weigher()} and {@link #expiry()} to weigh fragments by
+   * their size and to honour their time to live.
+   */
   public CaffeineTagCache(Cache<CacheKey, Object> tagCache) {
     this.tagCache = tagCache;
   }
@@ -25,9 +51,78 @@ public class CaffeineTagCache implements PebbleCache<CacheKey, Object> {
     return this.tagCache.get(key, mappingFunction);
   }
 
+  @Override
+  public void put(CacheKey key, Object value) {
+    this.tagCache.put(key, value);
+  }
+
+  @Override
+  public void invalidate(CacheKey key) {
+    this.tagCache.invalidate(key);
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super CacheKey> predicate) {
+    this.tagCache.asMap().keySet().removeIf(predicate);
+  }
+
   @Override
   public void invalidateAll() {
     this.tagCache.invalidateAll();
   }
-}
 
+  /**
+   * @return A weigher which weighs fragments by their length in UTF-8
+   */
+  public static Weigher<CacheKey, Object> weigher() {
+    return (key, value) -> {
+      if (value instanceof RefreshableFragment) {
+        value = ((RefreshableFragment) value).getContent();
+      }
+      if (value instanceof EncodedFragment) {
+        return ((EncodedFragment) value).size();
+      }
+      return value instanceof CharSequence
+          ? (int) Math.min(Integer.MAX_VALUE, utf8Length((CharSequence) value)) : 1;
+    };
+  }
+
+  /**
+   * @return An expiry which expires fragments after the time to live of their cache tag
+   */
+  public static Expiry<CacheKey, Object> expiry() {
+    return new Expiry<CacheKey, Object>() {
+
+      @Override
+      public long expireAfterCreate(CacheKey key, Object value, long currentTime) {
+        return key.getTimeToLive() == null ? Long.MAX_VALUE : key.getTimeToLive().toNanos();
+      }
+
+      @Override
+      public long expireAfterUpdate(CacheKey key, Object value, long currentTime,
+          long currentDuration) {
+        return this.expireAfterCreate(key, value, currentTime);
+      }
+
+      @Override
+      public long expireAfterRead(CacheKey key, Object value, long currentTime,
+          long currentDuration) {
+        return currentDuration;
+      }
+    };
+  }
+
+  private static long utf8Length(CharSequence value) {
+    long length = value.length();
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c >= 0x800) {
+        // three bytes, or four for a surrogate pair which counts as two chars
+        length += Character.isSurrogate(c) ? 1 : 2;
+      } else if (c >= 0x80) {
+        length += 1;
+      }
+    }
+    return length;
+  }
+}
@@ -5,7 +5,12 @@ import com.mitchellbosecke.pebble.cache.PebbleCache;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
+/**
+ * Keeps the fragments in a map without a bound. Fragments with a time to live are rendered again
+ * once they expired.
+ */
 public class ConcurrentMapTagCache implements PebbleCache<CacheKey, Object> {
 
   private final ConcurrentMap<CacheKey, Object> tagCache;
@@ -21,11 +26,55 @@ public class ConcurrentMapTagCache implements PebbleCache<CacheKey, Object> {
   @Override
   public Object computeIfAbsent(CacheKey key,
       Function<? super CacheKey, ?> mappingFunction) {
-    return this.tagCache.computeIfAbsent(key, mappingFunction);
+    Object value = this.tagCache.get(key);
+    if (value == null || isExpired(value)) {
+      value = this.tagCache.compute(key, (k, current) -> current == null || isExpired(current)
+          ? expiring(k, mappingFunction.apply(k)) : current);
+    }
+    return value instanceof ExpiringValue ? ((ExpiringValue) value).value : value;
+  }
+
+  @Override
+  public void put(CacheKey key, Object value) {
+    this.tagCache.put(key, expiring(key, value));
+  }
+
+  @Override
+  public void invalidate(CacheKey key) {
+    this.tagCache.remove(key);
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super CacheKey> predicate) {
+    this.tagCache.keySet().removeIf(predicate);
   }
 
   @Override
   public void invalidateAll() {
     this.tagCache.clear();
   }
+
+  private static Object expiring(CacheKey key, Object value) {
+    if (value == null || key.getTimeToLive() == null) {
+      return value;
+    }
+    return new ExpiringValue(value, System.nanoTime() + key.getTimeToLive().toNanos());
+  }
+
+  private static boolean isExpired(Object value) {
+    return value instanceof ExpiringValue
+        && System.nanoTime() - ((ExpiringValue) value).expiresAt >= 0;
+  }
+
+  private static final class ExpiringValue {
+
+    private final Object value;
+
+    private final long expiresAt;
+
+    private ExpiringValue(Object value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
 }
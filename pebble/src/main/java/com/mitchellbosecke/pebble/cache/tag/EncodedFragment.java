@@ -0,0 +1,55 @@
+package com.mitchellbosecke.pebble.cache.tag;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A fragment of a cache tag which is kept encoded in UTF-8, typically outside of the heap. It is
+ * written to {@link com.mitchellbosecke.pebble.extension.writer.EncodedWriter}s as it is, and
+ * decoded for all other writers.
+ */
+public final class EncodedFragment {
+
+  private final ByteBuffer bytes;
+
+  public EncodedFragment(ByteBuffer bytes) {
+    this.bytes = bytes.asReadOnlyBuffer();
+  }
+
+  /**
+   * Encodes a fragment into a direct buffer.
+   *
+   * @param content The rendered fragment
+   * @return The encoded fragment
+   */
+  public static EncodedFragment encode(String content) {
+    ByteBuffer encoded = StandardCharsets.UTF_8.encode(content);
+    ByteBuffer bytes = ByteBuffer.allocateDirect(encoded.remaining());
+    bytes.put(encoded);
+    ((Buffer) bytes).flip();
+    return new EncodedFragment(bytes);
+  }
+
+  /**
+   * @return The content in UTF-8, as a read-only buffer of its own
+   */
+  public ByteBuffer getBytes() {
+    return this.bytes.duplicate();
+  }
+
+  /**
+   * @return The size of the content in bytes
+   */
+  public int size() {
+    return this.bytes.remaining();
+  }
+
+  /**
+   * @return The decoded content
+   */
+  @Override
+  public String toString() {
+    return StandardCharsets.UTF_8.decode(this.getBytes()).toString();
+  }
+}
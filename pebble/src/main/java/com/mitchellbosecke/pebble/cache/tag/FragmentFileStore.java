@@ -0,0 +1,229 @@
+package com.mitchellbosecke.pebble.cache.tag;
+
+import com.mitchellbosecke.pebble.cache.CacheKey;
+import com.mitchellbosecke.pebble.node.CacheNode;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps fragments in the files of a directory, from which they are memory-mapped, so that they
+ * survive restarts.
+ * <p>
+ * Cache tags are recognized across restarts by a hash of their serialized form, which changes
+ * along with the cache tag itself. Changes to the templates which a cache tag includes are not
+ * noticed though, so the directory should be cleared when these are deployed.
+ */
+final class FragmentFileStore {
+
+  private static final Logger logger = LoggerFactory.getLogger(FragmentFileStore.class);
+
+  private static final int MAGIC = 0x50454246;
+
+  private static final int VERSION = 1;
+
+  private static final String SUFFIX = ".fragment";
+
+  private static final byte[] NOT_SERIALIZABLE = new byte[0];
+
+  private final Path directory;
+
+  private final Map<CacheNode, byte[]> fingerprints =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  FragmentFileStore(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * @return The fragment of a key, or {@code null} if it is not stored or expired
+   */
+  StoredFragment load(CacheKey key) {
+    Path file = this.getFile(key);
+    if (file == null || !Files.isRegularFile(file)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+        return null;
+      }
+      long expiresAt = buffer.getLong();
+      long refreshAt = buffer.getLong();
+      if (expiresAt >= 0 && System.currentTimeMillis() >= expiresAt) {
+        Files.deleteIfExists(file);
+        return null;
+      }
+      return new StoredFragment(new EncodedFragment(buffer.slice()), expiresAt, refreshAt);
+    } catch (IOException | BufferUnderflowException e) {
+      logger.debug("Could not read fragment {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * @param expiresAt The time in milliseconds since the epoch after which the fragment expires, or
+   * -1
+   * @param refreshAt The time in milliseconds since the epoch after which the fragment is due for a
+   * refresh, or -1
+   */
+  void store(CacheKey key, EncodedFragment fragment, long expiresAt, long refreshAt) {
+    Path file = this.getFile(key);
+    if (file == null) {
+      return;
+    }
+    Path temporaryFile = null;
+    try {
+      Files.createDirectories(this.directory);
+      temporaryFile = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+
+      ByteBuffer header = ByteBuffer.allocate(24);
+      header.putInt(MAGIC).putInt(VERSION).putLong(expiresAt).putLong(refreshAt);
+      ((Buffer) header).flip();
+      try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+        ByteBuffer content = fragment.getBytes();
+        ByteBuffer[] buffers = {header, content};
+        while (header.hasRemaining() || content.hasRemaining()) {
+          channel.write(buffers);
+        }
+      }
+      try {
+        Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      logger.warn("Could not write fragment {}", file, e);
+      if (temporaryFile != null) {
+        try {
+          Files.deleteIfExists(temporaryFile);
+        } catch (IOException ignored) {
+          // nothing else to do about it
+        }
+      }
+    }
+  }
+
+  void delete(CacheKey key) {
+    Path file = this.getFile(key);
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      logger.warn("Could not delete fragment {}", file, e);
+    }
+  }
+
+  void deleteAll() {
+    if (!Files.isDirectory(this.directory)) {
+      return;
+    }
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(this.directory, "*" + SUFFIX)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+    } catch (IOException e) {
+      logger.warn("Could not delete the fragments in {}", this.directory, e);
+    }
+  }
+
+  /**
+   * @return The file of a key, or {@code null} if its cache tag can not be recognized across
+   * restarts
+   */
+  private Path getFile(CacheKey key) {
+    byte[] fingerprint = this.fingerprints.computeIfAbsent(key.getNode(),
+        FragmentFileStore::fingerprint);
+    if (fingerprint == NOT_SERIALIZABLE) {
+      return null;
+    }
+    MessageDigest digest = newDigest();
+    digest.update(fingerprint);
+    digest.update((key.getName() + '\n' + key.getLocale()).getBytes(StandardCharsets.UTF_8));
+    byte[] hash = digest.digest();
+    StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX.length());
+    for (byte b : hash) {
+      name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return this.directory.resolve(name.append(SUFFIX).toString());
+  }
+
+  private static byte[] fingerprint(CacheNode node) {
+    MessageDigest digest = newDigest();
+    OutputStream discard = new OutputStream() {
+      @Override
+      public void write(int b) {
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+      }
+    };
+    try (ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(discard, digest))) {
+      out.writeObject(node);
+    } catch (IOException e) {
+      // a node which is not serializable
+      logger.debug("Fragments of the cache tag on line {} are not stored", node.getLineNumber(), e);
+      return NOT_SERIALIZABLE;
+    }
+    return digest.digest();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  static final class StoredFragment {
+
+    private final EncodedFragment fragment;
+
+    private final long expiresAt;
+
+    private final long refreshAt;
+
+    private StoredFragment(EncodedFragment fragment, long expiresAt, long refreshAt) {
+      this.fragment = fragment;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+    }
+
+    EncodedFragment getFragment() {
+      return this.fragment;
+    }
+
+    long getExpiresAt() {
+      return this.expiresAt;
+    }
+
+    long getRefreshAt() {
+      return this.refreshAt;
+    }
+  }
+}
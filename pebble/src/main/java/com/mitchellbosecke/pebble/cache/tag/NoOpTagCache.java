@@ -3,6 +3,7 @@ package com.mitchellbosecke.pebble.cache.tag;
 import com.mitchellbosecke.pebble.cache.CacheKey;
 import com.mitchellbosecke.pebble.cache.PebbleCache;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class NoOpTagCache implements PebbleCache<CacheKey, Object> {
 
@@ -12,6 +13,12 @@ public class NoOpTagCache implements PebbleCache<CacheKey, Object> {
     return mappingFunction.apply(key);
   }
 
+  @Override
+  public void invalidate(CacheKey key) {}
+
+  @Override
+  public void invalidateAll(Predicate<? super CacheKey> predicate) {}
+
   @Override
   public void invalidateAll() {}
 }
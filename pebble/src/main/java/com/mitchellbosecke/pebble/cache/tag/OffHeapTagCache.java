@@ -0,0 +1,229 @@
+package com.mitchellbosecke.pebble.cache.tag;
+
+import com.mitchellbosecke.pebble.cache.CacheKey;
+import com.mitchellbosecke.pebble.cache.PebbleCache;
+import com.mitchellbosecke.pebble.cache.tag.FragmentFileStore.StoredFragment;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the fragments encoded in UTF-8 in direct buffers outside of the heap, so that large
+ * fragments neither grow the old generation nor have to be encoded again when they are written to
+ * an {@link com.mitchellbosecke.pebble.extension.writer.EncodedWriter}. Once the fragments take up
+ * more than the maximum size, the oldest ones are evicted first.
+ * <p>
+ * With a directory, fragments are also written to files there, from which they are memory-mapped
+ * when they are evicted from memory or after a restart. Clearing the cache also clears the
+ * directory, but invalidating fragments by a predicate only removes the files of the fragments
+ * which have been used since the start.
+ */
+public class OffHeapTagCache implements PebbleCache<CacheKey, Object> {
+
+  private final ConcurrentMap<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * The entries with a fragment in memory, oldest first. Guarded by itself, which is only locked
+   * after the key of an entry, if at all.
+   */
+  private final Map<CacheKey, Entry> insertionOrder = new LinkedHashMap<>();
+
+  private final AtomicLong size = new AtomicLong();
+
+  private final long maximumSize;
+
+  private final FragmentFileStore fileStore;
+
+  /**
+   * @param maximumSize The bound of the size of all fragments in memory together, in bytes
+   */
+  public OffHeapTagCache(long maximumSize) {
+    this(maximumSize, null);
+  }
+
+  /**
+   * @param maximumSize The bound of the size of all fragments in memory together, in bytes
+   * @param directory The directory to keep the fragments in across restarts, which is created if
+   * necessary, or {@code null}
+   */
+  public OffHeapTagCache(long maximumSize, Path directory) {
+    this.maximumSize = maximumSize;
+    this.fileStore = directory == null ? null : new FragmentFileStore(directory);
+  }
+
+  @Override
+  public Object computeIfAbsent(CacheKey key, Function<? super CacheKey, ?> mappingFunction) {
+    Entry entry = this.entries.get(key);
+    if (entry == null || !entry.isUsable()) {
+      entry = this.entries.compute(key, (k, current) -> current != null && current.isUsable()
+          ? current : this.replace(current, this.load(k, mappingFunction)));
+      this.evict();
+    }
+    return entry == null ? null : entry.value;
+  }
+
+  @Override
+  public void put(CacheKey key, Object value) {
+    this.entries.compute(key, (k, current) -> this.replace(current, this.create(k, value)));
+    this.evict();
+  }
+
+  @Override
+  public void invalidate(CacheKey key) {
+    this.entries.computeIfPresent(key, (k, current) -> this.replace(current, null));
+    if (this.fileStore != null) {
+      this.fileStore.delete(key);
+    }
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super CacheKey> predicate) {
+    for (CacheKey key : this.entries.keySet()) {
+      if (predicate.test(key)) {
+        this.invalidate(key);
+      }
+    }
+  }
+
+  @Override
+  public void invalidateAll() {
+    for (CacheKey key : this.entries.keySet()) {
+      this.entries.computeIfPresent(key, (k, current) -> this.replace(current, null));
+    }
+    if (this.fileStore != null) {
+      this.fileStore.deleteAll();
+    }
+  }
+
+  /**
+   * @return The size of all fragments in memory together, in bytes
+   */
+  public long size() {
+    return this.size.get();
+  }
+
+  /**
+   * @return The number of fragments in memory
+   */
+  int count() {
+    synchronized (this.insertionOrder) {
+      return this.insertionOrder.size();
+    }
+  }
+
+  /**
+   * Accounts for an entry which replaces another one, and must be called while the key is locked.
+   */
+  private Entry replace(Entry current, Entry replacement) {
+    synchronized (this.insertionOrder) {
+      if (current != null) {
+        this.size.addAndGet(-current.size);
+        this.insertionOrder.remove(current.key);
+      }
+      if (replacement != null && replacement.value != null) {
+        this.size.addAndGet(replacement.size);
+        this.insertionOrder.put(replacement.key, replacement);
+      }
+    }
+    return replacement;
+  }
+
+  private Entry load(CacheKey key, Function<? super CacheKey, ?> mappingFunction) {
+    if (this.fileStore != null) {
+      StoredFragment stored = this.fileStore.load(key);
+      if (stored != null) {
+        Object value = stored.getFragment();
+        if (stored.getRefreshAt() >= 0) {
+          long refreshAfter = stored.getRefreshAt() - System.currentTimeMillis();
+          value = new RefreshableFragment(value, TimeUnit.MILLISECONDS.toNanos(refreshAfter));
+        }
+        return new Entry(key, value, stored.getFragment().size(), stored.getExpiresAt());
+      }
+    }
+    return this.create(key, mappingFunction.apply(key));
+  }
+
+  /**
+   * Encodes a fragment and stores it in the directory, if there is one.
+   */
+  private Entry create(CacheKey key, Object value) {
+    if (value == null) {
+      return null;
+    }
+    RefreshableFragment refreshable = null;
+    Object content = value;
+    if (value instanceof RefreshableFragment) {
+      refreshable = (RefreshableFragment) value;
+      content = refreshable.getContent();
+    }
+    EncodedFragment fragment = content instanceof EncodedFragment ? (EncodedFragment) content
+        : EncodedFragment.encode(content.toString());
+
+    long now = System.currentTimeMillis();
+    long expiresAt = key.getTimeToLive() == null ? -1 : now + key.getTimeToLive().toMillis();
+    if (this.fileStore != null) {
+      long refreshAt = refreshable == null ? -1
+          : now + TimeUnit.NANOSECONDS.toMillis(refreshable.getRefreshAfterNanos());
+      this.fileStore.store(key, fragment, expiresAt, refreshAt);
+    }
+    return new Entry(key, refreshable == null ? fragment : refreshable.withContent(fragment),
+        fragment.size(), expiresAt);
+  }
+
+  /**
+   * Evicts the oldest fragments from memory until they fit into the maximum size. Fragments which
+   * are stored in the directory are loaded from there again when they are used.
+   */
+  private void evict() {
+    while (this.size.get() > this.maximumSize) {
+      Entry oldest;
+      synchronized (this.insertionOrder) {
+        Iterator<Entry> entries = this.insertionOrder.values().iterator();
+        if (!entries.hasNext()) {
+          return;
+        }
+        oldest = entries.next();
+      }
+      this.entries.computeIfPresent(oldest.key, (k, current) -> current == oldest
+          ? this.replace(current, this.fileStore == null ? null : oldest.evicted()) : current);
+    }
+  }
+
+  private static final class Entry {
+
+    private final CacheKey key;
+
+    /**
+     * The fragment, or {@code null} if it is only kept in the directory, so that the key can still
+     * be invalidated by a predicate.
+     */
+    private final Object value;
+
+    private final long size;
+
+    private final long expiresAt;
+
+    private Entry(CacheKey key, Object value, long size, long expiresAt) {
+      this.key = key;
+      this.value = value;
+      this.size = size;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isUsable() {
+      return this.value != null
+          && (this.expiresAt < 0 || System.currentTimeMillis() < this.expiresAt);
+    }
+
+    private Entry evicted() {
+      return new Entry(this.key, null, 0, this.expiresAt);
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.mitchellbosecke.pebble.cache.tag;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A fragment of a cache tag with the {@code refresh} option. Once it is due for a refresh it is
+ * still served while a single render replaces it in the background.
+ */
+public final class RefreshableFragment {
+
+  private final Object content;
+
+  private final long refreshAt;
+
+  private final AtomicBoolean refreshing = new AtomicBoolean();
+
+  /**
+   * @param content The rendered fragment, a {@code String} or an {@link EncodedFragment}
+   * @param refreshAfterNanos The time after which the fragment is due for a refresh
+   */
+  public RefreshableFragment(Object content, long refreshAfterNanos) {
+    this.content = content;
+    this.refreshAt = System.nanoTime() + refreshAfterNanos;
+  }
+
+  /**
+   * @return The rendered fragment, a {@code String} or an {@link EncodedFragment}
+   */
+  public Object getContent() {
+    return this.content;
+  }
+
+  /**
+   * @return The time in nanoseconds after which the fragment is due for a refresh
+   */
+  long getRefreshAfterNanos() {
+    return this.refreshAt - System.nanoTime();
+  }
+
+  /**
+   * @param content The same fragment in another form
+   * @return A fragment with the content which is due for a refresh at the same time
+   */
+  RefreshableFragment withContent(Object content) {
+    return new RefreshableFragment(content, this.getRefreshAfterNanos());
+  }
+
+  /**
+   * Claims the refresh of the fragment if it is due and no other thread claimed it yet.
+   *
+   * @return Whether the caller has to refresh the fragment
+   */
+  public boolean claimRefresh() {
+    return System.nanoTime() - this.refreshAt >= 0 && this.refreshing.compareAndSet(false, true);
+  }
+
+  /**
+   * Releases the claim of a refresh which failed, so that a later request tries again.
+   */
+  public void releaseRefresh() {
+    this.refreshing.set(false);
+  }
+}
@@ -5,6 +5,7 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mitchellbosecke.pebble.cache.PebbleCache;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class CaffeineTemplateCache implements PebbleCache<Object, PebbleTemplate> {
 
@@ -26,6 +27,21 @@ public class CaffeineTemplateCache implements PebbleCache<Object, PebbleTemplate
     return this.templateCache.get(key, mappingFunction);
   }
 
+  @Override
+  public void put(Object key, PebbleTemplate value) {
+    this.templateCache.put(key, value);
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    this.templateCache.invalidate(key);
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super Object> predicate) {
+    this.templateCache.asMap().keySet().removeIf(predicate);
+  }
+
   @Override
   public void invalidateAll() {
     this.templateCache.invalidateAll();
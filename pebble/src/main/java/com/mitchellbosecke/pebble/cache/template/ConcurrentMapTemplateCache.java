@@ -5,6 +5,7 @@ import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class ConcurrentMapTemplateCache implements PebbleCache<Object, PebbleTemplate> {
 
@@ -24,6 +25,21 @@ public class ConcurrentMapTemplateCache implements PebbleCache<Object, PebbleTem
     return this.templateCache.computeIfAbsent(key, mappingFunction);
   }
 
+  @Override
+  public void put(Object key, PebbleTemplate value) {
+    this.templateCache.put(key, value);
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    this.templateCache.remove(key);
+  }
+
+  @Override
+  public void invalidateAll(Predicate<? super Object> predicate) {
+    this.templateCache.keySet().removeIf(predicate);
+  }
+
   @Override
   public void invalidateAll() {
     this.templateCache.clear();
@@ -3,6 +3,7 @@ package com.mitchellbosecke.pebble.cache.template;
 import com.mitchellbosecke.pebble.cache.PebbleCache;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 public class NoOpTemplateCache implements PebbleCache<Object, PebbleTemplate> {
 
@@ -12,6 +13,12 @@ public class NoOpTemplateCache implements PebbleCache<Object, PebbleTemplate> {
     return mappingFunction.apply(key);
   }
 
+  @Override
+  public void invalidate(Object key) {}
+
+  @Override
+  public void invalidateAll(Predicate<? super Object> predicate) {}
+
   @Override
   public void invalidateAll() {}
 }
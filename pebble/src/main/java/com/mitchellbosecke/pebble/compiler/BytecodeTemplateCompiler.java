@@ -0,0 +1,109 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.compiler;
+
+import com.mitchellbosecke.pebble.extension.AbstractNodeVisitor;
+import com.mitchellbosecke.pebble.node.BodyNode;
+import com.mitchellbosecke.pebble.node.RootNode;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles the node tree of a template to JVM bytecode, one generated class per template. Every
+ * {@link BodyNode} which is not expanded into the code of an enclosing body (the root body and the
+ * bodies of blocks, macros, etc.) becomes an entry point of that class and delegates its rendering
+ * to it.
+ * <p>
+ * Requires the optional "org.ow2.asm:asm" dependency, see {@link #isAvailable()}. If a template can
+ * not be compiled, for example because it is too large for a single class, it is logged and the
+ * template keeps being interpreted.
+ */
+public class BytecodeTemplateCompiler implements TemplateCompiler {
+
+  private static final Logger logger = LoggerFactory.getLogger(BytecodeTemplateCompiler.class);
+
+  /**
+   * Checks whether ASM, which generates the bytecode, is on the class path.
+   *
+   * @return Whether templates can be compiled
+   */
+  public static boolean isAvailable() {
+    try {
+      Class.forName("org.objectweb.asm.ClassWriter", false,
+          BytecodeTemplateCompiler.class.getClassLoader());
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void compile(PebbleTemplateImpl template, RootNode root) {
+    ClassLoader parent = BytecodeTemplateCompiler.class.getClassLoader();
+    List<BodyNode> bodies = new ArrayList<>();
+
+    try {
+      TemplateClassGenerator generator = new TemplateClassGenerator(parent);
+      root.accept(new AbstractNodeVisitor(template) {
+
+        @Override
+        public void visit(RootNode node) {
+          bodies.add(node.getBody());
+          generator.addEntry(node.getBody(), true);
+          super.visit(node);
+        }
+
+        @Override
+        public void visit(BodyNode node) {
+          if (!generator.isCompiled(node)) {
+            bodies.add(node);
+            generator.addEntry(node, false);
+          }
+          super.visit(node);
+        }
+      });
+
+      byte[] bytecode = generator.toByteArray();
+      Class<?> generatedClass = new GeneratedClassLoader(parent)
+          .define(generator.getClassName(), bytecode);
+      Constructor<?> constructor = generatedClass.getConstructor(Object[].class, int.class);
+      Object[] constants = generator.getConstants();
+
+      List<CompiledBody> compiledBodies = new ArrayList<>(bodies.size());
+      for (int i = 0; i < bodies.size(); i++) {
+        compiledBodies.add((CompiledBody) constructor.newInstance(constants, i));
+      }
+      for (int i = 0; i < bodies.size(); i++) {
+        bodies.get(i).setCompiledBody(compiledBodies.get(i));
+      }
+    } catch (Exception | LinkageError e) {
+      logger.warn("Could not compile template \"{}\" to bytecode, it will be interpreted instead.",
+          template.getName(), e);
+    }
+  }
+
+  /**
+   * Every template is defined in its own class loader so that the generated class can be unloaded
+   * together with the template.
+   */
+  private static class GeneratedClassLoader extends ClassLoader {
+
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> define(String name, byte[] bytecode) {
+      return this.defineClass(name, bytecode, 0, bytecode.length);
+    }
+  }
+}
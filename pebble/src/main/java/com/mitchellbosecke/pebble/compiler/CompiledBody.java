@@ -0,0 +1,26 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.compiler;
+
+import com.mitchellbosecke.pebble.node.BodyNode;
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * A generated replacement for the rendering of a {@link BodyNode}. Once set on a body node, the
+ * body node delegates all rendering to it.
+ */
+public interface CompiledBody {
+
+  void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
+      throws IOException;
+
+}
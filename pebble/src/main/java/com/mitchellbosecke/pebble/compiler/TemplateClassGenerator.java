@@ -0,0 +1,662 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.compiler;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.node.BodyNode;
+import com.mitchellbosecke.pebble.node.ForNode;
+import com.mitchellbosecke.pebble.node.IfNode;
+import com.mitchellbosecke.pebble.node.PrintNode;
+import com.mitchellbosecke.pebble.node.RenderableNode;
+import com.mitchellbosecke.pebble.node.TextNode;
+import com.mitchellbosecke.pebble.node.expression.Expression;
+import com.mitchellbosecke.pebble.node.fornode.ForLoop;
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.Hierarchy;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import com.mitchellbosecke.pebble.utils.Pair;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Generates one class per template. Every compiled {@link BodyNode} of the template is an entry
+ * point of that class:
+ * <ul>
+ * <li>consecutive {@link TextNode}s are merged into a single constant text node, which keeps its
+ * encoded text for {@link com.mitchellbosecke.pebble.extension.writer.EncodedWriter}s,</li>
+ * <li>{@link PrintNode}s, {@link IfNode}s and {@link ForNode}s are expanded into straight-line
+ * bytecode,</li>
+ * <li>every other node is rendered through its own call site so that the JIT sees a monomorphic
+ * receiver and can inline it.</li>
+ * </ul>
+ * Large bodies are split over several methods to stay well below the size limits of the JVM and
+ * of the JIT.
+ * <p>
+ * This class is not thread safe.
+ */
+class TemplateClassGenerator implements Opcodes {
+
+  /**
+   * Maximum weight (roughly the number of statements) emitted into a single method.
+   */
+  private static final int MAX_METHOD_WEIGHT = 48;
+
+  /**
+   * Maximum number of constant fields assigned by a single initializer method.
+   */
+  private static final int CONSTANTS_PER_METHOD = 1024;
+
+  private static final AtomicLong COUNTER = new AtomicLong();
+
+  private static final String OBJECT = Type.getInternalName(Object.class);
+
+  private static final String WRITER = Type.getInternalName(Writer.class);
+
+  private static final String BODY_NODE = Type.getInternalName(BodyNode.class);
+
+  private static final String IF_NODE = Type.getInternalName(IfNode.class);
+
+  private static final String FOR_NODE = Type.getInternalName(ForNode.class);
+
+  private static final String FOR_LOOP = Type.getInternalName(ForLoop.class);
+
+  private static final String PRINT_NODE = Type.getInternalName(PrintNode.class);
+
+  private static final String TEXT_NODE = Type.getInternalName(TextNode.class);
+
+  private static final String RENDERABLE_NODE = Type.getInternalName(RenderableNode.class);
+
+  private static final String EXPRESSION = Type.getInternalName(Expression.class);
+
+  private static final String CONTEXT = Type.getInternalName(EvaluationContextImpl.class);
+
+  private static final String HIERARCHY = Type.getInternalName(Hierarchy.class);
+
+  private static final String TEMPLATE = Type.getInternalName(PebbleTemplateImpl.class);
+
+  private static final String RUNTIME_EXCEPTION = Type.getInternalName(RuntimeException.class);
+
+  private static final String RENDER_DESCRIPTOR = "(L" + TEMPLATE + ";L" + WRITER + ";L" + CONTEXT
+      + ";)V";
+
+  private static final String EVALUATE_DESCRIPTOR = "(L" + TEMPLATE + ";L" + CONTEXT
+      + ";)Ljava/lang/Object;";
+
+  private static final String[] EXCEPTIONS = {Type.getInternalName(IOException.class)};
+
+  // local variable slots shared by all generated render methods
+  private static final int THIS = 0;
+
+  private static final int SELF = 1;
+
+  private static final int WRITER_SLOT = 2;
+
+  private static final int CONTEXT_SLOT = 3;
+
+  private static final int FIRST_FREE_SLOT = 4;
+
+  private final String className;
+
+  private final ClassWriter classWriter;
+
+  private final List<Object> constants = new ArrayList<>();
+
+  private final List<String> constantDescriptors = new ArrayList<>();
+
+  private final List<String> entries = new ArrayList<>();
+
+  private final Deque<PendingMethod> pendingMethods = new ArrayDeque<>();
+
+  private final Set<BodyNode> compiledBodies = Collections
+      .newSetFromMap(new IdentityHashMap<>());
+
+  private int methodCount = 0;
+
+  TemplateClassGenerator(ClassLoader classLoader) {
+    this.className = "com/mitchellbosecke/pebble/compiler/generated/Template"
+        + COUNTER.incrementAndGet();
+    this.classWriter = new LoaderAwareClassWriter(classLoader);
+    this.classWriter.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, this.className, null, OBJECT,
+        new String[]{Type.getInternalName(CompiledBody.class)});
+    this.classWriter
+        .visitField(ACC_PRIVATE | ACC_FINAL, "entry", "I", null, null)
+        .visitEnd();
+  }
+
+  /**
+   * Adds a body as an entry point of the generated class.
+   *
+   * @param body The body to compile
+   * @param root Whether or not the body is the body of the root node, in which case it honours
+   * {@link BodyNode#isOnlyRenderInheritanceSafeNodes()}
+   * @return The index of the entry, to pass to the constructor of the generated class
+   */
+  int addEntry(BodyNode body, boolean root) {
+    String methodName = this.nextMethodName();
+    String guard = root ? this.constant(body, BODY_NODE) : null;
+    this.compiledBodies.add(body);
+    this.pendingMethods.add(new PendingMethod(methodName, body.getChildren(), guard));
+    while (!this.pendingMethods.isEmpty()) {
+      this.emitMethod(this.pendingMethods.poll());
+    }
+    this.entries.add(methodName);
+    return this.entries.size() - 1;
+  }
+
+  /**
+   * Whether or not the body is already part of the generated code, either as an entry point or
+   * because it was expanded into the code of another body.
+   */
+  boolean isCompiled(BodyNode body) {
+    return this.compiledBodies.contains(body);
+  }
+
+  String getClassName() {
+    return this.className.replace('/', '.');
+  }
+
+  Object[] getConstants() {
+    return this.constants.toArray();
+  }
+
+  byte[] toByteArray() {
+    this.emitConstructor();
+    this.emitRender();
+    this.classWriter.visitEnd();
+    return this.classWriter.toByteArray();
+  }
+
+  /**
+   * Assigns the constants to their fields. The assignments are spread over several methods because
+   * of the size limit of a single method.
+   */
+  private void emitConstructor() {
+    MethodVisitor mv = this.classWriter
+        .visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;I)V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitMethodInsn(INVOKESPECIAL, OBJECT, "<init>", "()V", false);
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ILOAD, 2);
+    mv.visitFieldInsn(PUTFIELD, this.className, "entry", "I");
+    for (int start = 0; start < this.constants.size(); start += CONSTANTS_PER_METHOD) {
+      String methodName = "init" + start / CONSTANTS_PER_METHOD;
+      mv.visitVarInsn(ALOAD, 0);
+      mv.visitVarInsn(ALOAD, 1);
+      mv.visitMethodInsn(INVOKESPECIAL, this.className, methodName, "([Ljava/lang/Object;)V",
+          false);
+      this.emitConstantInitializer(methodName, start,
+          Math.min(start + CONSTANTS_PER_METHOD, this.constants.size()));
+    }
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void emitConstantInitializer(String methodName, int start, int end) {
+    MethodVisitor mv = this.classWriter
+        .visitMethod(ACC_PRIVATE, methodName, "([Ljava/lang/Object;)V", null, null);
+    mv.visitCode();
+    for (int i = start; i < end; i++) {
+      String descriptor = this.constantDescriptors.get(i);
+      mv.visitVarInsn(ALOAD, 0);
+      mv.visitVarInsn(ALOAD, 1);
+      mv.visitLdcInsn(i);
+      mv.visitInsn(AALOAD);
+      mv.visitTypeInsn(CHECKCAST, Type.getType(descriptor).getInternalName());
+      mv.visitFieldInsn(PUTFIELD, this.className, "c" + i, descriptor);
+    }
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void emitRender() {
+    MethodVisitor mv = this.classWriter
+        .visitMethod(ACC_PUBLIC, "render", RENDER_DESCRIPTOR, null, EXCEPTIONS);
+    mv.visitCode();
+    Label end = new Label();
+    Label[] labels = new Label[this.entries.size()];
+    for (int i = 0; i < labels.length; i++) {
+      labels[i] = new Label();
+    }
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitFieldInsn(GETFIELD, this.className, "entry", "I");
+    mv.visitTableSwitchInsn(0, labels.length - 1, end, labels);
+    for (int i = 0; i < labels.length; i++) {
+      mv.visitLabel(labels[i]);
+      this.emitMethodCall(mv, this.entries.get(i));
+      mv.visitInsn(RETURN);
+    }
+    mv.visitLabel(end);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  private void emitMethod(PendingMethod pending) {
+    MethodVisitor mv = this.classWriter
+        .visitMethod(ACC_PRIVATE, pending.name, RENDER_DESCRIPTOR, null, EXCEPTIONS);
+    mv.visitCode();
+    MethodState state = new MethodState(mv);
+    this.emitStatements(state, pending.nodes, pending.guard);
+    mv.visitInsn(RETURN);
+    for (Runnable handler : state.handlers) {
+      handler.run();
+    }
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+  }
+
+  /**
+   * Emits a list of statements, either directly into the current method or, if the current method
+   * is already too big, into new methods which are then invoked from the current one. If there are
+   * more of these methods than the current one should invoke, they are grouped into another level
+   * of methods, so that no method grows with the size of the template.
+   */
+  private void emitStatements(MethodState state, List<RenderableNode> nodes, String guard) {
+    if (weight(nodes) <= state.budget || nodes.size() == 1) {
+      // a single node which is too heavy splits its own bodies
+      this.emitInline(state, nodes, guard);
+      return;
+    }
+    List<List<RenderableNode>> groups = partition(nodes, MAX_METHOD_WEIGHT);
+    int calls = Math.max(state.budget, 2);
+    if (groups.size() > calls) {
+      groups = partition(nodes, (weight(nodes) + calls - 1) / calls);
+    }
+    for (List<RenderableNode> group : groups) {
+      if (weight(group) <= state.budget) {
+        this.emitInline(state, group, guard);
+      } else {
+        String methodName = this.nextMethodName();
+        this.pendingMethods.add(new PendingMethod(methodName, group, guard));
+        this.emitMethodCall(state.mv, methodName);
+        state.budget--;
+      }
+    }
+  }
+
+  private void emitInline(MethodState state, List<RenderableNode> nodes, String guard) {
+    int i = 0;
+    while (i < nodes.size()) {
+      RenderableNode node = nodes.get(i);
+      if (node.getClass() == TextNode.class) {
+        // merge consecutive text nodes into a single write
+        StringBuilder text = new StringBuilder();
+        while (i < nodes.size() && nodes.get(i).getClass() == TextNode.class) {
+          text.append(((TextNode) nodes.get(i)).getData());
+          i++;
+        }
+        Label skip = this.emitGuard(state, node, guard);
+        this.emitText(state, new TextNode(text.toString(),
+            ((TextNode) node).getLineNumber()));
+        this.endGuard(state, skip);
+      } else {
+        Label skip = this.emitGuard(state, node, guard);
+        this.emitNode(state, node);
+        this.endGuard(state, skip);
+        i++;
+      }
+    }
+  }
+
+  /**
+   * Emits the equivalent of the check performed by {@link BodyNode#render} for the root body of a
+   * template which extends another one.
+   */
+  private Label emitGuard(MethodState state, RenderableNode node, String guard) {
+    if (guard == null || BodyNode.isInheritanceSafe(node)) {
+      return null;
+    }
+    MethodVisitor mv = state.mv;
+    Label render = new Label();
+    Label skip = new Label();
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitFieldInsn(GETFIELD, this.className, guard, "L" + BODY_NODE + ";");
+    mv.visitMethodInsn(INVOKEVIRTUAL, BODY_NODE, "isOnlyRenderInheritanceSafeNodes", "()Z", false);
+    mv.visitJumpInsn(IFEQ, render);
+    mv.visitVarInsn(ALOAD, CONTEXT_SLOT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, CONTEXT, "getHierarchy", "()L" + HIERARCHY + ";", false);
+    mv.visitMethodInsn(INVOKEVIRTUAL, HIERARCHY, "getParent", "()L" + TEMPLATE + ";", false);
+    mv.visitJumpInsn(IFNONNULL, skip);
+    mv.visitLabel(render);
+    return skip;
+  }
+
+  private void endGuard(MethodState state, Label skip) {
+    if (skip != null) {
+      state.mv.visitLabel(skip);
+    }
+  }
+
+  private void emitNode(MethodState state, RenderableNode node) {
+    Class<?> nodeClass = node.getClass();
+    if (nodeClass == PrintNode.class && ((PrintNode) node).getPrintedInvocation() == null) {
+      // printed macros are left to the node, which renders them straight into the writer
+      this.emitPrint(state, (PrintNode) node);
+    } else if (nodeClass == IfNode.class) {
+      this.emitIf(state, (IfNode) node);
+    } else if (nodeClass == ForNode.class) {
+      this.emitFor(state, (ForNode) node);
+    } else {
+      MethodVisitor mv = state.mv;
+      mv.visitVarInsn(ALOAD, THIS);
+      mv.visitFieldInsn(GETFIELD, this.className, this.constant(node, RENDERABLE_NODE),
+          "L" + RENDERABLE_NODE + ";");
+      mv.visitVarInsn(ALOAD, SELF);
+      mv.visitVarInsn(ALOAD, WRITER_SLOT);
+      mv.visitVarInsn(ALOAD, CONTEXT_SLOT);
+      mv.visitMethodInsn(INVOKEINTERFACE, RENDERABLE_NODE, "render", RENDER_DESCRIPTOR, true);
+      state.budget--;
+    }
+  }
+
+  private void emitText(MethodState state, TextNode text) {
+    MethodVisitor mv = state.mv;
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitFieldInsn(GETFIELD, this.className, this.constant(text, TEXT_NODE),
+        "L" + TEXT_NODE + ";");
+    mv.visitVarInsn(ALOAD, WRITER_SLOT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, TEXT_NODE, "write", "(L" + WRITER + ";)V", false);
+    state.budget--;
+  }
+
+  /**
+   * Object value = expression.evaluate(self, context); if (value != null) PrintNode.write(writer,
+   * value);
+   */
+  private void emitPrint(MethodState state, PrintNode node) {
+    MethodVisitor mv = state.mv;
+    Label isNull = new Label();
+    Label end = new Label();
+    this.emitEvaluate(mv, node.getExpression());
+    mv.visitInsn(DUP);
+    mv.visitJumpInsn(IFNULL, isNull);
+    mv.visitVarInsn(ALOAD, WRITER_SLOT);
+    mv.visitInsn(SWAP);
+    mv.visitMethodInsn(INVOKESTATIC, PRINT_NODE, "write",
+        "(L" + WRITER + ";Ljava/lang/Object;)V", false);
+    mv.visitJumpInsn(GOTO, end);
+    mv.visitLabel(isNull);
+    mv.visitInsn(POP);
+    mv.visitLabel(end);
+    state.budget--;
+  }
+
+  /**
+   * Expands every condition of the "if" node, see {@link IfNode#render}.
+   */
+  private void emitIf(MethodState state, IfNode node) {
+    MethodVisitor mv = state.mv;
+    String ifField = this.constant(node, IF_NODE);
+    Label end = new Label();
+    for (Pair<Expression<?>, BodyNode> conditionWithBody : node.getConditionsWithBodies()) {
+      Label tryStart = new Label();
+      Label tryEnd = new Label();
+      Label handler = new Label();
+      Label next = new Label();
+
+      // satisfied = ifNode.isSatisfied(condition.evaluate(self, context), self, context)
+      mv.visitTryCatchBlock(tryStart, tryEnd, handler, RUNTIME_EXCEPTION);
+      mv.visitLabel(tryStart);
+      mv.visitVarInsn(ALOAD, THIS);
+      mv.visitFieldInsn(GETFIELD, this.className, ifField, "L" + IF_NODE + ";");
+      this.emitEvaluate(mv, conditionWithBody.getLeft());
+      mv.visitVarInsn(ALOAD, SELF);
+      mv.visitVarInsn(ALOAD, CONTEXT_SLOT);
+      mv.visitMethodInsn(INVOKEVIRTUAL, IF_NODE, "isSatisfied",
+          "(Ljava/lang/Object;L" + TEMPLATE + ";L" + CONTEXT + ";)Z", false);
+      mv.visitLabel(tryEnd);
+      mv.visitJumpInsn(IFEQ, next);
+      state.budget--;
+
+      this.emitBody(state, conditionWithBody.getRight());
+      mv.visitJumpInsn(GOTO, end);
+      mv.visitLabel(next);
+
+      // catch (RuntimeException ex) { throw ifNode.conditionException(ex, self); }
+      state.handlers.add(() -> {
+        mv.visitLabel(handler);
+        mv.visitVarInsn(ALOAD, THIS);
+        mv.visitFieldInsn(GETFIELD, this.className, ifField, "L" + IF_NODE + ";");
+        mv.visitInsn(SWAP);
+        mv.visitVarInsn(ALOAD, SELF);
+        mv.visitMethodInsn(INVOKEVIRTUAL, IF_NODE, "conditionException",
+            "(L" + RUNTIME_EXCEPTION + ";L" + TEMPLATE + ";)L"
+                + Type.getInternalName(PebbleException.class) + ";", false);
+        mv.visitInsn(ATHROW);
+      });
+    }
+    if (node.getElseBody() != null) {
+      this.emitBody(state, node.getElseBody());
+    }
+    mv.visitLabel(end);
+  }
+
+  /**
+   * Expands the "for" node, see {@link ForNode#render}.
+   */
+  private void emitFor(MethodState state, ForNode node) {
+    MethodVisitor mv = state.mv;
+    int loop = state.nextLocal++;
+    Label loopStart = new Label();
+    Label close = new Label();
+    Label empty = new Label();
+    Label end = new Label();
+
+    // ForLoop loop = forNode.createLoop(iterable.evaluate(self, context), self, context)
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitFieldInsn(GETFIELD, this.className, this.constant(node, FOR_NODE),
+        "L" + FOR_NODE + ";");
+    this.emitEvaluate(mv, node.getIterable());
+    mv.visitVarInsn(ALOAD, SELF);
+    mv.visitVarInsn(ALOAD, CONTEXT_SLOT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, FOR_NODE, "createLoop",
+        "(Ljava/lang/Object;L" + TEMPLATE + ";L" + CONTEXT + ";)L" + FOR_LOOP + ";", false);
+    mv.visitVarInsn(ASTORE, loop);
+    mv.visitVarInsn(ALOAD, loop);
+    mv.visitJumpInsn(IFNULL, end);
+
+    mv.visitVarInsn(ALOAD, loop);
+    mv.visitMethodInsn(INVOKEVIRTUAL, FOR_LOOP, "hasNext", "()Z", false);
+    mv.visitJumpInsn(IFEQ, empty);
+    mv.visitVarInsn(ALOAD, loop);
+    mv.visitMethodInsn(INVOKEVIRTUAL, FOR_LOOP, "open", "()V", false);
+    mv.visitLabel(loopStart);
+    mv.visitVarInsn(ALOAD, loop);
+    mv.visitMethodInsn(INVOKEVIRTUAL, FOR_LOOP, "next", "()Z", false);
+    mv.visitJumpInsn(IFEQ, close);
+    state.budget -= 3;
+
+    this.emitBody(state, node.getBody());
+    mv.visitJumpInsn(GOTO, loopStart);
+
+    mv.visitLabel(close);
+    mv.visitVarInsn(ALOAD, loop);
+    mv.visitMethodInsn(INVOKEVIRTUAL, FOR_LOOP, "close", "()V", false);
+    mv.visitJumpInsn(GOTO, end);
+
+    mv.visitLabel(empty);
+    if (node.getElseBody() != null) {
+      this.emitBody(state, node.getElseBody());
+    }
+    mv.visitLabel(end);
+  }
+
+  private void emitBody(MethodState state, BodyNode body) {
+    this.compiledBodies.add(body);
+    this.emitStatements(state, body.getChildren(), null);
+  }
+
+  private void emitEvaluate(MethodVisitor mv, Expression<?> expression) {
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitFieldInsn(GETFIELD, this.className, this.constant(expression, EXPRESSION),
+        "L" + EXPRESSION + ";");
+    mv.visitVarInsn(ALOAD, SELF);
+    mv.visitVarInsn(ALOAD, CONTEXT_SLOT);
+    mv.visitMethodInsn(INVOKEINTERFACE, EXPRESSION, "evaluate", EVALUATE_DESCRIPTOR, true);
+  }
+
+  private void emitMethodCall(MethodVisitor mv, String methodName) {
+    mv.visitVarInsn(ALOAD, THIS);
+    mv.visitVarInsn(ALOAD, SELF);
+    mv.visitVarInsn(ALOAD, WRITER_SLOT);
+    mv.visitVarInsn(ALOAD, CONTEXT_SLOT);
+    mv.visitMethodInsn(INVOKEVIRTUAL, this.className, methodName, RENDER_DESCRIPTOR, false);
+  }
+
+  /**
+   * Registers a value which is passed to the constructor of the generated class and stored in a
+   * field.
+   *
+   * @return The name of the field
+   */
+  private String constant(Object value, String internalNameOrDescriptor) {
+    String descriptor = internalNameOrDescriptor.startsWith("[") ? internalNameOrDescriptor
+        : "L" + internalNameOrDescriptor + ";";
+    String name = "c" + this.constants.size();
+    this.constants.add(value);
+    this.constantDescriptors.add(descriptor);
+    // not final since the fields are assigned outside of the constructor
+    this.classWriter.visitField(ACC_PRIVATE, name, descriptor, null, null).visitEnd();
+    return name;
+  }
+
+  private String nextMethodName() {
+    return "render" + this.methodCount++;
+  }
+
+  /**
+   * Splits the nodes in consecutive groups which each weigh at most the given weight (except for a
+   * single node which is too heavy on its own, in which case its bodies will be split further).
+   */
+  private static List<List<RenderableNode>> partition(List<RenderableNode> nodes,
+      int maximumWeight) {
+    List<List<RenderableNode>> groups = new ArrayList<>();
+    List<RenderableNode> group = new ArrayList<>();
+    int groupWeight = 0;
+    for (RenderableNode node : nodes) {
+      int weight = weight(node);
+      if (!group.isEmpty() && groupWeight + weight > maximumWeight) {
+        groups.add(group);
+        group = new ArrayList<>();
+        groupWeight = 0;
+      }
+      group.add(node);
+      groupWeight += weight;
+    }
+    if (!group.isEmpty()) {
+      groups.add(group);
+    }
+    return groups;
+  }
+
+  private static int weight(List<RenderableNode> nodes) {
+    int weight = 0;
+    for (RenderableNode node : nodes) {
+      weight += weight(node);
+    }
+    return weight;
+  }
+
+  private static int weight(RenderableNode node) {
+    Class<?> nodeClass = node.getClass();
+    if (nodeClass == IfNode.class) {
+      IfNode ifNode = (IfNode) node;
+      int weight = 0;
+      for (Pair<Expression<?>, BodyNode> conditionWithBody : ifNode.getConditionsWithBodies()) {
+        weight += 1 + weight(conditionWithBody.getRight().getChildren());
+      }
+      if (ifNode.getElseBody() != null) {
+        weight += weight(ifNode.getElseBody().getChildren());
+      }
+      return weight;
+    } else if (nodeClass == ForNode.class) {
+      ForNode forNode = (ForNode) node;
+      int weight = 3 + weight(forNode.getBody().getChildren());
+      if (forNode.getElseBody() != null) {
+        weight += weight(forNode.getElseBody().getChildren());
+      }
+      return weight;
+    }
+    return 1;
+  }
+
+  private static class PendingMethod {
+
+    private final String name;
+
+    private final List<RenderableNode> nodes;
+
+    private final String guard;
+
+    PendingMethod(String name, List<RenderableNode> nodes, String guard) {
+      this.name = name;
+      this.nodes = nodes;
+      this.guard = guard;
+    }
+  }
+
+  private static class MethodState {
+
+    private final MethodVisitor mv;
+
+    private final List<Runnable> handlers = new ArrayList<>();
+
+    private int budget = MAX_METHOD_WEIGHT;
+
+    private int nextLocal = FIRST_FREE_SLOT;
+
+    MethodState(MethodVisitor mv) {
+      this.mv = mv;
+    }
+  }
+
+  /**
+   * Resolves the classes needed to compute stack map frames with the class loader the generated
+   * class will be defined in, rather than with the class loader of ASM.
+   */
+  private static class LoaderAwareClassWriter extends ClassWriter {
+
+    private final ClassLoader classLoader;
+
+    LoaderAwareClassWriter(ClassLoader classLoader) {
+      super(ClassWriter.COMPUTE_FRAMES);
+      this.classLoader = classLoader;
+    }
+
+    @Override
+    protected ClassLoader getClassLoader() {
+      return this.classLoader;
+    }
+
+    @Override
+    protected String getCommonSuperClass(String type1, String type2) {
+      try {
+        return super.getCommonSuperClass(type1, type2);
+      } catch (RuntimeException | LinkageError e) {
+        return OBJECT;
+      }
+    }
+  }
+}
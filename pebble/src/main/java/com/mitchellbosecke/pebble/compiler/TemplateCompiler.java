@@ -0,0 +1,31 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.compiler;
+
+import com.mitchellbosecke.pebble.node.RootNode;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+
+/**
+ * Turns the parsed node tree of a template into a faster executable form. The compiler is invoked
+ * once per template, after all of the node visitors have been applied.
+ * <p>
+ * Implementations must produce exactly the same output as the interpreted node tree and need to be
+ * thread-safe.
+ */
+public interface TemplateCompiler {
+
+  /**
+   * Compiles the given template.
+   *
+   * @param template The template which is being compiled
+   * @param root The root node of the template
+   */
+  void compile(PebbleTemplateImpl template, RootNode root);
+
+}
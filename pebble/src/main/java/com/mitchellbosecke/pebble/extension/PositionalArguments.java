@@ -0,0 +1,88 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension;
+
+import com.mitchellbosecke.pebble.template.EvaluationContext;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Adapts between the map based {@link Filter}, {@link Test} and {@link Function} and their
+ * positional counterparts.
+ */
+public final class PositionalArguments {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  private PositionalArguments() {
+  }
+
+  /**
+   * Converts the arguments of a map based call into the array expected by a positional filter,
+   * test or function.
+   *
+   * @param argumentNames The argument names of the filter, test or function
+   * @param args The arguments by name, or by their index if there are no argument names
+   * @return The arguments by position
+   */
+  public static Object[] fromMap(List<String> argumentNames, Map<String, Object> args) {
+    if (args == null || args.isEmpty()) {
+      return argumentNames == null || argumentNames.isEmpty() ? NO_ARGUMENTS
+          : new Object[argumentNames.size()];
+    }
+    if (argumentNames == null) {
+      List<Object> values = new ArrayList<>();
+      for (int i = 0; args.containsKey(String.valueOf(i)); i++) {
+        values.add(args.get(String.valueOf(i)));
+      }
+      return values.toArray();
+    }
+    Object[] values = new Object[argumentNames.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = args.get(argumentNames.get(i));
+    }
+    return values;
+  }
+
+  /**
+   * Checks if a filter can be invoked with positional arguments, i.e. if it is a
+   * {@link PositionalFilter} which does not override the map based method.
+   */
+  public static boolean isPositional(Filter filter) {
+    return filter instanceof PositionalFilter && isDefaultMethod(filter, "apply", Object.class,
+        Map.class, PebbleTemplate.class, EvaluationContext.class, int.class);
+  }
+
+  /**
+   * Checks if a test can be invoked with positional arguments.
+   */
+  public static boolean isPositional(Test test) {
+    return test instanceof PositionalTest && isDefaultMethod(test, "apply", Object.class,
+        Map.class, PebbleTemplate.class, EvaluationContext.class, int.class);
+  }
+
+  /**
+   * Checks if a function can be invoked with positional arguments.
+   */
+  public static boolean isPositional(Function function) {
+    return function instanceof PositionalFunction && isDefaultMethod(function, "execute",
+        Map.class, PebbleTemplate.class, EvaluationContext.class, int.class);
+  }
+
+  private static boolean isDefaultMethod(Object instance, String name,
+      Class<?>... parameterTypes) {
+    try {
+      return instance.getClass().getMethod(name, parameterTypes).isDefault();
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
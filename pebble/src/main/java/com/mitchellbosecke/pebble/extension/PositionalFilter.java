@@ -0,0 +1,39 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.template.EvaluationContext;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.Map;
+
+/**
+ * A {@link Filter} which receives its arguments as an array instead of a map. The array has one
+ * element per name returned by {@link #getArgumentNames()}, in that order, and null for the
+ * arguments which were not given. If {@link #getArgumentNames()} returns null, the array simply
+ * holds the positional arguments.
+ *
+ * <p>
+ * The position of every argument is resolved once when the template is compiled so that no map has
+ * to be built for every call. The map based {@link #apply(Object, Map, PebbleTemplate,
+ * EvaluationContext, int)} keeps working and delegates to
+ * {@link #invoke(Object, Object[], PebbleTemplate, EvaluationContext, int)}.
+ */
+public interface PositionalFilter extends Filter {
+
+  Object invoke(Object input, Object[] args, PebbleTemplate self, EvaluationContext context,
+      int lineNumber) throws PebbleException;
+
+  @Override
+  default Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+      EvaluationContext context, int lineNumber) throws PebbleException {
+    return this.invoke(input, PositionalArguments.fromMap(this.getArgumentNames(), args), self,
+        context, lineNumber);
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension;
+
+import com.mitchellbosecke.pebble.template.EvaluationContext;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.Map;
+
+/**
+ * A {@link Function} which receives its arguments as an array instead of a map.
+ *
+ * @see PositionalFilter
+ */
+public interface PositionalFunction extends Function {
+
+  Object invoke(Object[] args, PebbleTemplate self, EvaluationContext context, int lineNumber);
+
+  @Override
+  default Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context,
+      int lineNumber) {
+    return this.invoke(PositionalArguments.fromMap(this.getArgumentNames(), args), self, context,
+        lineNumber);
+  }
+}
@@ -0,0 +1,32 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.template.EvaluationContext;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.Map;
+
+/**
+ * A {@link Test} which receives its arguments as an array instead of a map.
+ *
+ * @see PositionalFilter
+ */
+public interface PositionalTest extends Test {
+
+  boolean invoke(Object input, Object[] args, PebbleTemplate self, EvaluationContext context,
+      int lineNumber) throws PebbleException;
+
+  @Override
+  default boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+      EvaluationContext context, int lineNumber) throws PebbleException {
+    return this.invoke(input, PositionalArguments.fromMap(this.getArgumentNames(), args), self,
+        context, lineNumber);
+  }
+}
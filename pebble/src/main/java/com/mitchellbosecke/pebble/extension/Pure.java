@@ -0,0 +1,23 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension;
+
+/**
+ * Marks a {@link Filter} or a {@link Function} whose result only depends on its input and
+ * arguments: it does not use the evaluation context (variables, locale, ...) and has no side
+ * effects.
+ *
+ * <p>
+ * When all the arguments are constants, a pure filter or function is evaluated once when the
+ * template is compiled instead of on every render. Failures are not reported at that time, the
+ * expression is then simply evaluated at render time as usual.
+ */
+public interface Pure {
+
+}
@@ -9,14 +9,14 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
-public class AbbreviateFilter implements Filter {
+public class AbbreviateFilter implements PositionalFilter, Pure {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -30,13 +30,13 @@ public class AbbreviateFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
     }
     String value = (String) input;
-    int maxWidth = ((Long) args.get("length")).intValue();
+    int maxWidth = ((Long) args[0]).intValue();
 
     if (maxWidth < 0) {
       throw new PebbleException(null,
@@ -9,15 +9,15 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.List;
-import java.util.Map;
 
-public class AbsFilter implements Filter {
+public class AbsFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -25,7 +25,7 @@ public class AbsFilter implements Filter {
   }
 
   @Override
-  public Number apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Number invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber)
       throws PebbleException {
     if (input == null) {
@@ -8,14 +8,14 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-public class CapitalizeFilter implements Filter {
+public class CapitalizeFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -23,7 +23,7 @@ public class CapitalizeFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
@@ -0,0 +1,388 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension.core;
+
+import com.mitchellbosecke.pebble.extension.AbstractNodeVisitor;
+import com.mitchellbosecke.pebble.extension.Pure;
+import com.mitchellbosecke.pebble.extension.escaper.SafeString;
+import com.mitchellbosecke.pebble.node.ArgumentsNode;
+import com.mitchellbosecke.pebble.node.ForNode;
+import com.mitchellbosecke.pebble.node.IncludeNode;
+import com.mitchellbosecke.pebble.node.NamedArgumentNode;
+import com.mitchellbosecke.pebble.node.PositionalArgumentNode;
+import com.mitchellbosecke.pebble.node.PrintNode;
+import com.mitchellbosecke.pebble.node.SetNode;
+import com.mitchellbosecke.pebble.node.expression.AddExpression;
+import com.mitchellbosecke.pebble.node.expression.AndExpression;
+import com.mitchellbosecke.pebble.node.expression.ArrayExpression;
+import com.mitchellbosecke.pebble.node.expression.BinaryExpression;
+import com.mitchellbosecke.pebble.node.expression.ConcatenateExpression;
+import com.mitchellbosecke.pebble.node.expression.ConstantExpression;
+import com.mitchellbosecke.pebble.node.expression.ContainsExpression;
+import com.mitchellbosecke.pebble.node.expression.DivideExpression;
+import com.mitchellbosecke.pebble.node.expression.EqualsExpression;
+import com.mitchellbosecke.pebble.node.expression.Expression;
+import com.mitchellbosecke.pebble.node.expression.FilterExpression;
+import com.mitchellbosecke.pebble.node.expression.FilterInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.FunctionOrMacroInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.GreaterThanEqualsExpression;
+import com.mitchellbosecke.pebble.node.expression.GreaterThanExpression;
+import com.mitchellbosecke.pebble.node.expression.LessThanEqualsExpression;
+import com.mitchellbosecke.pebble.node.expression.LessThanExpression;
+import com.mitchellbosecke.pebble.node.expression.LiteralBooleanExpression;
+import com.mitchellbosecke.pebble.node.expression.LiteralDoubleExpression;
+import com.mitchellbosecke.pebble.node.expression.LiteralIntegerExpression;
+import com.mitchellbosecke.pebble.node.expression.LiteralLongExpression;
+import com.mitchellbosecke.pebble.node.expression.LiteralNullExpression;
+import com.mitchellbosecke.pebble.node.expression.LiteralStringExpression;
+import com.mitchellbosecke.pebble.node.expression.MapExpression;
+import com.mitchellbosecke.pebble.node.expression.ModulusExpression;
+import com.mitchellbosecke.pebble.node.expression.MultiplyExpression;
+import com.mitchellbosecke.pebble.node.expression.NotEqualsExpression;
+import com.mitchellbosecke.pebble.node.expression.OrExpression;
+import com.mitchellbosecke.pebble.node.expression.RangeExpression;
+import com.mitchellbosecke.pebble.node.expression.SubtractExpression;
+import com.mitchellbosecke.pebble.node.expression.TernaryExpression;
+import com.mitchellbosecke.pebble.node.expression.UnaryExpression;
+import com.mitchellbosecke.pebble.node.expression.UnaryMinusExpression;
+import com.mitchellbosecke.pebble.node.expression.UnaryNotExpression;
+import com.mitchellbosecke.pebble.node.expression.UnaryPlusExpression;
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Replaces the expressions which only depend on literals by their value, so that they are evaluated
+ * once when the template is compiled instead of on every render. This covers the core operators,
+ * list and map literals, and the filters and functions which implement {@link Pure}.
+ *
+ * <p>
+ * Lists and maps are folded into unmodifiable collections which are shared by all renders. Ranges
+ * and other lists of more than a thousand elements are not folded, as they would be kept in memory
+ * for as long as the template. An expression which fails to evaluate is kept as is so that the
+ * error is reported when rendering.
+ */
+public class ConstantFoldingNodeVisitor extends AbstractNodeVisitor {
+
+  private static final Set<Class<?>> FOLDABLE_OPERATORS = new HashSet<>(Arrays.asList(
+      AddExpression.class,
+      AndExpression.class,
+      ConcatenateExpression.class,
+      ContainsExpression.class,
+      DivideExpression.class,
+      EqualsExpression.class,
+      GreaterThanEqualsExpression.class,
+      GreaterThanExpression.class,
+      LessThanEqualsExpression.class,
+      LessThanExpression.class,
+      ModulusExpression.class,
+      MultiplyExpression.class,
+      NotEqualsExpression.class,
+      OrExpression.class,
+      RangeExpression.class,
+      SubtractExpression.class,
+      UnaryMinusExpression.class,
+      UnaryNotExpression.class,
+      UnaryPlusExpression.class));
+
+  /**
+   * The number of elements of the largest list which is folded.
+   */
+  private static final int MAXIMUM_FOLDED_SIZE = 1000;
+
+  /**
+   * Lazily created, only used to evaluate the constant expressions.
+   */
+  private EvaluationContextImpl context;
+
+  public ConstantFoldingNodeVisitor(PebbleTemplateImpl template) {
+    super(template);
+  }
+
+  @Override
+  public void visit(ForNode node) {
+    node.setIterable(this.fold(node.getIterable()));
+    super.visit(node);
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public void visit(IncludeNode node) {
+    if (node.getMapExpression() != null) {
+      node.setMapExpression(
+          (Expression<? extends Map<?, ?>>) this.fold(node.getMapExpression()));
+    }
+    super.visit(node);
+  }
+
+  @Override
+  public void visit(NamedArgumentNode node) {
+    if (node.getValueExpression() != null) {
+      node.setValueExpression(this.fold(node.getValueExpression()));
+    }
+  }
+
+  @Override
+  public void visit(PositionalArgumentNode node) {
+    node.setValueExpression(this.fold(node.getValueExpression()));
+  }
+
+  @Override
+  public void visit(PrintNode node) {
+    node.setExpression(this.fold(node.getExpression()));
+  }
+
+  @Override
+  public void visit(SetNode node) {
+    node.setValue(this.fold(node.getValue()));
+  }
+
+  /**
+   * Folds the children of the expression and then the expression itself if possible.
+   *
+   * @return The expression to use in place of the given one
+   */
+  private Expression<?> fold(Expression<?> expression) {
+    if (expression instanceof FilterExpression) {
+      return this.foldFilter((FilterExpression) expression);
+    } else if (expression instanceof BinaryExpression) {
+      return this.foldBinary((BinaryExpression<?>) expression);
+    } else if (expression instanceof UnaryExpression) {
+      UnaryExpression unary = (UnaryExpression) expression;
+      unary.setChildExpression(this.fold(unary.getChildExpression()));
+      if (FOLDABLE_OPERATORS.contains(unary.getClass())
+          && isConstant(unary.getChildExpression())) {
+        return this.evaluate(unary, false);
+      }
+    } else if (expression instanceof TernaryExpression) {
+      TernaryExpression ternary = (TernaryExpression) expression;
+      ternary.setExpression2(this.fold(ternary.getExpression2()));
+      ternary.setExpression3(this.fold(ternary.getExpression3()));
+    } else if (expression instanceof ArrayExpression) {
+      return this.foldArray((ArrayExpression) expression);
+    } else if (expression instanceof MapExpression) {
+      return this.foldMap((MapExpression) expression);
+    } else if (expression instanceof FunctionOrMacroInvocationExpression) {
+      FunctionOrMacroInvocationExpression invocation =
+          (FunctionOrMacroInvocationExpression) expression;
+      this.foldArguments(invocation.getArguments());
+      if (this.isPureFunction(invocation.getFunctionName())
+          && isConstant(invocation.getArguments())
+          && (!RangeFunction.FUNCTION_NAME.equals(invocation.getFunctionName())
+          || this.isSmallRange(invocation.getArguments()))) {
+        return this.evaluate(invocation, false);
+      }
+    }
+    return expression;
+  }
+
+  private Expression<?> foldBinary(BinaryExpression<?> binary) {
+    // the autoescaper considers the concatenation of two string literals as safe
+    boolean safe = binary instanceof ConcatenateExpression
+        && binary.getLeftExpression() instanceof LiteralStringExpression
+        && binary.getRightExpression() instanceof LiteralStringExpression;
+
+    binary.setLeft(this.fold(binary.getLeftExpression()));
+    binary.setRight(this.fold(binary.getRightExpression()));
+
+    if (FOLDABLE_OPERATORS.contains(binary.getClass())
+        && isConstant(binary.getLeftExpression())
+        && isConstant(binary.getRightExpression())) {
+      if (binary instanceof RangeExpression
+          && !(this.isPureFunction(RangeFunction.FUNCTION_NAME)
+          && this.isSmallRange(binary.getLeftExpression(), binary.getRightExpression(), null))) {
+        return binary;
+      }
+      return this.evaluate(binary, safe);
+    }
+    return binary;
+  }
+
+  private Expression<?> foldFilter(FilterExpression filter) {
+    FilterInvocationExpression invocation = (FilterInvocationExpression) filter
+        .getRightExpression();
+    filter.setLeft(this.fold(filter.getLeftExpression()));
+    this.foldArguments(invocation.getArgs());
+
+    boolean pure = this.getContext().getExtensionRegistry()
+        .getFilter(invocation.getFilterName()) instanceof Pure;
+    if (pure
+        && isConstant(filter.getLeftExpression())
+        && isConstant(invocation.getArgs())) {
+      return this.evaluate(filter, false);
+    }
+    return filter;
+  }
+
+  private Expression<?> foldArray(ArrayExpression array) {
+    List<Expression<?>> values = new ArrayList<>(array.getValues().size());
+    boolean constant = true;
+    for (Expression<?> value : array.getValues()) {
+      Expression<?> folded = value == null ? null : this.fold(value);
+      constant = constant && (folded == null || isConstant(folded));
+      values.add(folded);
+    }
+    ArrayExpression folded = new ArrayExpression(values, array.getLineNumber());
+    return constant ? this.evaluate(folded, false) : folded;
+  }
+
+  private Expression<?> foldMap(MapExpression map) {
+    Map<Expression<?>, Expression<?>> entries = new HashMap<>(map.getEntries().size() * 2);
+    boolean constant = true;
+    for (Entry<Expression<?>, Expression<?>> entry : map.getEntries().entrySet()) {
+      Expression<?> key = entry.getKey() == null ? null : this.fold(entry.getKey());
+      Expression<?> value = entry.getValue() == null ? null : this.fold(entry.getValue());
+      constant = constant
+          && (key == null || isConstant(key))
+          && (value == null || isConstant(value));
+      entries.put(key, value);
+    }
+    MapExpression folded = new MapExpression(entries, map.getLineNumber());
+    return constant ? this.evaluate(folded, false) : folded;
+  }
+
+  private void foldArguments(ArgumentsNode args) {
+    if (args == null) {
+      return;
+    }
+    if (args.getPositionalArgs() != null) {
+      for (PositionalArgumentNode arg : args.getPositionalArgs()) {
+        arg.setValueExpression(this.fold(arg.getValueExpression()));
+      }
+    }
+    if (args.getNamedArgs() != null) {
+      for (NamedArgumentNode arg : args.getNamedArgs()) {
+        arg.setValueExpression(this.fold(arg.getValueExpression()));
+      }
+    }
+  }
+
+  /**
+   * Evaluates an expression whose children are all constants.
+   *
+   * @param safe Whether or not a string value can be turned into a literal, which the autoescaper
+   * does not escape
+   * @return The constant, or the expression itself if it can not be folded
+   */
+  private Expression<?> evaluate(Expression<?> expression, boolean safe) {
+    Object value;
+    try {
+      value = expression.evaluate(this.getTemplate(), this.getContext());
+    } catch (RuntimeException e) {
+      // the error will be reported when rendering the template
+      return expression;
+    }
+
+    if (value instanceof String && safe) {
+      return new LiteralStringExpression((String) value, expression.getLineNumber());
+    } else if (value instanceof List) {
+      if (((List<?>) value).size() > MAXIMUM_FOLDED_SIZE) {
+        return expression;
+      }
+      value = Collections.unmodifiableList((List<?>) value);
+    } else if (value instanceof Map) {
+      value = Collections.unmodifiableMap((Map<?, ?>) value);
+    } else if (!(value == null
+        || value instanceof String
+        || value instanceof Number
+        || value instanceof Boolean
+        || value instanceof Character
+        || value instanceof SafeString)) {
+      // the value might be mutable so it can not be shared between renders
+      return expression;
+    }
+    return new ConstantExpression(value, expression.getLineNumber());
+  }
+
+  private boolean isSmallRange(ArgumentsNode args) {
+    List<PositionalArgumentNode> positional = args.getPositionalArgs();
+    if ((args.getNamedArgs() != null && !args.getNamedArgs().isEmpty())
+        || positional == null || positional.size() < 2 || positional.size() > 3) {
+      // rare enough to be evaluated and only then checked for its size
+      return true;
+    }
+    return this.isSmallRange(positional.get(0).getValueExpression(),
+        positional.get(1).getValueExpression(),
+        positional.size() == 3 ? positional.get(2).getValueExpression() : null);
+  }
+
+  /**
+   * Checks the number of elements of a range before it is created, so that a large range does not
+   * have to be created when the template is compiled. Ranges with invalid bounds count as small, as
+   * evaluating them fails right away.
+   */
+  private boolean isSmallRange(Expression<?> start, Expression<?> end, Expression<?> increment) {
+    Object from = start.evaluate(this.getTemplate(), this.getContext());
+    Object to = end.evaluate(this.getTemplate(), this.getContext());
+    Object step = increment == null ? 1L
+        : increment.evaluate(this.getTemplate(), this.getContext());
+    if (from instanceof String && to instanceof String
+        && ((String) from).length() == 1 && ((String) to).length() == 1) {
+      from = (long) ((String) from).charAt(0);
+      to = (long) ((String) to).charAt(0);
+    }
+    if (!(from instanceof Number && to instanceof Number && step instanceof Number)
+        || ((Number) step).longValue() == 0) {
+      return true;
+    }
+    double size = ((double) ((Number) to).longValue() - ((Number) from).longValue())
+        / ((Number) step).longValue() + 1;
+    return size <= MAXIMUM_FOLDED_SIZE;
+  }
+
+  private boolean isPureFunction(String name) {
+    return this.getContext().getExtensionRegistry().getFunction(name) instanceof Pure;
+  }
+
+  private static boolean isConstant(ArgumentsNode args) {
+    if (args == null) {
+      return true;
+    }
+    if (args.getPositionalArgs() != null) {
+      for (PositionalArgumentNode arg : args.getPositionalArgs()) {
+        if (!isConstant(arg.getValueExpression())) {
+          return false;
+        }
+      }
+    }
+    if (args.getNamedArgs() != null) {
+      for (NamedArgumentNode arg : args.getNamedArgs()) {
+        if (!isConstant(arg.getValueExpression())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static boolean isConstant(Expression<?> expression) {
+    return expression instanceof ConstantExpression
+        || expression instanceof LiteralStringExpression
+        || expression instanceof LiteralIntegerExpression
+        || expression instanceof LiteralLongExpression
+        || expression instanceof LiteralDoubleExpression
+        || expression instanceof LiteralBooleanExpression
+        || expression instanceof LiteralNullExpression;
+  }
+
+  private EvaluationContextImpl getContext() {
+    if (this.context == null) {
+      this.context = this.getTemplate().newEvaluationContext();
+    }
+    return this.context;
+  }
+}
@@ -187,6 +187,8 @@ public class CoreExtension extends AbstractExtension {
   public List<NodeVisitorFactory> getNodeVisitors() {
     List<NodeVisitorFactory> visitors = new ArrayList<>();
     visitors.add(new MacroAndBlockRegistrantNodeVisitorFactory());
+    visitors.add(new ConstantFoldingNodeVisitorFactory());
+    visitors.add(new VariableSlotNodeVisitorFactory());
     return visitors;
   }
 }
@@ -11,7 +11,7 @@ package com.mitchellbosecke.pebble.extension.core;
 import static java.lang.String.format;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.extension.escaper.SafeString;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
@@ -25,9 +25,8 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
-public class DateFilter implements Filter {
+public class DateFilter implements PositionalFilter {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -42,19 +41,19 @@ public class DateFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     if (input == null) {
       return null;
     }
     final Locale locale = context.getLocale();
-    final String format = (String) args.get("format");
+    final String format = (String) args[0];
 
     if (TemporalAccessor.class.isAssignableFrom(input.getClass())) {
       return this.applyTemporal((TemporalAccessor) input, self, locale, lineNumber, format);
     }
     return this
-        .applyDate(input, self, locale, lineNumber, format, (String) args.get("existingFormat"));
+        .applyDate(input, self, locale, lineNumber, format, (String) args[1]);
   }
 
   private Object applyDate(Object dateOrString, final PebbleTemplate self, final Locale locale,
@@ -9,16 +9,14 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
-import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class DefaultFilter implements Filter {
+public class DefaultFilter implements PositionalFilter {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -32,13 +30,13 @@ public class DefaultFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
 
-    Object defaultObj = args.get("default");
+    Object defaultObj = args[0];
 
-    Test emptyTest = new EmptyTest();
-    if (emptyTest.apply(input, new HashMap<>(), self, context, lineNumber)) {
+    PositionalTest emptyTest = new EmptyTest();
+    if (emptyTest.invoke(input, args, self, context, lineNumber)) {
       return defaultObj;
     }
     return input;
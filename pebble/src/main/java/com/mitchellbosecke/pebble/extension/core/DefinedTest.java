@@ -2,7 +2,6 @@ package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
-import java.util.Map;
 
 /**
  * Implementation for the test function 'defined'.
@@ -16,10 +15,10 @@ import java.util.Map;
 public class DefinedTest extends NullTest {
 
   @Override
-  public boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public boolean invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int
       lineNumber) {
-    return !super.apply(input, args, self, context, lineNumber);
+    return !super.invoke(input, args, self, context, lineNumber);
   }
 
 }
@@ -8,14 +8,14 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
-public class EmptyTest implements Test {
+public class EmptyTest implements PositionalTest {
 
   @Override
   public List<String> getArgumentNames() {
@@ -23,7 +23,7 @@ public class EmptyTest implements Test {
   }
 
   @Override
-  public boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public boolean invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     boolean isEmpty = input == null;
 
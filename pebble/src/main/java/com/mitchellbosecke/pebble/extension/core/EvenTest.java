@@ -9,13 +9,12 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.List;
-import java.util.Map;
 
-public class EvenTest implements Test {
+public class EvenTest implements PositionalTest {
 
   @Override
   public List<String> getArgumentNames() {
@@ -23,7 +22,7 @@ public class EvenTest implements Test {
   }
 
   @Override
-  public boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public boolean invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     if (input == null) {
       throw new PebbleException(null, "Can not pass null value to \"even\" test.", lineNumber,
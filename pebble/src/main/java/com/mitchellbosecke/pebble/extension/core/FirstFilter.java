@@ -8,21 +8,21 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Returns the first element of a collection
  *
  * @author mbosecke
  */
-public class FirstFilter implements Filter {
+public class FirstFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -30,7 +30,7 @@ public class FirstFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
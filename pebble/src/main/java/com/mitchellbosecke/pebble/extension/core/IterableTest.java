@@ -8,13 +8,12 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.List;
-import java.util.Map;
 
-public class IterableTest implements Test {
+public class IterableTest implements PositionalTest {
 
   @Override
   public List<String> getArgumentNames() {
@@ -22,7 +21,7 @@ public class IterableTest implements Test {
   }
 
   @Override
-  public boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public boolean invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
 
     return input instanceof Iterable || input instanceof Object[];
@@ -9,14 +9,14 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Concatenates all entries of a collection, optionally glued together with a particular character
@@ -24,7 +24,7 @@ import java.util.Map;
  *
  * @author mbosecke
  */
-public class JoinFilter implements Filter {
+public class JoinFilter implements PositionalFilter, Pure {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -38,17 +38,14 @@ public class JoinFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber)
       throws PebbleException {
     if (input == null) {
       return null;
     }
 
-    String glue = null;
-    if (args.containsKey("separator")) {
-      glue = (String) args.get("separator");
-    }
+    String glue = (String) args[0];
 
     if (input.getClass().isArray()) {
       List<Object> items = new ArrayList<>();
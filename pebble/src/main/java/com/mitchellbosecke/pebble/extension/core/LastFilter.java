@@ -8,20 +8,20 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.lang.reflect.Array;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Returns the last element of a collection
  *
  * @author mbosecke
  */
-public class LastFilter implements Filter {
+public class LastFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -29,7 +29,7 @@ public class LastFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
@@ -0,0 +1,172 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension.core;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.extension.AbstractNodeVisitor;
+import com.mitchellbosecke.pebble.extension.ExtensionRegistry;
+import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.node.ArgumentsNode;
+import com.mitchellbosecke.pebble.node.BlockNode;
+import com.mitchellbosecke.pebble.node.CacheNode;
+import com.mitchellbosecke.pebble.node.EmbedNode;
+import com.mitchellbosecke.pebble.node.IncludeNode;
+import com.mitchellbosecke.pebble.node.Node;
+import com.mitchellbosecke.pebble.node.TestInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.ArrayExpression;
+import com.mitchellbosecke.pebble.node.expression.BinaryExpression;
+import com.mitchellbosecke.pebble.node.expression.Expression;
+import com.mitchellbosecke.pebble.node.expression.FilterExpression;
+import com.mitchellbosecke.pebble.node.expression.FilterInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.FunctionOrMacroInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.GetAttributeExpression;
+import com.mitchellbosecke.pebble.node.expression.MapExpression;
+import com.mitchellbosecke.pebble.node.expression.PositiveTestExpression;
+import com.mitchellbosecke.pebble.node.expression.RangeExpression;
+import com.mitchellbosecke.pebble.node.expression.RenderableNodeExpression;
+import com.mitchellbosecke.pebble.node.expression.TernaryExpression;
+import com.mitchellbosecke.pebble.node.expression.UnaryExpression;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.util.Map.Entry;
+
+/**
+ * Links a template after all other node visitors have run: every filter, test and function which
+ * is referenced by name is bound to the instance registered in the {@link ExtensionRegistry}, so
+ * that it does not have to be looked up on every evaluation. A filter or test which does not exist
+ * fails the compilation of the template instead of its rendering.
+ * <p>
+ * Functions can not be checked this way because an unknown function name refers to a macro, which
+ * may only be known once the template is rendered. Such invocations are bound to the macro lookup.
+ */
+public class LinkingNodeVisitor extends AbstractNodeVisitor {
+
+  private final ExtensionRegistry extensionRegistry;
+
+  public LinkingNodeVisitor(PebbleTemplateImpl template, ExtensionRegistry extensionRegistry) {
+    super(template);
+    this.extensionRegistry = extensionRegistry;
+  }
+
+  /**
+   * Expressions and nodes without a dedicated visit method end up here.
+   */
+  @Override
+  public void visit(Node node) {
+    if (node instanceof Expression) {
+      this.link((Expression<?>) node);
+    } else if (node instanceof CacheNode) {
+      CacheNode cache = (CacheNode) node;
+      this.link(cache.getName());
+      this.link(cache.getTimeToLive());
+      this.link(cache.getGroups());
+      this.link(cache.getRefresh());
+      cache.getBody().accept(this);
+    } else if (node instanceof EmbedNode) {
+      EmbedNode embed = (EmbedNode) node;
+      this.link(embed.getIncludeExpression());
+      this.link(embed.getMapExpression());
+      for (BlockNode block : embed.getNodes()) {
+        block.accept(this);
+      }
+    }
+  }
+
+  @Override
+  public void visit(IncludeNode node) {
+    super.visit(node);
+    this.link(node.getMapExpression());
+  }
+
+  private void link(Expression<?> expression) {
+    if (expression == null) {
+      return;
+    }
+    if (expression instanceof FilterExpression) {
+      this.linkFilter((FilterExpression) expression);
+    } else if (expression instanceof PositiveTestExpression) {
+      this.linkTest((PositiveTestExpression) expression);
+    } else if (expression instanceof RangeExpression) {
+      RangeExpression range = (RangeExpression) expression;
+      FunctionOrMacroInvocationExpression invocation = range.createInvocation();
+      this.link(invocation);
+      range.setInvocation(invocation);
+    } else if (expression instanceof FunctionOrMacroInvocationExpression) {
+      FunctionOrMacroInvocationExpression invocation =
+          (FunctionOrMacroInvocationExpression) expression;
+      invocation.setFunction(this.extensionRegistry.getFunction(invocation.getFunctionName()));
+      this.link(invocation.getArguments());
+      return;
+    }
+
+    if (expression instanceof RenderableNodeExpression) {
+      ((RenderableNodeExpression) expression).getNode().accept(this);
+    } else if (expression instanceof BinaryExpression) {
+      BinaryExpression<?> binary = (BinaryExpression<?>) expression;
+      this.link(binary.getLeftExpression());
+      this.link(binary.getRightExpression());
+    } else if (expression instanceof UnaryExpression) {
+      this.link(((UnaryExpression) expression).getChildExpression());
+    } else if (expression instanceof TernaryExpression) {
+      TernaryExpression ternary = (TernaryExpression) expression;
+      this.link(ternary.getExpression1());
+      this.link(ternary.getExpression2());
+      this.link(ternary.getExpression3());
+    } else if (expression instanceof GetAttributeExpression) {
+      GetAttributeExpression attribute = (GetAttributeExpression) expression;
+      this.link(attribute.getNode());
+      this.link(attribute.getAttributeNameExpression());
+      this.link(attribute.getArgumentsNode());
+    } else if (expression instanceof FilterInvocationExpression) {
+      this.link(((FilterInvocationExpression) expression).getArgs());
+    } else if (expression instanceof TestInvocationExpression) {
+      this.link(((TestInvocationExpression) expression).getArgs());
+    } else if (expression instanceof ArrayExpression) {
+      for (Expression<?> value : ((ArrayExpression) expression).getValues()) {
+        this.link(value);
+      }
+    } else if (expression instanceof MapExpression) {
+      for (Entry<Expression<?>, Expression<?>> entry : ((MapExpression) expression).getEntries()
+          .entrySet()) {
+        this.link(entry.getKey());
+        this.link(entry.getValue());
+      }
+    }
+  }
+
+  private void link(ArgumentsNode args) {
+    if (args != null) {
+      args.accept(this);
+    }
+  }
+
+  private void linkFilter(FilterExpression expression) {
+    FilterInvocationExpression invocation =
+        (FilterInvocationExpression) expression.getRightExpression();
+    Filter filter = this.extensionRegistry.getFilter(invocation.getFilterName());
+    if (filter == null) {
+      throw new PebbleException(null,
+          String.format("Filter [%s] does not exist.", invocation.getFilterName()),
+          expression.getLineNumber(), this.getTemplate().getName());
+    }
+    expression.setFilter(filter);
+  }
+
+  private void linkTest(PositiveTestExpression expression) {
+    TestInvocationExpression invocation =
+        (TestInvocationExpression) expression.getRightExpression();
+    Test test = this.extensionRegistry.getTest(invocation.getTestName());
+    if (test == null) {
+      throw new PebbleException(null,
+          String.format("Test [%s] does not exist.", invocation.getTestName()),
+          expression.getLineNumber(), this.getTemplate().getName());
+    }
+    expression.setTest(test);
+  }
+}
@@ -8,13 +8,12 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.List;
-import java.util.Map;
 
-public class LowerFilter implements Filter {
+public class LowerFilter implements PositionalFilter {
 
   @Override
   public List<String> getArgumentNames() {
@@ -22,7 +21,7 @@ public class LowerFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
@@ -8,13 +8,13 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.List;
 import java.util.Map;
 
-public class MapTest implements Test {
+public class MapTest implements PositionalTest {
 
   @Override
   public List<String> getArgumentNames() {
@@ -22,7 +22,7 @@ public class MapTest implements Test {
   }
 
   @Override
-  public boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public boolean invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     return input instanceof Map;
   }
@@ -8,14 +8,14 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Function;
+import com.mitchellbosecke.pebble.extension.PositionalFunction;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 import java.util.List;
-import java.util.Map;
 
-public class MaxFunction implements Function {
+public class MaxFunction implements PositionalFunction, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -23,17 +23,11 @@ public class MaxFunction implements Function {
   }
 
   @Override
-  public Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context,
+  public Object invoke(Object[] args, PebbleTemplate self, EvaluationContext context,
       int lineNumber) {
     Object min = null;
 
-    int i = 0;
-
-    while (args.containsKey(String.valueOf(i))) {
-
-      Object candidate = args.get(String.valueOf(i));
-      i++;
-
+    for (Object candidate : args) {
       if (min == null) {
         min = candidate;
         continue;
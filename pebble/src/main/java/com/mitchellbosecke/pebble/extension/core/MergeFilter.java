@@ -9,7 +9,8 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.lang.reflect.Array;
@@ -18,7 +19,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class MergeFilter implements Filter {
+public class MergeFilter implements PositionalFilter, Pure {
 
   public static final String FILTER_NAME = "merge";
 
@@ -34,9 +35,9 @@ public class MergeFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
-    Object items = args.get("items");
+    Object items = args[0];
     if (input == null) {
       if (items == null) {
         throw new PebbleException(null, "The two arguments to be merged are null", lineNumber,
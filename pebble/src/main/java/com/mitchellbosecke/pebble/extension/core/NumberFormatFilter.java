@@ -9,7 +9,7 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.text.DecimalFormat;
@@ -19,9 +19,8 @@ import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
-public class NumberFormatFilter implements Filter {
+public class NumberFormatFilter implements PositionalFilter {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -35,7 +34,7 @@ public class NumberFormatFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     if (input == null) {
       return null;
@@ -49,8 +48,8 @@ public class NumberFormatFilter implements Filter {
 
     Locale locale = context.getLocale();
 
-    if (args.get("format") != null) {
-      Format format = new DecimalFormat((String) args.get("format"),
+    if (args[0] != null) {
+      Format format = new DecimalFormat((String) args[0],
           new DecimalFormatSymbols(locale));
       return format.format(number);
     } else {
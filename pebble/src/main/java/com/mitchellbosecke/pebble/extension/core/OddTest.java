@@ -9,13 +9,12 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Test;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.List;
-import java.util.Map;
 
-public class OddTest implements Test {
+public class OddTest implements PositionalTest {
 
   @Override
   public List<String> getArgumentNames() {
@@ -23,12 +22,12 @@ public class OddTest implements Test {
   }
 
   @Override
-  public boolean apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public boolean invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     if (input == null) {
       throw new IllegalArgumentException("Can not pass null value to \"odd\" test.");
     }
     EvenTest evenTest = new EvenTest();
-    return !evenTest.apply(input, args, self, context, lineNumber);
+    return !evenTest.invoke(input, args, self, context, lineNumber);
   }
 }
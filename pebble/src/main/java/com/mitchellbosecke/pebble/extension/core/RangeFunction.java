@@ -9,19 +9,19 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Function;
+import com.mitchellbosecke.pebble.extension.PositionalFunction;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Range function to iterate over long or a string with a length of 1.
  *
  * @author Eric Bussieres
  */
-public class RangeFunction implements Function {
+public class RangeFunction implements PositionalFunction, Pure {
 
   public static final String FUNCTION_NAME = "range";
 
@@ -40,11 +40,11 @@ public class RangeFunction implements Function {
   }
 
   @Override
-  public Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context,
+  public Object invoke(Object[] args, PebbleTemplate self, EvaluationContext context,
       int lineNumber) throws PebbleException {
-    Object start = args.get(PARAM_START);
-    Object end = args.get(PARAM_END);
-    Object increment = args.get(PARAM_INCREMENT);
+    Object start = args[0];
+    Object end = args[1];
+    Object increment = args[2];
     if (increment == null) {
       increment = 1L;
     } else if (!(increment instanceof Number)) {
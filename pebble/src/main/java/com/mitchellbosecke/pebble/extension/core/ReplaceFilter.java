@@ -1,7 +1,8 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.text.MessageFormat;
@@ -15,7 +16,7 @@ import java.util.Map.Entry;
  *
  * @author Thomas Hunziker
  */
-public class ReplaceFilter implements Filter {
+public class ReplaceFilter implements PositionalFilter, Pure {
 
   public static final String FILTER_NAME = "replace";
 
@@ -29,15 +30,15 @@ public class ReplaceFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     String data = input.toString();
-    if (args.get(ARGUMENT_NAME) == null) {
+    if (args[0] == null) {
       throw new PebbleException(null,
           MessageFormat.format("The argument ''{0}'' is required.", ARGUMENT_NAME), lineNumber,
           self.getName());
     }
-    Map<?, ?> replacePair = (Map<?, ?>) args.get(ARGUMENT_NAME);
+    Map<?, ?> replacePair = (Map<?, ?>) args[0];
 
     for (Entry<?, ?> entry : replacePair.entrySet()) {
       data = data.replace(entry.getKey().toString(), entry.getValue().toString());
@@ -1,18 +1,19 @@
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Revert the order of an input list
  *
  * @author Andrea La Scola
  */
-public class ReverseFilter implements Filter {
+public class ReverseFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -21,12 +22,12 @@ public class ReverseFilter implements Filter {
 
   @SuppressWarnings({"rawtypes", "unchecked"})
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
     }
-    List collection = (List) input;
+    List collection = new ArrayList((List) input);
     Collections.reverse(collection);
     return collection;
   }
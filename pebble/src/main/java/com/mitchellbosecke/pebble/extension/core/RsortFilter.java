@@ -8,19 +8,20 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Sort list items in the reverse order
  *
  * @author Barakat Soror
  */
-public class RsortFilter implements Filter {
+public class RsortFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -29,12 +30,12 @@ public class RsortFilter implements Filter {
 
   @SuppressWarnings({"rawtypes", "unchecked"})
   @Override
-  public List<Comparable> apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public List<Comparable> invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
     }
-    List<Comparable> collection = (List<Comparable>) input;
+    List<Comparable> collection = new ArrayList<>((List<Comparable>) input);
     collection.sort(Collections.reverseOrder());
     return collection;
   }
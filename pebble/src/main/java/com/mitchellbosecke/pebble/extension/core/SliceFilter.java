@@ -9,16 +9,16 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
-public class SliceFilter implements Filter {
+public class SliceFilter implements PositionalFilter, Pure {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -33,7 +33,7 @@ public class SliceFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
 
     if (input == null) {
@@ -41,7 +41,7 @@ public class SliceFilter implements Filter {
     }
 
     // argument parsing
-    Object argFrom = args.get("fromIndex");
+    Object argFrom = args[0];
 
     if (argFrom == null) {
       // defaults to 0
@@ -55,7 +55,7 @@ public class SliceFilter implements Filter {
       throw new IllegalArgumentException("fromIndex must be greater than 0");
     }
 
-    Object argTo = args.get("toIndex");
+    Object argTo = args[1];
 
     if (argTo == null) {
       // defaults to input length
@@ -8,14 +8,15 @@
  */
 package com.mitchellbosecke.pebble.extension.core;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
+import com.mitchellbosecke.pebble.extension.Pure;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
-public class SortFilter implements Filter {
+public class SortFilter implements PositionalFilter, Pure {
 
   @Override
   public List<String> getArgumentNames() {
@@ -24,12 +25,12 @@ public class SortFilter implements Filter {
 
   @SuppressWarnings({"rawtypes", "unchecked"})
   @Override
-  public List<Comparable> apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public List<Comparable> invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     if (input == null) {
       return null;
     }
-    List<Comparable> collection = (List<Comparable>) input;
+    List<Comparable> collection = new ArrayList<>((List<Comparable>) input);
     Collections.sort(collection);
     return collection;
   }
@@ -1,14 +1,13 @@
 package com.mitchellbosecke.pebble.extension.core;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
-public class SplitFilter implements Filter {
+public class SplitFilter implements PositionalFilter {
 
   public static final String FILTER_NAME = "split";
   private static final String ARGUMENT_NAME_DELIMITER = "delimiter";
@@ -22,14 +21,14 @@ public class SplitFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object input, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     if (input == null) {
       return null;
     }
 
-    String delimiter = (String) args.get(ARGUMENT_NAME_DELIMITER);
-    Number limit = (Number) args.get(ARGUMENT_NAME_LIMIT);
+    String delimiter = (String) args[0];
+    Number limit = (Number) args[1];
     if (delimiter == null) {
       throw new PebbleException(null, "missing delimiter parameter in split filter", lineNumber,
           self.getName());
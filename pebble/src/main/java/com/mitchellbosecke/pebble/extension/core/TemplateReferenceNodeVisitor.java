@@ -0,0 +1,99 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension.core;
+
+import com.mitchellbosecke.pebble.extension.AbstractNodeVisitor;
+import com.mitchellbosecke.pebble.node.BlockNode;
+import com.mitchellbosecke.pebble.node.CacheNode;
+import com.mitchellbosecke.pebble.node.EmbedNode;
+import com.mitchellbosecke.pebble.node.ExtendsNode;
+import com.mitchellbosecke.pebble.node.FromNode;
+import com.mitchellbosecke.pebble.node.ImportNode;
+import com.mitchellbosecke.pebble.node.IncludeNode;
+import com.mitchellbosecke.pebble.node.Node;
+import com.mitchellbosecke.pebble.node.expression.Expression;
+import com.mitchellbosecke.pebble.node.expression.LiteralStringExpression;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Collects the names of the templates which a template extends, includes, imports or embeds, as
+ * far as they are given as string literals. Names computed at runtime can not be known in advance
+ * and are skipped.
+ * <p>
+ * The cache tags of the template are collected as well, as the fragments they keep depend on the
+ * referenced templates.
+ */
+public class TemplateReferenceNodeVisitor extends AbstractNodeVisitor {
+
+  private final Set<String> references = new LinkedHashSet<>();
+
+  private final List<CacheNode> cacheNodes = new ArrayList<>();
+
+  public TemplateReferenceNodeVisitor(PebbleTemplateImpl template) {
+    super(template);
+  }
+
+  @Override
+  public void visit(Node node) {
+    if (node instanceof FromNode) {
+      this.addReference(((FromNode) node).getFromExpression());
+    } else if (node instanceof EmbedNode) {
+      EmbedNode embedNode = (EmbedNode) node;
+      this.addReference(embedNode.getIncludeExpression());
+      for (BlockNode blockNode : embedNode.getNodes()) {
+        blockNode.accept(this);
+      }
+    } else if (node instanceof CacheNode) {
+      this.cacheNodes.add((CacheNode) node);
+      ((CacheNode) node).getBody().accept(this);
+    }
+  }
+
+  @Override
+  public void visit(ExtendsNode node) {
+    this.addReference(node.getParentExpression());
+    super.visit(node);
+  }
+
+  @Override
+  public void visit(ImportNode node) {
+    this.addReference(node.getImportExpression());
+    super.visit(node);
+  }
+
+  @Override
+  public void visit(IncludeNode node) {
+    this.addReference(node.getIncludeExpression());
+    super.visit(node);
+  }
+
+  private void addReference(Expression<?> expression) {
+    if (expression instanceof LiteralStringExpression) {
+      this.references.add(((LiteralStringExpression) expression).getValue());
+    }
+  }
+
+  /**
+   * @return The names of the referenced templates, as they are written in the template
+   */
+  public Set<String> getReferences() {
+    return this.references;
+  }
+
+  /**
+   * @return The cache tags of the template
+   */
+  public List<CacheNode> getCacheNodes() {
+    return this.cacheNodes;
+  }
+}
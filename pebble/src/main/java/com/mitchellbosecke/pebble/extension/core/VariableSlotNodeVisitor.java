@@ -0,0 +1,217 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.extension.core;
+
+import com.mitchellbosecke.pebble.extension.AbstractNodeVisitor;
+import com.mitchellbosecke.pebble.node.ArgumentsNode;
+import com.mitchellbosecke.pebble.node.ForNode;
+import com.mitchellbosecke.pebble.node.ImportNode;
+import com.mitchellbosecke.pebble.node.MacroNode;
+import com.mitchellbosecke.pebble.node.NamedArgumentNode;
+import com.mitchellbosecke.pebble.node.Node;
+import com.mitchellbosecke.pebble.node.PositionalArgumentNode;
+import com.mitchellbosecke.pebble.node.SetNode;
+import com.mitchellbosecke.pebble.node.TestInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.ArrayExpression;
+import com.mitchellbosecke.pebble.node.expression.BinaryExpression;
+import com.mitchellbosecke.pebble.node.expression.ContextVariableExpression;
+import com.mitchellbosecke.pebble.node.expression.Expression;
+import com.mitchellbosecke.pebble.node.expression.FilterInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.FunctionOrMacroInvocationExpression;
+import com.mitchellbosecke.pebble.node.expression.GetAttributeExpression;
+import com.mitchellbosecke.pebble.node.expression.MapExpression;
+import com.mitchellbosecke.pebble.node.expression.TernaryExpression;
+import com.mitchellbosecke.pebble.node.expression.UnaryExpression;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Gives the variables of every for loop (the iteration variable, "loop" and the variables set in
+ * its body) a fixed slot in the frame of the loop, and binds the variable expressions and set tags
+ * which lexically refer to them to that slot. The names which can not be resolved this way, like
+ * the variables of the model, are still looked up in the scope chain.
+ */
+public class VariableSlotNodeVisitor extends AbstractNodeVisitor {
+
+  /**
+   * The layouts of the enclosing loops, the innermost last. A null entry hides the loops outside of
+   * a macro.
+   */
+  private final List<String[]> frames = new ArrayList<>();
+
+  public VariableSlotNodeVisitor(PebbleTemplateImpl template) {
+    super(template);
+  }
+
+  /**
+   * Expressions end up here since they have no dedicated visit method.
+   */
+  @Override
+  public void visit(Node node) {
+    if (node instanceof Expression) {
+      this.resolve((Expression<?>) node);
+    }
+  }
+
+  @Override
+  public void visit(ForNode node) {
+    // the iterable and the else body are evaluated outside of the frame of the loop
+    node.getIterable().accept(this);
+
+    String[] slotNames = collectSlotNames(node);
+    node.setSlotNames(slotNames);
+    this.frames.add(slotNames);
+    node.getBody().accept(this);
+    this.frames.remove(this.frames.size() - 1);
+
+    if (node.getElseBody() != null) {
+      node.getElseBody().accept(this);
+    }
+  }
+
+  @Override
+  public void visit(MacroNode node) {
+    this.frames.add(null);
+    super.visit(node);
+    this.frames.remove(this.frames.size() - 1);
+  }
+
+  @Override
+  public void visit(SetNode node) {
+    super.visit(node);
+    if (!this.frames.isEmpty()) {
+      String[] slotNames = this.frames.get(this.frames.size() - 1);
+      int slot = slotNames == null ? -1 : indexOf(slotNames, node.getName());
+      if (slot >= 0) {
+        node.setSlot(slotNames, slot);
+      }
+    }
+  }
+
+  private void resolve(Expression<?> expression) {
+    if (expression instanceof ContextVariableExpression) {
+      this.resolveVariable((ContextVariableExpression) expression);
+    } else if (expression instanceof BinaryExpression) {
+      BinaryExpression<?> binary = (BinaryExpression<?>) expression;
+      this.resolve(binary.getLeftExpression());
+      this.resolve(binary.getRightExpression());
+    } else if (expression instanceof UnaryExpression) {
+      this.resolve(((UnaryExpression) expression).getChildExpression());
+    } else if (expression instanceof TernaryExpression) {
+      TernaryExpression ternary = (TernaryExpression) expression;
+      this.resolve(ternary.getExpression1());
+      this.resolve(ternary.getExpression2());
+      this.resolve(ternary.getExpression3());
+    } else if (expression instanceof GetAttributeExpression) {
+      GetAttributeExpression attribute = (GetAttributeExpression) expression;
+      this.resolve(attribute.getNode());
+      this.resolve(attribute.getAttributeNameExpression());
+      this.resolve(attribute.getArgumentsNode());
+    } else if (expression instanceof FilterInvocationExpression) {
+      this.resolve(((FilterInvocationExpression) expression).getArgs());
+    } else if (expression instanceof FunctionOrMacroInvocationExpression) {
+      this.resolve(((FunctionOrMacroInvocationExpression) expression).getArguments());
+    } else if (expression instanceof TestInvocationExpression) {
+      this.resolve(((TestInvocationExpression) expression).getArgs());
+    } else if (expression instanceof ArrayExpression) {
+      for (Expression<?> value : ((ArrayExpression) expression).getValues()) {
+        this.resolve(value);
+      }
+    } else if (expression instanceof MapExpression) {
+      for (Entry<Expression<?>, Expression<?>> entry : ((MapExpression) expression).getEntries()
+          .entrySet()) {
+        this.resolve(entry.getKey());
+        this.resolve(entry.getValue());
+      }
+    }
+  }
+
+  private void resolve(ArgumentsNode args) {
+    if (args == null) {
+      return;
+    }
+    if (args.getPositionalArgs() != null) {
+      for (PositionalArgumentNode arg : args.getPositionalArgs()) {
+        this.resolve(arg.getValueExpression());
+      }
+    }
+    if (args.getNamedArgs() != null) {
+      for (NamedArgumentNode arg : args.getNamedArgs()) {
+        this.resolve(arg.getValueExpression());
+      }
+    }
+  }
+
+  private void resolveVariable(ContextVariableExpression variable) {
+    int depth = 0;
+    for (int i = this.frames.size() - 1; i >= 0; i--) {
+      String[] slotNames = this.frames.get(i);
+      if (slotNames == null) {
+        return;
+      }
+      int slot = indexOf(slotNames, variable.getName());
+      if (slot >= 0) {
+        variable.setSlot(slotNames, depth, slot);
+        return;
+      }
+      depth++;
+    }
+  }
+
+  /**
+   * Collects the variables which end up in the frame of a loop: the ones it defines itself and the
+   * ones which are set or imported in its body, outside of nested loops and macros.
+   */
+  private static String[] collectSlotNames(ForNode node) {
+    List<String> names = new ArrayList<>(Arrays.asList(node.getSlotNames()));
+    node.getBody().accept(new AbstractNodeVisitor(null) {
+
+      @Override
+      public void visit(ForNode nested) {
+        if (nested.getElseBody() != null) {
+          nested.getElseBody().accept(this);
+        }
+      }
+
+      @Override
+      public void visit(ImportNode importNode) {
+        addName(names, importNode.getAlias());
+      }
+
+      @Override
+      public void visit(MacroNode macro) {
+      }
+
+      @Override
+      public void visit(SetNode set) {
+        addName(names, set.getName());
+      }
+    });
+    return names.size() == node.getSlotNames().length ? node.getSlotNames()
+        : names.toArray(new String[0]);
+  }
+
+  private static void addName(List<String> names, String name) {
+    if (name != null && !names.contains(name)) {
+      names.add(name);
+    }
+  }
+
+  private static int indexOf(String[] slotNames, String name) {
+    for (int i = 0; i < slotNames.length; i++) {
+      if (slotNames[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
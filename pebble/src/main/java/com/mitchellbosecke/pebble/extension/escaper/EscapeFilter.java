@@ -9,7 +9,7 @@
 package com.mitchellbosecke.pebble.extension.escaper;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import com.mitchellbosecke.pebble.utils.StringUtils;
@@ -23,7 +23,7 @@ import org.unbescape.javascript.JavaScriptEscape;
 import org.unbescape.json.JsonEscape;
 import org.unbescape.uri.UriEscape;
 
-public class EscapeFilter implements Filter {
+public class EscapeFilter implements PositionalFilter {
 
   public static final String HTML_ESCAPE_STRATEGY = "html";
   public static final String JAVASCRIPT_ESCAPE_STRATEGY = "js";
@@ -56,7 +56,7 @@ public class EscapeFilter implements Filter {
   }
 
   @Override
-  public Object apply(Object inputObject, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object inputObject, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) throws PebbleException {
     if (inputObject == null || inputObject instanceof SafeString) {
       return inputObject;
@@ -65,8 +65,8 @@ public class EscapeFilter implements Filter {
 
     String strategy = this.defaultStrategy;
 
-    if (args.get("strategy") != null) {
-      strategy = (String) args.get("strategy");
+    if (args[0] != null) {
+      strategy = (String) args[0];
     }
 
     if (!this.strategies.containsKey(strategy)) {
@@ -8,20 +8,19 @@
  */
 package com.mitchellbosecke.pebble.extension.escaper;
 
-import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.util.List;
-import java.util.Map;
 
-public class RawFilter implements Filter {
+public class RawFilter implements PositionalFilter {
 
   public List<String> getArgumentNames() {
     return null;
   }
 
   @Override
-  public Object apply(Object inputObject, Map<String, Object> args, PebbleTemplate self,
+  public Object invoke(Object inputObject, Object[] args, PebbleTemplate self,
       EvaluationContext context, int lineNumber) {
     return inputObject == null ? null : new SafeString(inputObject.toString());
   }
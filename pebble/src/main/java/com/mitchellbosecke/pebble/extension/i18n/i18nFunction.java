@@ -8,17 +8,16 @@
  */
 package com.mitchellbosecke.pebble.extension.i18n;
 
-import com.mitchellbosecke.pebble.extension.Function;
+import com.mitchellbosecke.pebble.extension.PositionalFunction;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.ResourceBundle;
 
-public class i18nFunction implements Function {
+public class i18nFunction implements PositionalFunction {
 
   private final List<String> argumentNames = new ArrayList<>();
 
@@ -34,11 +33,11 @@ public class i18nFunction implements Function {
   }
 
   @Override
-  public Object execute(Map<String, Object> args, PebbleTemplate self, EvaluationContext context,
+  public Object invoke(Object[] args, PebbleTemplate self, EvaluationContext context,
       int lineNumber) {
-    String basename = (String) args.get("bundle");
-    String key = (String) args.get("key");
-    Object params = args.get("params");
+    String basename = (String) args[0];
+    String key = (String) args[1];
+    Object params = args[2];
 
     Locale locale = context.getLocale();
 
@@ -0,0 +1,233 @@
+package com.mitchellbosecke.pebble.extension.writer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * A ${@link SpecializedWriter} which buffers the output for another ${@link Writer}, so that
+ * numbers are formatted straight into its buffer instead of into a new String, and the many small
+ * writes of a render reach the other writer in large chunks. It is not thread safe, and lives as
+ * long as a single evaluation of a template.
+ * <p>
+ * The methods of {@link SpecializedWriter} can not throw an {@link IOException}, they wrap the
+ * failures of the other writer in an {@link UncheckedIOException} instead.
+ */
+public class BufferedSpecializedWriter extends Writer implements SpecializedWriter {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final Writer out;
+
+  private final char[] buffer = new char[BUFFER_SIZE];
+
+  private int count;
+
+  /**
+   * Formats floating point numbers, which {@link StringBuilder} does without creating a String.
+   */
+  private StringBuilder scratch;
+
+  public BufferedSpecializedWriter(Writer out) {
+    this.out = out;
+  }
+
+  @Override
+  public void writeSpecialized(int i) {
+    this.writeDigits(i);
+  }
+
+  @Override
+  public void writeSpecialized(long l) {
+    this.writeDigits(l);
+  }
+
+  @Override
+  public void writeSpecialized(double d) {
+    this.appendUnchecked(this.scratch().append(d));
+  }
+
+  @Override
+  public void writeSpecialized(float f) {
+    this.appendUnchecked(this.scratch().append(f));
+  }
+
+  @Override
+  public void writeSpecialized(short s) {
+    this.writeDigits(s);
+  }
+
+  @Override
+  public void writeSpecialized(byte b) {
+    this.writeDigits(b);
+  }
+
+  @Override
+  public void writeSpecialized(char c) {
+    this.ensureRoom(1);
+    this.buffer[this.count++] = c;
+  }
+
+  @Override
+  public void writeSpecialized(String s) {
+    this.appendUnchecked(s);
+  }
+
+  /**
+   * Also copies other {@link CharSequence}s than Strings, such as {@link StringBuilder}s, without
+   * creating a String of them first.
+   */
+  @Override
+  public void write(Object o) {
+    if (o instanceof CharSequence && !(o instanceof String)) {
+      this.appendUnchecked((CharSequence) o);
+    } else {
+      SpecializedWriter.super.write(o);
+    }
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    if (this.count == this.buffer.length) {
+      this.flushBuffer();
+    }
+    this.buffer[this.count++] = (char) c;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    if (len >= this.buffer.length) {
+      // too large to be worth buffering
+      this.flushBuffer();
+      this.out.write(cbuf, off, len);
+      return;
+    }
+    if (len > this.buffer.length - this.count) {
+      this.flushBuffer();
+    }
+    System.arraycopy(cbuf, off, this.buffer, this.count, len);
+    this.count += len;
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    this.appendChars(str, off, off + len);
+  }
+
+  @Override
+  public Writer append(CharSequence csq) throws IOException {
+    CharSequence chars = csq == null ? "null" : csq;
+    this.appendChars(chars, 0, chars.length());
+    return this;
+  }
+
+  @Override
+  public Writer append(CharSequence csq, int start, int end) throws IOException {
+    this.appendChars(csq == null ? "null" : csq, start, end);
+    return this;
+  }
+
+  /**
+   * Writes out the buffered characters and flushes the other writer.
+   */
+  @Override
+  public void flush() throws IOException {
+    this.flushBuffer();
+    this.out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.flushBuffer();
+    this.out.close();
+  }
+
+  /**
+   * Writes out the buffered characters, without flushing the other writer.
+   *
+   * @throws IOException Thrown from the other writer
+   */
+  public void flushBuffer() throws IOException {
+    if (this.count > 0) {
+      this.out.write(this.buffer, 0, this.count);
+      this.count = 0;
+    }
+  }
+
+  /**
+   * Copies characters into the buffer in chunks, without creating a String of them first.
+   */
+  private void appendChars(CharSequence chars, int start, int end) throws IOException {
+    int position = start;
+    while (position < end) {
+      if (this.count == this.buffer.length) {
+        this.flushBuffer();
+      }
+      int length = Math.min(end - position, this.buffer.length - this.count);
+      if (chars instanceof String) {
+        ((String) chars).getChars(position, position + length, this.buffer, this.count);
+      } else if (chars instanceof StringBuilder) {
+        ((StringBuilder) chars).getChars(position, position + length, this.buffer, this.count);
+      } else {
+        for (int i = 0; i < length; i++) {
+          this.buffer[this.count + i] = chars.charAt(position + i);
+        }
+      }
+      this.count += length;
+      position += length;
+    }
+  }
+
+  /**
+   * Appends characters for the methods of {@link SpecializedWriter}.
+   */
+  private void appendUnchecked(CharSequence chars) {
+    try {
+      this.appendChars(chars, 0, chars.length());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Writes out the buffered characters if fewer than the given number of characters fit, for the
+   * methods of {@link SpecializedWriter}.
+   */
+  private void ensureRoom(int length) {
+    if (length > this.buffer.length - this.count) {
+      try {
+        this.flushBuffer();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private void writeDigits(long value) {
+    // works on the negative value, which covers Long.MIN_VALUE as well
+    boolean negative = value < 0;
+    long remaining = negative ? value : -value;
+    int length = negative ? 2 : 1;
+    for (long rest = remaining; rest <= -10; rest /= 10) {
+      length++;
+    }
+    this.ensureRoom(length);
+    int position = this.count + length;
+    do {
+      this.buffer[--position] = (char) ('0' - remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0);
+    if (negative) {
+      this.buffer[--position] = '-';
+    }
+    this.count += length;
+  }
+
+  private StringBuilder scratch() {
+    if (this.scratch == null) {
+      this.scratch = new StringBuilder(32);
+    }
+    this.scratch.setLength(0);
+    return this.scratch;
+  }
+}
@@ -0,0 +1,73 @@
+package com.mitchellbosecke.pebble.extension.writer;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Recycles direct buffers of a fixed size, which are expensive to allocate and to free. It is
+ * thread safe.
+ */
+public class ByteBufferPool {
+
+  public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+
+  public static final int DEFAULT_MAXIMUM_POOLED = 64;
+
+  private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger pooled = new AtomicInteger();
+
+  private final int bufferSize;
+
+  private final int maximumPooled;
+
+  public ByteBufferPool() {
+    this(DEFAULT_BUFFER_SIZE, DEFAULT_MAXIMUM_POOLED);
+  }
+
+  /**
+   * @param bufferSize The capacity of the buffers, in bytes
+   * @param maximumPooled The number of released buffers which are kept for reuse at most
+   */
+  public ByteBufferPool(int bufferSize, int maximumPooled) {
+    this.bufferSize = bufferSize;
+    this.maximumPooled = maximumPooled;
+  }
+
+  /**
+   * @return A cleared direct buffer, which should be released once it is not used anymore
+   */
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = this.buffers.poll();
+    if (buffer == null) {
+      return ByteBuffer.allocateDirect(this.bufferSize);
+    }
+    this.pooled.decrementAndGet();
+    ((Buffer) buffer).clear();
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer to the pool. Nothing may refer to it anymore, since its content is
+   * overwritten once it is acquired again.
+   *
+   * @param buffer A buffer acquired from this pool
+   */
+  public void release(ByteBuffer buffer) {
+    if (buffer.capacity() != this.bufferSize || !buffer.isDirect()) {
+      return;
+    }
+    if (this.pooled.incrementAndGet() > this.maximumPooled) {
+      this.pooled.decrementAndGet();
+      return;
+    }
+    this.buffers.offer(buffer);
+  }
+
+  public int getBufferSize() {
+    return this.bufferSize;
+  }
+}
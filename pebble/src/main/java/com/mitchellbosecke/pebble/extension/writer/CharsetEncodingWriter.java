@@ -0,0 +1,111 @@
+package com.mitchellbosecke.pebble.extension.writer;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Encodes the characters written to it into a buffer of its subclass, replacing characters which
+ * can not be encoded.
+ */
+abstract class CharsetEncodingWriter extends Writer implements EncodedWriter {
+
+  private final Charset charset;
+
+  private final CharsetEncoder encoder;
+
+  /**
+   * Holds a high surrogate which ended the previous write until the low surrogate arrives.
+   */
+  private final CharBuffer pending = CharBuffer.allocate(2);
+
+  CharsetEncodingWriter(Charset charset) {
+    this.charset = charset;
+    this.encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * @return The buffer the characters are encoded into
+   */
+  abstract ByteBuffer buffer();
+
+  /**
+   * Writes out the buffer, so that it has room for more characters again.
+   */
+  abstract void drainBuffer() throws IOException;
+
+  @Override
+  public Charset getCharset() {
+    return this.charset;
+  }
+
+  @Override
+  public void write(char[] cbuf, int off, int len) throws IOException {
+    this.encode(CharBuffer.wrap(cbuf, off, len));
+  }
+
+  @Override
+  public void write(String str, int off, int len) throws IOException {
+    this.encode(CharBuffer.wrap(str, off, off + len));
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    this.encode(CharBuffer.wrap(new char[]{(char) c}));
+  }
+
+  @Override
+  public Writer append(CharSequence csq) throws IOException {
+    this.encode(CharBuffer.wrap(csq == null ? "null" : csq));
+    return this;
+  }
+
+  @Override
+  public Writer append(CharSequence csq, int start, int end) throws IOException {
+    this.encode(CharBuffer.wrap(csq == null ? "null" : csq, start, end));
+    return this;
+  }
+
+  private void encode(CharBuffer chars) throws IOException {
+    if (this.pending.position() > 0 && chars.hasRemaining()) {
+      // complete the surrogate pair of the previous write
+      this.pending.put(chars.get());
+      ((Buffer) this.pending).flip();
+      this.encodeChunk(this.pending);
+      this.pending.compact();
+    }
+    this.encodeChunk(chars);
+    if (chars.hasRemaining()) {
+      this.pending.put(chars);
+    }
+  }
+
+  private void encodeChunk(CharBuffer chars) throws IOException {
+    while (this.encoder.encode(chars, this.buffer(), false).isOverflow()) {
+      this.drainBuffer();
+    }
+  }
+
+  /**
+   * Ends the current run of characters, which replaces a surrogate whose pair is missing. Must be
+   * called before encoded content is written and when the output is finished.
+   */
+  void completeCharacters() throws IOException {
+    ((Buffer) this.pending).flip();
+    while (this.encoder.encode(this.pending, this.buffer(), true).isOverflow()) {
+      this.drainBuffer();
+    }
+    while (this.encoder.flush(this.buffer()).isOverflow()) {
+      this.drainBuffer();
+    }
+    ((Buffer) this.pending).clear();
+    this.encoder.reset();
+  }
+}
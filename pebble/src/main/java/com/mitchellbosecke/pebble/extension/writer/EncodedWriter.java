@@ -0,0 +1,27 @@
+package com.mitchellbosecke.pebble.extension.writer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A special type to be implemented by ${@link java.io.Writer}s which encode into a byte sink, so
+ * Pebble can write content which is already encoded in their charset without decoding it first.
+ */
+public interface EncodedWriter {
+
+  /**
+   * @return The charset the writer encodes characters in
+   */
+  Charset getCharset();
+
+  /**
+   * Writes bytes which are already encoded in the charset of the writer. The buffer may be shared
+   * with other threads, so its position and limit must not be changed. Its content never changes
+   * though, so the writer may keep a reference to it instead of copying it.
+   *
+   * @param encoded The encoded content
+   * @throws IOException If the bytes can not be written
+   */
+  void writeEncoded(ByteBuffer encoded) throws IOException;
+}
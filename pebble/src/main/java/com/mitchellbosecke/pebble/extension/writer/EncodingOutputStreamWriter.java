@@ -0,0 +1,90 @@
+package com.mitchellbosecke.pebble.extension.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A writer which encodes characters into an {@link OutputStream} like an {@link
+ * java.io.OutputStreamWriter}, and also takes content which is already encoded, such as the static
+ * text of templates, which is then copied as it is.
+ * <p>
+ * The output is buffered. {@link #finish()} writes out everything without closing the stream.
+ */
+public class EncodingOutputStreamWriter extends CharsetEncodingWriter {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final OutputStream out;
+
+  private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+  public EncodingOutputStreamWriter(OutputStream out, Charset charset) {
+    super(charset);
+    this.out = out;
+  }
+
+  @Override
+  public void writeEncoded(ByteBuffer encoded) throws IOException {
+    this.completeCharacters();
+    ByteBuffer bytes = encoded.duplicate();
+    if (bytes.remaining() <= this.buffer.remaining()) {
+      this.buffer.put(bytes);
+      return;
+    }
+    this.drainBuffer();
+    if (bytes.hasArray()) {
+      this.out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+      return;
+    }
+    while (bytes.hasRemaining()) {
+      int length = Math.min(bytes.remaining(), this.buffer.remaining());
+      ByteBuffer chunk = bytes.duplicate();
+      ((Buffer) chunk).limit(chunk.position() + length);
+      this.buffer.put(chunk);
+      ((Buffer) bytes).position(bytes.position() + length);
+      this.drainBuffer();
+    }
+  }
+
+  /**
+   * Writes out the buffered output and flushes the stream.
+   */
+  @Override
+  public void flush() throws IOException {
+    this.drainBuffer();
+    this.out.flush();
+  }
+
+  /**
+   * Completes the encoding and writes out the buffered output, without flushing or closing the
+   * stream.
+   *
+   * @throws IOException Thrown from the stream
+   */
+  public void finish() throws IOException {
+    this.completeCharacters();
+    this.drainBuffer();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.finish();
+    this.out.close();
+  }
+
+  @Override
+  ByteBuffer buffer() {
+    return this.buffer;
+  }
+
+  @Override
+  void drainBuffer() throws IOException {
+    if (this.buffer.position() > 0) {
+      this.out.write(this.buffer.array(), 0, this.buffer.position());
+      ((Buffer) this.buffer).clear();
+    }
+  }
+}
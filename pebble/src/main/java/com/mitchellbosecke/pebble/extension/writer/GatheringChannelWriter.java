@@ -0,0 +1,170 @@
+package com.mitchellbosecke.pebble.extension.writer;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.SelectableChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A writer which writes into a {@link GatheringByteChannel} without copying content which is
+ * already encoded, such as the static text of templates and off-heap fragments: these buffers are
+ * collected by reference, together with the encoded characters in between, and written in batches
+ * with a single {@link GatheringByteChannel#write(ByteBuffer[])}. The characters are encoded into a
+ * direct buffer of a {@link ByteBufferPool}.
+ * <p>
+ * {@link #finish()} writes out everything and returns the buffer to the pool, without closing the
+ * channel.
+ */
+public class GatheringChannelWriter extends CharsetEncodingWriter {
+
+  private static final ByteBufferPool DEFAULT_POOL = new ByteBufferPool();
+
+  /**
+   * The number of buffers written at once at most.
+   */
+  private static final int MAXIMUM_SEGMENTS = 64;
+
+  /**
+   * Encoded content up to this size is copied, since writing many tiny buffers costs more than
+   * copying them.
+   */
+  private static final int COPY_THRESHOLD = 64;
+
+  private final GatheringByteChannel channel;
+
+  private final ByteBufferPool pool;
+
+  private final List<ByteBuffer> segments = new ArrayList<>();
+
+  /**
+   * The buffer of the encoded characters, or {@code null} if it has been returned to the pool.
+   */
+  private ByteBuffer buffer;
+
+  /**
+   * The start of the characters in the buffer which are not collected yet.
+   */
+  private int start;
+
+  /**
+   * @param channel A channel in blocking mode
+   * @param charset The charset to encode the characters in
+   */
+  public GatheringChannelWriter(GatheringByteChannel channel, Charset charset) {
+    this(channel, charset, DEFAULT_POOL);
+  }
+
+  /**
+   * @param channel A channel in blocking mode
+   * @param charset The charset to encode the characters in
+   * @param pool The pool of the buffers for the encoded characters
+   */
+  public GatheringChannelWriter(GatheringByteChannel channel, Charset charset,
+      ByteBufferPool pool) {
+    super(charset);
+    if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking()) {
+      throw new IllegalArgumentException("The channel must be in blocking mode");
+    }
+    this.channel = channel;
+    this.pool = pool;
+  }
+
+  @Override
+  public void writeEncoded(ByteBuffer encoded) throws IOException {
+    this.completeCharacters();
+    if (encoded.remaining() <= COPY_THRESHOLD
+        && encoded.remaining() <= this.buffer().remaining()) {
+      this.buffer.put(encoded.duplicate());
+      return;
+    }
+    this.collectCharacters();
+    this.segments.add(encoded.duplicate());
+    if (this.segments.size() >= MAXIMUM_SEGMENTS) {
+      this.drainBuffer();
+    }
+  }
+
+  /**
+   * Writes out everything collected so far.
+   */
+  @Override
+  public void flush() throws IOException {
+    this.drainBuffer();
+  }
+
+  /**
+   * Completes the encoding, writes out everything and returns the buffer to the pool, without
+   * closing the channel. The buffer is returned even if the channel fails, in which case the
+   * remaining output is dropped.
+   *
+   * @throws IOException Thrown from the channel
+   */
+  public void finish() throws IOException {
+    try {
+      this.completeCharacters();
+      this.drainBuffer();
+    } finally {
+      this.segments.clear();
+      if (this.buffer != null) {
+        this.pool.release(this.buffer);
+        this.buffer = null;
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.finish();
+    this.channel.close();
+  }
+
+  @Override
+  ByteBuffer buffer() {
+    if (this.buffer == null) {
+      this.buffer = this.pool.acquire();
+      this.start = 0;
+    }
+    return this.buffer;
+  }
+
+  /**
+   * Writes all collected segments with as few calls as possible, after which the buffer is
+   * empty again.
+   */
+  @Override
+  void drainBuffer() throws IOException {
+    this.collectCharacters();
+    if (this.segments.isEmpty()) {
+      return;
+    }
+    ByteBuffer[] buffers = this.segments.toArray(new ByteBuffer[0]);
+    long remaining = 0;
+    for (ByteBuffer segment : buffers) {
+      remaining += segment.remaining();
+    }
+    while (remaining > 0) {
+      remaining -= this.channel.write(buffers);
+    }
+    this.segments.clear();
+    if (this.buffer != null) {
+      ((Buffer) this.buffer).clear();
+      this.start = 0;
+    }
+  }
+
+  /**
+   * Collects the characters encoded since the last segment as a segment of their own.
+   */
+  private void collectCharacters() {
+    if (this.buffer != null && this.buffer.position() > this.start) {
+      ByteBuffer characters = this.buffer.duplicate();
+      ((Buffer) characters).limit(this.buffer.position()).position(this.start);
+      this.segments.add(characters);
+      this.start = this.buffer.position();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.mitchellbosecke.pebble.extension.writer;
 
+import java.io.IOException;
 import java.io.Writer;
 
 /**
@@ -12,14 +13,24 @@ import java.io.Writer;
  * <li>It doesn't take any security measure against very large payloads that would cause underlying
  * buffers to eat memory</li>
  * </ul>
+ * A writer taken with {@link #acquire(int)} is handed out again only after it is {@link
+ * #release()}d, so that renders nested in the same thread get writers of their own. A builder
+ * which grew larger than {@link #MAXIMUM_POOLED_CAPACITY} is not kept after its release.
  */
 public class PooledSpecializedStringWriter extends Writer implements SpecializedWriter {
 
   private static final ThreadLocal<PooledSpecializedStringWriter> POOL = ThreadLocal
       .withInitial(PooledSpecializedStringWriter::new);
 
+  /**
+   * The capacity of a builder up to which it is kept for the next use of the writer.
+   */
+  public static final int MAXIMUM_POOLED_CAPACITY = 1024 * 1024;
+
   private StringBuilder sb = new StringBuilder();
 
+  private boolean inUse;
+
   private PooledSpecializedStringWriter() {
   }
 
@@ -68,6 +79,28 @@ public class PooledSpecializedStringWriter extends Writer implements Specialized
     sb.append(cbuf, off, len);
   }
 
+  @Override
+  public void write(String str, int off, int len) {
+    sb.append(str, off, off + len);
+  }
+
+  @Override
+  public void write(int c) {
+    sb.append((char) c);
+  }
+
+  @Override
+  public Writer append(CharSequence csq) {
+    sb.append(csq);
+    return this;
+  }
+
+  @Override
+  public Writer append(CharSequence csq, int start, int end) {
+    sb.append(csq, start, end);
+    return this;
+  }
+
   @Override
   public void flush() {
   }
@@ -81,6 +114,52 @@ public class PooledSpecializedStringWriter extends Writer implements Specialized
     return sb.toString();
   }
 
+  /**
+   * Appends the content of the writer, without turning it into a {@code String} first.
+   *
+   * @param out The appendable to append to
+   * @throws IOException Thrown from the appendable
+   */
+  public void appendTo(Appendable out) throws IOException {
+    out.append(sb);
+  }
+
+  /**
+   * @return The number of characters written
+   */
+  public int length() {
+    return sb.length();
+  }
+
+  /**
+   * Takes the writer of the current thread, or a new writer if that one is in use.
+   *
+   * @param expectedLength The expected number of characters, which the builder is presized to
+   * @return An empty writer, which must be released once its content has been used
+   */
+  public static PooledSpecializedStringWriter acquire(int expectedLength) {
+    PooledSpecializedStringWriter pooled = POOL.get();
+    if (pooled.inUse) {
+      pooled = new PooledSpecializedStringWriter();
+    }
+    pooled.inUse = true;
+    pooled.sb.setLength(0);
+    pooled.sb.ensureCapacity(expectedLength);
+    return pooled;
+  }
+
+  /**
+   * Returns the writer to the pool of the current thread.
+   */
+  public void release() {
+    if (sb.capacity() > MAXIMUM_POOLED_CAPACITY) {
+      sb = new StringBuilder();
+    } else {
+      sb.setLength(0);
+    }
+    inUse = false;
+  }
+
   public static PooledSpecializedStringWriter pooled() {
     PooledSpecializedStringWriter pooled = POOL.get();
     pooled.sb.setLength(0);
@@ -1,6 +1,7 @@
 package com.mitchellbosecke.pebble.extension.writer;
 
 import java.io.StringWriter;
+import java.math.BigDecimal;
 
 /**
  * A ${@link SpecializedWriter} that wraps a ${@link StringWriter}. Directly write numbers into the
@@ -15,6 +16,33 @@ public class StringWriterSpecializedAdapter implements SpecializedWriter {
     this.buff = sw.getBuffer();
   }
 
+  /**
+   * Writes a value like {@link #write(Object)}, without creating an adapter first.
+   *
+   * @param sw The writer
+   * @param o The value, which must not be null
+   */
+  public static void write(StringWriter sw, Object o) {
+    StringBuffer buff = sw.getBuffer();
+    if (o instanceof String) {
+      buff.append((String) o);
+    } else if (o instanceof Integer || o instanceof Short || o instanceof Byte) {
+      buff.append(((Number) o).intValue());
+    } else if (o instanceof Long) {
+      buff.append(((Long) o).longValue());
+    } else if (o instanceof Double) {
+      buff.append(((Double) o).doubleValue());
+    } else if (o instanceof Float) {
+      buff.append(((Float) o).floatValue());
+    } else if (o instanceof Character) {
+      buff.append(((Character) o).charValue());
+    } else if (o instanceof BigDecimal) {
+      buff.append(((BigDecimal) o).toPlainString());
+    } else {
+      buff.append(o.toString());
+    }
+  }
+
   @Override
   public void writeSpecialized(int i) {
     buff.append(i);
@@ -13,23 +13,25 @@ import com.mitchellbosecke.pebble.lexer.Token.Type;
 import com.mitchellbosecke.pebble.operator.BinaryOperator;
 import com.mitchellbosecke.pebble.operator.UnaryOperator;
 import com.mitchellbosecke.pebble.utils.Pair;
-import com.mitchellbosecke.pebble.utils.StringLengthComparator;
-import com.mitchellbosecke.pebble.utils.StringUtils;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.List;
 import java.util.Deque;
 import java.util.ArrayDeque;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.NoSuchElementException;
 
 /**
  * This class reads the template input and builds single items out of it.
  * <p>
+ * The template is scanned a single time, character by character: names, numbers, punctuation and
+ * whitespace are recognized with a table of character classes and operators with an
+ * {@link OperatorTrie}.
+ * <p>
+ * The template is lexed lazily, as the parser pulls the tokens from the {@link TokenStream}. The
+ * values of the tokens are slices of the characters of the template rather than copies of them.
+ * <p>
  * This class is not thread safe.
  */
 public final class LexerImpl implements Lexer {
@@ -40,14 +42,19 @@ public final class LexerImpl implements Lexer {
   private final Syntax syntax;
 
   /**
-   * Unary operators
+   * The symbols of the unary and binary operators
    */
-  private final Collection<UnaryOperator> unaryOperators;
+  private final OperatorTrie operators;
 
   /**
-   * Binary operators
+   * The first characters of the start delimiters, checked before looking for the delimiters
+   * themselves.
    */
-  private final Collection<BinaryOperator> binaryOperators;
+  private final char printOpenFirstChar;
+
+  private final char executeOpenFirstChar;
+
+  private final char commentOpenFirstChar;
 
   /**
    * As we progress through the source we maintain a string which is the text that has yet to be
@@ -56,9 +63,14 @@ public final class LexerImpl implements Lexer {
   private TemplateSource source;
 
   /**
-   * The list of tokens that we find and use to create a TokenStream
+   * The tokens that we have found but which have not been pulled from the TokenStream yet
    */
-  private ArrayList<Token> tokens;
+  private ArrayDeque<Token> tokens;
+
+  /**
+   * Whether the end of the template has been reached
+   */
+  private boolean finished;
 
   /**
    * Represents the brackets we are currently inside ordered by how recently we encountered them.
@@ -86,39 +98,46 @@ public final class LexerImpl implements Lexer {
   private boolean trimLeadingWhitespaceFromNextData = false;
 
   /**
-   * Static regular expressions for names, numbers, and punctuation.
+   * The character classes of the ASCII characters. Any other character belongs to none of them.
    */
-  private static final Pattern REGEX_NAME = Pattern.compile("^[a-zA-Z_][a-zA-Z0-9_]*");
+  private static final byte[] CHARACTER_CLASSES = new byte[128];
 
-  private static final Pattern REGEX_LONG = Pattern.compile("^[0-9]+L");
+  private static final int NAME_START = 1;
 
-  private static final Pattern REGEX_NUMBER = Pattern.compile("^[0-9]+(\\.[0-9]+)?");
+  private static final int NAME_PART = 2;
 
-  /**
-   * Matches a double quote
-   */
-  private static final Pattern REGEX_DOUBLEQUOTE = Pattern.compile("^\"");
+  private static final int DIGIT = 4;
 
-  /**
-   * Matches everything up to the first interpolation in a double quoted string
-   */
-  private static final Pattern REGEX_STRING_NON_INTERPOLATED_PART = Pattern
-      .compile("^[^#\"\\\\]*(?:(?:\\\\.|#(?!\\{))[^#\"\\\\]*)*", Pattern.DOTALL);
+  private static final int PUNCTUATION = 8;
 
   /**
-   * Matches single quoted strings and double quoted strings without interpolation. Extra complexity
-   * is due to ignoring escaped quotation marks.
+   * The whitespace matched by "\s" in a regular expression, which is narrower than
+   * {@link Character#isWhitespace(char)}.
    */
-  private static final Pattern REGEX_STRING_PLAIN = Pattern
-      .compile("^\"([^#\"\\\\]*(?:\\\\.[^#\"\\\\]*)*)\"|'([^'\\\\]*(?:\\\\.[^'\\\\]*)*)'",
-          Pattern.DOTALL);
+  private static final int WHITESPACE = 16;
 
-  private static final String PUNCTUATION = "()[]{}?:.,|=";
+  static {
+    for (char c = 'a'; c <= 'z'; c++) {
+      CHARACTER_CLASSES[c] = NAME_START | NAME_PART;
+    }
+    for (char c = 'A'; c <= 'Z'; c++) {
+      CHARACTER_CLASSES[c] = NAME_START | NAME_PART;
+    }
+    CHARACTER_CLASSES['_'] = NAME_START | NAME_PART;
+    for (char c = '0'; c <= '9'; c++) {
+      CHARACTER_CLASSES[c] = NAME_PART | DIGIT;
+    }
+    for (char c : "()[]{}?:.,|=".toCharArray()) {
+      CHARACTER_CLASSES[c] = PUNCTUATION;
+    }
+    for (char c : " \t\n\u000B\f\r".toCharArray()) {
+      CHARACTER_CLASSES[c] = WHITESPACE;
+    }
+  }
 
-  /**
-   * Regular expression to find operators
-   */
-  private Pattern regexOperators;
+  private static final String VERBATIM = "verbatim";
+
+  private static final String END_VERBATIM = "endverbatim";
 
   /**
    * Constructor
@@ -129,9 +148,21 @@ public final class LexerImpl implements Lexer {
    */
   public LexerImpl(Syntax syntax, Collection<UnaryOperator> unaryOperators,
       Collection<BinaryOperator> binaryOperators) {
+    this(syntax, new OperatorTrie(unaryOperators, binaryOperators));
+  }
+
+  /**
+   * Constructor
+   *
+   * @param syntax The primary syntax
+   * @param operators The trie of the available operators, which can be shared between lexers
+   */
+  public LexerImpl(Syntax syntax, OperatorTrie operators) {
     this.syntax = syntax;
-    this.unaryOperators = unaryOperators;
-    this.binaryOperators = binaryOperators;
+    this.operators = operators;
+    this.printOpenFirstChar = syntax.getPrintOpenDelimiter().charAt(0);
+    this.executeOpenFirstChar = syntax.getExecuteOpenDelimiter().charAt(0);
+    this.commentOpenFirstChar = syntax.getCommentOpenDelimiter().charAt(0);
   }
 
   /**
@@ -143,9 +174,6 @@ public final class LexerImpl implements Lexer {
   @Override
   public TokenStream tokenize(Reader reader, String name) {
 
-    // operator regex
-    this.buildOperatorRegex();
-
     // standardize the character used for line breaks
     try {
       this.source = new TemplateSource(reader, name);
@@ -154,9 +182,10 @@ public final class LexerImpl implements Lexer {
     }
 
 
-    this.tokens = new ArrayList<>();
+    this.tokens = new ArrayDeque<>();
     this.states = new ArrayDeque<>();
     this.brackets = new LinkedList<>();
+    this.finished = false;
 
     /*
      * Start in a DATA state by pushing it to the state stack. This state basically means that we are NOT in
@@ -164,13 +193,17 @@ public final class LexerImpl implements Lexer {
      */
     this.pushState(State.DATA);
 
-    /*
-     * loop through the entire source and apply different lexing methods
-     * depending on what kind of state we are in at the time.
-     *
-     * This will always start on lexData();
-     */
-    while (this.source.length() > 0) {
+    return new TokenStream(new TokenIterator(), this.source.getFilename());
+  }
+
+  /**
+   * Lexes the template as far as needed to find the next tokens, applying different lexing methods
+   * depending on what kind of state we are in at the time.
+   * <p>
+   * This will always start on lexData();
+   */
+  private void lexNext() {
+    if (this.source.length() > 0) {
       switch (this.states.peek()) {
         case DATA:
           this.lexData();
@@ -193,11 +226,13 @@ public final class LexerImpl implements Lexer {
         default:
           break;
       }
+      return;
     }
 
     // end of file token
     this.pushToken(Token.Type.EOF);
     this.popState();
+    this.finished = true;
 
     // make sure that all brackets have been closed, else throw an error
     if (!this.brackets.isEmpty()) {
@@ -206,17 +241,39 @@ public final class LexerImpl implements Lexer {
           this.source.getLineNumber(),
           this.source.getFilename());
     }
+  }
 
-    return new TokenStream(this.tokens, this.source.getFilename());
+  /**
+   * Hands the tokens over to the TokenStream, lexing the template as they are pulled.
+   */
+  private final class TokenIterator implements Iterator<Token> {
+
+    @Override
+    public boolean hasNext() {
+      return !LexerImpl.this.finished || !LexerImpl.this.tokens.isEmpty();
+    }
+
+    @Override
+    public Token next() {
+      while (LexerImpl.this.tokens.isEmpty()) {
+        if (LexerImpl.this.finished) {
+          throw new NoSuchElementException();
+        }
+        LexerImpl.this.lexNext();
+      }
+      return LexerImpl.this.tokens.poll();
+    }
   }
 
   private void lexStringInterpolation() {
     String lastBracket = this.brackets.peek().getLeft();
-    Matcher matcher = this.syntax.getRegexInterpolationClose().matcher(this.source);
-    if (this.syntax.getInterpolationOpenDelimiter().equals(lastBracket) && matcher.lookingAt()) {
+    int end = this.skipWhitespace(0);
+    String closeDelimiter = this.syntax.getInterpolationCloseDelimiter();
+    if (this.syntax.getInterpolationOpenDelimiter().equals(lastBracket)
+        && this.source.startsWith(closeDelimiter, end)) {
       this.brackets.pop();
       this.pushToken(Token.Type.STRING_INTERPOLATION_END);
-      this.source.advance(matcher.end());
+      this.source.advance(end + closeDelimiter.length());
       this.popState();
     } else {
       this.lexExpression();
@@ -225,39 +282,55 @@ public final class LexerImpl implements Lexer {
 
   private void lexString() {
     // interpolation
-    Matcher matcher = this.syntax.getRegexInterpolationOpen().matcher(this.source);
-    if (matcher.lookingAt()) {
-      this.brackets.push(
-          new Pair<>(this.syntax.getInterpolationOpenDelimiter(), this.source.getLineNumber()));
+    String openDelimiter = this.syntax.getInterpolationOpenDelimiter();
+    if (this.source.startsWith(openDelimiter, 0)) {
+      this.brackets.push(new Pair<>(openDelimiter, this.source.getLineNumber()));
       this.pushToken(Token.Type.STRING_INTERPOLATION_START);
-      this.source.advance(matcher.end());
+      this.source.advance(openDelimiter.length());
       this.pushState(State.STRING_INTERPOLATION);
       return;
     }
 
     // regular string start (always full string if single quotes)
-    matcher = REGEX_STRING_NON_INTERPOLATED_PART.matcher(this.source);
-    if (matcher.lookingAt() && matcher.end() > 0) {
-      String token = this.source.substring(matcher.end());
-      this.source.advance(matcher.end());
-      this.pushToken(Token.Type.STRING, token);
+    int end = this.findEndOfNonInterpolatedPart();
+    if (end > 0) {
+      int from = this.source.getOffset();
+      this.source.advance(end);
+      this.pushToken(Token.Type.STRING, from, from + end);
       return;
     }
 
     // end of string (which may have contained interpolation)
-    matcher = REGEX_DOUBLEQUOTE.matcher(this.source);
-    if (matcher.lookingAt()) {
-      String expected = this.brackets.pop().getLeft();
+    if (this.source.charAt(0) == '"') {
+      this.brackets.pop();
+      this.popState();
+      this.source.advance(1);
+    }
+  }
 
-      if (this.source.charAt(0) != '"') {
-        throw new ParserException(null, String.format("Unclosed \"%s\"", expected),
-            this.source.getLineNumber(),
-            this.source.getFilename());
+  /**
+   * Finds the end of the part of a double quoted string which comes before the closing quote or
+   * the next interpolation. Escaped characters are skipped.
+   */
+  private int findEndOfNonInterpolatedPart() {
+    int length = this.source.length();
+    int index = 0;
+    while (index < length) {
+      char c = this.source.charAt(index);
+      if (c == '"') {
+        break;
+      } else if (c == '\\') {
+        if (index + 1 == length) {
+          break;
+        }
+        index += 2;
+      } else if (c == '#' && index + 1 < length && this.source.charAt(index + 1) == '{') {
+        break;
+      } else {
+        index++;
       }
-
-      this.popState();
-      this.source.advance(matcher.end());
     }
+    return index;
   }
 
   /**
@@ -267,32 +340,36 @@ public final class LexerImpl implements Lexer {
    */
   private void lexData() {
     // find the next start delimiter
-    Matcher matcher = this.syntax.getRegexStartDelimiters().matcher(this.source);
-    boolean match = matcher.find();
-
-    String text;
     String startDelimiterToken = null;
+    int start = 0;
+    for (int length = this.source.length(); start < length; start++) {
+      char c = this.source.charAt(start);
+      if (c == this.printOpenFirstChar || c == this.executeOpenFirstChar
+          || c == this.commentOpenFirstChar) {
+        startDelimiterToken = this.getStartDelimiterAt(start);
+        if (startDelimiterToken != null) {
+          break;
+        }
+      }
+    }
+    boolean match = startDelimiterToken != null;
 
     // if we didn't find another start delimiter, the text
     // token goes all the way to the end of the template.
-    if (!match) {
-      text = this.source.toString();
-      this.source.advance(this.source.length());
-    } else {
-      text = this.source.substring(matcher.start());
-      startDelimiterToken = this.source.substring(matcher.start(), matcher.end());
-
-      // advance to after the start delimiter
-      this.source.advance(matcher.end());
-    }
+    int textStart = 0;
 
     // trim leading whitespace from this text if we previously
     // encountered the appropriate whitespace trim character
     if (this.trimLeadingWhitespaceFromNextData) {
-      text = StringUtils.ltrim(text);
+      textStart = this.skipAnyWhitespace(0, start);
       this.trimLeadingWhitespaceFromNextData = false;
     }
-    Token textToken = this.pushToken(Type.TEXT, text);
+    int from = this.source.getOffset();
+
+    // advance to after the start delimiter
+    this.source.advance(match ? start + startDelimiterToken.length() : start);
+
+    Token textToken = this.pushToken(Type.TEXT, from + textStart, from + start);
 
     if (match) {
 
@@ -311,10 +388,10 @@ public final class LexerImpl implements Lexer {
       } else if ((this.syntax.getExecuteOpenDelimiter().equals(startDelimiterToken))) {
 
         // check for verbatim tag
-        Matcher verbatimStartMatcher = this.syntax.getRegexVerbatimStart().matcher(this.source);
-        if (verbatimStartMatcher.lookingAt()) {
+        int verbatimStartEnd = this.matchVerbatimStart();
+        if (verbatimStartEnd >= 0) {
 
-          this.lexVerbatimData(verbatimStartMatcher);
+          this.lexVerbatimData(verbatimStartEnd);
           this.pushState(State.DATA);
 
         } else {
@@ -329,6 +406,21 @@ public final class LexerImpl implements Lexer {
 
   }
 
+  /**
+   * The start delimiters are looked for in the same order as they are lexed in, in case one of
+   * them is a prefix of another one.
+   */
+  private String getStartDelimiterAt(int index) {
+    if (this.source.startsWith(this.syntax.getPrintOpenDelimiter(), index)) {
+      return this.syntax.getPrintOpenDelimiter();
+    } else if (this.source.startsWith(this.syntax.getExecuteOpenDelimiter(), index)) {
+      return this.syntax.getExecuteOpenDelimiter();
+    } else if (this.source.startsWith(this.syntax.getCommentOpenDelimiter(), index)) {
+      return this.syntax.getCommentOpenDelimiter();
+    }
+    return null;
+  }
+
   /**
    * Tokenizes between execute delimiters.
    */
@@ -337,12 +429,13 @@ public final class LexerImpl implements Lexer {
     // check for the trailing whitespace trim character
     this.checkForTrailingWhitespaceTrim();
 
-    Matcher matcher = this.syntax.getRegexExecuteClose().matcher(this.source);
+    int end = this.matchCloseDelimiter(this.skipWhitespace(0),
+        this.syntax.getExecuteCloseDelimiter());
 
     // check if we are at the execute closing delimiter
-    if (this.brackets.isEmpty() && matcher.lookingAt()) {
+    if (this.brackets.isEmpty() && end >= 0) {
       this.pushToken(Token.Type.EXECUTE_END, this.syntax.getExecuteCloseDelimiter());
-      this.source.advance(matcher.end());
+      this.source.advance(end);
       this.popState();
     } else {
       this.lexExpression();
@@ -357,12 +450,13 @@ public final class LexerImpl implements Lexer {
     // check for the trailing whitespace trim character
     this.checkForTrailingWhitespaceTrim();
 
-    Matcher matcher = this.syntax.getRegexPrintClose().matcher(this.source);
+    int end = this.matchCloseDelimiter(this.skipWhitespace(0),
+        this.syntax.getPrintCloseDelimiter());
 
     // check if we are at the print closing delimiter
-    if (this.brackets.isEmpty() && matcher.lookingAt()) {
+    if (this.brackets.isEmpty() && end >= 0) {
       this.pushToken(Token.Type.PRINT_END, this.syntax.getPrintCloseDelimiter());
-      this.source.advance(matcher.end());
+      this.source.advance(end);
       this.popState();
     } else {
       this.lexExpression();
@@ -377,28 +471,23 @@ public final class LexerImpl implements Lexer {
   private void lexComment() {
 
     // all we need to do is find the end of the comment.
-    Matcher matcher = this.syntax.getRegexCommentClose().matcher(this.source);
-
-    boolean match = matcher.find(0);
-    if (!match) {
+    String closeDelimiter = this.syntax.getCommentCloseDelimiter();
+    int start = this.source.indexOf(closeDelimiter, 0);
+    if (start < 0) {
       throw new ParserException(null, "Unclosed comment.", this.source.getLineNumber(),
           this.source.getFilename());
     }
 
-    /*
-     * check if the commented ended with the whitespace trim character by
-     * reversing the comment and performing a regular forward regex search.
-     */
-    String comment = this.source.substring(matcher.start());
-    String reversedComment = new StringBuilder(comment).reverse().toString();
-    Matcher whitespaceTrimMatcher = this.syntax.getRegexLeadingWhitespaceTrim()
-        .matcher(reversedComment);
-    if (whitespaceTrimMatcher.lookingAt()) {
+    // check if the comment ended with whitespace followed by the whitespace trim character
+    String whitespaceTrim = this.syntax.getWhitespaceTrim();
+    int trimStart = start - whitespaceTrim.length();
+    if (trimStart > 0 && this.source.startsWith(whitespaceTrim, trimStart)
+        && is(this.source.charAt(trimStart - 1), WHITESPACE)) {
       this.trimLeadingWhitespaceFromNextData = true;
     }
 
     // move cursor to end of comment (and closing delimiter)
-    this.source.advance(matcher.end());
+    this.source.advance(this.skipNewline(start + closeDelimiter.length()));
     this.popState();
   }
 
@@ -410,69 +499,66 @@ public final class LexerImpl implements Lexer {
 
     // whitespace
     this.source.advanceThroughWhitespace();
-    /*
-     * Matcher matcher = REGEX_WHITESPACE.matcher(source); if
-     * (matcher.lookingAt()) { source.advance(matcher.end()); }
-     */
 
     // operators
-    Matcher matcher = this.regexOperators.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
+    token = this.operators.match(this.source);
+    if (token != null) {
       this.pushToken(Token.Type.OPERATOR, token);
-      this.source.advance(matcher.end());
+      this.source.advance(token.length());
       return;
     }
 
+    int length = this.source.length();
+    char c = length > 0 ? this.source.charAt(0) : '\0';
+
+    int from = this.source.getOffset();
+
     // names
-    matcher = REGEX_NAME.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.pushToken(Token.Type.NAME, token);
-      this.source.advance(matcher.end());
+    if (is(c, NAME_START)) {
+      int end = this.skip(1, NAME_PART);
+      this.pushToken(Token.Type.NAME, from, from + end);
+      this.source.advance(end);
       return;
     }
 
-    // long
-    matcher = REGEX_LONG.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end() - 1);
-      this.pushToken(Token.Type.LONG, token);
-      this.source.advance(matcher.end());
-      return;
-    }
+    if (is(c, DIGIT)) {
+      int end = this.skip(1, DIGIT);
+
+      // long
+      if (end < length && this.source.charAt(end) == 'L') {
+        this.pushToken(Token.Type.LONG, from, from + end);
+        this.source.advance(end + 1);
+        return;
+      }
 
-    // numbers
-    matcher = REGEX_NUMBER.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.pushToken(Token.Type.NUMBER, token);
-      this.source.advance(matcher.end());
+      // numbers
+      if (end + 1 < length && this.source.charAt(end) == '.'
+          && is(this.source.charAt(end + 1), DIGIT)) {
+        end = this.skip(end + 2, DIGIT);
+      }
+      this.pushToken(Token.Type.NUMBER, from, from + end);
+      this.source.advance(end);
       return;
     }
 
     // punctuation
-    if (PUNCTUATION.indexOf(this.source.charAt(0)) >= 0) {
-      String character = String.valueOf(this.source.charAt(0));
+    if (is(c, PUNCTUATION)) {
+      String character = String.valueOf(c);
 
       // opening bracket
-      if ("([{".contains(character)) {
+      if (c == '(' || c == '[' || c == '{') {
         this.brackets.push(new Pair<>(character, this.source.getLineNumber()));
       }
 
       // closing bracket
-      else if (")]}".contains(character)) {
+      else if (c == ')' || c == ']' || c == '}') {
         if (this.brackets.isEmpty()) {
           throw new ParserException(null, "Unexpected \"" + character + "\"",
               this.source.getLineNumber(),
               this.source.getFilename());
         } else {
-          HashMap<String, String> validPairs = new HashMap<>();
-          validPairs.put("(", ")");
-          validPairs.put("[", "]");
-          validPairs.put("{", "}");
           String lastBracket = this.brackets.pop().getLeft();
-          String expected = validPairs.get(lastBracket);
+          String expected = getClosingBracket(lastBracket);
           if (!expected.equals(character)) {
             throw new ParserException(null, "Unclosed \"" + expected + "\"",
                 this.source.getLineNumber(),
@@ -481,28 +567,33 @@ public final class LexerImpl implements Lexer {
         }
       }
 
-      this.pushToken(Token.Type.PUNCTUATION, character);
+      this.pushToken(Token.Type.PUNCTUATION, from, from + 1);
       this.source.advance(1);
       return;
     }
 
-    // Plain (non-interpolated) string
-    matcher = REGEX_STRING_PLAIN.matcher(this.source);
-    if (matcher.lookingAt()) {
-      token = this.source.substring(matcher.end());
-      this.source.advance(matcher.end());
-      token = this.unquoteAndUnescape(token);
-      this.pushToken(Token.Type.STRING, token);
-      return;
-    }
+    if (c == '"' || c == '\'') {
 
-    // Interpolated strings
-    matcher = REGEX_DOUBLEQUOTE.matcher(this.source);
-    if (matcher.lookingAt()) {
-      this.brackets.push(new Pair<>("\"", this.source.getLineNumber()));
-      this.pushState(State.STRING);
-      this.source.advance(matcher.end());
-      return;
+      // Plain (non-interpolated) string
+      int end = this.findEndOfPlainString(c);
+      if (end > 0) {
+        token = this.unescape(c, end);
+        this.source.advance(end);
+        if (token == null) {
+          this.pushToken(Token.Type.STRING, from + 1, from + end - 1);
+        } else {
+          this.pushToken(Token.Type.STRING, token);
+        }
+        return;
+      }
+
+      // Interpolated strings
+      if (c == '"') {
+        this.brackets.push(new Pair<>("\"", this.source.getLineNumber()));
+        this.pushState(State.STRING);
+        this.source.advance(1);
+        return;
+      }
     }
 
     // we should have found something and returned by this point
@@ -511,86 +602,242 @@ public final class LexerImpl implements Lexer {
         this.source.getLineNumber(), this.source.getFilename());
   }
 
+  private static String getClosingBracket(String openingBracket) {
+    switch (openingBracket) {
+      case "(":
+        return ")";
+      case "[":
+        return "]";
+      case "{":
+        return "}";
+      default:
+        return null;
+    }
+  }
+
   /**
-   * This method assumes the provided {@code str} starts with a single or double quote. It removes
-   * the wrapping quotes, and un-escapes any quotes within the string.
+   * Finds the end of a string which starts with the given quote and is closed in the remaining
+   * source. Double quoted strings containing a "#" are not plain, as they might be interpolated.
+   *
+   * @return The index after the closing quote, or -1 if the string is not a plain string
    */
-  private String unquoteAndUnescape(String str) {
-    char quotationType = str.charAt(0);
-
-    // remove first and last quotation marks
-    str = str.substring(1, str.length() - 1);
+  private int findEndOfPlainString(char quote) {
+    int length = this.source.length();
+    int index = 1;
+    while (index < length) {
+      char c = this.source.charAt(index);
+      if (c == quote) {
+        return index + 1;
+      } else if (c == '\\') {
+        index += 2;
+      } else if (c == '#' && quote == '"') {
+        return -1;
+      } else {
+        index++;
+      }
+    }
+    return -1;
+  }
 
-    // remove backslashes used to escape inner quotation marks
-    if (quotationType == '\'') {
-      str = str.replaceAll("\\\\(')", "$1");
-    } else if (quotationType == '"') {
-      str = str.replaceAll("\\\\(\")", "$1");
+  /**
+   * Un-escapes any quotes within the string ending at the given index, without its wrapping quotes.
+   *
+   * @return The un-escaped string, or null if the string does not contain any escaped quotes
+   */
+  private String unescape(char quote, int end) {
+    int last = end - 1;
+    StringBuilder builder = null;
+    int copied = 1;
+    for (int index = 1; index < last; index++) {
+      if (this.source.charAt(index) == '\\' && index + 1 < last
+          && this.source.charAt(index + 1) == quote) {
+        if (builder == null) {
+          builder = new StringBuilder(last);
+        }
+        builder.append(this.source, copied, index);
+        copied = ++index;
+      }
+    }
+    if (builder == null) {
+      return null;
     }
-    return str;
+    return builder.append(this.source, copied, last).toString();
   }
 
   private void checkForLeadingWhitespaceTrim(Token leadingToken) {
 
-    Matcher whitespaceTrimMatcher = this.syntax.getRegexLeadingWhitespaceTrim()
-        .matcher(this.source);
+    String whitespaceTrim = this.syntax.getWhitespaceTrim();
+    int end = whitespaceTrim.length();
 
-    if (whitespaceTrimMatcher.lookingAt()) {
+    if (this.source.startsWith(whitespaceTrim, 0) && end < this.source.length()
+        && is(this.source.charAt(end), WHITESPACE)) {
       if (leadingToken != null) {
-        leadingToken.setValue(StringUtils.rtrim(leadingToken.getValue()));
+        leadingToken.trimTrailingWhitespace();
       }
-      this.source.advance(whitespaceTrimMatcher.end());
+      this.source.advance(this.skipWhitespace(end));
     }
 
   }
 
   private void checkForTrailingWhitespaceTrim() {
-    Matcher whitespaceTrimMatcher = this.syntax.getRegexTrailingWhitespaceTrim().matcher(
-        this.source);
+    String whitespaceTrim = this.syntax.getWhitespaceTrim();
+    int index = this.skipWhitespace(0);
+
+    if (this.source.startsWith(whitespaceTrim, index)) {
+      index += whitespaceTrim.length();
+      if (this.source.startsWith(this.syntax.getPrintCloseDelimiter(), index)
+          || this.source.startsWith(this.syntax.getExecuteCloseDelimiter(), index)
+          || this.source.startsWith(this.syntax.getCommentCloseDelimiter(), index)) {
+        this.trimLeadingWhitespaceFromNextData = true;
+      }
+    }
+  }
 
-    if (whitespaceTrimMatcher.lookingAt()) {
-      this.trimLeadingWhitespaceFromNextData = true;
+  /**
+   * Matches the opening verbatim tag, after its execute delimiter.
+   *
+   * @return The index after the tag, or -1 if the tag is not a verbatim tag
+   */
+  private int matchVerbatimStart() {
+    int index = this.skipWhitespace(0);
+    if (!this.source.startsWith(VERBATIM, index)) {
+      return -1;
     }
+    index = this.skipWhitespace(index + VERBATIM.length());
+    return this.matchCloseDelimiter(index, this.syntax.getExecuteCloseDelimiter());
   }
 
   /**
    * Implementation of the "verbatim" tag
    */
-  private void lexVerbatimData(Matcher verbatimStartMatcher) {
+  private void lexVerbatimData(int verbatimStartEnd) {
 
     // move cursor past the opening verbatim tag
-    this.source.advance(verbatimStartMatcher.end());
+    this.source.advance(verbatimStartEnd);
 
     // look for the "endverbatim" tag and storing everything between
     // now and then into a TEXT node
-    Matcher verbatimEndMatcher = this.syntax.getRegexVerbatimEnd().matcher(this.source);
+    String openDelimiter = this.syntax.getExecuteOpenDelimiter();
+    String closeDelimiter = this.syntax.getExecuteCloseDelimiter();
+    String whitespaceTrim = this.syntax.getWhitespaceTrim();
+    int start = this.source.indexOf(openDelimiter, 0);
+    int end = -1;
+    boolean leadingTrim = false;
+    boolean trailingTrim = false;
+    while (start >= 0) {
+      int index = start + openDelimiter.length();
+      leadingTrim = this.source.startsWith(whitespaceTrim, index);
+      if (leadingTrim) {
+        index += whitespaceTrim.length();
+      }
+      index = this.skipWhitespace(index);
+      if (this.source.startsWith(END_VERBATIM, index)) {
+        index = this.skipWhitespace(index + END_VERBATIM.length());
+        trailingTrim = this.source.startsWith(whitespaceTrim, index) && this.source
+            .startsWith(closeDelimiter, index + whitespaceTrim.length());
+        end = this.matchCloseDelimiter(index, closeDelimiter);
+        if (end >= 0) {
+          break;
+        }
+      }
+      start = this.source.indexOf(openDelimiter, start + 1);
+    }
 
     // check for EOF
-    if (!verbatimEndMatcher.find()) {
+    if (end < 0) {
       throw new ParserException(null, "Unclosed verbatim tag.", this.source.getLineNumber(),
           this.source.getFilename());
     }
-    String verbatimText = this.source.substring(verbatimEndMatcher.start());
 
-    // check if the verbatim start tag has a trailing whitespace trim
-    if (verbatimStartMatcher.group(0) != null) {
-      verbatimText = StringUtils.ltrim(verbatimText);
-    }
+    // the text following the opening verbatim tag is always trimmed
+    int textStart = this.skipAnyWhitespace(0, start);
+    int textEnd = start;
 
     // check if the verbatim end tag had a leading whitespace trim
-    if (verbatimEndMatcher.group(1) != null) {
-      verbatimText = StringUtils.rtrim(verbatimText);
+    if (leadingTrim) {
+      while (textEnd > textStart && Character.isWhitespace(this.source.charAt(textEnd - 1))) {
+        textEnd--;
+      }
     }
+    int from = this.source.getOffset();
 
     // check if the verbatim end tag had a trailing whitespace trim
-    if (verbatimEndMatcher.group(2) != null) {
+    if (trailingTrim) {
       this.trimLeadingWhitespaceFromNextData = true;
     }
 
     // move cursor past the verbatim text and end delimiter
-    this.source.advance(verbatimEndMatcher.end());
+    this.source.advance(end);
+
+    this.pushToken(Type.TEXT, from + textStart, from + textEnd);
+  }
+
+  /**
+   * Matches a closing delimiter, optionally preceded by the whitespace trim character and followed
+   * by a newline if newlines following tags are trimmed.
+   *
+   * @param index The index to match the delimiter at
+   * @param closeDelimiter The closing delimiter
+   * @return The index after the delimiter, or -1 if there is no such delimiter at the index
+   */
+  private int matchCloseDelimiter(int index, String closeDelimiter) {
+    String whitespaceTrim = this.syntax.getWhitespaceTrim();
+    if (this.source.startsWith(whitespaceTrim, index)
+        && this.source.startsWith(closeDelimiter, index + whitespaceTrim.length())) {
+      index += whitespaceTrim.length();
+    } else if (!this.source.startsWith(closeDelimiter, index)) {
+      return -1;
+    }
+    return this.skipNewline(index + closeDelimiter.length());
+  }
+
+  /**
+   * Skips a single newline if newlines following tags are trimmed.
+   */
+  private int skipNewline(int index) {
+    if (!this.syntax.isEnableNewLineTrimming() || index >= this.source.length()) {
+      return index;
+    }
+    char c = this.source.charAt(index);
+    if (c == '\r' || c == '\n') {
+      char pair = c == '\r' ? '\n' : '\r';
+      return index + 1 < this.source.length() && this.source.charAt(index + 1) == pair ? index + 2
+          : index + 1;
+    } else if (c == '\u0085' || c == '\u2028' || c == '\u2029') {
+      return index + 1;
+    }
+    return index;
+  }
+
+  private int skipWhitespace(int index) {
+    return this.skip(index, WHITESPACE);
+  }
+
+  /**
+   * Skips the characters which are whitespace according to {@link Character#isWhitespace(char)},
+   * the way the text is trimmed.
+   */
+  private int skipAnyWhitespace(int index, int end) {
+    while (index < end && Character.isWhitespace(this.source.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * @return The index of the first character from the given index on which is not of the given
+   * character class
+   */
+  private int skip(int index, int characterClass) {
+    int length = this.source.length();
+    while (index < length && is(this.source.charAt(index), characterClass)) {
+      index++;
+    }
+    return index;
+  }
 
-    this.pushToken(Type.TEXT, verbatimText);
+  private static boolean is(char c, int characterClass) {
+    return c < CHARACTER_CLASSES.length && (CHARACTER_CLASSES[c] & characterClass) != 0;
   }
 
   /**
@@ -621,6 +868,26 @@ public final class LexerImpl implements Lexer {
     return result;
   }
 
+  /**
+   * Create a Token of a certain type whose value is a slice of the source, and push it into the
+   * list of tokens that we are maintaining.
+   *
+   * @param type The type of token we are creating
+   * @param from The index of the first character of the value, as returned by
+   * {@link TemplateSource#getOffset()}
+   * @param to The index after the last character of the value
+   */
+  private Token pushToken(Token.Type type, int from, int to) {
+    // ignore empty text tokens
+    if (type.equals(Token.Type.TEXT) && from == to) {
+      return null;
+    }
+    Token result = this.source.createToken(type, from, to);
+    this.tokens.add(result);
+
+    return result;
+  }
+
   /**
    * Updates the current state to the new state by pushing the current state onto the stack.
    */
@@ -635,54 +902,4 @@ public final class LexerImpl implements Lexer {
     this.states.pop();
   }
 
-  /**
-   * Retrieves the operators (both unary and binary) from the PebbleEngine and then dynamically
-   * creates one giant regular expression to detect for the existence of one of these operators.
-   */
-  private void buildOperatorRegex() {
-
-    List<String> operators = new ArrayList<>();
-
-    for (UnaryOperator operator: this.unaryOperators) {
-      operators.add(operator.getSymbol());
-    }
-
-    for (BinaryOperator operator: this.binaryOperators) {
-      operators.add(operator.getSymbol());
-    }
-
-    /*
-     * Since java's matcher doesn't conform with the posix standard of
-     * matching the longest alternative (it matches the first alternative),
-     * we must first sort all of the operators by length before creating the
-     * regex. This is to help match "is not" over "is".
-     */
-    operators.sort(StringLengthComparator.INSTANCE);
-
-    StringBuilder regex = new StringBuilder("^");
-
-    boolean isFirst = true;
-    for (String operator : operators) {
-      if (isFirst) {
-        isFirst = false;
-      } else {
-        regex.append("|");
-      }
-      regex.append(Pattern.quote(operator));
-
-      /*
-       * If the operator ends in an alpha character we use a negative
-       * lookahead assertion to make sure the next character in the stream
-       * is NOT an alpha character. This ensures user can type
-       * "organization" without the "or" being parsed as an operator.
-       */
-      char nextChar = operator.charAt(operator.length() - 1);
-      if (Character.isLetter(nextChar) || Character.getType(nextChar) == Character.LETTER_NUMBER) {
-        regex.append("(?![a-zA-Z])");
-      }
-    }
-
-    this.regexOperators = Pattern.compile(regex.toString());
-  }
-
 }
@@ -0,0 +1,129 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.lexer;
+
+import com.mitchellbosecke.pebble.operator.BinaryOperator;
+import com.mitchellbosecke.pebble.operator.UnaryOperator;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A trie of the symbols of all unary and binary operators, used by the {@link LexerImpl} to find the
+ * longest operator at the current position of the template without any regular expression.
+ * <p>
+ * A symbol ending in a letter only matches if it is not directly followed by another letter, so
+ * that a user can type "organization" without the "or" being lexed as an operator.
+ * <p>
+ * The trie is immutable and is meant to be built once for a set of operators and shared by all of
+ * the lexers that use them.
+ */
+public final class OperatorTrie {
+
+  private final Node root = new Node();
+
+  /**
+   * Constructor
+   *
+   * @param unaryOperators The available unary operators
+   * @param binaryOperators The available binary operators
+   */
+  public OperatorTrie(Collection<UnaryOperator> unaryOperators,
+      Collection<BinaryOperator> binaryOperators) {
+    for (UnaryOperator operator : unaryOperators) {
+      this.add(operator.getSymbol());
+    }
+    for (BinaryOperator operator : binaryOperators) {
+      this.add(operator.getSymbol());
+    }
+  }
+
+  private void add(String symbol) {
+    if (symbol.isEmpty()) {
+      return;
+    }
+    Node node = this.root;
+    for (int i = 0; i < symbol.length(); i++) {
+      node = node.getOrAddChild(symbol.charAt(i));
+    }
+    char lastChar = symbol.charAt(symbol.length() - 1);
+    node.symbol = symbol;
+    node.requiresWordBoundary =
+        Character.isLetter(lastChar) || Character.getType(lastChar) == Character.LETTER_NUMBER;
+  }
+
+  /**
+   * Finds the longest operator symbol at the beginning of the given characters.
+   *
+   * @param source The characters to look at
+   * @return The symbol of the operator, or null if the characters do not start with an operator
+   */
+  String match(CharSequence source) {
+    String match = null;
+    Node node = this.root;
+    int length = source.length();
+    for (int i = 0; i < length; i++) {
+      node = node.getChild(source.charAt(i));
+      if (node == null) {
+        break;
+      }
+      if (node.symbol != null && (!node.requiresWordBoundary || i + 1 == length
+          || !isAsciiLetter(source.charAt(i + 1)))) {
+        match = node.symbol;
+      }
+    }
+    return match;
+  }
+
+  private static boolean isAsciiLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static final class Node {
+
+    private static final char[] NO_KEYS = new char[0];
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    /**
+     * The characters leading to the children, which are few enough to be scanned linearly.
+     */
+    private char[] keys = NO_KEYS;
+
+    private Node[] children = NO_CHILDREN;
+
+    /**
+     * The symbol of the operator ending at this node, if any.
+     */
+    private String symbol;
+
+    private boolean requiresWordBoundary;
+
+    private Node getChild(char key) {
+      for (int i = 0; i < this.keys.length; i++) {
+        if (this.keys[i] == key) {
+          return this.children[i];
+        }
+      }
+      return null;
+    }
+
+    private Node getOrAddChild(char key) {
+      Node child = this.getChild(key);
+      if (child == null) {
+        child = new Node();
+        int size = this.keys.length;
+        this.keys = Arrays.copyOf(this.keys, size + 1);
+        this.children = Arrays.copyOf(this.children, size + 1);
+        this.keys[size] = key;
+        this.children[size] = child;
+      }
+      return child;
+    }
+  }
+}
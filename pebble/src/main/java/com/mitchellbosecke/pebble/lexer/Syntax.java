@@ -29,6 +29,8 @@ public final class Syntax {
 
   private final String whitespaceTrim;
 
+  private final boolean enableNewLineTrimming;
+
   /**
    * The regular expressions used to find the different delimiters
    */
@@ -69,6 +71,7 @@ public final class Syntax {
     this.delimiterPrintOpen = delimiterPrintOpen;
     this.delimiterPrintClose = delimiterPrintClose;
     this.whitespaceTrim = whitespaceTrim;
+    this.enableNewLineTrimming = enableNewLineTrimming;
     this.delimiterInterpolationClose = delimiterInterpolationClose;
     this.delimiterInterpolationOpen = delimiterInterpolationOpen;
 
@@ -163,6 +166,13 @@ public final class Syntax {
     return whitespaceTrim;
   }
 
+  /**
+   * @return Whether the newline following a tag is trimmed
+   */
+  public boolean isEnableNewLineTrimming() {
+    return enableNewLineTrimming;
+  }
+
   Pattern getRegexPrintClose() {
     return regexPrintClose;
   }
@@ -170,6 +170,63 @@ public class TemplateSource implements CharSequence {
     return numOfCharacters;
   }
 
+  /**
+   * Checks whether the remaining source contains the given string at the given index.
+   *
+   * @param prefix The string to look for
+   * @param index The index relative to the remaining source
+   */
+  boolean startsWith(String prefix, int index) {
+    int length = prefix.length();
+    if (index < 0 || index + length > this.size) {
+      return false;
+    }
+    int start = this.offset + index;
+    for (int i = 0; i < length; i++) {
+      if (this.source[start + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds the first occurrence of a string in the remaining source.
+   *
+   * @param str The string to look for
+   * @param fromIndex The index relative to the remaining source to start looking from
+   * @return The index relative to the remaining source, or -1 if the string does not occur
+   */
+  int indexOf(String str, int fromIndex) {
+    char first = str.charAt(0);
+    int last = this.size - str.length();
+    for (int index = Math.max(fromIndex, 0); index <= last; index++) {
+      if (this.source[this.offset + index] == first && this.startsWith(str, index)) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return The index of the first character of the remaining source within all of the characters
+   * of the source
+   */
+  int getOffset() {
+    return this.offset;
+  }
+
+  /**
+   * Creates a token whose value is a slice of the source, without copying the characters.
+   *
+   * @param type The type of the token
+   * @param from The index of the first character of the value, as returned by {@link #getOffset()}
+   * @param to The index after the last character of the value
+   */
+  Token createToken(Token.Type type, int from, int to) {
+    return new Token(type, this.source, from, to - from, this.lineNumber);
+  }
+
   public String substring(int start, int end) {
     return new String(Arrays.copyOfRange(source, this.offset + start, this.offset + end));
   }
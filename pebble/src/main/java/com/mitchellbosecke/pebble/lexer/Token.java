@@ -8,12 +8,26 @@
  */
 package com.mitchellbosecke.pebble.lexer;
 
+import com.mitchellbosecke.pebble.utils.StringUtils;
 import java.util.Arrays;
 
+/**
+ * A token of a template. The value of a token found by the lexer is usually a slice of the
+ * characters of the template, which is only turned into a String when it is asked for.
+ */
 public class Token {
 
   private String value;
 
+  /**
+   * The characters which the value is a slice of, until the value has been turned into a String.
+   */
+  private char[] characters;
+
+  private int offset;
+
+  private int length;
+
   private Type type;
 
   private int lineNumber;
@@ -28,24 +42,87 @@ public class Token {
     this.lineNumber = lineNumber;
   }
 
+  /**
+   * Constructor for a token whose value is a slice of the given characters, which are not copied.
+   */
+  Token(Type type, char[] characters, int offset, int length, int lineNumber) {
+    this.type = type;
+    this.characters = characters;
+    this.offset = offset;
+    this.length = length;
+    this.lineNumber = lineNumber;
+  }
+
   public boolean test(Type type) {
-    return this.test(type, new String[0]);
+    return this.type.equals(type);
   }
 
   public boolean test(Type type, String... values) {
-    boolean test = true;
-    if (values.length > 0) {
-      test = Arrays.asList(values).contains(this.value);
+    boolean test = values.length == 0;
+    for (String value : values) {
+      if (this.valueEquals(value)) {
+        test = true;
+        break;
+      }
     }
     return test && this.type.equals(type);
   }
 
+  /**
+   * Compares the value of this token with the given value without turning it into a String.
+   */
+  private boolean valueEquals(String value) {
+    if (this.characters == null) {
+      return value == null ? this.value == null : value.equals(this.value);
+    }
+    if (value == null || value.length() != this.length) {
+      return false;
+    }
+    for (int i = 0; i < this.length; i++) {
+      if (this.characters[this.offset + i] != value.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public String getValue() {
+    if (this.characters != null) {
+      this.value = new String(this.characters, this.offset, this.length);
+      this.characters = null;
+    }
     return this.value;
   }
 
   public void setValue(String value) {
     this.value = value;
+    this.characters = null;
+  }
+
+  /**
+   * Copies the value of this token into a new array, without turning it into a String first.
+   *
+   * @return The characters of the value
+   */
+  public char[] toCharArray() {
+    if (this.characters != null) {
+      return Arrays.copyOfRange(this.characters, this.offset, this.offset + this.length);
+    }
+    return this.value.toCharArray();
+  }
+
+  /**
+   * Removes the trailing whitespace from the value of this token.
+   */
+  void trimTrailingWhitespace() {
+    if (this.characters == null) {
+      this.value = StringUtils.rtrim(this.value);
+      return;
+    }
+    while (this.length > 0
+        && Character.isWhitespace(this.characters[this.offset + this.length - 1])) {
+      this.length--;
+    }
   }
 
   public Type getType() {
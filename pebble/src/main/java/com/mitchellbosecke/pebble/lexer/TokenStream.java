@@ -12,12 +12,24 @@ import com.mitchellbosecke.pebble.error.ParserException;
 import com.mitchellbosecke.pebble.lexer.Token.Type;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 
+/**
+ * The tokens of a template, which are pulled from their source (usually the lexer) as the parser
+ * consumes them. Only the current token and the few tokens the parser looks ahead at are held at
+ * any time.
+ */
 public class TokenStream {
 
-  private ArrayList<Token> tokens = new ArrayList<>();
+  /**
+   * The current token followed by the tokens which have been looked ahead at.
+   */
+  private final ArrayList<Token> tokens = new ArrayList<>();
 
-  private int current;
+  /**
+   * The tokens which have not been looked at yet.
+   */
+  private final Iterator<Token> remaining;
 
   private String filename;
 
@@ -28,8 +40,17 @@ public class TokenStream {
    * @param name The filename of the template that these tokens came from
    */
   public TokenStream(Collection<Token> tokens, String name) {
-    this.tokens.addAll(tokens);
-    this.current = 0;
+    this(tokens.iterator(), name);
+  }
+
+  /**
+   * Constructor for a Token Stream which pulls its tokens lazily.
+   *
+   * @param tokens The tokens, ending with an EOF token
+   * @param name The filename of the template that these tokens came from
+   */
+  public TokenStream(Iterator<Token> tokens, String name) {
+    this.remaining = tokens;
     this.filename = name;
   }
 
@@ -39,7 +60,9 @@ public class TokenStream {
    * @return The next token
    */
   public Token next() {
-    return this.tokens.get(++this.current);
+    this.fill(1);
+    this.tokens.remove(0);
+    return this.tokens.get(0);
   }
 
   /**
@@ -62,7 +85,7 @@ public class TokenStream {
    * @return Token The current token
    */
   public Token expect(Token.Type type, String value) {
-    Token token = this.tokens.get(this.current);
+    Token token = this.current();
 
     boolean success = value == null ? token.test(type) : token.test(type, value);
 
@@ -92,16 +115,17 @@ public class TokenStream {
    * @return The token we are peeking at
    */
   public Token peek(int number) {
-    return this.tokens.get(this.current + number);
+    this.fill(number);
+    return this.tokens.get(number);
   }
 
   public boolean isEOF() {
-    return this.tokens.get(this.current).getType().equals(Type.EOF);
+    return this.current().getType().equals(Type.EOF);
   }
 
   @Override
   public String toString() {
-    return String.format("Current: %s. All: %s", this.current(), this.tokens);
+    return String.format("Current: %s. Buffered: %s", this.current(), this.tokens);
   }
 
   /**
@@ -110,7 +134,17 @@ public class TokenStream {
    * @return Token The current token
    */
   public Token current() {
-    return this.tokens.get(this.current);
+    this.fill(0);
+    return this.tokens.get(0);
+  }
+
+  /**
+   * Pulls tokens until the token at the given distance from the current one is available.
+   */
+  private void fill(int number) {
+    while (this.tokens.size() <= number) {
+      this.tokens.add(this.remaining.next());
+    }
   }
 
   public String getFilename() {
@@ -120,9 +154,12 @@ public class TokenStream {
   /**
    * used for testing purposes
    *
-   * @return List of tokens
+   * @return List of the current and all of the remaining tokens
    */
   public ArrayList<Token> getTokens() {
+    while (this.remaining.hasNext()) {
+      this.tokens.add(this.remaining.next());
+    }
     return this.tokens;
   }
 }
@@ -11,10 +11,23 @@ package com.mitchellbosecke.pebble.loader;
 import com.mitchellbosecke.pebble.error.LoaderException;
 import com.mitchellbosecke.pebble.utils.PathUtils;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -118,4 +131,62 @@ public class ClasspathLoader implements Loader<String> {
   public String createCacheKey(String templateName) {
     return templateName;
   }
+
+  /**
+   * Lists the resources found anywhere below the prefix, in the directories and jars of the
+   * classpath, which end with the suffix. Without a prefix the whole classpath would have to be
+   * listed, so nothing is.
+   */
+  @Override
+  public Collection<String> listTemplateNames() {
+    if (this.getPrefix() == null) {
+      return Collections.emptyList();
+    }
+    String directory = this.getPrefix();
+    if (directory.startsWith(Character.toString(this.expectedSeparator))) {
+      directory = directory.substring(1);
+    }
+    if (!directory.isEmpty() && !directory.endsWith(Character.toString(this.expectedSeparator))) {
+      directory = directory + this.expectedSeparator;
+    }
+
+    Set<String> names = new TreeSet<>();
+    Set<String> jars = new HashSet<>();
+    try {
+      Enumeration<URL> urls = this.rcl.getResources(directory);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        if ("file".equals(url.getProtocol())) {
+          names.addAll(TemplateListing.listDirectory(Paths.get(url.toURI()), this.getSuffix()));
+        } else if ("jar".equals(url.getProtocol())) {
+          this.listJar(url, directory, jars, names);
+        } else {
+          logger.debug("Can not list the templates in {}.", url);
+        }
+      }
+
+      // jars do not necessarily contain entries for their directories, so all of them are listed
+      urls = this.rcl.getResources(JarFile.MANIFEST_NAME);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        if ("jar".equals(url.getProtocol())) {
+          this.listJar(url, directory, jars, names);
+        }
+      }
+    } catch (IOException | URISyntaxException e) {
+      throw new LoaderException(e, "Could not list the templates in \"" + directory + "\"");
+    }
+    return new ArrayList<>(names);
+  }
+
+  private void listJar(URL url, String directory, Set<String> jars, Set<String> names)
+      throws IOException {
+    JarURLConnection connection = (JarURLConnection) url.openConnection();
+    connection.setUseCaches(false);
+    if (jars.add(connection.getJarFileURL().toString())) {
+      try (JarFile jar = connection.getJarFile()) {
+        names.addAll(TemplateListing.listJar(jar, directory, this.getSuffix()));
+      }
+    }
+  }
 }
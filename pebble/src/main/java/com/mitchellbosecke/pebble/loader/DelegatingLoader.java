@@ -11,8 +11,12 @@ package com.mitchellbosecke.pebble.loader;
 import com.mitchellbosecke.pebble.error.LoaderException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * This loader will delegate control to a list of children loaders. This is the default
@@ -142,4 +146,30 @@ public class DelegatingLoader implements Loader<DelegatingLoaderCacheKey> {
 
     return new DelegatingLoaderCacheKey(keys, templateName);
   }
+
+  /**
+   * Lists the templates of all of the children loaders, each name only once.
+   */
+  @Override
+  public Collection<String> listTemplateNames() {
+    Set<String> names = new LinkedHashSet<>();
+    for (Loader<?> loader : this.loaders) {
+      names.addAll(loader.listTemplateNames());
+    }
+    return new ArrayList<>(names);
+  }
+
+  @Override
+  public void addChangeListener(Consumer<String> listener) {
+    for (Loader<?> loader : this.loaders) {
+      loader.addChangeListener(listener);
+    }
+  }
+
+  @Override
+  public void removeChangeListener(Consumer<String> listener) {
+    for (Loader<?> loader : this.loaders) {
+      loader.removeChangeListener(listener);
+    }
+  }
 }
@@ -74,4 +74,10 @@ public final class DelegatingLoaderCacheKey {
     }
   }
 
+  @Override
+  public String toString() {
+    return "DelegatingLoaderCacheKey [templateName=" + templateName + ", delegatingCacheKeys="
+        + delegatingCacheKeys + "]";
+  }
+
 }
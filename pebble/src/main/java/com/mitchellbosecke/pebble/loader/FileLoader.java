@@ -14,10 +14,17 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,8 +44,17 @@ public class FileLoader implements Loader<String> {
 
   private String charset = "UTF-8";
 
+  private boolean detectChanges;
+
+  private long pollInterval = 1000;
+
+  private final List<Consumer<String>> changeListeners = new CopyOnWriteArrayList<>();
+
+  private volatile FileWatcher watcher;
+
   @Override
   public Reader getReader(String templateName) {
+    String name = templateName;
 
     // add the prefix and ensure the prefix ends with a separator character
     StringBuilder path = new StringBuilder();
@@ -74,6 +90,10 @@ public class FileLoader implements Loader<String> {
     InputStream is = null;
     File file = new File(path.toString(), templateName);
     if (file.exists() && file.isFile()) {
+      FileWatcher watcher = this.watcher;
+      if (watcher != null) {
+        watcher.watch(name, file.toPath());
+      }
       try {
         is = new FileInputStream(file);
       } catch (FileNotFoundException e) {
@@ -120,6 +140,67 @@ public class FileLoader implements Loader<String> {
     this.charset = charset;
   }
 
+  public boolean isDetectChanges() {
+    return this.detectChanges;
+  }
+
+  /**
+   * Enables or disables the detection of changes to the files of the templates which have been
+   * loaded. The directories of the files are watched on a daemon thread, and the files are polled
+   * where the file system can not be watched. The listeners, i.e. the {@link
+   * com.mitchellbosecke.pebble.PebbleEngine} using this loader, are notified on that thread.
+   * The thread only runs while there are listeners; disabling the detection or closing the last
+   * engine stops it and forgets the files.
+   *
+   * @param detectChanges Whether changes are detected
+   */
+  public synchronized void setDetectChanges(boolean detectChanges) {
+    this.detectChanges = detectChanges;
+    this.updateWatcher();
+  }
+
+  public long getPollInterval() {
+    return this.pollInterval;
+  }
+
+  /**
+   * Sets how often the files of the templates are polled in milliseconds, if their directories can
+   * not be watched. The default is one second. It has to be set before changes are detected.
+   *
+   * @param pollInterval The interval in milliseconds
+   */
+  public void setPollInterval(long pollInterval) {
+    this.pollInterval = pollInterval;
+  }
+
+  @Override
+  public synchronized void addChangeListener(Consumer<String> listener) {
+    this.changeListeners.add(listener);
+    this.updateWatcher();
+  }
+
+  @Override
+  public synchronized void removeChangeListener(Consumer<String> listener) {
+    this.changeListeners.remove(listener);
+    this.updateWatcher();
+  }
+
+  private void updateWatcher() {
+    boolean watch = this.detectChanges && !this.changeListeners.isEmpty();
+    if (watch && this.watcher == null) {
+      this.watcher = new FileWatcher(this::fireChange, this.pollInterval);
+    } else if (!watch && this.watcher != null) {
+      this.watcher.stop();
+      this.watcher = null;
+    }
+  }
+
+  private void fireChange(String templateName) {
+    for (Consumer<String> listener : this.changeListeners) {
+      listener.accept(templateName);
+    }
+  }
+
   @Override
   public String resolveRelativePath(String relativePath, String anchorPath) {
     return PathUtils.resolveRelativePath(relativePath, anchorPath, File.separatorChar);
@@ -129,4 +210,23 @@ public class FileLoader implements Loader<String> {
   public String createCacheKey(String templateName) {
     return templateName;
   }
+
+  /**
+   * Lists the files found anywhere below the prefix directory which end with the suffix. Without a
+   * prefix there is no directory to list.
+   */
+  @Override
+  public Collection<String> listTemplateNames() {
+    if (this.getPrefix() == null) {
+      return Collections.emptyList();
+    }
+    try {
+      List<String> names = TemplateListing.listDirectory(Paths.get(this.getPrefix()),
+          this.getSuffix());
+      Collections.sort(names);
+      return names;
+    } catch (IOException e) {
+      throw new LoaderException(e, "Could not list the templates in \"" + this.getPrefix() + "\"");
+    }
+  }
 }
@@ -0,0 +1,228 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.loader;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Watches the files of the templates which have been loaded on a daemon thread and reports the
+ * templates whose files changed. The directories of the files are watched with a
+ * {@link WatchService}, and the modification times of the files are polled where the file system
+ * does not support one.
+ */
+final class FileWatcher implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(FileWatcher.class);
+
+  private final Map<String, WatchedFile> files = new ConcurrentHashMap<>();
+
+  private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+
+  private final Consumer<String> listener;
+
+  private final long pollInterval;
+
+  private final WatchService watchService;
+
+  private final Thread thread;
+
+  private volatile boolean running = true;
+
+  FileWatcher(Consumer<String> listener, long pollInterval) {
+    this.listener = listener;
+    this.pollInterval = pollInterval;
+    this.watchService = newWatchService();
+    this.thread = new Thread(this, "pebble-template-watcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Starts watching the file of a template, unless it is already watched. The state of the file is
+   * recorded right away, so it should be called before the file is read.
+   *
+   * @param templateName The name the template has been loaded with
+   * @param file The file of the template
+   */
+  void watch(String templateName, Path file) {
+    this.files.computeIfAbsent(templateName, name -> {
+      WatchedFile watched = new WatchedFile(file.toAbsolutePath().normalize());
+      watched.watched = this.register(watched.directory);
+      return watched;
+    });
+  }
+
+  void stop() {
+    this.running = false;
+    this.thread.interrupt();
+    if (this.watchService != null) {
+      try {
+        this.watchService.close();
+      } catch (IOException e) {
+        // can't do much about it
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (this.running) {
+      try {
+        if (this.watchService == null) {
+          Thread.sleep(this.pollInterval);
+        } else {
+          WatchKey key = this.watchService.poll(this.pollInterval, TimeUnit.MILLISECONDS);
+          if (key != null) {
+            // the events are coalesced, every file of the directory is checked instead
+            key.pollEvents();
+            Path directory = (Path) key.watchable();
+            this.checkDirectory(directory);
+            if (!key.reset()) {
+              this.unregister(directory);
+            }
+          }
+        }
+        this.checkUnwatched();
+      } catch (InterruptedException | ClosedWatchServiceException e) {
+        return;
+      }
+    }
+  }
+
+  private boolean register(Path directory) {
+    if (this.watchService == null) {
+      return false;
+    }
+    if (this.directories.contains(directory)) {
+      return true;
+    }
+    try {
+      directory.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      this.directories.add(directory);
+      return true;
+    } catch (IOException | UnsupportedOperationException e) {
+      logger.debug("Could not watch directory {}, its templates are polled", directory, e);
+      return false;
+    }
+  }
+
+  /**
+   * Falls back to polling the files of a directory which can not be watched anymore, e.g. because
+   * it has been deleted.
+   */
+  private void unregister(Path directory) {
+    this.directories.remove(directory);
+    for (WatchedFile file : this.files.values()) {
+      if (file.directory.equals(directory)) {
+        file.watched = false;
+      }
+    }
+  }
+
+  private void checkDirectory(Path directory) {
+    for (Entry<String, WatchedFile> entry : this.files.entrySet()) {
+      if (entry.getValue().directory.equals(directory)) {
+        this.check(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private void checkUnwatched() {
+    for (Entry<String, WatchedFile> entry : this.files.entrySet()) {
+      WatchedFile file = entry.getValue();
+      if (!file.watched) {
+        file.watched = this.register(file.directory);
+        this.check(entry.getKey(), file);
+      }
+    }
+  }
+
+  private void check(String templateName, WatchedFile file) {
+    if (!file.update()) {
+      return;
+    }
+    logger.debug("Template {} changed", templateName);
+    try {
+      this.listener.accept(templateName);
+    } catch (RuntimeException e) {
+      logger.warn("Could not handle the change of template {}", templateName, e);
+    }
+  }
+
+  private static WatchService newWatchService() {
+    try {
+      return FileSystems.getDefault().newWatchService();
+    } catch (IOException | UnsupportedOperationException e) {
+      logger.debug("Could not create a watch service, templates are polled", e);
+      return null;
+    }
+  }
+
+  private static final class WatchedFile {
+
+    private final Path path;
+
+    private final Path directory;
+
+    private volatile boolean watched;
+
+    private FileTime lastModified;
+
+    private long size;
+
+    private WatchedFile(Path path) {
+      this.path = path;
+      this.directory = path.getParent();
+      this.update();
+    }
+
+    /**
+     * Reads the modification time and the size of the file, which are unset if it does not exist.
+     *
+     * @return Whether they changed since the last time
+     */
+    private boolean update() {
+      FileTime lastModified = null;
+      long size = -1;
+      try {
+        BasicFileAttributes attributes = Files.readAttributes(this.path,
+            BasicFileAttributes.class);
+        lastModified = attributes.lastModifiedTime();
+        size = attributes.size();
+      } catch (IOException e) {
+        // the file has been deleted
+      }
+      boolean changed = size != this.size || !Objects.equals(lastModified, this.lastModified);
+      this.lastModified = lastModified;
+      this.size = size;
+      return changed;
+    }
+  }
+}
@@ -10,6 +10,9 @@ package com.mitchellbosecke.pebble.loader;
 
 import com.mitchellbosecke.pebble.PebbleEngine;
 import java.io.Reader;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Consumer;
 
 /**
  * Interface used to find templates for Pebble. Different implementations can use different
@@ -101,4 +104,40 @@ public interface Loader<T> {
    */
   T createCacheKey(String templateName);
 
-}
\ No newline at end of file
+  /**
+   * Lists the names of all of the templates which this loader can find, which is used by
+   * {@link PebbleEngine#precompileAll()} to compile them ahead of their first use. The names are
+   * the ones which would be passed to {@link PebbleEngine#getTemplate(String)}, i.e. without the
+   * prefix and the suffix.
+   *
+   * <p>
+   * Loaders which cannot enumerate their templates, such as a loader for templates stored in a
+   * database, return an empty collection, which is also the default.
+   *
+   * @return The names of the templates
+   */
+  default Collection<String> listTemplateNames() {
+    return Collections.emptyList();
+  }
+
+  /**
+   * Registers a listener which is called with the name of every template whose source changed, for
+   * loaders which detect changes. {@link PebbleEngine} registers {@link PebbleEngine#reload(String)}
+   * to recompile these templates. Loaders which do not detect changes ignore the listener, which is
+   * also the default.
+   *
+   * @param listener The listener which is called with the name of a changed template
+   */
+  default void addChangeListener(Consumer<String> listener) {
+  }
+
+  /**
+   * Removes a listener which has been registered with {@link #addChangeListener(Consumer)}, which
+   * {@link PebbleEngine#close()} does.
+   *
+   * @param listener The listener to remove
+   */
+  default void removeChangeListener(Consumer<String> listener) {
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Helps the loaders to list the names of the templates found in a directory or a jar.
+ */
+final class TemplateListing {
+
+  private TemplateListing() {
+  }
+
+  /**
+   * Lists the files found anywhere below a directory.
+   *
+   * @param directory The directory, which the names are relative to
+   * @param suffix The suffix of the templates, which is removed from the names, or null
+   * @return The names of the templates, separated with forward slashes
+   */
+  static List<String> listDirectory(Path directory, String suffix) throws IOException {
+    List<String> names = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return names;
+    }
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.filter(Files::isRegularFile).forEach(path -> addTemplateName(names,
+          directory.relativize(path).toString().replace(File.separatorChar, '/'), suffix));
+    }
+    return names;
+  }
+
+  /**
+   * Lists the entries found anywhere below a directory of a jar.
+   *
+   * @param jar The jar
+   * @param directory The directory within the jar, ending with a forward slash, which the names are
+   * relative to
+   * @param suffix The suffix of the templates, which is removed from the names, or null
+   * @return The names of the templates, separated with forward slashes
+   */
+  static List<String> listJar(JarFile jar, String directory, String suffix) {
+    List<String> names = new ArrayList<>();
+    Enumeration<JarEntry> entries = jar.entries();
+    while (entries.hasMoreElements()) {
+      JarEntry entry = entries.nextElement();
+      if (!entry.isDirectory() && entry.getName().startsWith(directory)) {
+        addTemplateName(names, entry.getName().substring(directory.length()), suffix);
+      }
+    }
+    return names;
+  }
+
+  private static void addTemplateName(List<String> names, String path, String suffix) {
+    if (suffix == null) {
+      names.add(path);
+    } else if (path.endsWith(suffix) && path.length() > suffix.length()) {
+      names.add(path.substring(0, path.length() - suffix.length()));
+    }
+  }
+}
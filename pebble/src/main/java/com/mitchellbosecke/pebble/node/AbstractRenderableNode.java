@@ -16,6 +16,8 @@ import java.io.Writer;
 
 public abstract class AbstractRenderableNode implements RenderableNode {
 
+  private static final long serialVersionUID = -811584170682961193L;
+
   private int lineNumber;
 
   @Override
@@ -11,20 +11,31 @@ package com.mitchellbosecke.pebble.node;
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.NamedArguments;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import com.mitchellbosecke.pebble.node.expression.Expression;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class ArgumentsNode implements Node {
 
+  private static final long serialVersionUID = 3147351375365986640L;
+
   private final List<NamedArgumentNode> namedArgs;
 
   private final List<PositionalArgumentNode> positionalArgs;
 
   private final int lineNumber;
 
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+
+  /**
+   * The value expression of every argument by its position, see {@link #bindPositions(List)}.
+   */
+  private Expression<?>[] positions;
+
   public ArgumentsNode(List<PositionalArgumentNode> positionalArgs,
       List<NamedArgumentNode> namedArgs,
       int lineNumber) {
@@ -107,6 +118,70 @@ public class ArgumentsNode implements Node {
     return result;
   }
 
+  /**
+   * Resolves the position of every argument for a filter, test or function with the given argument
+   * names so that {@link #getArgumentArray(PebbleTemplateImpl, EvaluationContextImpl)} can be used
+   * instead of {@link #getArgumentMap(PebbleTemplateImpl, EvaluationContextImpl, NamedArguments)}.
+   * Invalid arguments are not reported here, they still fail when the arguments are evaluated as a
+   * map.
+   *
+   * @param argumentNames The argument names of the filter, test or function
+   * @return Whether or not the arguments are valid and their positions were resolved
+   */
+  public boolean bindPositions(List<String> argumentNames) {
+    List<PositionalArgumentNode> positional =
+        this.positionalArgs == null ? Collections.emptyList() : this.positionalArgs;
+    Expression<?>[] result;
+
+    if (argumentNames == null) {
+      result = new Expression<?>[positional.size()];
+      for (int i = 0; i < result.length; i++) {
+        result[i] = positional.get(i).getValueExpression();
+      }
+    } else {
+      if (positional.size() > argumentNames.size()) {
+        return false;
+      }
+      result = new Expression<?>[argumentNames.size()];
+      for (int i = 0; i < positional.size(); i++) {
+        result[i] = positional.get(i).getValueExpression();
+      }
+      if (this.namedArgs != null) {
+        for (NamedArgumentNode arg : this.namedArgs) {
+          int index = argumentNames.indexOf(arg.getName());
+          if (index < 0) {
+            return false;
+          }
+          result[index] = arg.getValueExpression();
+        }
+      }
+    }
+    this.positions = result;
+    return true;
+  }
+
+  /**
+   * Evaluates the arguments into the positions resolved by {@link #bindPositions(List)}, arguments
+   * which were not given are null.
+   *
+   * @param self The template implementation
+   * @param context The evaluation context
+   * @return The argument values by position
+   */
+  public Object[] getArgumentArray(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    Expression<?>[] expressions = this.positions;
+    if (expressions.length == 0) {
+      return NO_ARGUMENTS;
+    }
+    Object[] result = new Object[expressions.length];
+    for (int i = 0; i < expressions.length; i++) {
+      if (expressions[i] != null) {
+        result[i] = expressions[i].evaluate(self, context);
+      }
+    }
+    return result;
+  }
+
   @Override
   public String toString() {
     return this.positionalArgs.toString();
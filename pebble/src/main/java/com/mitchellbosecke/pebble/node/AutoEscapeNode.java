@@ -16,6 +16,8 @@ import java.io.Writer;
 
 public class AutoEscapeNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -1638314220168761170L;
+
   private final BodyNode body;
 
   private final String strategy;
@@ -13,10 +13,13 @@ import com.mitchellbosecke.pebble.template.Block;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.Writer;
 
 public class BlockNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -7874958223803608425L;
+
   private final BodyNode body;
 
   private String name;
@@ -43,19 +46,7 @@ public class BlockNode extends AbstractRenderableNode {
   }
 
   public Block getBlock() {
-    return new Block() {
-
-      @Override
-      public String getName() {
-        return BlockNode.this.name;
-      }
-
-      @Override
-      public void evaluate(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
-          throws IOException {
-        BlockNode.this.body.render(self, writer, context);
-      }
-    };
+    return new NodeBlock();
   }
 
   public BodyNode getBody() {
@@ -66,4 +57,23 @@ public class BlockNode extends AbstractRenderableNode {
     return this.name;
   }
 
+  /**
+   * Serializable along with the node so that the blocks registered by a template can be kept in a
+   * snapshot of it.
+   */
+  private class NodeBlock implements Block, Serializable {
+
+    private static final long serialVersionUID = 2417147974142448305L;
+
+    @Override
+    public String getName() {
+      return BlockNode.this.name;
+    }
+
+    @Override
+    public void evaluate(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
+        throws IOException {
+      BlockNode.this.body.render(self, writer, context);
+    }
+  }
 }
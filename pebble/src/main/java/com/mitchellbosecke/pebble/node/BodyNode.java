@@ -8,6 +8,7 @@
  */
 package com.mitchellbosecke.pebble.node;
 
+import com.mitchellbosecke.pebble.compiler.CompiledBody;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
@@ -18,6 +19,8 @@ import java.util.List;
 
 public class BodyNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -4537862407187310218L;
+
   private final List<RenderableNode> children;
 
   /**
@@ -26,6 +29,11 @@ public class BodyNode extends AbstractRenderableNode {
    */
   private boolean onlyRenderInheritanceSafeNodes = false;
 
+  /**
+   * Generated replacement of this body, set when the engine compiles templates to bytecode.
+   */
+  private transient CompiledBody compiledBody;
+
   public BodyNode(int lineNumber, List<RenderableNode> children) {
     super(lineNumber);
     this.children = children;
@@ -34,9 +42,13 @@ public class BodyNode extends AbstractRenderableNode {
   @Override
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException {
+    if (this.compiledBody != null) {
+      this.compiledBody.render(self, writer, context);
+      return;
+    }
     for (RenderableNode child: this.children) {
       if (this.onlyRenderInheritanceSafeNodes && context.getHierarchy().getParent() != null) {
-        if (!nodesToRenderInChild.contains(child.getClass())) {
+        if (!isInheritanceSafe(child)) {
           continue;
         }
       }
@@ -61,6 +73,25 @@ public class BodyNode extends AbstractRenderableNode {
     this.onlyRenderInheritanceSafeNodes = onlyRenderInheritanceSafeNodes;
   }
 
+  public CompiledBody getCompiledBody() {
+    return this.compiledBody;
+  }
+
+  public void setCompiledBody(CompiledBody compiledBody) {
+    this.compiledBody = compiledBody;
+  }
+
+  /**
+   * Whether or not the node is still rendered by a child template, i.e. a template which extends
+   * another one.
+   *
+   * @param node The node
+   * @return true if the node is rendered by a child template
+   */
+  public static boolean isInheritanceSafe(RenderableNode node) {
+    return nodesToRenderInChild.contains(node.getClass());
+  }
+
   private static List<Class<? extends Node>> nodesToRenderInChild = new ArrayList<>();
 
   static {
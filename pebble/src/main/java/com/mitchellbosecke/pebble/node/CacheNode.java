@@ -10,15 +10,27 @@ package com.mitchellbosecke.pebble.node;
 
 import com.mitchellbosecke.pebble.cache.CacheKey;
 import com.mitchellbosecke.pebble.cache.PebbleCache;
+import com.mitchellbosecke.pebble.cache.tag.EncodedFragment;
+import com.mitchellbosecke.pebble.cache.tag.RefreshableFragment;
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import com.mitchellbosecke.pebble.extension.writer.EncodedWriter;
 import com.mitchellbosecke.pebble.node.expression.Expression;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Node for the cache tag
@@ -27,14 +39,45 @@ import java.util.concurrent.CompletionException;
  */
 public class CacheNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -3899911509580222732L;
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheNode.class);
+
   private final BodyNode body;
 
   private final Expression<?> name;
 
+  private final Expression<?> timeToLive;
+
+  private final Expression<?> groups;
+
+  private final Expression<?> refresh;
+
   public CacheNode(int lineNumber, Expression<?> name, BodyNode body) {
+    this(lineNumber, name, body, null, null, null);
+  }
+
+  public CacheNode(int lineNumber, Expression<?> name, BodyNode body, Expression<?> timeToLive,
+      Expression<?> groups) {
+    this(lineNumber, name, body, timeToLive, groups, null);
+  }
+
+  /**
+   * @param timeToLive The number of seconds a fragment is kept, or {@code null} to keep it until it
+   * is evicted
+   * @param groups A name or a collection of names of the groups the fragment belongs to, or
+   * {@code null}
+   * @param refresh The number of seconds after which a fragment is rendered again in the
+   * background while it keeps being served, or {@code null}
+   */
+  public CacheNode(int lineNumber, Expression<?> name, BodyNode body, Expression<?> timeToLive,
+      Expression<?> groups, Expression<?> refresh) {
     super(lineNumber);
     this.body = body;
     this.name = name;
+    this.timeToLive = timeToLive;
+    this.groups = groups;
+    this.refresh = refresh;
   }
 
   @Override
@@ -42,27 +85,149 @@ public class CacheNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  public Expression<?> getName() {
+    return this.name;
+  }
+
+  public BodyNode getBody() {
+    return this.body;
+  }
+
+  public Expression<?> getTimeToLive() {
+    return this.timeToLive;
+  }
+
+  public Expression<?> getGroups() {
+    return this.groups;
+  }
+
+  public Expression<?> getRefresh() {
+    return this.refresh;
+  }
+
   @Override
   public void render(PebbleTemplateImpl self, Writer writer,
       EvaluationContextImpl context) throws IOException {
     try {
-      final String body;
       PebbleCache<CacheKey, Object> tagCache = context.getTagCache();
       CacheKey key = new CacheKey(this, (String) this.name.evaluate(self, context),
-          context.getLocale());
-      body = (String) context.getTagCache().computeIfAbsent(key, k -> {
+          context.getLocale(), this.evaluateSeconds(this.timeToLive, "time to live", self, context),
+          this.evaluateGroups(self, context));
+      Duration refreshAfter = this.evaluateSeconds(this.refresh, "refresh", self, context);
+      Object cached = tagCache.computeIfAbsent(key, k -> {
         try {
-          return this.render(self, context);
+          return this.render(self, context, refreshAfter);
         } catch (IOException e) {
           throw new RuntimeException(e);
         }
       });
-      writer.write(body);
+
+      if (cached instanceof RefreshableFragment) {
+        RefreshableFragment fragment = (RefreshableFragment) cached;
+        if (fragment.claimRefresh()) {
+          fragment = this.refresh(self, context, tagCache, key, fragment, refreshAfter);
+        }
+        write(writer, fragment.getContent());
+      } else {
+        write(writer, cached);
+      }
     } catch (CompletionException e) {
       throw new PebbleException(e, "Could not render cache block [" + this.name + "]");
     }
   }
 
+  /**
+   * Renders a fragment which is due for a refresh again and replaces it in the cache. The stale
+   * fragment keeps being served meanwhile if there is an executor service to render it on, and is
+   * otherwise replaced right away.
+   *
+   * @return The fragment to serve
+   */
+  private RefreshableFragment refresh(PebbleTemplateImpl self, EvaluationContextImpl context,
+      PebbleCache<CacheKey, Object> tagCache, CacheKey key, RefreshableFragment fragment,
+      Duration refreshAfter) {
+    ExecutorService es = context.getExecutorService();
+    if (es == null) {
+      try {
+        RefreshableFragment refreshed = this.renderFragment(self, context, refreshAfter);
+        tagCache.put(key, refreshed);
+        return refreshed;
+      } catch (IOException | RuntimeException e) {
+        fragment.releaseRefresh();
+        throw new PebbleException(e, "Could not refresh cache block [" + this.name + "]");
+      }
+    }
+
+    EvaluationContextImpl contextCopy = context.threadSafeCopy(self);
+    try {
+      es.execute(() -> {
+        try {
+          tagCache.put(key, this.renderFragment(self, contextCopy, refreshAfter));
+        } catch (IOException | RuntimeException e) {
+          logger.warn("Could not refresh cache block [{}] of template {}, it is served stale",
+              key.getName(), self.getName(), e);
+          fragment.releaseRefresh();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      fragment.releaseRefresh();
+    }
+    return fragment;
+  }
+
+  private Object render(PebbleTemplateImpl self, EvaluationContextImpl context,
+      Duration refreshAfter) throws IOException {
+    return refreshAfter == null ? this.render(self, context)
+        : this.renderFragment(self, context, refreshAfter);
+  }
+
+  private RefreshableFragment renderFragment(PebbleTemplateImpl self,
+      EvaluationContextImpl context, Duration refreshAfter) throws IOException {
+    return new RefreshableFragment(this.render(self, context), refreshAfter.toNanos());
+  }
+
+  /**
+   * Writes a fragment, streaming the ones which are kept encoded straight to writers which take
+   * their encoding.
+   */
+  private static void write(Writer writer, Object content) throws IOException {
+    if (content instanceof EncodedFragment && writer instanceof EncodedWriter
+        && StandardCharsets.UTF_8.equals(((EncodedWriter) writer).getCharset())) {
+      ((EncodedWriter) writer).writeEncoded(((EncodedFragment) content).getBytes());
+    } else {
+      writer.write(content.toString());
+    }
+  }
+
+  private Duration evaluateSeconds(Expression<?> expression, String option,
+      PebbleTemplateImpl self, EvaluationContextImpl context) {
+    if (expression == null) {
+      return null;
+    }
+    Object seconds = expression.evaluate(self, context);
+    if (!(seconds instanceof Number)) {
+      throw new PebbleException(null,
+          "The " + option + " of cache block [" + this.name + "] must be a number of seconds",
+          this.getLineNumber(), self.getName());
+    }
+    return Duration.ofNanos((long) (((Number) seconds).doubleValue() * 1_000_000_000L));
+  }
+
+  private Set<String> evaluateGroups(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    Object groups = this.groups == null ? null : this.groups.evaluate(self, context);
+    if (groups == null) {
+      return Collections.emptySet();
+    }
+    if (!(groups instanceof Iterable)) {
+      return Collections.singleton(groups.toString());
+    }
+    Set<String> names = new HashSet<>();
+    for (Object group : (Iterable<?>) groups) {
+      names.add(String.valueOf(group));
+    }
+    return names;
+  }
+
   private String render(final PebbleTemplateImpl self, final EvaluationContextImpl context)
       throws IOException {
     StringWriter tempWriter = new StringWriter();
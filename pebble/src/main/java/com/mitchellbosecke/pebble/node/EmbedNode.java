@@ -23,6 +23,8 @@ import java.util.Map;
 
 public class EmbedNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = 1887064262683734640L;
+
   private final Expression<?> includeExpression;
 
   private final MapExpression mapExpression;
@@ -60,4 +62,16 @@ public class EmbedNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  public Expression<?> getIncludeExpression() {
+    return this.includeExpression;
+  }
+
+  public MapExpression getMapExpression() {
+    return this.mapExpression;
+  }
+
+  public List<BlockNode> getNodes() {
+    return this.nodes;
+  }
+
 }
@@ -16,6 +16,8 @@ import java.io.Writer;
 
 public class ExtendsNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -8728865113784727461L;
+
   Expression<?> parentExpression;
 
   public ExtendsNode(int lineNumber, Expression<?> parentExpression) {
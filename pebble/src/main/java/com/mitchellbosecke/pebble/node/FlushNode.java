@@ -16,6 +16,8 @@ import java.io.Writer;
 
 public class FlushNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = 5977055463641512573L;
+
   public FlushNode(int lineNumber) {
     super(lineNumber);
   }
@@ -11,16 +11,13 @@ package com.mitchellbosecke.pebble.node;
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
 import com.mitchellbosecke.pebble.node.expression.Expression;
-import com.mitchellbosecke.pebble.node.fornode.LazyLength;
-import com.mitchellbosecke.pebble.node.fornode.LazyRevIndex;
+import com.mitchellbosecke.pebble.node.fornode.ForLoop;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
-import com.mitchellbosecke.pebble.template.ScopeChain;
 import java.io.IOException;
 import java.io.Writer;
 import java.lang.reflect.Array;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -31,14 +28,22 @@ import java.util.Map;
  */
 public class ForNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -3194440320260818357L;
+
   private final String variableName;
 
-  private final Expression<?> iterableExpression;
+  private Expression<?> iterableExpression;
 
   private final BodyNode body;
 
   private final BodyNode elseBody;
 
+  /**
+   * The names of the variables held by the scope of the loop: the iteration variable, "loop" and
+   * the variables set in the body.
+   */
+  private String[] slotNames;
+
   public ForNode(int lineNumber, String variableName, Expression<?> iterableExpression,
       BodyNode body,
       BodyNode elseBody) {
@@ -47,19 +52,45 @@ public class ForNode extends AbstractRenderableNode {
     this.iterableExpression = iterableExpression;
     this.body = body;
     this.elseBody = elseBody;
+    this.slotNames = ForLoop.LOOP_VARIABLE.equals(variableName)
+        ? new String[]{variableName}
+        : new String[]{variableName, ForLoop.LOOP_VARIABLE};
   }
 
   @Override
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException {
-    final Object iterableEvaluation = this.iterableExpression.evaluate(self, context);
-    Iterable<?> iterable;
+    ForLoop loop = this.createLoop(this.iterableExpression.evaluate(self, context), self, context);
+    if (loop == null) {
+      return;
+    }
 
+    if (loop.hasNext()) {
+      loop.open();
+      while (loop.next()) {
+        this.body.render(self, writer, context);
+      }
+      loop.close();
+    } else if (this.elseBody != null) {
+      this.elseBody.render(self, writer, context);
+    }
+  }
+
+  /**
+   * Creates the iteration state for the given evaluation of the iterable expression.
+   *
+   * @param iterableEvaluation The result of the iterable expression
+   * @param self The template being rendered
+   * @param context The evaluation context
+   * @return The loop, or null if the iterable expression evaluated to null
+   */
+  public ForLoop createLoop(Object iterableEvaluation, PebbleTemplateImpl self,
+      EvaluationContextImpl context) {
     if (iterableEvaluation == null) {
-      return;
+      return null;
     }
 
-    iterable = this.toIterable(iterableEvaluation);
+    Iterable<?> iterable = this.toIterable(iterableEvaluation);
 
     if (iterable == null) {
       throw new PebbleException(null,
@@ -67,58 +98,8 @@ public class ForNode extends AbstractRenderableNode {
           this.getLineNumber(), self.getName());
     }
 
-    Iterator<?> iterator = iterable.iterator();
-
-    if (iterator.hasNext()) {
-
-      ScopeChain scopeChain = context.getScopeChain();
-      scopeChain.pushScope();
-
-      LazyLength length = new LazyLength(iterableEvaluation);
-
-      int index = 0;
-
-      Map<String, Object> loop = null;
-
-      boolean usingExecutorService = context.getExecutorService() != null;
-
-      while (iterator.hasNext()) {
-
-        /*
-         * If the user is using an executor service (i.e. parallel
-         * node), we must create a new map with every iteration instead
-         * of re-using the same one; it's imperative that each thread
-         * would get it's own distinct copy of the context.
-         */
-        if (index == 0 || usingExecutorService) {
-          loop = new HashMap<>();
-          loop.put("first", index == 0);
-          loop.put("last", !iterator.hasNext());
-          loop.put("length", length);
-        } else if (index == 1) {
-          // second iteration
-          loop.put("first", false);
-        }
-
-        loop.put("revindex", new LazyRevIndex(index, length));
-        loop.put("index", index++);
-        scopeChain.put("loop", loop);
-        scopeChain.put(this.variableName, iterator.next());
-
-        // last iteration
-        if (!iterator.hasNext()) {
-          loop.put("last", true);
-        }
-
-        this.body.render(self, writer, context);
-      }
-
-      scopeChain.popScope();
-
-    } else if (this.elseBody != null) {
-      this.elseBody.render(self, writer, context);
-    }
-
+    return new ForLoop(this.slotNames, iterableEvaluation, iterable.iterator(),
+        context.getScopeChain(), context.getExecutorService() != null);
   }
 
   @Override
@@ -134,6 +115,24 @@ public class ForNode extends AbstractRenderableNode {
     return this.iterableExpression;
   }
 
+  public void setIterable(Expression<?> iterableExpression) {
+    this.iterableExpression = iterableExpression;
+  }
+
+  /**
+   * The names of the variables held by the scope of the loop. The first slot is always the
+   * iteration variable, followed by "loop" unless the iteration variable has the same name.
+   *
+   * @return The slot names
+   */
+  public String[] getSlotNames() {
+    return this.slotNames;
+  }
+
+  public void setSlotNames(String[] slotNames) {
+    this.slotNames = slotNames;
+  }
+
   public BodyNode getBody() {
     return this.body;
   }
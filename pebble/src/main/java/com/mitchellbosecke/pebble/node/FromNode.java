@@ -17,6 +17,8 @@ import java.util.List;
  */
 public class FromNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -1971041375718153111L;
+
   private final Expression<?> fromExpression;
   private final List<Pair<String, String>> namedMacros;
 
@@ -38,4 +40,8 @@ public class FromNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  public Expression<?> getFromExpression() {
+    return this.fromExpression;
+  }
+
 }
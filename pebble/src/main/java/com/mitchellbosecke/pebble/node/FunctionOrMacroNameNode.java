@@ -15,6 +15,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class FunctionOrMacroNameNode implements Expression<String> {
 
+  private static final long serialVersionUID = -268242201495621131L;
+
   private final String name;
 
   private final int lineNumber;
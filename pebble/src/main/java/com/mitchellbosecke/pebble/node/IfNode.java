@@ -23,6 +23,8 @@ import static com.mitchellbosecke.pebble.utils.TypeUtils.compatibleCast;
 
 public class IfNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -6080193246210300992L;
+
   private final List<Pair<Expression<?>, BodyNode>> conditionsWithBodies;
 
   private final BodyNode elseBody;
@@ -48,33 +50,9 @@ public class IfNode extends AbstractRenderableNode {
       Expression<?> conditionalExpression = ifStatement.getLeft();
 
       try {
-
-        Object result = conditionalExpression.evaluate(self, context);
-
-        if (result != null) {
-          if (result instanceof Boolean
-                  || result instanceof Number
-                  || result instanceof String) {
-            satisfied = compatibleCast(result, Boolean.class);
-          } else {
-            throw new PebbleException(
-                      null,
-                      String.format(
-                              "Unsupported value type %s. Expected Boolean, String, Number in \"if\" statement",
-                              result.getClass().getSimpleName()),
-                      this.getLineNumber(),
-                      self.getName());
-          }
-
-        } else if (context.isStrictVariables()) {
-          throw new PebbleException(null,
-              "null value given to if statement and strict variables is set to true",
-              this.getLineNumber(), self.getName());
-        }
-
+        satisfied = this.isSatisfied(conditionalExpression.evaluate(self, context), self, context);
       } catch (RuntimeException ex) {
-        throw new PebbleException(ex, "Wrong operand(s) type in conditional expression",
-            this.getLineNumber(), self.getName());
+        throw this.conditionException(ex, self);
       }
 
       if (satisfied) {
@@ -88,6 +66,50 @@ public class IfNode extends AbstractRenderableNode {
     }
   }
 
+  /**
+   * Decides whether the result of a conditional expression satisfies the condition.
+   *
+   * @param result The result of the conditional expression
+   * @param self The template being rendered
+   * @param context The evaluation context
+   * @return Whether or not the condition is satisfied
+   */
+  public boolean isSatisfied(Object result, PebbleTemplateImpl self,
+      EvaluationContextImpl context) {
+    if (result != null) {
+      if (result instanceof Boolean
+              || result instanceof Number
+              || result instanceof String) {
+        return compatibleCast(result, Boolean.class);
+      } else {
+        throw new PebbleException(
+                  null,
+                  String.format(
+                          "Unsupported value type %s. Expected Boolean, String, Number in \"if\" statement",
+                          result.getClass().getSimpleName()),
+                  this.getLineNumber(),
+                  self.getName());
+      }
+    } else if (context.isStrictVariables()) {
+      throw new PebbleException(null,
+          "null value given to if statement and strict variables is set to true",
+          this.getLineNumber(), self.getName());
+    }
+    return false;
+  }
+
+  /**
+   * Wraps an exception thrown while evaluating or testing a conditional expression.
+   *
+   * @param ex The original exception
+   * @param self The template being rendered
+   * @return The exception to throw
+   */
+  public PebbleException conditionException(RuntimeException ex, PebbleTemplateImpl self) {
+    return new PebbleException(ex, "Wrong operand(s) type in conditional expression",
+        this.getLineNumber(), self.getName());
+  }
+
   @Override
   public void accept(NodeVisitor visitor) {
     visitor.visit(this);
@@ -17,6 +17,8 @@ import java.io.Writer;
 
 public class ImportNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = 5664004396002921162L;
+
   private final Expression<?> importExpression;
   private final String alias;
 
@@ -46,6 +48,10 @@ public class ImportNode extends AbstractRenderableNode {
     visitor.visit(this);
   }
 
+  public String getAlias() {
+    return this.alias;
+  }
+
   public Expression<?> getImportExpression() {
     return this.importExpression;
   }
@@ -21,9 +21,11 @@ import java.util.Map;
 
 public class IncludeNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -4654737855985080742L;
+
   private final Expression<?> includeExpression;
 
-  private final MapExpression mapExpression;
+  private Expression<? extends Map<?, ?>> mapExpression;
 
   public IncludeNode(int lineNumber, Expression<?> includeExpression, MapExpression mapExpression) {
     super(lineNumber);
@@ -59,4 +61,12 @@ public class IncludeNode extends AbstractRenderableNode {
     return this.includeExpression;
   }
 
+  public Expression<? extends Map<?, ?>> getMapExpression() {
+    return this.mapExpression;
+  }
+
+  public void setMapExpression(Expression<? extends Map<?, ?>> mapExpression) {
+    this.mapExpression = mapExpression;
+  }
+
 }
@@ -15,24 +15,51 @@ import com.mitchellbosecke.pebble.template.Macro;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.template.ScopeChain;
 import java.io.IOException;
+import java.io.Serializable;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class MacroNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -2597889281679159481L;
+
   private final String name;
 
   private final ArgumentsNode args;
 
   private final BodyNode body;
 
+  private final boolean cached;
+
+  /**
+   * The argument names never change, the same list is handed out for every invocation.
+   */
+  private final List<String> argumentNames;
+
+  private final Macro macro = new NodeMacro();
+
   public MacroNode(String name, ArgumentsNode args, BodyNode body) {
+    this(name, args, body, false);
+  }
+
+  /**
+   * @param cached Whether the output of the macro only depends on its arguments and is kept in the
+   * macro cache of the engine
+   */
+  public MacroNode(String name, ArgumentsNode args, BodyNode body, boolean cached) {
     this.name = name;
     this.args = args;
     this.body = body;
+    this.cached = cached;
+    List<String> names = new ArrayList<>();
+    for (NamedArgumentNode arg: args.getNamedArgs()) {
+      names.add(arg.getName());
+    }
+    this.argumentNames = Collections.unmodifiableList(names);
   }
 
   @Override
@@ -46,55 +73,7 @@ public class MacroNode extends AbstractRenderableNode {
   }
 
   public Macro getMacro() {
-    return new Macro() {
-
-      @Override
-      public List<String> getArgumentNames() {
-        List<String> names = new ArrayList<>();
-        for (NamedArgumentNode arg: MacroNode.this.getArgs().getNamedArgs()) {
-          names.add(arg.getName());
-        }
-        return names;
-      }
-
-      @Override
-      public String getName() {
-        return MacroNode.this.name;
-      }
-
-      @Override
-      public String call(PebbleTemplateImpl self, EvaluationContextImpl context,
-          Map<String, Object> macroArgs) {
-        Writer writer = new StringWriter();
-        ScopeChain scopeChain = context.getScopeChain();
-
-        // scope for default arguments
-        scopeChain.pushLocalScope();
-        for (NamedArgumentNode arg: MacroNode.this.getArgs().getNamedArgs()) {
-          Expression<?> valueExpression = arg.getValueExpression();
-          if (valueExpression == null) {
-            scopeChain.put(arg.getName(), null);
-          } else {
-            scopeChain.put(arg.getName(), arg.getValueExpression().evaluate(self, context));
-          }
-        }
-
-        // scope for user provided arguments
-        scopeChain.pushScope(macroArgs);
-
-        try {
-          MacroNode.this.getBody().render(self, writer, context);
-        } catch (IOException e) {
-          throw new RuntimeException("Could not evaluate macro [" + MacroNode.this.name + "]", e);
-        }
-
-        scopeChain.popScope(); // user arguments
-        scopeChain.popScope(); // default arguments
-
-        return writer.toString();
-      }
-
-    };
+    return this.macro;
   }
 
   public BodyNode getBody() {
@@ -109,4 +88,64 @@ public class MacroNode extends AbstractRenderableNode {
     return this.name;
   }
 
+  public boolean isCached() {
+    return this.cached;
+  }
+
+  private class NodeMacro implements Macro, Serializable {
+
+    private static final long serialVersionUID = -3068059895225237724L;
+
+    @Override
+    public List<String> getArgumentNames() {
+      return MacroNode.this.argumentNames;
+    }
+
+    @Override
+    public String getName() {
+      return MacroNode.this.name;
+    }
+
+    @Override
+    public boolean isCached() {
+      return MacroNode.this.cached;
+    }
+
+    @Override
+    public String call(PebbleTemplateImpl self, EvaluationContextImpl context,
+        Map<String, Object> macroArgs) {
+      Writer writer = new StringWriter();
+      try {
+        this.render(self, context, macroArgs, writer);
+      } catch (IOException e) {
+        throw new RuntimeException("Could not evaluate macro [" + MacroNode.this.name + "]", e);
+      }
+      return writer.toString();
+    }
+
+    @Override
+    public void render(PebbleTemplateImpl self, EvaluationContextImpl context,
+        Map<String, Object> macroArgs, Writer writer) throws IOException {
+      ScopeChain scopeChain = context.getScopeChain();
+
+      // scope for default arguments
+      scopeChain.pushLocalScope();
+      for (NamedArgumentNode arg: MacroNode.this.getArgs().getNamedArgs()) {
+        Expression<?> valueExpression = arg.getValueExpression();
+        if (valueExpression == null) {
+          scopeChain.put(arg.getName(), null);
+        } else {
+          scopeChain.put(arg.getName(), arg.getValueExpression().evaluate(self, context));
+        }
+      }
+
+      // scope for user provided arguments
+      scopeChain.pushScope(macroArgs);
+
+      MacroNode.this.getBody().render(self, writer, context);
+
+      scopeChain.popScope(); // user arguments
+      scopeChain.popScope(); // default arguments
+    }
+  }
 }
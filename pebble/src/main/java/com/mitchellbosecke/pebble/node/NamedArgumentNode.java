@@ -13,7 +13,9 @@ import com.mitchellbosecke.pebble.node.expression.Expression;
 
 public class NamedArgumentNode implements Node {
 
-  private final Expression<?> value;
+  private static final long serialVersionUID = 3767923828711646109L;
+
+  private Expression<?> value;
 
   private final String name;
 
@@ -31,6 +33,10 @@ public class NamedArgumentNode implements Node {
     return this.value;
   }
 
+  public void setValueExpression(Expression<?> value) {
+    this.value = value;
+  }
+
   public String getName() {
     return this.name;
   }
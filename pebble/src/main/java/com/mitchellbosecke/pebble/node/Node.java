@@ -9,8 +9,17 @@
 package com.mitchellbosecke.pebble.node;
 
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import java.io.Serializable;
 
-public interface Node {
+/**
+ * A node of the tree which a template is parsed into.
+ * <p>
+ * Nodes are serializable so that parsed templates can be kept in a
+ * {@link com.mitchellbosecke.pebble.cache.snapshot.TemplateSnapshotStore}. The tree is written
+ * before the filters, tests and functions are linked to it, state which is only bound or gathered
+ * afterwards is therefore transient.
+ */
+public interface Node extends Serializable {
 
   void accept(NodeVisitor visitor);
 
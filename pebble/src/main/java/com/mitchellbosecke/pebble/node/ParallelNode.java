@@ -22,7 +22,9 @@ import org.slf4j.LoggerFactory;
 
 public class ParallelNode extends AbstractRenderableNode {
 
-  private final Logger logger = LoggerFactory.getLogger(ParallelNode.class);
+  private static final long serialVersionUID = 7642115750273595654L;
+
+  private static final Logger logger = LoggerFactory.getLogger(ParallelNode.class);
 
   private final BodyNode body;
 
@@ -48,7 +50,7 @@ public class ParallelNode extends AbstractRenderableNode {
     if (es == null) {
 
       if (!this.hasWarnedAboutNonExistingExecutorService) {
-        this.logger.info(String.format(
+        logger.info(String.format(
             "The parallel tag was used [%s:%d] but no ExecutorService was provided. The parallel tag will be ignored "
                 + "and it's contents will be rendered in sequence with the rest of the template.",
             self.getName(), this.getLineNumber()));
@@ -13,7 +13,9 @@ import com.mitchellbosecke.pebble.node.expression.Expression;
 
 public class PositionalArgumentNode implements Node {
 
-  private final Expression<?> value;
+  private static final long serialVersionUID = -702560095528331797L;
+
+  private Expression<?> value;
 
   public PositionalArgumentNode(Expression<?> value) {
     this.value = value;
@@ -28,6 +30,10 @@ public class PositionalArgumentNode implements Node {
     return this.value;
   }
 
+  public void setValueExpression(Expression<?> value) {
+    this.value = value;
+  }
+
   @Override
   public String toString() {
     return this.value.toString();
@@ -9,10 +9,14 @@
 package com.mitchellbosecke.pebble.node;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.extension.Filter;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import com.mitchellbosecke.pebble.extension.escaper.EscapeFilter;
 import com.mitchellbosecke.pebble.extension.writer.SpecializedWriter;
 import com.mitchellbosecke.pebble.extension.writer.StringWriterSpecializedAdapter;
 import com.mitchellbosecke.pebble.node.expression.Expression;
+import com.mitchellbosecke.pebble.node.expression.FilterExpression;
+import com.mitchellbosecke.pebble.node.expression.FunctionOrMacroInvocationExpression;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.StringUtils;
@@ -22,6 +26,8 @@ import java.io.Writer;
 
 public class PrintNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -7695901867837811026L;
+
   private Expression<?> expression;
 
   public PrintNode(Expression<?> expression, int lineNumber) {
@@ -33,16 +39,55 @@ public class PrintNode extends AbstractRenderableNode {
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException,
       PebbleException {
+    FunctionOrMacroInvocationExpression invocation = this.getPrintedInvocation();
+    if (invocation != null && invocation.renderMacro(self, writer, context)) {
+      return;
+    }
     Object var = this.expression.evaluate(self, context);
     if (var != null) {
-      if (writer instanceof StringWriter) {
-        new StringWriterSpecializedAdapter((StringWriter) writer).write(var);
-      } else if (writer instanceof SpecializedWriter) {
-        ((SpecializedWriter) writer).write(var);
-      } else {
-        writer.write(StringUtils.toString(var));
+      write(writer, var);
+    }
+  }
+
+  /**
+   * Writes a non-null value to the writer, avoiding the conversion to a String whenever the writer
+   * supports it.
+   *
+   * @param writer The writer
+   * @param var The value to write
+   * @throws IOException Thrown from the writer object
+   */
+  public static void write(Writer writer, Object var) throws IOException {
+    if (writer instanceof SpecializedWriter) {
+      ((SpecializedWriter) writer).write(var);
+    } else if (writer instanceof StringWriter) {
+      StringWriterSpecializedAdapter.write((StringWriter) writer, var);
+    } else {
+      writer.write(StringUtils.toString(var));
+    }
+  }
+
+  /**
+   * Returns the function or macro invocation if nothing but its result is printed, so that a macro
+   * can be rendered straight into the writer. The escape filter which the escaper adds around it
+   * does not stand in the way because it leaves the output of a macro untouched.
+   *
+   * @return The invocation, or null if something else is printed
+   */
+  public FunctionOrMacroInvocationExpression getPrintedInvocation() {
+    Expression<?> expression = this.expression;
+    if (expression instanceof FilterExpression) {
+      FilterExpression filterExpression = (FilterExpression) expression;
+      Filter filter = filterExpression.getFilter();
+      if (filter == null || filter.getClass() != EscapeFilter.class) {
+        return null;
       }
+      expression = filterExpression.getLeftExpression();
+    }
+    if (expression instanceof FunctionOrMacroInvocationExpression) {
+      return (FunctionOrMacroInvocationExpression) expression;
     }
+    return null;
   }
 
   @Override
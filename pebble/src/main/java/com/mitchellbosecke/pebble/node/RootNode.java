@@ -16,6 +16,8 @@ import java.io.Writer;
 
 public class RootNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = 1248492181558434427L;
+
   private final BodyNode body;
 
   public RootNode(BodyNode body) {
@@ -11,14 +11,25 @@ package com.mitchellbosecke.pebble.node;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
 import com.mitchellbosecke.pebble.node.expression.Expression;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.FrameScope;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import com.mitchellbosecke.pebble.template.ScopeChain;
 import java.io.Writer;
 
 public class SetNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = -7146839295475753224L;
+
   private final String name;
 
-  private final Expression<?> value;
+  private Expression<?> value;
+
+  /**
+   * The layout of the frame of the enclosing loop, if the variable is one of its slots.
+   */
+  private String[] slotNames;
+
+  private int slot;
 
   public SetNode(int lineNumber, String name, Expression<?> value) {
     super(lineNumber);
@@ -28,7 +39,16 @@ public class SetNode extends AbstractRenderableNode {
 
   @Override
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context) {
-    context.getScopeChain().set(this.name, this.value.evaluate(self, context));
+    Object result = this.value.evaluate(self, context);
+    ScopeChain scopeChain = context.getScopeChain();
+    if (this.slotNames != null) {
+      FrameScope frame = scopeChain.getFrame(0, this.slotNames);
+      if (frame != null && frame.getSlot(this.slot) != FrameScope.UNDEFINED) {
+        frame.setSlot(this.slot, result);
+        return;
+      }
+    }
+    scopeChain.set(this.name, result);
   }
 
   @Override
@@ -40,6 +60,22 @@ public class SetNode extends AbstractRenderableNode {
     return this.value;
   }
 
+  public void setValue(Expression<?> value) {
+    this.value = value;
+  }
+
+  /**
+   * Binds this variable to a slot of the frame of the enclosing loop. An unassigned slot is still
+   * set by name since the variable might then belong to an enclosing scope.
+   *
+   * @param slotNames The layout of the frame
+   * @param slot The index of the variable in the frame
+   */
+  public void setSlot(String[] slotNames, int slot) {
+    this.slotNames = slotNames;
+    this.slot = slot;
+  }
+
   public String getName() {
     return this.name;
   }
@@ -20,6 +20,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
  */
 public class TestInvocationExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = -6080238987737668152L;
+
   private final String testName;
 
   private final ArgumentsNode args;
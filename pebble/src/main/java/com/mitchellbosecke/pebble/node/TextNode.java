@@ -9,10 +9,15 @@
 package com.mitchellbosecke.pebble.node;
 
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import com.mitchellbosecke.pebble.extension.writer.EncodedWriter;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
 
 /**
  * Represents static text in a template.
@@ -21,12 +26,20 @@ import java.io.Writer;
  */
 public class TextNode extends AbstractRenderableNode {
 
+  private static final long serialVersionUID = 6943326375368830797L;
+
   /**
    * Most Writers will convert strings to char[] so we might as well store it as a char[] to begin
    * with; small performance optimization.
    */
   private final char[] data;
 
+  /**
+   * The text encoded in the charsets of the {@link EncodedWriter}s it has been written to, which is
+   * usually only one. It is computed again after deserialization.
+   */
+  private transient volatile Encoding encodings;
+
   public TextNode(String text, int lineNumber) {
     super(lineNumber);
 
@@ -35,10 +48,56 @@ public class TextNode extends AbstractRenderableNode {
     text.getChars(0, length, this.data, 0);
   }
 
+  /**
+   * Constructor for a text node which takes over the given characters without copying them.
+   *
+   * @param data The characters of the text
+   * @param lineNumber The line number of the text
+   */
+  public TextNode(char[] data, int lineNumber) {
+    super(lineNumber);
+    this.data = data;
+  }
+
   @Override
   public void render(PebbleTemplateImpl self, Writer writer, EvaluationContextImpl context)
       throws IOException {
-    writer.write(this.data);
+    this.write(writer);
+  }
+
+  /**
+   * Writes the text, already encoded if the writer takes encoded content.
+   *
+   * @param writer The writer
+   * @throws IOException Thrown from the writer
+   */
+  public void write(Writer writer) throws IOException {
+    if (writer instanceof EncodedWriter) {
+      EncodedWriter encodedWriter = (EncodedWriter) writer;
+      encodedWriter.writeEncoded(this.getEncoded(encodedWriter.getCharset()));
+    } else {
+      writer.write(this.data);
+    }
+  }
+
+  /**
+   * @param charset The charset
+   * @return The text encoded in the charset, as a read-only buffer which is shared
+   */
+  public ByteBuffer getEncoded(Charset charset) {
+    for (Encoding encoding = this.encodings; encoding != null; encoding = encoding.next) {
+      if (encoding.charset.equals(charset)) {
+        return encoding.bytes;
+      }
+    }
+    ByteBuffer encoded = charset.encode(CharBuffer.wrap(this.data));
+    // direct, so that channels write it without copying it first
+    ByteBuffer bytes = ByteBuffer.allocateDirect(encoded.remaining()).put(encoded);
+    ((Buffer) bytes).flip();
+    // a race only encodes the text once more
+    Encoding encoding = new Encoding(charset, bytes.asReadOnlyBuffer(), this.encodings);
+    this.encodings = encoding;
+    return encoding.bytes;
   }
 
   @Override
@@ -50,4 +109,19 @@ public class TextNode extends AbstractRenderableNode {
     return this.data;
   }
 
+  private static final class Encoding {
+
+    private final Charset charset;
+
+    private final ByteBuffer bytes;
+
+    private final Encoding next;
+
+    private Encoding(Charset charset, ByteBuffer bytes, Encoding next) {
+      this.charset = charset;
+      this.bytes = bytes;
+      this.next = next;
+    }
+  }
+
 }
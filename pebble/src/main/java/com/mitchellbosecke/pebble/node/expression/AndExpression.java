@@ -16,6 +16,8 @@ import static com.mitchellbosecke.pebble.utils.TypeUtils.compatibleCast;
 
 public class AndExpression extends BinaryExpression<Boolean> {
 
+  private static final long serialVersionUID = 4451107818128251237L;
+
   @SuppressWarnings("unchecked")
   @Override
   public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
@@ -0,0 +1,189 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.expression;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+/**
+ * An arithmetic operation which specializes itself on the types of the operands it evaluates
+ * first. As long as the operands keep having these types (int, long or double) they are read and
+ * combined as primitives, and a nested arithmetic operand hands its result over as a primitive as
+ * well, so that for example {@code loop.index % 2 + 1} only boxes its final result. Any other
+ * operands make the expression fall back to {@link com.mitchellbosecke.pebble.utils.OperatorUtils}
+ * for good.
+ * <p>
+ * The results are the same as the ones of the generic operation: an operation on two ints is
+ * performed on ints but results in a long, an operation involving a long results in a long, and an
+ * operation involving a double results in a double.
+ */
+public abstract class ArithmeticExpression extends BinaryExpression<Object> {
+
+  private static final long serialVersionUID = -3004564289403050704L;
+
+  private transient volatile OperandSpecialization specialization =
+      OperandSpecialization.UNINITIALIZED;
+
+  @Override
+  public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    try {
+      OperandSpecialization specialization = this.specialization;
+      if (specialization.operation == OperandType.DOUBLE) {
+        return this.evaluateDouble(specialization, self, context);
+      } else if (specialization.isSpecialized()) {
+        return this.evaluateLong(specialization, self, context);
+      }
+      return this.evaluateGeneric(self, context);
+    } catch (UnexpectedResultException e) {
+      return e.getResult();
+    } catch (Exception ex) {
+      throw new PebbleException(ex, this.getErrorMessage(), this.getLineNumber(), self.getName());
+    }
+  }
+
+  /**
+   * Evaluates this expression for an operand of another arithmetic expression which expects a
+   * long.
+   *
+   * @throws UnexpectedResultException If the result is not a long
+   */
+  long evaluateLong(PebbleTemplateImpl self, EvaluationContextImpl context)
+      throws UnexpectedResultException {
+    OperandSpecialization specialization = this.specialization;
+    if (specialization.isSpecialized() && specialization.operation != OperandType.DOUBLE) {
+      try {
+        return this.evaluateLong(specialization, self, context);
+      } catch (RuntimeException ex) {
+        throw new PebbleException(ex, this.getErrorMessage(), this.getLineNumber(),
+            self.getName());
+      }
+    }
+    throw new UnexpectedResultException(this.evaluate(self, context));
+  }
+
+  /**
+   * Evaluates this expression for an operand of another arithmetic expression which expects a
+   * double.
+   *
+   * @throws UnexpectedResultException If the result is not a double
+   */
+  double evaluateDouble(PebbleTemplateImpl self, EvaluationContextImpl context)
+      throws UnexpectedResultException {
+    OperandSpecialization specialization = this.specialization;
+    if (specialization.operation == OperandType.DOUBLE) {
+      try {
+        return this.evaluateDouble(specialization, self, context);
+      } catch (RuntimeException ex) {
+        throw new PebbleException(ex, this.getErrorMessage(), this.getLineNumber(),
+            self.getName());
+      }
+    }
+    throw new UnexpectedResultException(this.evaluate(self, context));
+  }
+
+  private long evaluateLong(OperandSpecialization specialization, PebbleTemplateImpl self,
+      EvaluationContextImpl context) throws UnexpectedResultException {
+    long left;
+    try {
+      left = specialization.left.readLong(this.getLeftExpression(), self, context);
+    } catch (UnexpectedResultException e) {
+      throw this.generalize(e.getResult(), this.getRightExpression().evaluate(self, context));
+    }
+    long right;
+    try {
+      right = specialization.right.readLong(this.getRightExpression(), self, context);
+    } catch (UnexpectedResultException e) {
+      throw this.generalize(specialization.left.box(left), e.getResult());
+    }
+    if (specialization.operation == OperandType.INT) {
+      return this.applyInt((int) left, (int) right);
+    }
+    return this.applyLong(left, right);
+  }
+
+  /**
+   * Ints and longs are read as longs, and only converted afterwards, so that they can be boxed
+   * again without losing precision if the expression has to fall back.
+   */
+  private double evaluateDouble(OperandSpecialization specialization, PebbleTemplateImpl self,
+      EvaluationContextImpl context) throws UnexpectedResultException {
+    double left = 0;
+    long integralLeft = 0;
+    try {
+      if (specialization.left == OperandType.DOUBLE) {
+        left = OperandType.DOUBLE.readDouble(this.getLeftExpression(), self, context);
+      } else {
+        integralLeft = specialization.left.readLong(this.getLeftExpression(), self, context);
+        left = integralLeft;
+      }
+    } catch (UnexpectedResultException e) {
+      throw this.generalize(e.getResult(), this.getRightExpression().evaluate(self, context));
+    }
+    double right;
+    try {
+      if (specialization.right == OperandType.DOUBLE) {
+        right = OperandType.DOUBLE.readDouble(this.getRightExpression(), self, context);
+      } else {
+        right = specialization.right.readLong(this.getRightExpression(), self, context);
+      }
+    } catch (UnexpectedResultException e) {
+      Object boxedLeft = specialization.left == OperandType.DOUBLE ? (Object) left
+          : specialization.left.box(integralLeft);
+      throw this.generalize(boxedLeft, e.getResult());
+    }
+    return this.applyDouble(left, right);
+  }
+
+  private Object evaluateGeneric(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    Object left = this.getLeftExpression().evaluate(self, context);
+    Object right = this.getRightExpression().evaluate(self, context);
+    if (this.specialization == OperandSpecialization.UNINITIALIZED) {
+      this.specialization = OperandSpecialization.of(left, right);
+    }
+    return this.applyGeneric(left, right);
+  }
+
+  /**
+   * Finishes an evaluation generically after an operand turned out to have another type than the
+   * one this expression is specialized on.
+   *
+   * @return The exception carrying the result, to be thrown by the caller
+   */
+  private UnexpectedResultException generalize(Object left, Object right) {
+    this.specialization = OperandSpecialization.GENERIC;
+    return new UnexpectedResultException(this.applyGeneric(left, right));
+  }
+
+  /**
+   * Performs the operation on two ints. The result is widened to a long.
+   */
+  protected abstract int applyInt(int left, int right);
+
+  protected abstract long applyLong(long left, long right);
+
+  protected abstract double applyDouble(double left, double right);
+
+  /**
+   * Performs the operation on operands of any type.
+   */
+  protected abstract Object applyGeneric(Object left, Object right);
+
+  /**
+   * @return The message of the exception thrown if the operation fails
+   */
+  protected abstract String getErrorMessage();
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    this.specialization = OperandSpecialization.UNINITIALIZED;
+  }
+}
@@ -17,6 +17,8 @@ import java.util.List;
 
 public class ArrayExpression implements Expression<List<?>> {
 
+  private static final long serialVersionUID = 5420096283446648119L;
+
   private final List<Expression<?>> values;
   private final int lineNumber;
 
@@ -50,6 +52,10 @@ public class ArrayExpression implements Expression<List<?>> {
     return returnValues;
   }
 
+  public List<Expression<?>> getValues() {
+    return this.values;
+  }
+
   @Override
   public int getLineNumber() {
     return this.lineNumber;
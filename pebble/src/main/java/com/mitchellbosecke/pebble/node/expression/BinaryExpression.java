@@ -12,6 +12,8 @@ import com.mitchellbosecke.pebble.extension.NodeVisitor;
 
 public abstract class BinaryExpression<T> implements Expression<T> {
 
+  private static final long serialVersionUID = 7709984188390381061L;
+
   private int lineNumber;
 
   public BinaryExpression() {
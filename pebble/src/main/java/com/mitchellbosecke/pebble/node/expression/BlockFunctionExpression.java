@@ -19,6 +19,8 @@ import java.io.Writer;
 
 public class BlockFunctionExpression implements Expression<String> {
 
+  private static final long serialVersionUID = -5813841129497038332L;
+
   private final Expression<?> blockNameExpression;
 
   private final int lineNumber;
@@ -0,0 +1,89 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.expression;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+/**
+ * A comparison which specializes itself on the types of the operands it evaluates first, the same
+ * way as an {@link ArithmeticExpression} does. Numbers are compared as doubles, just like
+ * {@link com.mitchellbosecke.pebble.utils.OperatorUtils} does, but without boxing the result of a
+ * nested arithmetic operand.
+ */
+public abstract class ComparisonExpression extends BinaryExpression<Boolean> {
+
+  private static final long serialVersionUID = 3322322286920170932L;
+
+  private transient volatile OperandSpecialization specialization =
+      OperandSpecialization.UNINITIALIZED;
+
+  @Override
+  public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    try {
+      OperandSpecialization specialization = this.specialization;
+      if (specialization.isSpecialized()) {
+        return this.evaluateSpecialized(specialization, self, context);
+      }
+      Object left = this.getLeftExpression().evaluate(self, context);
+      Object right = this.getRightExpression().evaluate(self, context);
+      if (specialization == OperandSpecialization.UNINITIALIZED) {
+        this.specialization = OperandSpecialization.of(left, right);
+      }
+      return this.compareGeneric(left, right);
+    } catch (Exception ex) {
+      throw new PebbleException(ex, this.getErrorMessage(), this.getLineNumber(), self.getName());
+    }
+  }
+
+  private boolean evaluateSpecialized(OperandSpecialization specialization,
+      PebbleTemplateImpl self, EvaluationContextImpl context) {
+    double left;
+    try {
+      left = specialization.left.readDouble(this.getLeftExpression(), self, context);
+    } catch (UnexpectedResultException e) {
+      return this.generalize(e.getResult(), this.getRightExpression().evaluate(self, context));
+    }
+    double right;
+    try {
+      right = specialization.right.readDouble(this.getRightExpression(), self, context);
+    } catch (UnexpectedResultException e) {
+      // a long that lost precision as a double still compares the same way
+      Object boxedLeft = specialization.left == OperandType.DOUBLE ? (Object) left
+          : specialization.left.box((long) left);
+      return this.generalize(boxedLeft, e.getResult());
+    }
+    return this.compare(left, right);
+  }
+
+  private boolean generalize(Object left, Object right) {
+    this.specialization = OperandSpecialization.GENERIC;
+    return this.compareGeneric(left, right);
+  }
+
+  protected abstract boolean compare(double left, double right);
+
+  /**
+   * Compares operands of any type.
+   */
+  protected abstract boolean compareGeneric(Object left, Object right);
+
+  /**
+   * @return The message of the exception thrown if the comparison fails
+   */
+  protected abstract String getErrorMessage();
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    this.specialization = OperandSpecialization.UNINITIALIZED;
+  }
+}
@@ -10,6 +10,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
  */
 public class ConcatenateExpression extends BinaryExpression<Object> {
 
+  private static final long serialVersionUID = -5503076965851802811L;
+
   public ConcatenateExpression() {
   }
 
@@ -0,0 +1,56 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.expression;
+
+import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+
+/**
+ * The value of an expression which has been evaluated when the template was compiled. Unlike a
+ * {@link LiteralStringExpression}, it is not considered safe by the autoescaper.
+ */
+public class ConstantExpression implements Expression<Object> {
+
+  private static final long serialVersionUID = -3006412011735835875L;
+
+  private final Object value;
+
+  private final int lineNumber;
+
+  public ConstantExpression(Object value, int lineNumber) {
+    this.value = value;
+    this.lineNumber = lineNumber;
+  }
+
+  @Override
+  public void accept(NodeVisitor visitor) {
+    visitor.visit(this);
+  }
+
+  @Override
+  public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    return this.value;
+  }
+
+  @Override
+  public int getLineNumber() {
+    return this.lineNumber;
+  }
+
+  public Object getValue() {
+    return this.value;
+  }
+
+  @Override
+  public String toString() {
+    return String.valueOf(this.value);
+  }
+
+}
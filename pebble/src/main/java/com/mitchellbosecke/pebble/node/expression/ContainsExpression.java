@@ -16,6 +16,8 @@ import java.util.Map;
 
 public class ContainsExpression extends BinaryExpression<Boolean> {
 
+  private static final long serialVersionUID = 1387046905632979485L;
+
   @SuppressWarnings({"rawtypes", "unchecked"})
   @Override
   public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
@@ -11,15 +11,27 @@ package com.mitchellbosecke.pebble.node.expression;
 import com.mitchellbosecke.pebble.error.RootAttributeNotFoundException;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.FrameScope;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.template.ScopeChain;
 
 public class ContextVariableExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = -338212859050136546L;
+
   protected final String name;
 
   private final int lineNumber;
 
+  /**
+   * The layout of the frame holding the variable, if it is known when compiling the template.
+   */
+  private String[] slotNames;
+
+  private int depth;
+
+  private int slot;
+
   public ContextVariableExpression(String name, int lineNumber) {
     this.name = name;
     this.lineNumber = lineNumber;
@@ -34,9 +46,32 @@ public class ContextVariableExpression implements Expression<Object> {
     return this.name;
   }
 
+  /**
+   * Binds this variable to a slot of the frame of an enclosing loop. The variable is still looked
+   * up by name whenever the frame is not found or the slot is not assigned.
+   *
+   * @param slotNames The layout of the frame
+   * @param depth The number of frames between this expression and the frame
+   * @param slot The index of the variable in the frame
+   */
+  public void setSlot(String[] slotNames, int depth, int slot) {
+    this.slotNames = slotNames;
+    this.depth = depth;
+    this.slot = slot;
+  }
+
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     ScopeChain scopeChain = context.getScopeChain();
+    if (this.slotNames != null) {
+      FrameScope frame = scopeChain.getFrame(this.depth, this.slotNames);
+      if (frame != null) {
+        Object value = frame.getSlot(this.slot);
+        if (value != FrameScope.UNDEFINED) {
+          return value;
+        }
+      }
+    }
     Object result = scopeChain.get(this.name);
     if (result == null && context.isStrictVariables() && !scopeChain.containsKey(this.name)) {
       throw new RootAttributeNotFoundException(null, String.format(
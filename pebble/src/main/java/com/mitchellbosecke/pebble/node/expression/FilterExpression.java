@@ -11,6 +11,8 @@ package com.mitchellbosecke.pebble.node.expression;
 import com.mitchellbosecke.pebble.error.AttributeNotFoundException;
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalArguments;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.extension.core.DefaultFilter;
 import com.mitchellbosecke.pebble.extension.escaper.EscapeFilter;
 import com.mitchellbosecke.pebble.extension.escaper.SafeString;
@@ -21,10 +23,18 @@ import java.util.Map;
 
 public class FilterExpression extends BinaryExpression<Object> {
 
+  private static final long serialVersionUID = -8689004495796121080L;
+
+  /**
+   * The filter is bound when the template is linked, or looked up on the first evaluation if the
+   * expression was not reached by the linker.
+   */
+  private transient Filter filter = null;
+
   /**
-   * Save the filter instance on the first evaluation.
+   * Whether the filter is invoked with the argument positions resolved by the linker.
    */
-  private Filter filter = null;
+  private transient boolean positional;
 
   public FilterExpression() {
     super();
@@ -48,7 +58,13 @@ public class FilterExpression extends BinaryExpression<Object> {
           this.getLineNumber(), self.getName());
     }
 
-    Map<String, Object> namedArguments = args.getArgumentMap(self, context, this.filter);
+    Object[] positionalArguments = null;
+    Map<String, Object> namedArguments = null;
+    if (this.positional) {
+      positionalArguments = args.getArgumentArray(self, context);
+    } else {
+      namedArguments = args.getArgumentMap(self, context, this.filter);
+    }
 
     // This check is not nice, because we use instanceof. However this is
     // the only filter which should not fail in strict mode, when the variable
@@ -69,6 +85,22 @@ public class FilterExpression extends BinaryExpression<Object> {
       input = input.toString();
     }
 
+    if (this.positional) {
+      return ((PositionalFilter) this.filter)
+          .invoke(input, positionalArguments, self, context, this.getLineNumber());
+    }
     return this.filter.apply(input, namedArguments, self, context, this.getLineNumber());
   }
+
+  public Filter getFilter() {
+    return this.filter;
+  }
+
+  public void setFilter(Filter filter) {
+    this.filter = filter;
+    FilterInvocationExpression filterInvocation = (FilterInvocationExpression) this
+        .getRightExpression();
+    this.positional = PositionalArguments.isPositional(filter)
+        && filterInvocation.getArgs().bindPositions(filter.getArgumentNames());
+  }
 }
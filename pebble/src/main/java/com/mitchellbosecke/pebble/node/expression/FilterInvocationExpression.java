@@ -20,6 +20,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
  */
 public class FilterInvocationExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = -5421225579117720561L;
+
   private final String filterName;
 
   private final ArgumentsNode args;
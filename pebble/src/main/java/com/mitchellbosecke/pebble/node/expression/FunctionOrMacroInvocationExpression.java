@@ -10,19 +10,38 @@ package com.mitchellbosecke.pebble.node.expression;
 
 import com.mitchellbosecke.pebble.extension.Function;
 import com.mitchellbosecke.pebble.extension.NodeVisitor;
+import com.mitchellbosecke.pebble.extension.PositionalArguments;
+import com.mitchellbosecke.pebble.extension.PositionalFunction;
 import com.mitchellbosecke.pebble.node.ArgumentsNode;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 public class FunctionOrMacroInvocationExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = 1120127342652396625L;
+
   private final String functionName;
 
   private final ArgumentsNode args;
 
   private final int lineNumber;
 
+  /**
+   * Whether {@link #function} has been bound when the template was linked. If it is still null
+   * afterwards, the name refers to a macro.
+   */
+  private transient boolean linked;
+
+  private transient Function function;
+
+  /**
+   * Whether the bound function is invoked with the argument positions resolved by the linker.
+   */
+  private transient boolean positional;
+
   public FunctionOrMacroInvocationExpression(String functionName, ArgumentsNode arguments,
       int lineNumber) {
     this.functionName = functionName;
@@ -32,13 +51,39 @@ public class FunctionOrMacroInvocationExpression implements Expression<Object> {
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    Function function = context.getExtensionRegistry().getFunction(this.functionName);
+    Function function = this.linked ? this.function
+        : context.getExtensionRegistry().getFunction(this.functionName);
+    if (this.positional) {
+      return ((PositionalFunction) function)
+          .invoke(this.args.getArgumentArray(self, context), self, context, this.lineNumber);
+    }
     if (function != null) {
       return this.applyFunction(self, context, function, this.args);
     }
     return self.macro(context, this.functionName, this.args, false, this.lineNumber);
   }
 
+  /**
+   * Renders the invocation straight into the writer if it refers to a macro, instead of rendering
+   * the macro into a String first.
+   *
+   * @param self The template
+   * @param writer The writer to render the macro into
+   * @param context The evaluation context
+   * @return false if the invocation refers to a function, which has not been invoked
+   * @throws IOException Thrown from the writer object
+   */
+  public boolean renderMacro(PebbleTemplateImpl self, Writer writer,
+      EvaluationContextImpl context) throws IOException {
+    Function function = this.linked ? this.function
+        : context.getExtensionRegistry().getFunction(this.functionName);
+    if (function != null) {
+      return false;
+    }
+    self.macro(writer, context, this.functionName, this.args, false, this.lineNumber);
+    return true;
+  }
+
   private Object applyFunction(PebbleTemplateImpl self, EvaluationContextImpl context,
       Function function, ArgumentsNode args) {
     Map<String, Object> namedArguments = args.getArgumentMap(self, context, function);
@@ -58,6 +103,16 @@ public class FunctionOrMacroInvocationExpression implements Expression<Object> {
     return this.args;
   }
 
+  /**
+   * Binds the function, or null if the name refers to a macro, when the template is linked.
+   */
+  public void setFunction(Function function) {
+    this.function = function;
+    this.linked = true;
+    this.positional = function != null && PositionalArguments.isPositional(function)
+        && this.args.bindPositions(function.getArgumentNames());
+  }
+
   @Override
   public int getLineNumber() {
     return this.lineNumber;
@@ -9,6 +9,8 @@
 package com.mitchellbosecke.pebble.node.expression;
 
 import com.mitchellbosecke.pebble.attributes.AttributeResolver;
+import com.mitchellbosecke.pebble.attributes.DefaultAttributeResolver;
+import com.mitchellbosecke.pebble.attributes.MemberInlineCache;
 import com.mitchellbosecke.pebble.attributes.ResolvedAttribute;
 import com.mitchellbosecke.pebble.error.AttributeNotFoundException;
 import com.mitchellbosecke.pebble.error.PebbleException;
@@ -18,6 +20,8 @@ import com.mitchellbosecke.pebble.node.ArgumentsNode;
 import com.mitchellbosecke.pebble.node.PositionalArgumentNode;
 import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
 import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.List;
 
 /**
@@ -28,6 +32,8 @@ import java.util.List;
  */
 public class GetAttributeExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = -3670777413024169281L;
+
   private final Expression<?> node;
 
   private final Expression<?> attributeNameExpression;
@@ -38,6 +44,8 @@ public class GetAttributeExpression implements Expression<Object> {
 
   private final int lineNumber;
 
+  private transient MemberInlineCache inlineCache = new MemberInlineCache();
+
   public GetAttributeExpression(Expression<?> node, Expression<?> attributeNameExpression,
       String filename,
       int lineNumber) {
@@ -76,11 +84,30 @@ public class GetAttributeExpression implements Expression<Object> {
       }
     }
 
-    for (AttributeResolver attributeResolver : context.getExtensionRegistry()
-        .getAttributeResolver()) {
-      ResolvedAttribute resolvedAttribute = attributeResolver
-          .resolve(object, attributeNameValue, argumentValues, this.args, context, this.filename,
-              this.lineNumber);
+    List<AttributeResolver> attributeResolvers = context.getExtensionRegistry()
+        .getAttributeResolver();
+
+    // the inline cache may only bypass the resolvers if no other resolver comes first
+    boolean cacheable = attributeResolvers.get(0).getClass() == DefaultAttributeResolver.class;
+    if (cacheable && object != null) {
+      Object value = this.inlineCache.invoke(object, attributeNameValue, argumentValues);
+      if (value != MemberInlineCache.MISS) {
+        return value;
+      }
+    }
+
+    for (int i = 0; i < attributeResolvers.size(); i++) {
+      AttributeResolver attributeResolver = attributeResolvers.get(i);
+      ResolvedAttribute resolvedAttribute;
+      if (i == 0 && cacheable) {
+        resolvedAttribute = ((DefaultAttributeResolver) attributeResolver)
+            .resolve(object, attributeNameValue, argumentValues, this.args, context,
+                this.filename, this.lineNumber, this.inlineCache);
+      } else {
+        resolvedAttribute = attributeResolver
+            .resolve(object, attributeNameValue, argumentValues, this.args, context,
+                this.filename, this.lineNumber);
+      }
       if (resolvedAttribute != null) {
         return resolvedAttribute.evaluatedValue;
       }
@@ -144,4 +171,8 @@ public class GetAttributeExpression implements Expression<Object> {
     return this.lineNumber;
   }
 
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    this.inlineCache = new MemberInlineCache();
+  }
 }
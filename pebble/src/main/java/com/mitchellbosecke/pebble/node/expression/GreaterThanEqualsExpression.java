@@ -8,23 +8,24 @@
  */
 package com.mitchellbosecke.pebble.node.expression;
 
-import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
-import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
-public class GreaterThanEqualsExpression extends BinaryExpression<Boolean> {
+public class GreaterThanEqualsExpression extends ComparisonExpression {
+
+  private static final long serialVersionUID = 9021707505523387367L;
+
+  @Override
+  protected boolean compare(double left, double right) {
+    return left >= right;
+  }
 
   @Override
-  public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
+  protected boolean compareGeneric(Object left, Object right) {
+    return OperatorUtils.gte(left, right);
+  }
 
-    try {
-      return OperatorUtils.gte(this.getLeftExpression().evaluate(self, context),
-          this.getRightExpression().evaluate(self, context));
-    } catch (Exception ex) {
-      throw new PebbleException(ex, "Could not perform greater than or equals comparison",
-          this.getLineNumber(), self
-          .getName());
-    }
+  @Override
+  protected String getErrorMessage() {
+    return "Could not perform greater than or equals comparison";
   }
 }
@@ -8,22 +8,24 @@
  */
 package com.mitchellbosecke.pebble.node.expression;
 
-import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
-import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
-public class LessThanEqualsExpression extends BinaryExpression<Boolean> {
+public class LessThanEqualsExpression extends ComparisonExpression {
+
+  private static final long serialVersionUID = -8000759992662465697L;
+
+  @Override
+  protected boolean compare(double left, double right) {
+    return left <= right;
+  }
+
+  @Override
+  protected boolean compareGeneric(Object left, Object right) {
+    return OperatorUtils.lte(left, right);
+  }
 
   @Override
-  public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    try {
-      return OperatorUtils.lte(this.getLeftExpression().evaluate(self, context),
-          this.getRightExpression().evaluate(self, context));
-    } catch (Exception ex) {
-      throw new PebbleException(ex, "Could not perform less than or equals comparison",
-          this.getLineNumber(), self
-          .getName());
-    }
+  protected String getErrorMessage() {
+    return "Could not perform less than or equals comparison";
   }
 }
@@ -8,21 +8,24 @@
  */
 package com.mitchellbosecke.pebble.node.expression;
 
-import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
-import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
-public class LessThanExpression extends BinaryExpression<Boolean> {
+public class LessThanExpression extends ComparisonExpression {
+
+  private static final long serialVersionUID = -3615123728490421822L;
+
+  @Override
+  protected boolean compare(double left, double right) {
+    return left < right;
+  }
+
+  @Override
+  protected boolean compareGeneric(Object left, Object right) {
+    return OperatorUtils.lt(left, right);
+  }
 
   @Override
-  public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    try {
-      return OperatorUtils.lt(this.getLeftExpression().evaluate(self, context),
-          this.getRightExpression().evaluate(self, context));
-    } catch (Exception ex) {
-      throw new PebbleException(ex, "Could not perform greater modulus", this.getLineNumber(), self
-          .getName());
-    }
+  protected String getErrorMessage() {
+    return "Could not perform greater modulus";
   }
 }
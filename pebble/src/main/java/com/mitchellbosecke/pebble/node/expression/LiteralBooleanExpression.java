@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class LiteralBooleanExpression implements Expression<Boolean> {
 
+  private static final long serialVersionUID = -7743353555520907207L;
+
   private final Boolean value;
 
   private final int lineNumber;
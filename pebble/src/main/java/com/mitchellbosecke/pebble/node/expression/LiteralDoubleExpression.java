@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class LiteralDoubleExpression implements Expression<Double> {
 
+  private static final long serialVersionUID = 4262212340007957231L;
+
   private final Double value;
 
   private final int lineNumber;
@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class LiteralIntegerExpression implements Expression<Integer> {
 
+  private static final long serialVersionUID = -5528191638728884330L;
+
   private final Integer value;
   private final int lineNumber;
 
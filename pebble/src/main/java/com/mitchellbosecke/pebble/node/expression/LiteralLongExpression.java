@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class LiteralLongExpression implements Expression<Long> {
 
+  private static final long serialVersionUID = 8507907293863774711L;
+
   private final Long value;
   private final int lineNumber;
 
@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class LiteralNullExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = -4224183667021031781L;
+
   private final int lineNumber;
 
   public LiteralNullExpression(int lineNumber) {
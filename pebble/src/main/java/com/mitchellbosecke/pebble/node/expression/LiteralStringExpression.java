@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class LiteralStringExpression implements Expression<String> {
 
+  private static final long serialVersionUID = -6686697916630628297L;
+
   private final String value;
 
   private final int lineNumber;
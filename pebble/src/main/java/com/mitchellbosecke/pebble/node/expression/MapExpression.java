@@ -18,6 +18,8 @@ import java.util.Map.Entry;
 
 public class MapExpression implements Expression<Map<?, ?>> {
 
+  private static final long serialVersionUID = -2775899451851681147L;
+
   // FIXME should keys be of any type?
   private final Map<Expression<?>, Expression<?>> entries;
   private final int lineNumber;
@@ -56,6 +58,10 @@ public class MapExpression implements Expression<Map<?, ?>> {
     return returnEntries;
   }
 
+  public Map<Expression<?>, Expression<?>> getEntries() {
+    return this.entries;
+  }
+
   @Override
   public int getLineNumber() {
     return this.lineNumber;
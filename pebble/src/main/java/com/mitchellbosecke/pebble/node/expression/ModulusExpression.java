@@ -8,21 +8,34 @@
  */
 package com.mitchellbosecke.pebble.node.expression;
 
-import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
-import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
-public class ModulusExpression extends BinaryExpression<Object> {
+public class ModulusExpression extends ArithmeticExpression {
+
+  private static final long serialVersionUID = -7769818981551330955L;
+
+  @Override
+  protected int applyInt(int left, int right) {
+    return left % right;
+  }
+
+  @Override
+  protected long applyLong(long left, long right) {
+    return left % right;
+  }
+
+  @Override
+  protected double applyDouble(double left, double right) {
+    return left % right;
+  }
+
+  @Override
+  protected Object applyGeneric(Object left, Object right) {
+    return OperatorUtils.mod(left, right);
+  }
 
   @Override
-  public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    try {
-      return OperatorUtils.mod(this.getLeftExpression().evaluate(self, context),
-          this.getRightExpression().evaluate(self, context));
-    } catch (Exception ex) {
-      throw new PebbleException(ex, "Could not perform greater modulus", this.getLineNumber(), self
-          .getName());
-    }
+  protected String getErrorMessage() {
+    return "Could not perform greater modulus";
   }
 }
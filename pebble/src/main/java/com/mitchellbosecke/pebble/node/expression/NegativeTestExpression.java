@@ -13,6 +13,8 @@ import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 
 public class NegativeTestExpression extends PositiveTestExpression {
 
+  private static final long serialVersionUID = 1288926693534688270L;
+
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     return !((Boolean) super.evaluate(self, context));
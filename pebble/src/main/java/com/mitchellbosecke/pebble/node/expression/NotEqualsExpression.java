@@ -8,23 +8,24 @@
  */
 package com.mitchellbosecke.pebble.node.expression;
 
-import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
-import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
-public class NotEqualsExpression extends BinaryExpression<Boolean> {
+public class NotEqualsExpression extends ComparisonExpression {
+
+  private static final long serialVersionUID = 706077939510972018L;
+
+  @Override
+  protected boolean compare(double left, double right) {
+    return left != right;
+  }
 
   @Override
-  public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    try {
-      return !OperatorUtils
-          .equals(this.getLeftExpression().evaluate(self, context),
-              this.getRightExpression().evaluate(self, context));
-    } catch (Exception ex) {
-      throw new PebbleException(ex, "Could not perform not equals comparison", this.getLineNumber(),
-          self.getName());
-    }
+  protected boolean compareGeneric(Object left, Object right) {
+    return !OperatorUtils.equals(left, right);
+  }
 
+  @Override
+  protected String getErrorMessage() {
+    return "Could not perform not equals comparison";
   }
 }
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.expression;
+
+/**
+ * The operand types which a binary expression has specialized itself on. An expression starts
+ * {@link #UNINITIALIZED}, specializes on the types of the operands it sees first and becomes
+ * {@link #GENERIC} for good as soon as it sees any other types, so that an expression with
+ * changing operand types does not keep switching back and forth.
+ */
+final class OperandSpecialization {
+
+  static final OperandSpecialization UNINITIALIZED = new OperandSpecialization(null, null);
+
+  static final OperandSpecialization GENERIC = new OperandSpecialization(null, null);
+
+  final OperandType left;
+
+  final OperandType right;
+
+  /**
+   * The type which the operation is performed in.
+   */
+  final OperandType operation;
+
+  private OperandSpecialization(OperandType left, OperandType right) {
+    this.left = left;
+    this.right = right;
+    this.operation = left == null ? null : OperandType.widest(left, right);
+  }
+
+  boolean isSpecialized() {
+    return this.operation != null;
+  }
+
+  /**
+   * @return The specialization for the given operands, or {@link #GENERIC} if one of them is not a
+   * specialized type
+   */
+  static OperandSpecialization of(Object left, Object right) {
+    OperandType leftType = OperandType.of(left);
+    OperandType rightType = OperandType.of(right);
+    if (leftType == null || rightType == null) {
+      return GENERIC;
+    }
+    return new OperandSpecialization(leftType, rightType);
+  }
+}
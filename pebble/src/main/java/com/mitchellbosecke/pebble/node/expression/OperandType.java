@@ -0,0 +1,96 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.expression;
+
+import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+
+/**
+ * The numeric type which an operand of an {@link ArithmeticExpression} or a
+ * {@link ComparisonExpression} has been observed with. Operands of these types are read as
+ * primitives; any other value (including a BigDecimal or a Float) is handled by the generic
+ * {@link com.mitchellbosecke.pebble.utils.OperatorUtils}.
+ */
+enum OperandType {
+
+  /**
+   * An Integer, Short or Byte, which are all widened to an int.
+   */
+  INT,
+
+  LONG,
+
+  DOUBLE;
+
+  /**
+   * @return The type of the given value, or null if it is not one of the specialized types
+   */
+  static OperandType of(Object value) {
+    if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return INT;
+    } else if (value instanceof Long) {
+      return LONG;
+    } else if (value instanceof Double) {
+      return DOUBLE;
+    }
+    return null;
+  }
+
+  /**
+   * The widest of two types, which is the type that the operation is performed in.
+   */
+  static OperandType widest(OperandType left, OperandType right) {
+    return left.compareTo(right) >= 0 ? left : right;
+  }
+
+  /**
+   * Evaluates an operand of this type as a long.
+   *
+   * @throws UnexpectedResultException If the operand evaluated to a value of another type
+   */
+  long readLong(Expression<?> expression, PebbleTemplateImpl self,
+      EvaluationContextImpl context) throws UnexpectedResultException {
+    if (this == LONG && expression instanceof ArithmeticExpression) {
+      return ((ArithmeticExpression) expression).evaluateLong(self, context);
+    }
+    Object value = expression.evaluate(self, context);
+    if (this != DOUBLE && of(value) == this) {
+      return ((Number) value).longValue();
+    }
+    throw new UnexpectedResultException(value);
+  }
+
+  /**
+   * Evaluates an operand of this type as a double.
+   *
+   * @throws UnexpectedResultException If the operand evaluated to a value of another type
+   */
+  double readDouble(Expression<?> expression, PebbleTemplateImpl self,
+      EvaluationContextImpl context) throws UnexpectedResultException {
+    if (expression instanceof ArithmeticExpression) {
+      if (this == DOUBLE) {
+        return ((ArithmeticExpression) expression).evaluateDouble(self, context);
+      } else if (this == LONG) {
+        return ((ArithmeticExpression) expression).evaluateLong(self, context);
+      }
+    }
+    Object value = expression.evaluate(self, context);
+    if (of(value) == this) {
+      return ((Number) value).doubleValue();
+    }
+    throw new UnexpectedResultException(value);
+  }
+
+  /**
+   * Boxes an int or a long which has been read as a long.
+   */
+  Object box(long value) {
+    return this == INT ? Integer.valueOf((int) value) : Long.valueOf(value);
+  }
+}
@@ -16,6 +16,8 @@ import static com.mitchellbosecke.pebble.utils.TypeUtils.compatibleCast;
 
 public class OrExpression extends BinaryExpression<Boolean> {
 
+  private static final long serialVersionUID = 6983714554726936656L;
+
   @SuppressWarnings("unchecked")
   @Override
   public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
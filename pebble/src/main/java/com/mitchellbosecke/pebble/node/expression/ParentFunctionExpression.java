@@ -19,6 +19,8 @@ import java.io.Writer;
 
 public class ParentFunctionExpression implements Expression<String> {
 
+  private static final long serialVersionUID = 603483016789597616L;
+
   private final String blockName;
 
   private final int lineNumber;
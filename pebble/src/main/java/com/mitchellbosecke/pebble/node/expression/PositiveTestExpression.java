@@ -10,6 +10,8 @@ package com.mitchellbosecke.pebble.node.expression;
 
 import com.mitchellbosecke.pebble.error.AttributeNotFoundException;
 import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.extension.PositionalArguments;
+import com.mitchellbosecke.pebble.extension.PositionalTest;
 import com.mitchellbosecke.pebble.extension.Test;
 import com.mitchellbosecke.pebble.extension.core.DefinedTest;
 import com.mitchellbosecke.pebble.node.ArgumentsNode;
@@ -20,7 +22,14 @@ import java.util.Map;
 
 public class PositiveTestExpression extends BinaryExpression<Object> {
 
-  private Test cachedTest;
+  private static final long serialVersionUID = 2405408421882934343L;
+
+  private transient Test cachedTest;
+
+  /**
+   * Whether the test is invoked with the argument positions resolved by the linker.
+   */
+  private transient boolean positional;
 
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
@@ -40,26 +49,48 @@ public class PositiveTestExpression extends BinaryExpression<Object> {
     }
     Test test = this.cachedTest;
 
-    Map<String, Object> namedArguments = args.getArgumentMap(self, context, test);
+    Object[] positionalArguments = null;
+    Map<String, Object> namedArguments = null;
+    if (this.positional) {
+      positionalArguments = args.getArgumentArray(self, context);
+    } else {
+      namedArguments = args.getArgumentMap(self, context, test);
+    }
 
     // This check is not nice, because we use instanceof. However this is
     // the only test which should not fail in strict mode, when the variable
     // is not set, because this method should exactly test this. Hence a
     // generic solution to allow other tests to reuse this feature make no
     // sense.
+    Object input;
     if (test instanceof DefinedTest) {
-      Object input = null;
       try {
         input = this.getLeftExpression().evaluate(self, context);
       } catch (AttributeNotFoundException e) {
         input = null;
       }
-      return test.apply(input, namedArguments, self, context, this.getLineNumber());
     } else {
-      return test
-          .apply(this.getLeftExpression().evaluate(self, context), namedArguments, self, context,
-              this.getLineNumber());
+      input = this.getLeftExpression().evaluate(self, context);
+    }
+
+    if (this.positional) {
+      return ((PositionalTest) test)
+          .invoke(input, positionalArguments, self, context, this.getLineNumber());
     }
+    return test.apply(input, namedArguments, self, context, this.getLineNumber());
+  }
 
+  public Test getTest() {
+    return this.cachedTest;
+  }
+
+  /**
+   * Binds the test when the template is linked so that it does not have to be looked up by name.
+   */
+  public void setTest(Test test) {
+    this.cachedTest = test;
+    TestInvocationExpression testInvocation = (TestInvocationExpression) this.getRightExpression();
+    this.positional = PositionalArguments.isPositional(test)
+        && testInvocation.getArgs().bindPositions(test.getArgumentNames());
   }
 }
@@ -15,17 +15,37 @@ import java.util.List;
  */
 public class RangeExpression extends BinaryExpression<Object> {
 
+  private static final long serialVersionUID = -5891516962477259208L;
+
+  private FunctionOrMacroInvocationExpression invocation;
+
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
+    FunctionOrMacroInvocationExpression function = this.invocation;
+    if (function == null) {
+      function = this.createInvocation();
+    }
+    return function.evaluate(self, context);
+  }
+
+  /**
+   * Creates the invocation of the "range" function with both operands as arguments.
+   */
+  public FunctionOrMacroInvocationExpression createInvocation() {
     List<PositionalArgumentNode> positionalArgs = new ArrayList<>();
     positionalArgs.add(new PositionalArgumentNode(getLeftExpression()));
     positionalArgs.add(new PositionalArgumentNode(getRightExpression()));
 
     ArgumentsNode arguments = new ArgumentsNode(positionalArgs, null, this.getLineNumber());
-    FunctionOrMacroInvocationExpression function = new FunctionOrMacroInvocationExpression(
-        RangeFunction.FUNCTION_NAME, arguments, this.getLineNumber());
+    return new FunctionOrMacroInvocationExpression(RangeFunction.FUNCTION_NAME, arguments,
+        this.getLineNumber());
+  }
 
-    return function.evaluate(self, context);
+  /**
+   * Keeps the invocation, which is created when the template is linked, for every evaluation.
+   */
+  public void setInvocation(FunctionOrMacroInvocationExpression invocation) {
+    this.invocation = invocation;
   }
 
-}
\ No newline at end of file
+}
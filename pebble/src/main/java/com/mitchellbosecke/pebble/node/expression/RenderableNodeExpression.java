@@ -24,6 +24,8 @@ import java.io.Writer;
  */
 public class RenderableNodeExpression extends UnaryExpression {
 
+  private static final long serialVersionUID = -7689948151895758439L;
+
   private final RenderableNode node;
 
   private final int lineNumber;
@@ -45,6 +47,10 @@ public class RenderableNodeExpression extends UnaryExpression {
     return writer.toString();
   }
 
+  public RenderableNode getNode() {
+    return this.node;
+  }
+
   @Override
   public int getLineNumber() {
     return this.lineNumber;
@@ -8,21 +8,34 @@
  */
 package com.mitchellbosecke.pebble.node.expression;
 
-import com.mitchellbosecke.pebble.error.PebbleException;
-import com.mitchellbosecke.pebble.template.EvaluationContextImpl;
-import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
 import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
-public class SubtractExpression extends BinaryExpression<Object> {
+public class SubtractExpression extends ArithmeticExpression {
+
+  private static final long serialVersionUID = 4796182152974317774L;
+
+  @Override
+  protected int applyInt(int left, int right) {
+    return left - right;
+  }
+
+  @Override
+  protected long applyLong(long left, long right) {
+    return left - right;
+  }
+
+  @Override
+  protected double applyDouble(double left, double right) {
+    return left - right;
+  }
+
+  @Override
+  protected Object applyGeneric(Object left, Object right) {
+    return OperatorUtils.subtract(left, right);
+  }
 
   @Override
-  public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
-    try {
-      return OperatorUtils.subtract(this.getLeftExpression().evaluate(self, context),
-          this.getRightExpression().evaluate(self, context));
-    } catch (Exception ex) {
-      throw new PebbleException(ex, "Could not perform subtraction", this.getLineNumber(),
-          self.getName());
-    }
+  protected String getErrorMessage() {
+    return "Could not perform subtraction";
   }
 }
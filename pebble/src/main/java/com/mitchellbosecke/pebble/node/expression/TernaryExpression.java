@@ -16,6 +16,8 @@ import static com.mitchellbosecke.pebble.utils.TypeUtils.compatibleCast;
 
 public class TernaryExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = -1455651279347276284L;
+
   private final Expression<Boolean> expression1;
 
   private Expression<?> expression2;
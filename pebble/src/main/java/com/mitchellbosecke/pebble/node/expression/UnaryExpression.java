@@ -12,6 +12,8 @@ import com.mitchellbosecke.pebble.extension.NodeVisitor;
 
 public abstract class UnaryExpression implements Expression<Object> {
 
+  private static final long serialVersionUID = 6586087826140994137L;
+
   private Expression<?> childExpression;
 
   private int lineNumber;
@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
 public class UnaryMinusExpression extends UnaryExpression {
 
+  private static final long serialVersionUID = 7953143423721029067L;
+
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     return OperatorUtils.unaryMinus(this.getChildExpression().evaluate(self, context));
@@ -16,6 +16,8 @@ import static com.mitchellbosecke.pebble.utils.TypeUtils.compatibleCast;
 
 public class UnaryNotExpression extends UnaryExpression {
 
+  private static final long serialVersionUID = 2533520064426460798L;
+
   @Override
   public Boolean evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     Object result = this.getChildExpression().evaluate(self, context);
@@ -14,6 +14,8 @@ import com.mitchellbosecke.pebble.utils.OperatorUtils;
 
 public class UnaryPlusExpression extends UnaryExpression {
 
+  private static final long serialVersionUID = 6960148954741076784L;
+
   @Override
   public Object evaluate(PebbleTemplateImpl self, EvaluationContextImpl context) {
     return OperatorUtils.unaryPlus(this.getChildExpression().evaluate(self, context));
@@ -0,0 +1,30 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.expression;
+
+/**
+ * Thrown when an expression which has been asked for a primitive result evaluated to a value of
+ * another type. It carries that value so that the caller can finish its evaluation generically and
+ * stop asking for primitives. It has no stack trace because it is part of the normal control flow.
+ */
+class UnexpectedResultException extends Exception {
+
+  private static final long serialVersionUID = 3806914424575813734L;
+
+  private final transient Object result;
+
+  UnexpectedResultException(Object result) {
+    super(null, null, false, false);
+    this.result = result;
+  }
+
+  Object getResult() {
+    return this.result;
+  }
+}
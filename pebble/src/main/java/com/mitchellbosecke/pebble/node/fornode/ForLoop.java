@@ -0,0 +1,145 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.node.fornode;
+
+import com.mitchellbosecke.pebble.template.FrameScope;
+import com.mitchellbosecke.pebble.template.ScopeChain;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * The iteration state of a single execution of a "for" loop. It maintains the special "loop"
+ * variable and the iteration variable in the scope chain.
+ * <p>
+ * Typical usage:
+ * <pre>
+ * if (loop.hasNext()) {
+ *   loop.open();
+ *   while (loop.next()) {
+ *     // render body
+ *   }
+ *   loop.close();
+ * }
+ * </pre>
+ */
+public final class ForLoop {
+
+  /**
+   * The name of the special variable which holds the state of the loop.
+   */
+  public static final String LOOP_VARIABLE = "loop";
+
+  private final String[] slotNames;
+
+  private final Iterator<?> iterator;
+
+  private final Object iterableEvaluation;
+
+  private final ScopeChain scopeChain;
+
+  private final boolean usingExecutorService;
+
+  private FrameScope scope;
+
+  private LazyLength length;
+
+  private Map<String, Object> loop;
+
+  private int index = 0;
+
+  /**
+   * @param slotNames The variables of the loop scope, see {@link
+   * com.mitchellbosecke.pebble.node.ForNode#getSlotNames()}
+   * @param iterableEvaluation The object to iterate over
+   * @param iterator The iterator over the object
+   * @param scopeChain The scope chain of the render
+   * @param usingExecutorService Whether or not the body might be rendered by other threads
+   */
+  public ForLoop(String[] slotNames, Object iterableEvaluation, Iterator<?> iterator,
+      ScopeChain scopeChain, boolean usingExecutorService) {
+    this.slotNames = slotNames;
+    this.iterableEvaluation = iterableEvaluation;
+    this.iterator = iterator;
+    this.scopeChain = scopeChain;
+    this.usingExecutorService = usingExecutorService;
+  }
+
+  /**
+   * Whether or not there is at least one more item to iterate over.
+   *
+   * @return true if there are more items
+   */
+  public boolean hasNext() {
+    return this.iterator.hasNext();
+  }
+
+  /**
+   * Pushes the scope which holds the loop variables. Must be called once before the first call to
+   * {@link #next()}.
+   */
+  public void open() {
+    this.scope = new FrameScope(this.slotNames);
+    this.scopeChain.pushScope(this.scope);
+    this.length = new LazyLength(this.iterableEvaluation);
+  }
+
+  /**
+   * Advances to the next item and exposes it, along with the "loop" variable, in the current
+   * scope.
+   *
+   * @return false if there are no more items
+   */
+  public boolean next() {
+    Iterator<?> iterator = this.iterator;
+    if (!iterator.hasNext()) {
+      return false;
+    }
+    int index = this.index;
+    Map<String, Object> loop = this.loop;
+
+    /*
+     * If the user is using an executor service (i.e. parallel
+     * node), we must create a new map with every iteration instead
+     * of re-using the same one; it's imperative that each thread
+     * would get it's own distinct copy of the context.
+     */
+    if (index == 0 || this.usingExecutorService) {
+      loop = new HashMap<>();
+      loop.put("first", index == 0);
+      loop.put("last", !iterator.hasNext());
+      loop.put("length", this.length);
+      this.loop = loop;
+    } else if (index == 1) {
+      // second iteration
+      loop.put("first", false);
+    }
+
+    loop.put("revindex", new LazyRevIndex(index, this.length));
+    loop.put("index", index);
+    this.index = index + 1;
+
+    // the iteration variable wins if it is also named "loop"
+    this.scope.setSlot(this.slotNames.length > 1 ? 1 : 0, loop);
+    this.scope.setSlot(0, iterator.next());
+
+    // last iteration
+    if (!iterator.hasNext()) {
+      loop.put("last", true);
+    }
+    return true;
+  }
+
+  /**
+   * Pops the scope pushed by {@link #open()}.
+   */
+  public void close() {
+    this.scopeChain.popScope();
+  }
+}
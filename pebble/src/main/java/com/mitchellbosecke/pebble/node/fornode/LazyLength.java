@@ -8,6 +8,8 @@ import java.util.Map;
 
 public class LazyLength extends Number {
 
+  private static final long serialVersionUID = -6047525226878157958L;
+
   private final Object iterableEvaluation;
   private int value = -1;
 
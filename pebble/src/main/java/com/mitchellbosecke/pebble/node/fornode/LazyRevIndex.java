@@ -1,6 +1,9 @@
 package com.mitchellbosecke.pebble.node.fornode;
 
 public class LazyRevIndex extends Number {
+
+  private static final long serialVersionUID = -2846876262339082595L;
+
   private final int value;
   private final LazyLength lazyLength;
 
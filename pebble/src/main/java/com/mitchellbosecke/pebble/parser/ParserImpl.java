@@ -127,7 +127,7 @@ public class ParserImpl implements Parser {
            * than convert it to a text Node.
            */
           token = this.stream.current();
-          nodes.add(new TextNode(token.getValue(), token.getLineNumber()));
+          nodes.add(new TextNode(token.toCharArray(), token.getLineNumber()));
           this.stream.next();
           break;
 
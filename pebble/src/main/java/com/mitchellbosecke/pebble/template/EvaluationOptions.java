@@ -17,6 +17,11 @@ public class EvaluationOptions {
    */
   private boolean greedyMatchMethod;
 
+  /**
+   * toggle to enable/disable generated accessors instead of reflection for attributes
+   */
+  private boolean generateAttributeAccessors = true;
+
   public boolean isAllowUnsafeMethods() {
     return this.allowUnsafeMethods;
   }
@@ -34,4 +39,13 @@ public class EvaluationOptions {
     this.greedyMatchMethod = greedyMatchMethod;
     return this;
   }
+
+  public boolean isGenerateAttributeAccessors() {
+    return this.generateAttributeAccessors;
+  }
+
+  public EvaluationOptions setGenerateAttributeAccessors(boolean generateAttributeAccessors) {
+    this.generateAttributeAccessors = generateAttributeAccessors;
+    return this;
+  }
 }
@@ -0,0 +1,136 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.template;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A scope whose variable names are known when the template is compiled, such as the variables of a
+ * for loop. Every known name has a fixed slot in an array so that expressions resolved against the
+ * layout can read and write it by index. Other names, which can only be set dynamically, are kept
+ * in a map.
+ * <p>
+ * A slot behaves like a missing map entry until it is assigned, so that the lookup continues in the
+ * enclosing scopes as it would with a {@link ScopeImpl}.
+ */
+public class FrameScope implements Scope {
+
+  /**
+   * Value of a slot which has not been assigned yet.
+   */
+  public static final Object UNDEFINED = new Object();
+
+  /**
+   * The names of the slots; compared by identity to check that a frame has the expected layout.
+   */
+  private final String[] slotNames;
+
+  private final Object[] slots;
+
+  private Map<String, Object> others;
+
+  public FrameScope(String[] slotNames) {
+    this.slotNames = slotNames;
+    this.slots = new Object[slotNames.length];
+    for (int i = 0; i < this.slots.length; i++) {
+      this.slots[i] = UNDEFINED;
+    }
+  }
+
+  private FrameScope(FrameScope original) {
+    this.slotNames = original.slotNames;
+    this.slots = original.slots.clone();
+    this.others = original.others == null ? null : new HashMap<>(original.others);
+  }
+
+  public String[] getSlotNames() {
+    return this.slotNames;
+  }
+
+  /**
+   * Reads a slot.
+   *
+   * @param slot The index of the slot
+   * @return The value or {@link #UNDEFINED}
+   */
+  public Object getSlot(int slot) {
+    return this.slots[slot];
+  }
+
+  public void setSlot(int slot, Object value) {
+    this.slots[slot] = value;
+  }
+
+  /**
+   * Whether or not a variable which has no slot has been added to this scope.
+   *
+   * @return true if some variables are kept by name
+   */
+  public boolean hasOtherVariables() {
+    return this.others != null;
+  }
+
+  @Override
+  public Scope shallowCopy() {
+    return new FrameScope(this);
+  }
+
+  @Override
+  public void put(String key, Object value) {
+    int slot = this.indexOf(key);
+    if (slot >= 0) {
+      this.slots[slot] = value;
+    } else {
+      if (this.others == null) {
+        this.others = new HashMap<>();
+      }
+      this.others.put(key, value);
+    }
+  }
+
+  @Override
+  public Object get(String key) {
+    int slot = this.indexOf(key);
+    if (slot >= 0) {
+      Object value = this.slots[slot];
+      return value == UNDEFINED ? null : value;
+    }
+    return this.others == null ? null : this.others.get(key);
+  }
+
+  @Override
+  public boolean containsKey(String key) {
+    int slot = this.indexOf(key);
+    if (slot >= 0) {
+      return this.slots[slot] != UNDEFINED;
+    }
+    return this.others != null && this.others.containsKey(key);
+  }
+
+  @Override
+  public boolean isLocal() {
+    return false;
+  }
+
+  @Override
+  public boolean isWritable() {
+    return false;
+  }
+
+  private int indexOf(String key) {
+    String[] names = this.slotNames;
+    for (int i = 0; i < names.length; i++) {
+      if (names[i] == key || names[i].equals(key)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
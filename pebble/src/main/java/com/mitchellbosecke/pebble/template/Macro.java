@@ -9,11 +9,38 @@
 package com.mitchellbosecke.pebble.template;
 
 import com.mitchellbosecke.pebble.extension.NamedArguments;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.Map;
 
 public interface Macro extends NamedArguments {
 
   String getName();
 
+  /**
+   * Whether the output of the macro only depends on its arguments, so that it can be kept in the
+   * macro cache of the engine.
+   *
+   * @return Whether or not the macro is cached
+   */
+  default boolean isCached() {
+    return false;
+  }
+
   String call(PebbleTemplateImpl self, EvaluationContextImpl context, Map<String, Object> args);
+
+  /**
+   * Renders the macro into the given writer instead of returning its output as a String. This is
+   * used when the invocation of the macro is printed.
+   *
+   * @param self The template
+   * @param context The evaluation context
+   * @param args The arguments
+   * @param writer The writer to render the macro into
+   * @throws IOException Thrown from the writer object
+   */
+  default void render(PebbleTemplateImpl self, EvaluationContextImpl context,
+      Map<String, Object> args, Writer writer) throws IOException {
+    writer.write(this.call(self, context, args));
+  }
 }
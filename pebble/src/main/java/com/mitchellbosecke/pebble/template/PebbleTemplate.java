@@ -8,8 +8,14 @@
  */
 package com.mitchellbosecke.pebble.template;
 
+import com.mitchellbosecke.pebble.extension.writer.EncodingOutputStreamWriter;
+import com.mitchellbosecke.pebble.extension.writer.GatheringChannelWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
 import java.util.Locale;
 import java.util.Map;
 
@@ -58,6 +64,198 @@ public interface PebbleTemplate {
    */
   void evaluate(Writer writer, Map<String, Object> context, Locale locale) throws IOException;
 
+  /**
+   * Evaluate the template with a set of variables and the default locale provided by the {@link
+   * com.mitchellbosecke.pebble.PebbleEngine} into a string. The templates of the engine collect the
+   * results without synchronization in a builder which is reused by the thread and presized to the
+   * length of the previous results of the template, rather than in a {@link StringWriter}.
+   *
+   * @param context The variables used during the evaluation of the template.
+   * @return The results of the evaluation
+   * @throws IOException An IO exception during the evaluation
+   */
+  default String render(Map<String, Object> context) throws IOException {
+    StringWriter writer = new StringWriter();
+    this.evaluate(writer, context);
+    return writer.toString();
+  }
+
+  /**
+   * Evaluate the template with a particular locale and a set of variables into a string, see {@link
+   * #render(Map)}.
+   *
+   * @param context The variables used during the evaluation of the template.
+   * @param locale The locale used during the evaluation of the template.
+   * @return The results of the evaluation
+   * @throws IOException An IO exception during the evaluation
+   */
+  default String render(Map<String, Object> context, Locale locale) throws IOException {
+    StringWriter writer = new StringWriter();
+    this.evaluate(writer, context, locale);
+    return writer.toString();
+  }
+
+  /**
+   * Evaluate the template with a set of variables and the default locale provided by the {@link
+   * com.mitchellbosecke.pebble.PebbleEngine}, and append the results to an appendable such as a
+   * {@link StringBuilder}, see {@link #render(Map)}.
+   *
+   * @param out The results of the evaluation are appended to this appendable.
+   * @param context The variables used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void render(Appendable out, Map<String, Object> context) throws IOException {
+    out.append(this.render(context));
+  }
+
+  /**
+   * Evaluate the template with a particular locale and a set of variables, and append the results
+   * to an appendable such as a {@link StringBuilder}, see {@link #render(Map)}.
+   *
+   * @param out The results of the evaluation are appended to this appendable.
+   * @param context The variables used during the evaluation of the template.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void render(Appendable out, Map<String, Object> context, Locale locale)
+      throws IOException {
+    out.append(this.render(context, locale));
+  }
+
+  /**
+   * Evaluate the template without any provided variables into a stream of bytes. The static text of
+   * the template is encoded only once and then copied into the stream. The stream is neither
+   * flushed nor closed. If the evaluation fails, the output rendered before the failure is still
+   * written to the stream.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset the results are encoded in.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset) throws IOException {
+    EncodingOutputStreamWriter writer = new EncodingOutputStreamWriter(out, charset);
+    try {
+      this.evaluate(writer);
+    } catch (IOException | RuntimeException e) {
+      // hands over what has been rendered before the failure, as without the buffer
+      try {
+        writer.finish();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    writer.finish();
+  }
+
+  /**
+   * Evaluate the template with a set of variables into a stream of bytes, see {@link
+   * #evaluate(OutputStream, Charset)}.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset the results are encoded in.
+   * @param context The variables used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset, Map<String, Object> context)
+      throws IOException {
+    EncodingOutputStreamWriter writer = new EncodingOutputStreamWriter(out, charset);
+    try {
+      this.evaluate(writer, context);
+    } catch (IOException | RuntimeException e) {
+      // hands over what has been rendered before the failure, as without the buffer
+      try {
+        writer.finish();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    writer.finish();
+  }
+
+  /**
+   * Evaluate the template with a particular locale and a set of variables into a stream of bytes,
+   * see {@link #evaluate(OutputStream, Charset)}.
+   *
+   * @param out The results of the evaluation are written to this stream.
+   * @param charset The charset the results are encoded in.
+   * @param context The variables used during the evaluation of the template.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(OutputStream out, Charset charset, Map<String, Object> context,
+      Locale locale) throws IOException {
+    EncodingOutputStreamWriter writer = new EncodingOutputStreamWriter(out, charset);
+    try {
+      this.evaluate(writer, context, locale);
+    } catch (IOException | RuntimeException e) {
+      // hands over what has been rendered before the failure, as without the buffer
+      try {
+        writer.finish();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    writer.finish();
+  }
+
+  /**
+   * Evaluate the template with a set of variables into a channel. The static text of the template
+   * is passed to the channel as it is, without being copied, and written together with the
+   * dynamic output in batches. The channel must be in blocking mode and is not closed. If the
+   * evaluation fails, the output rendered before the failure is still written to the channel.
+   *
+   * @param channel The results of the evaluation are written to this channel.
+   * @param charset The charset the results are encoded in.
+   * @param context The variables used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(GatheringByteChannel channel, Charset charset,
+      Map<String, Object> context) throws IOException {
+    GatheringChannelWriter writer = new GatheringChannelWriter(channel, charset);
+    try {
+      this.evaluate(writer, context);
+    } catch (Throwable e) {
+      // hands over what has been rendered before the failure, and returns the pooled buffer
+      try {
+        writer.finish();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    writer.finish();
+  }
+
+  /**
+   * Evaluate the template with a particular locale and a set of variables into a channel, see
+   * {@link #evaluate(GatheringByteChannel, Charset, Map)}.
+   *
+   * @param channel The results of the evaluation are written to this channel.
+   * @param charset The charset the results are encoded in.
+   * @param context The variables used during the evaluation of the template.
+   * @param locale The locale used during the evaluation of the template.
+   * @throws IOException An IO exception during the evaluation
+   */
+  default void evaluate(GatheringByteChannel channel, Charset charset,
+      Map<String, Object> context, Locale locale) throws IOException {
+    GatheringChannelWriter writer = new GatheringChannelWriter(channel, charset);
+    try {
+      this.evaluate(writer, context, locale);
+    } catch (Throwable e) {
+      // hands over what has been rendered before the failure, and returns the pooled buffer
+      try {
+        writer.finish();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    writer.finish();
+  }
+
   /**
    * Evaluate the template but only render the contents of a specific block.
    *
@@ -9,8 +9,15 @@
 package com.mitchellbosecke.pebble.template;
 
 import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.cache.CacheStatistics;
+import com.mitchellbosecke.pebble.cache.MacroCacheKey;
 import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.extension.core.TemplateReferenceNodeVisitor;
 import com.mitchellbosecke.pebble.extension.escaper.SafeString;
+import com.mitchellbosecke.pebble.extension.writer.BufferedSpecializedWriter;
+import com.mitchellbosecke.pebble.extension.writer.EncodedWriter;
+import com.mitchellbosecke.pebble.extension.writer.PooledSpecializedStringWriter;
+import com.mitchellbosecke.pebble.extension.writer.SpecializedWriter;
 import com.mitchellbosecke.pebble.node.ArgumentsNode;
 import com.mitchellbosecke.pebble.node.BlockNode;
 import com.mitchellbosecke.pebble.node.BodyNode;
@@ -20,14 +27,20 @@ import com.mitchellbosecke.pebble.utils.FutureWriter;
 import com.mitchellbosecke.pebble.utils.Pair;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * The actual implementation of a PebbleTemplate
@@ -63,6 +76,12 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    */
   private final String name;
 
+  /**
+   * The expected length of the results of {@link #render(Map)}, which follows the longest results
+   * and decays slowly after shorter ones.
+   */
+  private volatile int expectedLength;
+
   /**
    * Constructor
    *
@@ -78,12 +97,12 @@ public class PebbleTemplateImpl implements PebbleTemplate {
 
   public void evaluate(Writer writer) throws IOException {
     EvaluationContextImpl context = this.initContext(null);
-    this.evaluate(writer, context);
+    this.evaluateBuffered(writer, context);
   }
 
   public void evaluate(Writer writer, Locale locale) throws IOException {
     EvaluationContextImpl context = this.initContext(locale);
-    this.evaluate(writer, context);
+    this.evaluateBuffered(writer, context);
   }
 
   public void evaluate(Writer writer, Map<String, Object> map) throws IOException {
@@ -92,7 +111,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
 
     // Issue #449: if the provided map is immutable, this allows us to still set variables in the template context
     context.getScopeChain().pushScope(new HashMap<>());
-    this.evaluate(writer, context);
+    this.evaluateBuffered(writer, context);
   }
 
   public void evaluate(Writer writer, Map<String, Object> map, Locale locale) throws IOException {
@@ -101,7 +120,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
 
     // Issue #449: if the provided map is immutable, this allows us to still set variables in the template context
     context.getScopeChain().pushScope(new HashMap<>());
-    this.evaluate(writer, context);
+    this.evaluateBuffered(writer, context);
   }
 
   public void evaluate(Writer writer, Scope scope, Locale locale) throws IOException {
@@ -112,13 +131,65 @@ public class PebbleTemplateImpl implements PebbleTemplate {
       context.getScopeChain().pushScope(new HashMap<>());
     }
 
-    this.evaluate(writer, context);
+    this.evaluateBuffered(writer, context);
   }
 
   public void evaluate(Writer writer, Scope scope) throws IOException {
     evaluate(writer, scope, null);
   }
 
+  @Override
+  public String render(Map<String, Object> map) throws IOException {
+    return this.render(map, null);
+  }
+
+  @Override
+  public String render(Map<String, Object> map, Locale locale) throws IOException {
+    PooledSpecializedStringWriter writer = this.renderPooled(map, locale);
+    try {
+      return writer.toString();
+    } finally {
+      writer.release();
+    }
+  }
+
+  @Override
+  public void render(Appendable out, Map<String, Object> map) throws IOException {
+    this.render(out, map, null);
+  }
+
+  @Override
+  public void render(Appendable out, Map<String, Object> map, Locale locale) throws IOException {
+    PooledSpecializedStringWriter writer = this.renderPooled(map, locale);
+    try {
+      writer.appendTo(out);
+    } finally {
+      writer.release();
+    }
+  }
+
+  /**
+   * Evaluates the template into a pooled writer, which the caller has to release.
+   */
+  private PooledSpecializedStringWriter renderPooled(Map<String, Object> map, Locale locale)
+      throws IOException {
+    int expected = this.expectedLength;
+    PooledSpecializedStringWriter writer = PooledSpecializedStringWriter.acquire(expected);
+    try {
+      this.evaluate(writer, map, locale);
+    } catch (IOException | RuntimeException e) {
+      writer.release();
+      throw e;
+    }
+    int length = writer.length();
+    if (length > expected) {
+      this.expectedLength = length;
+    } else if (length < expected - (expected >> 3)) {
+      this.expectedLength = expected - (expected >> 3);
+    }
+    return writer;
+  }
+
   public void evaluateBlock(String blockName, Writer writer) throws IOException {
     EvaluationContextImpl context = this.initContext(null);
     this.evaluate(new NoopWriter(), context);
@@ -183,6 +254,50 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     writer.flush();
   }
 
+  /**
+   * Evaluates the template into the writer of the caller, which is wrapped in a {@link
+   * BufferedSpecializedWriter} unless it takes numbers or encoded text directly, or buffers on its
+   * own like a {@link StringWriter}.
+   *
+   * @param writer The writer of the caller
+   * @param context The evaluation context
+   * @throws IOException Thrown from the writer object
+   */
+  private void evaluateBuffered(Writer writer, EvaluationContextImpl context) throws IOException {
+    if (writer instanceof SpecializedWriter || writer instanceof EncodedWriter
+        || writer instanceof StringWriter) {
+      this.evaluate(writer, context);
+      return;
+    }
+    BufferedSpecializedWriter buffered = new BufferedSpecializedWriter(writer);
+    try {
+      try {
+        this.evaluate(buffered, context);
+      } catch (UncheckedIOException e) {
+        // a failure of the writer of the caller, which the specialized methods can not throw
+        throw e.getCause();
+      }
+    } catch (IOException | RuntimeException e) {
+      // hands over what has been rendered before the failure, as without the buffer
+      try {
+        buffered.flushBuffer();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Creates an evaluation context with the settings and the default locale of the engine, to
+   * evaluate expressions outside of a render, e.g. when folding constant expressions.
+   *
+   * @return The evaluation context
+   */
+  public EvaluationContextImpl newEvaluationContext() {
+    return this.initContext(null);
+  }
+
   /**
    * Initializes the evaluation context with settings from the engine.
    *
@@ -377,6 +492,41 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     return this.blocks.containsKey(blockName);
   }
 
+  /**
+   * Returns the registered blocks
+   *
+   * @return The blocks by their names
+   */
+  public Map<String, Block> getBlocks() {
+    return Collections.unmodifiableMap(this.blocks);
+  }
+
+  /**
+   * Returns the registered macros
+   *
+   * @return The macros by their names or aliases
+   */
+  public Map<String, Macro> getMacros() {
+    return Collections.unmodifiableMap(this.macros);
+  }
+
+  /**
+   * Returns the names of the templates which this template extends, includes, imports or embeds,
+   * resolved relative to this template. Only the names given as string literals are known in
+   * advance.
+   *
+   * @return The names of the referenced templates
+   */
+  public Set<String> getReferencedTemplateNames() {
+    TemplateReferenceNodeVisitor visitor = new TemplateReferenceNodeVisitor(this);
+    this.rootNode.accept(visitor);
+    Set<String> names = new LinkedHashSet<>();
+    for (String reference : visitor.getReferences()) {
+      names.add(this.resolveRelativePath(reference));
+    }
+    return names;
+  }
+
   /**
    * This method resolves the given relative path based on this template file path.
    *
@@ -477,7 +627,28 @@ public class PebbleTemplateImpl implements PebbleTemplate {
    */
   public SafeString macro(EvaluationContextImpl context, String macroName, ArgumentsNode args,
       boolean ignoreOverriden, int lineNumber) {
-    SafeString result = null;
+    Writer writer = new StringWriter();
+    try {
+      this.macro(writer, context, macroName, args, ignoreOverriden, lineNumber);
+    } catch (IOException e) {
+      throw new RuntimeException("Could not evaluate macro [" + macroName + "]", e);
+    }
+    return new SafeString(writer.toString());
+  }
+
+  /**
+   * Invokes a macro and renders its output straight into the given writer, which saves building
+   * the output as a String when the result of the invocation is printed.
+   *
+   * @param writer The writer to render the macro into
+   * @param context The evaluation context
+   * @param macroName The name of the macro
+   * @param args The arguments
+   * @param ignoreOverriden Whether or not to ignore macro definitions in child template
+   * @throws IOException Thrown from the writer object
+   */
+  public void macro(Writer writer, EvaluationContextImpl context, String macroName,
+      ArgumentsNode args, boolean ignoreOverriden, int lineNumber) throws IOException {
     boolean found = false;
 
     PebbleTemplateImpl childTemplate = context.getHierarchy().getChild();
@@ -486,7 +657,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
     if (!ignoreOverriden && childTemplate != null) {
       found = true;
       context.getHierarchy().descend();
-      result = childTemplate.macro(context, macroName, args, false, lineNumber);
+      childTemplate.macro(writer, context, macroName, args, false, lineNumber);
       context.getHierarchy().ascend();
 
       // check current template
@@ -495,7 +666,11 @@ public class PebbleTemplateImpl implements PebbleTemplate {
       Macro macro = this.macros.get(macroName);
 
       Map<String, Object> namedArguments = args.getArgumentMap(this, context, macro);
-      result = new SafeString(macro.call(this, context, namedArguments));
+      if (macro.isCached()) {
+        writer.write(this.cachedMacro(context, macro, namedArguments));
+      } else {
+        macro.render(this, context, namedArguments, writer);
+      }
     }
 
     // check imported templates
@@ -503,7 +678,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
       for (PebbleTemplateImpl template : context.getImportedTemplates()) {
         if (template.hasMacro(macroName)) {
           found = true;
-          result = template.macro(context, macroName, args, false, lineNumber);
+          template.macro(writer, context, macroName, args, false, lineNumber);
           // If a macro was found and executed, dont search for more
           break;
         }
@@ -515,7 +690,7 @@ public class PebbleTemplateImpl implements PebbleTemplate {
       if (context.getHierarchy().getParent() != null) {
         PebbleTemplateImpl parent = context.getHierarchy().getParent();
         context.getHierarchy().ascend();
-        result = parent.macro(context, macroName, args, true, lineNumber);
+        parent.macro(writer, context, macroName, args, true, lineNumber);
         context.getHierarchy().descend();
       } else {
         throw new PebbleException(null,
@@ -523,8 +698,43 @@ public class PebbleTemplateImpl implements PebbleTemplate {
             this.name);
       }
     }
+  }
 
-    return result;
+  /**
+   * Returns the output of a cached macro from the macro cache of the engine, rendering it only if
+   * the macro has not been invoked with the same arguments and locale before. Arguments which do
+   * not have value semantics can not be part of a key, in which case the macro is always rendered.
+   */
+  private String cachedMacro(EvaluationContextImpl context, Macro macro,
+      Map<String, Object> namedArguments) {
+    CacheStatistics statistics = this.engine.getMacroCacheStatistics();
+    for (Object argument : namedArguments.values()) {
+      if (!isValue(argument)) {
+        statistics.recordUncacheable();
+        return macro.call(this, context, namedArguments);
+      }
+    }
+    statistics.recordRequest();
+    // the macro uses the arguments as its scope, the key needs a copy which does not change
+    MacroCacheKey key = new MacroCacheKey(macro, context.getLocale(),
+        new HashMap<>(namedArguments));
+    return (String) this.engine.getMacroCache().computeIfAbsent(key, k -> {
+      statistics.recordMiss();
+      return macro.call(this, context, namedArguments);
+    });
+  }
+
+  /**
+   * Whether an argument of a cached macro is immutable and equal to the arguments with the same
+   * value, so that it can be part of the key of the output.
+   */
+  private static boolean isValue(Object argument) {
+    return argument == null || argument instanceof String || argument instanceof Integer
+        || argument instanceof Long || argument instanceof Double || argument instanceof Float
+        || argument instanceof Short || argument instanceof Byte || argument instanceof BigDecimal
+        || argument instanceof BigInteger || argument instanceof Boolean
+        || argument instanceof Character || argument instanceof Enum
+        || argument instanceof SafeString;
   }
 
   public void setParent(EvaluationContextImpl context, String parentName) {
@@ -10,8 +10,6 @@ package com.mitchellbosecke.pebble.template;
 
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
@@ -24,9 +22,9 @@ import java.util.Map;
 public class ScopeChain {
 
   /**
-   * The stack of scopes
+   * The stack of scopes, the current scope being the last one
    */
-  private LinkedList<Scope> stack = new LinkedList<>();
+  private final ArrayList<Scope> stack = new ArrayList<>();
 
   /**
    * Constructs an empty scope chain without any known scopes.
@@ -68,7 +66,7 @@ public class ScopeChain {
    */
   public void pushScope(Map<String, Object> map) {
     Scope scope = new ScopeImpl(map, false);
-    this.stack.push(scope);
+    this.stack.add(scope);
   }
 
   /**
@@ -77,7 +75,7 @@ public class ScopeChain {
    * @param scope Scope instance
    */
   public void pushScope(Scope scope) {
-    this.stack.push(scope);
+    this.stack.add(scope);
   }
 
   /**
@@ -85,14 +83,42 @@ public class ScopeChain {
    */
   public void pushLocalScope() {
     Scope scope = new ScopeImpl(new HashMap<>(), true);
-    this.stack.push(scope);
+    this.stack.add(scope);
   }
 
   /**
    * Pops the most recent scope from the scope chain.
    */
   public void popScope() {
-    this.stack.pop();
+    this.stack.remove(this.stack.size() - 1);
+  }
+
+  /**
+   * Returns the frame at the given depth if it has the expected layout and if none of the scopes
+   * above it can hide one of its variables, i.e. if they are all frames without dynamically added
+   * variables.
+   *
+   * @param depth The number of scopes to skip, 0 being the current scope
+   * @param slotNames The expected layout of the frame
+   * @return The frame or null if the variables have to be looked up by name
+   */
+  public FrameScope getFrame(int depth, String[] slotNames) {
+    ArrayList<Scope> stack = this.stack;
+    int index = stack.size() - 1 - depth;
+    if (index < 0) {
+      return null;
+    }
+    Scope scope = stack.get(index);
+    if (!(scope instanceof FrameScope) || ((FrameScope) scope).getSlotNames() != slotNames) {
+      return null;
+    }
+    for (int i = index + 1; i < stack.size(); i++) {
+      Scope inner = stack.get(i);
+      if (!(inner instanceof FrameScope) || ((FrameScope) inner).hasOtherVariables()) {
+        return null;
+      }
+    }
+    return (FrameScope) scope;
   }
 
   /**
@@ -102,7 +128,7 @@ public class ScopeChain {
    * @param value The value of the variable
    */
   public void put(String key, Object value) {
-    this.stack.peek().put(key, value);
+    this.current().put(key, value);
   }
 
   /**
@@ -115,27 +141,27 @@ public class ScopeChain {
   public Object get(String key) {
     /*
      * The majority of time, the requested variable will be in the first
-     * scope so we do a quick lookup in that scope before attempting to
-     * create an iterator, etc. This is solely for performance.
+     * scope so we do a quick lookup in that scope before looking at the
+     * other ones. This is solely for performance.
      * null values must not be handled as "not present".
      */
-    Scope scope = this.stack.getFirst();
+    ArrayList<Scope> stack = this.stack;
+    int index = stack.size() - 1;
+    Scope scope = stack.get(index);
     Object result = scope.get(key);
     if (result != null) {
       return result;
     }
 
-    if (this.stack.size() > 1) {
+    if (index > 0) {
       if (scope.isLocal() || scope.containsKey(key)) {
         // key could be defined with null and override another value below in the stack
         return null;
       }
-      Iterator<Scope> iterator = this.stack.iterator();
-      // account for the first lookup we did
-      iterator.next();
 
-      while (iterator.hasNext()) {
-        scope = iterator.next();
+      // account for the first lookup we did
+      for (index--; index >= 0; index--) {
+        scope = stack.get(index);
         result = scope.get(key);
         if (result != null) {
           return result;
@@ -157,27 +183,8 @@ public class ScopeChain {
    * exists.
    */
   public boolean containsKey(String key) {
-
-    /*
-     * The majority of time, the requested variable will be in the first
-     * scope so we do a quick lookup in that scope before attempting to
-     * create an iterator, etc. This is solely for performance.
-     */
-    Scope scope = this.stack.getFirst();
-    if (scope.containsKey(key)) {
-      return true;
-    }
-    if (scope.isLocal()) {
-      return false;
-    }
-
-    Iterator<Scope> iterator = this.stack.iterator();
-
-    // account for the first lookup we did
-    iterator.next();
-
-    while (iterator.hasNext()) {
-      scope = iterator.next();
+    for (int index = this.stack.size() - 1; index >= 0; index--) {
+      Scope scope = this.stack.get(index);
 
       if (scope.containsKey(key)) {
         return true;
@@ -197,7 +204,7 @@ public class ScopeChain {
    * @return Whether or not the variable exists in the current scope
    */
   public boolean currentScopeContainsVariable(String variableName) {
-    return this.stack.getFirst().containsKey(variableName);
+    return this.current().containsKey(variableName);
   }
 
   /**
@@ -208,24 +215,8 @@ public class ScopeChain {
    * @param value The value of the variable
    */
   public void set(String key, Object value) {
-    /*
-     * The majority of time, the requested variable will be in the first
-     * scope so we do a quick lookup in that scope before attempting to
-     * create an iterator, etc. This is solely for performance.
-     */
-    Scope scope = this.stack.getFirst();
-    if (scope.isLocal() || scope.containsKey(key)) {
-      scope.put(key, value);
-      return;
-    }
-
-    Iterator<Scope> iterator = this.stack.iterator();
-
-    // account for the first lookup we did
-    iterator.next();
-
-    while (iterator.hasNext()) {
-      scope = iterator.next();
+    for (int index = this.stack.size() - 1; index >= 0; index--) {
+      Scope scope = this.stack.get(index);
 
       if (scope.isLocal() || scope.containsKey(key)) {
         scope.put(key, value);
@@ -239,9 +230,8 @@ public class ScopeChain {
 
   public List<Scope> getGlobalScopes() {
     List<Scope> globalScopes = new ArrayList<>();
-    Iterator<Scope> iterator = this.stack.iterator();
-    while (iterator.hasNext()) {
-      Scope scope = iterator.next();
+    for (int index = this.stack.size() - 1; index >= 0; index--) {
+      Scope scope = this.stack.get(index);
       if (scope.isLocal()) {
         globalScopes.clear();
       } else {
@@ -251,4 +241,8 @@ public class ScopeChain {
 
     return globalScopes;
   }
+
+  private Scope current() {
+    return this.stack.get(this.stack.size() - 1);
+  }
 }
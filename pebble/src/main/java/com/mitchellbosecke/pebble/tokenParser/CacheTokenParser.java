@@ -8,6 +8,7 @@
  */
 package com.mitchellbosecke.pebble.tokenParser;
 
+import com.mitchellbosecke.pebble.error.ParserException;
 import com.mitchellbosecke.pebble.lexer.Token;
 import com.mitchellbosecke.pebble.lexer.TokenStream;
 import com.mitchellbosecke.pebble.node.BodyNode;
@@ -25,6 +26,12 @@ public class CacheTokenParser implements TokenParser {
 
   public static final String TAG_NAME = "cache";
 
+  private static final String TTL = "ttl";
+
+  private static final String GROUPS = "groups";
+
+  private static final String REFRESH = "refresh";
+
   @Override
   public String getTag() {
     return TAG_NAME;
@@ -40,8 +47,30 @@ public class CacheTokenParser implements TokenParser {
 
     Expression<?> expression = parser.getExpressionParser().parseExpression();
 
-    // Skip the expression
-    stream.next();
+    // optional options, e.g. {% cache 'menu' ttl=60 refresh=10 groups=['navigation'] %}
+    Expression<?> timeToLive = null;
+    Expression<?> groups = null;
+    Expression<?> refresh = null;
+    while (stream.current().test(Token.Type.NAME)
+        && stream.peek().test(Token.Type.PUNCTUATION, "=")) {
+      Token option = stream.current();
+      stream.next();
+      stream.next();
+      if (TTL.equals(option.getValue())) {
+        timeToLive = parser.getExpressionParser().parseExpression();
+      } else if (GROUPS.equals(option.getValue())) {
+        groups = parser.getExpressionParser().parseExpression();
+      } else if (REFRESH.equals(option.getValue())) {
+        refresh = parser.getExpressionParser().parseExpression();
+      } else {
+        throw new ParserException(null, "Unknown option \"" + option.getValue()
+            + "\" of the cache tag, expected \"" + TTL + "\", \"" + GROUPS + "\" or \""
+            + REFRESH + "\"",
+            option.getLineNumber(), stream.getFilename());
+      }
+    }
+
+    stream.expect(Token.Type.EXECUTE_END);
 
     // now we parse the cache body
     BodyNode cacheBody = parser.subparse(tkn -> tkn.test(Token.Type.NAME, "endcache"));
@@ -50,6 +79,6 @@ public class CacheTokenParser implements TokenParser {
     stream.next();
 
     stream.expect(Token.Type.EXECUTE_END);
-    return new CacheNode(lineNumber, expression, cacheBody);
+    return new CacheNode(lineNumber, expression, cacheBody, timeToLive, groups, refresh);
   }
 }
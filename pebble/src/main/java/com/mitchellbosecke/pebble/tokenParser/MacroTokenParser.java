@@ -30,6 +30,13 @@ public class MacroTokenParser implements TokenParser {
 
     ArgumentsNode args = parser.getExpressionParser().parseArguments(true);
 
+    // the output of a cached macro only depends on its arguments
+    boolean cached = false;
+    if (stream.current().test(Token.Type.NAME, "cached")) {
+      cached = true;
+      stream.next();
+    }
+
     stream.expect(Token.Type.EXECUTE_END);
 
     // parse the body
@@ -40,7 +47,7 @@ public class MacroTokenParser implements TokenParser {
 
     stream.expect(Token.Type.EXECUTE_END);
 
-    return new MacroNode(macroName, args, body);
+    return new MacroNode(macroName, args, body, cached);
   }
 
   @Override
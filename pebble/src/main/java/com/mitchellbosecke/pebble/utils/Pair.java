@@ -8,12 +8,17 @@
  */
 package com.mitchellbosecke.pebble.utils;
 
+import java.io.Serializable;
+
 /**
- * A small utility class used to pair relevant objects together.
+ * A small utility class used to pair relevant objects together. It is serializable as long as the
+ * paired objects are, as it is part of some nodes.
  *
  * @author Mitchell
  */
-public class Pair<L, R> {
+public class Pair<L, R> implements Serializable {
+
+  private static final long serialVersionUID = -1381605157208249516L;
 
   private final L left;
 
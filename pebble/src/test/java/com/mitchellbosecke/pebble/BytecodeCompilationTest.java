@@ -0,0 +1,204 @@
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.mitchellbosecke.pebble.extension.AbstractExtension;
+import com.mitchellbosecke.pebble.extension.Function;
+import com.mitchellbosecke.pebble.loader.ClasspathLoader;
+import com.mitchellbosecke.pebble.loader.Loader;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.EvaluationContext;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+/**
+ * Renders templates with and without {@link PebbleEngine.Builder#compileToBytecode(boolean)} and
+ * makes sure that the output (or the error) is exactly the same.
+ */
+public class BytecodeCompilationTest {
+
+  private static final List<String> STRING_TEMPLATES = Arrays.asList(
+      "plain text only",
+      "{{ name }} and {{ missing }} and {{ number + 1 }}",
+      "{% if number > 5 %}big{% elseif number > 1 %}medium{% else %}small{% endif %}",
+      "{% if missing %}yes{% endif %}no",
+      "{% if 'abc' %}string{% endif %}{% if 0 %}zero{% else %}not zero{% endif %}",
+      "{% if names %}list{% endif %}",
+      "{% for n in names %}{{ loop.index }}:{{ n }}{% if loop.first %}(first){% endif %}"
+          + "{% if loop.last %}(last){% endif %}/{{ loop.length }}/{{ loop.revindex }} {% endfor %}",
+      "{% for n in empty %}{{ n }}{% else %}empty{% endfor %}",
+      "{% for n in missing %}{{ n }}{% else %}never{% endfor %}after",
+      "{% for n in number %}{{ n }}{% endfor %}",
+      "{% for k in map %}{{ k.key }}={{ k.value }};{% endfor %}",
+      "{% for i in range(1, 3) %}{% for j in range(1, i) %}{{ i * j }} {% endfor %}|{% endfor %}",
+      "{% set x = 1 %}{% for n in names %}{% set x = x + 1 %}{% endfor %}{{ x }}",
+      "{% macro m(a, b='def') %}<{{ a }}-{{ b }}>{% endmacro %}{{ m('x') }}{{ m(number, 'y') }}",
+      "{% block outer %}o{% block inner %}i{% endblock %}{% endblock %}",
+      "{% autoescape 'html' %}{{ '<b>' }}{% endautoescape %}{{ '<i>' }}{{ '<u>' | raw }}",
+      "{% filter upper %}text {{ name }}{% endfilter %}",
+      "{{ names | join(', ') }} {{ map['a'] }} {{ number is even }}",
+      "{% verbatim %}{{ raw }}{% endverbatim %}   {{- name -}}   x");
+
+  @Test
+  public void testStringTemplates() throws Exception {
+    for (String source : STRING_TEMPLATES) {
+      assertSameOutput(new StringLoader(), source, false);
+      assertSameOutput(new StringLoader(), source, true);
+    }
+  }
+
+  @Test
+  public void testClasspathTemplates() throws Exception {
+    List<String> names = new ArrayList<>(Arrays.asList(
+        "templates/template.child.peb",
+        "templates/template.grandfather.peb",
+        "templates/template.macro1.peb",
+        "templates/template.macro.child.peb",
+        "templates/template.include1.peb",
+        "templates/template.includeInheritance1.peb",
+        "templates/template.includeOverrideBlock.peb",
+        "templates/template.set.child.peb",
+        "templates/template.dynamicChild.peb",
+        "templates/template.escapeCharactersInText.peb",
+        "templates/macros/index.peb",
+        "templates/macros/from.peb"));
+    for (int i = 0; i <= 18; i++) {
+      names.add("templates/embed/test" + i + "/template.peb");
+    }
+    for (String name : names) {
+      assertSameOutput(new ClasspathLoader(), name, false);
+      assertSameOutput(new ClasspathLoader(), name, true);
+    }
+  }
+
+  @Test
+  public void testLargeTemplateIsSplitOverSeveralMethods() throws Exception {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 400; i++) {
+      source.append("line ").append(i).append(" {{ name }}\n");
+      if (i % 10 == 0) {
+        source.append("{% for n in names %}{% if loop.index > 0 %}");
+        for (int j = 0; j < 60; j++) {
+          source.append("{{ n }}").append(j);
+        }
+        source.append("{% else %}first{% endif %}{% endfor %}");
+      }
+    }
+    assertSameOutput(new StringLoader(), source.toString(), false);
+
+    source.append("{{ caller() }}");
+    assertTrue(generatedRenderMethods(renderWithCaller(source.toString())) > 1);
+  }
+
+  @Test
+  public void testRootBodyTooLargeForOneMethodIsCompiled() throws Exception {
+    // unsplit, the root body would need far more than the 64K bytes of code a method can hold
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 6000; i++) {
+      source.append("text ").append(i).append(" {{ name }}");
+    }
+    assertSameOutput(new StringLoader(), source.toString(), true);
+
+    source.append("{{ caller() }}");
+    assertTrue(generatedRenderMethods(renderWithCaller(source.toString())) > 1);
+  }
+
+  @Test
+  public void testGeneratedCodeIsUsed() throws Exception {
+    String output = renderWithCaller("{% if true %}{{ caller() }}{% endif %}");
+    assertTrue(output, output.contains("com.mitchellbosecke.pebble.compiler.generated.Template"));
+  }
+
+  /**
+   * Counts the distinct render methods of the generated class on the stack recorded by {@link
+   * CallerFunction}, apart from the public one which dispatches to the entries.
+   */
+  private static long generatedRenderMethods(String stack) {
+    return Arrays.stream(stack.split("\n"))
+        .filter(frame -> frame.matches("com\\.mitchellbosecke\\.pebble\\.compiler\\.generated"
+            + "\\.Template\\d+#render\\d+"))
+        .distinct()
+        .count();
+  }
+
+  private static String renderWithCaller(String source) throws Exception {
+    PebbleEngine pebble = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .compileToBytecode(true)
+        .extension(new AbstractExtension() {
+          @Override
+          public Map<String, Function> getFunctions() {
+            return Collections.singletonMap("caller", new CallerFunction());
+          }
+        })
+        .build();
+
+    StringWriter writer = new StringWriter();
+    pebble.getTemplate(source).evaluate(writer, context());
+    return writer.toString();
+  }
+
+  private static void assertSameOutput(Loader<?> loader, String name, boolean strictVariables) {
+    String interpreted = render(loader, name, strictVariables, false);
+    String compiled = render(loader, name, strictVariables, true);
+    assertEquals("Output of " + name, interpreted, compiled);
+  }
+
+  private static String render(Loader<?> loader, String name, boolean strictVariables,
+      boolean compileToBytecode) {
+    PebbleEngine pebble = new PebbleEngine.Builder()
+        .loader(loader)
+        .strictVariables(strictVariables)
+        .compileToBytecode(compileToBytecode)
+        .build();
+    try {
+      StringWriter writer = new StringWriter();
+      PebbleTemplate template = pebble.getTemplate(name);
+      template.evaluate(writer, context());
+      return writer.toString();
+    } catch (Exception e) {
+      return e.getClass().getName() + ": " + e.getMessage();
+    }
+  }
+
+  private static Map<String, Object> context() {
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", "Pebble <&>");
+    context.put("number", 3);
+    context.put("names", Arrays.asList("Alex", "Bob", "Carl"));
+    context.put("empty", Collections.emptyList());
+    Map<String, Object> map = new LinkedHashMap<>();
+    map.put("a", 1);
+    map.put("b", "two");
+    context.put("map", map);
+    return context;
+  }
+
+  public static class CallerFunction implements Function {
+
+    @Override
+    public List<String> getArgumentNames() {
+      return null;
+    }
+
+    @Override
+    public Object execute(Map<String, Object> args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      StringBuilder stack = new StringBuilder();
+      for (StackTraceElement element : new Throwable().getStackTrace()) {
+        stack.append(element.getClassName()).append('#').append(element.getMethodName())
+            .append('\n');
+      }
+      return stack.toString();
+    }
+  }
+}
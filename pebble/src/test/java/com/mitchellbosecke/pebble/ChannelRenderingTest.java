@@ -0,0 +1,220 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.extension.writer.ByteBufferPool;
+import com.mitchellbosecke.pebble.extension.writer.GatheringChannelWriter;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class ChannelRenderingTest {
+
+  private static final String STATIC_TEXT = repeat("<li>Ünïcödé static text</li>", 20);
+
+  @Test
+  public void testStaticTextAndDynamicOutputAreWrittenInOneBatch() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = engine.getTemplate(STATIC_TEXT + "{{ name }}" + STATIC_TEXT);
+    RecordingChannel channel = new RecordingChannel(7);
+
+    template.evaluate(channel, StandardCharsets.UTF_8, this.context());
+
+    assertEquals(STATIC_TEXT + "Zoë 😀" + STATIC_TEXT, channel.toString());
+    assertEquals(1, channel.batches);
+    assertEquals(3, channel.largestBatch);
+    assertTrue(channel.writes > 1);
+  }
+
+  @Test
+  public void testLargeDynamicOutputIsWrittenCompletely() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = engine.getTemplate(
+        "{% for i in range(1, 3000) %}{{ name }}<br>{% endfor %}" + STATIC_TEXT);
+    RecordingChannel channel = new RecordingChannel(Integer.MAX_VALUE);
+
+    template.evaluate(channel, StandardCharsets.UTF_8, this.context());
+
+    assertEquals(repeat("Zoë 😀<br>", 3000) + STATIC_TEXT, channel.toString());
+    assertTrue(channel.batches > 1);
+  }
+
+  @Test
+  public void testBufferIsReturnedToThePool() throws IOException {
+    ByteBufferPool pool = new ByteBufferPool(1024, 1);
+    GatheringChannelWriter writer =
+        new GatheringChannelWriter(new RecordingChannel(100), StandardCharsets.UTF_8, pool);
+    writer.write("text");
+    writer.finish();
+
+    ByteBuffer buffer = pool.acquire();
+    assertTrue(buffer.isDirect());
+    assertEquals(0, buffer.position());
+    assertNotSame(buffer, pool.acquire());
+    pool.release(buffer);
+    assertSame(buffer, pool.acquire());
+  }
+
+  @Test
+  public void testOutputBeforeAFailureIsWritten() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+    PebbleTemplate template = engine.getTemplate(STATIC_TEXT + "{{ name }} {{ missing }}");
+    RecordingChannel channel = new RecordingChannel(7);
+
+    try {
+      template.evaluate(channel, StandardCharsets.UTF_8, this.context());
+      fail("expected a failure of the evaluation");
+    } catch (PebbleException e) {
+      assertEquals(STATIC_TEXT + "Zoë 😀 ", channel.toString());
+    }
+  }
+
+  @Test
+  public void testBufferIsReturnedToThePoolWhenTheChannelFails() throws IOException {
+    ByteBufferPool pool = new ByteBufferPool(1024, 1);
+    ByteBuffer buffer = pool.acquire();
+    pool.release(buffer);
+    GatheringChannelWriter writer =
+        new GatheringChannelWriter(new FailingChannel(), StandardCharsets.UTF_8, pool);
+    writer.write("text");
+
+    try {
+      writer.finish();
+      fail("expected a failure of the channel");
+    } catch (IOException e) {
+      assertSame(buffer, pool.acquire());
+    }
+  }
+
+  private Map<String, Object> context() {
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", "Zoë 😀");
+    return context;
+  }
+
+  private static String repeat(String text, int times) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < times; i++) {
+      builder.append(text);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Records the gathering writes, each of which writes a limited number of bytes like a slow
+   * socket.
+   */
+  private static class RecordingChannel implements GatheringByteChannel {
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private final int bytesPerWrite;
+
+    private final List<ByteBuffer[]> seen = new ArrayList<>();
+
+    private int writes;
+
+    private int batches;
+
+    private int largestBatch;
+
+    private RecordingChannel(int bytesPerWrite) {
+      this.bytesPerWrite = bytesPerWrite;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) {
+      this.writes++;
+      if (!this.seen.contains(srcs)) {
+        this.seen.add(srcs);
+        this.batches++;
+        this.largestBatch = Math.max(this.largestBatch, length);
+      }
+      long written = 0;
+      for (int i = offset; i < offset + length && written < this.bytesPerWrite; i++) {
+        while (srcs[i].hasRemaining() && written < this.bytesPerWrite) {
+          this.bytes.write(srcs[i].get());
+          written++;
+        }
+      }
+      return written;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) {
+      return this.write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      return (int) this.write(new ByteBuffer[]{src});
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+      return new String(this.bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * A channel which fails on every write.
+   */
+  private static class FailingChannel implements GatheringByteChannel {
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+      throw new IOException("broken pipe");
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException {
+      return this.write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      return (int) this.write(new ByteBuffer[]{src});
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import com.mitchellbosecke.pebble.extension.AbstractExtension;
+import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.Function;
+import com.mitchellbosecke.pebble.extension.Pure;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.EvaluationContext;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class ConstantFoldingTest {
+
+  private final AtomicInteger pureCalls = new AtomicInteger();
+
+  private final AtomicInteger impureCalls = new AtomicInteger();
+
+  private final PebbleEngine pebble = new PebbleEngine.Builder()
+      .loader(new StringLoader())
+      .strictVariables(true)
+      .extension(new CountingExtension())
+      .build();
+
+  @Test
+  public void testOperatorsOnLiterals() throws IOException {
+    assertEquals("3 abc true [1, 2, 3] a,b1 7.5 false",
+        this.render("{{ 1 + 2 }} {{ 'a' ~ 'b' ~ 'c' }} {{ 2 > 1 and not false }} {{ 1..3 }} "
+            + "{{ (['a', 'b'] | join(',')) ~ ([1] | first) }} {{ 15 / 2.0 }} {{ [1, 2] contains 3 }}"));
+  }
+
+  @Test
+  public void testLiteralListAndMapAreSharedBetweenRenders() throws IOException {
+    String source = "{% set list = [1, [2, 3], {'a': 1 + 1}] %}{{ identity(list) }}";
+    PebbleTemplate template = this.pebble.getTemplate(source);
+    assertEquals(this.render(template), this.render(template));
+  }
+
+  @Test
+  public void testListWithVariableIsNotShared() throws IOException {
+    String source = "{% set list = [1, name] %}{{ identity(list) }}";
+    PebbleTemplate template = this.pebble.getTemplate(source);
+    assertNotSame(this.render(template), this.render(template));
+  }
+
+  @Test
+  public void testPureFilterIsEvaluatedOnce() throws IOException {
+    PebbleTemplate template = this.pebble.getTemplate("{{ 'abc' | pure }} {{ name | pure }}");
+    assertEquals(1, this.pureCalls.get());
+
+    assertEquals("abc Bob", this.render(template));
+    assertEquals("abc Bob", this.render(template));
+    assertEquals(3, this.pureCalls.get());
+  }
+
+  @Test
+  public void testImpureFilterIsEvaluatedOnEveryRender() throws IOException {
+    PebbleTemplate template = this.pebble.getTemplate("{{ 'abc' | impure }}");
+    this.render(template);
+    this.render(template);
+    assertEquals(2, this.impureCalls.get());
+  }
+
+  @Test
+  public void testLocaleSensitiveFilterIsNotFolded() throws IOException {
+    PebbleTemplate template = this.pebble.getTemplate("{{ 'i' | upper }}");
+    StringWriter writer = new StringWriter();
+    template.evaluate(writer, new Locale("tr"));
+    assertEquals("İ", writer.toString());
+  }
+
+  @Test
+  public void testErrorIsReportedWhenRendering() throws IOException {
+    PebbleTemplate template = this.pebble.getTemplate("{{ 1 / 0 }}");
+    try {
+      this.render(template);
+      fail("expected an exception");
+    } catch (RuntimeException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testAutoEscapingIsPreserved() throws IOException {
+    assertEquals("<b>", this.render("{{ '<' ~ 'b>' }}"));
+    assertEquals("&lt;b&gt;", this.render("{{ '<' ~ 'b' ~ '>' }}"));
+    assertEquals("&lt;b&gt;", this.render("{{ ' <b> ' | trim }}"));
+  }
+
+  @Test
+  public void testFiltersDoNotModifyConstantLists() throws IOException {
+    assertEquals("[1, 2, 3] [3, 2, 1] [2, 1, 3] [2, 1, 3, 4] [2, 1, 3]",
+        this.render("{% set list = [2, 1, 3] %}{{ list | sort }} {{ list | rsort }} "
+            + "{{ list | reverse | reverse }} {{ list + 4 }} {{ list }}"));
+  }
+
+  @Test
+  public void testIncludeWithLiteralParameters() throws IOException {
+    // the string loader uses the name of the included template as its source
+    assertEquals("2 Bob", this.render("{% include '{{ a }} {{ name }}' with {'a': 1 + 1} %}"));
+  }
+
+  @Test
+  public void testOnlySmallRangesAreShared() throws IOException {
+    PebbleTemplate small = this.pebble.getTemplate("{{ identity(1..1000) }}");
+    assertEquals(this.render(small), this.render(small));
+    PebbleTemplate large = this.pebble.getTemplate("{{ identity(range(1, 1001)) }}");
+    assertNotSame(this.render(large), this.render(large));
+  }
+
+  @Test
+  public void testLargeRangeIsNotCreatedWhenCompiling() throws IOException {
+    assertEquals("", this.render("{% if false %}{{ 1..2000000000 }}{% endif %}"));
+    assertEquals("[a, c, e]", this.render("{{ range('a', 'e', 2) }}"));
+  }
+
+  private static void assertNotSame(String first, String second) {
+    if (first.equals(second)) {
+      fail("expected different instances but was " + first);
+    }
+  }
+
+  private String render(String source) throws IOException {
+    return this.render(this.pebble.getTemplate(source));
+  }
+
+  private String render(PebbleTemplate template) throws IOException {
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", "Bob");
+    StringWriter writer = new StringWriter();
+    template.evaluate(writer, context);
+    return writer.toString();
+  }
+
+  private class CountingExtension extends AbstractExtension {
+
+    @Override
+    public Map<String, Filter> getFilters() {
+      Map<String, Filter> filters = new HashMap<>();
+      filters.put("pure", new PureFilter());
+      filters.put("impure", new ImpureFilter());
+      return filters;
+    }
+
+    @Override
+    public Map<String, Function> getFunctions() {
+      Map<String, Function> functions = new HashMap<>();
+      functions.put("identity", new IdentityFunction());
+      return functions;
+    }
+  }
+
+  private class PureFilter implements Filter, Pure {
+
+    @Override
+    public List<String> getArgumentNames() {
+      return null;
+    }
+
+    @Override
+    public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      ConstantFoldingTest.this.pureCalls.incrementAndGet();
+      return input;
+    }
+  }
+
+  private class ImpureFilter implements Filter {
+
+    @Override
+    public List<String> getArgumentNames() {
+      return null;
+    }
+
+    @Override
+    public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      ConstantFoldingTest.this.impureCalls.incrementAndGet();
+      return input;
+    }
+  }
+
+  private static class IdentityFunction implements Function {
+
+    @Override
+    public List<String> getArgumentNames() {
+      return null;
+    }
+
+    @Override
+    public Object execute(Map<String, Object> args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      return String.valueOf(System.identityHashCode(args.get("0")));
+    }
+  }
+}
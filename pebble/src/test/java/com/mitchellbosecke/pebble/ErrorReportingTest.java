@@ -56,6 +56,27 @@ public class ErrorReportingTest {
     pebble.getTemplate("test\r\n\r\ntest\r\ntest\r\ntest\r\n{% error %}\r\ntest");
   }
 
+  @Test
+  public void testUnknownFilterIsReportedWhenCompiling() throws PebbleException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    this.thrown.expect(PebbleException.class);
+    this.thrown.expectMessage("Filter [unknown] does not exist.");
+    this.thrown.expectMessage(endsWith(":3)"));
+
+    pebble.getTemplate("{% if false %}\n\n{{ 'a' | unknown }}{% endif %}");
+  }
+
+  @Test
+  public void testUnknownTestIsReportedWhenCompiling() throws PebbleException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    this.thrown.expect(PebbleException.class);
+    this.thrown.expectMessage("Test [unknown] does not exist.");
+
+    pebble.getTemplate("{% macro m() %}{{ 1 is not unknown }}{% endmacro %}");
+  }
+
   @Test
   public void testLineNumberErrorReportingDuringEvaluation() throws PebbleException, IOException {
     //Arrange
@@ -15,6 +15,7 @@ import com.mitchellbosecke.pebble.attributes.ResolvedAttribute;
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.AbstractExtension;
 import com.mitchellbosecke.pebble.extension.Filter;
+import com.mitchellbosecke.pebble.extension.PositionalFilter;
 import com.mitchellbosecke.pebble.loader.StringLoader;
 import com.mitchellbosecke.pebble.template.EvaluationContext;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
@@ -22,6 +23,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +67,69 @@ public class ExtendingPebbleTest {
     assertEquals("hello customAttributeResolver", writer.toString());
   }
 
+  @Test
+  public void testPositionalFilterReceivesArgumentsByPosition()
+      throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .strictVariables(false)
+        .autoEscaping(false)
+        .extension(new CustomExtensionWithPositionalFilter())
+        .build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{{ 'a' | surround('[', ']') }}{{ 'b' | surround(suffix='>') }}"
+            + "{{ 'c' | surround('(', suffix=')') }}{{ 'd' | surroundMap('{', '}') }}");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("[a]b>(c)map:{d}", writer.toString());
+  }
+
+  @Test
+  public void testPositionalFilterCanBeAppliedWithMap() throws PebbleException {
+    Map<String, Object> args = new HashMap<>();
+    args.put("suffix", "!");
+
+    assertEquals("x!", new SurroundFilter().apply("x", args, null, null, 0));
+    assertEquals("x", new SurroundFilter().apply("x", null, null, null, 0));
+  }
+
+  private static final class CustomExtensionWithPositionalFilter extends AbstractExtension {
+
+    @Override
+    public Map<String, Filter> getFilters() {
+      Map<String, Filter> filters = new HashMap<>();
+      filters.put("surround", new SurroundFilter());
+      // overriding the map based method takes precedence over the positional one
+      filters.put("surroundMap", new SurroundFilter() {
+
+        @Override
+        public Object apply(Object input, Map<String, Object> args, PebbleTemplate self,
+            EvaluationContext context, int lineNumber) {
+          return "map:" + super.apply(input, args, self, context, lineNumber);
+        }
+      });
+      return filters;
+    }
+  }
+
+  private static class SurroundFilter implements PositionalFilter {
+
+    @Override
+    public List<String> getArgumentNames() {
+      return Arrays.asList("prefix", "suffix");
+    }
+
+    @Override
+    public Object invoke(Object input, Object[] args, PebbleTemplate self,
+        EvaluationContext context, int lineNumber) {
+      String prefix = args[0] == null ? "" : (String) args[0];
+      String suffix = args[1] == null ? "" : (String) args[1];
+      return prefix + input + suffix;
+    }
+  }
+
   private static final class CustomExtensionWithFilter extends AbstractExtension {
 
     @Override
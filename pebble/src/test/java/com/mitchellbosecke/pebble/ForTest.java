@@ -13,6 +13,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import org.junit.Test;
 
 public class ForTest {
@@ -65,6 +67,69 @@ public class ForTest {
     }
   }
 
+  @Test
+  public void testLoopVariablesOfNestedLoops() throws IOException {
+    assertEquals("1a 1b 2a 2b 1a/1 ",
+        render("{% for i in [1, 2] %}{% for j in ['a', 'b'] %}{{ i }}{{ j }} {% endfor %}{% endfor %}"
+            + "{% for i in [1] %}{% for i in ['a'] %}{{ loop.index + 1 }}{{ i }}{% endfor %}"
+            + "/{{ i }} {% endfor %}", false));
+  }
+
+  @Test
+  public void testSetInLoopUpdatesEnclosingVariable() throws IOException {
+    assertEquals("6 3",
+        render("{% set total = 0 %}{% for i in [1, 2, 3] %}{% set total = total + i %}"
+            + "{% set last = i %}{% endfor %}{{ total }} {{ last }}{% set last = 3 %}{{ last }}",
+            false));
+  }
+
+  @Test
+  public void testSetInLoopIsLocalToTheLoop() throws IOException {
+    assertEquals("1,12,|", render(
+        "{% for i in [1, 2] %}{% if i > 1 %}{{ x }}{% endif %}{% set x = i %}{{ x }},{% endfor %}"
+            + "|{{ x }}", false));
+  }
+
+  @Test
+  public void testSetLoopVariable() throws IOException {
+    assertEquals("10 20 null", render(
+        "{% for i in [1, 2] %}{% set i = i * 10 %}{{ i }} {% endfor %}"
+            + "{% for i in [1] %}{% set i = null %}{{ i is null ? 'null' : i }}{% endfor %}", true));
+  }
+
+  @Test
+  public void testLoopVariableNamedLoop() throws IOException {
+    assertEquals("ab", render("{% for loop in ['a', 'b'] %}{{ loop }}{% endfor %}", false));
+  }
+
+  @Test
+  public void testLoopVariableIsNotVisibleInMacro() throws IOException {
+    assertEquals("[][]", render(
+        "{% for i in [1, 2] %}{% macro m() %}[{{ i }}]{% endmacro %}{{ m() }}{% endfor %}", false));
+  }
+
+  @Test
+  public void testLoopVariableInIncludeAndParallel() throws IOException {
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .executorService(executorService).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% for i in [1, 2] %}{% include '{{ i }}' %}{% parallel %}{{ i }}{% endparallel %}"
+            + "{% endfor %}");
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    executorService.shutdown();
+    assertEquals("1122", writer.toString());
+  }
+
+  private static String render(String source, boolean strictVariables) throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(strictVariables).build();
+    Writer writer = new StringWriter();
+    pebble.getTemplate(source).evaluate(writer);
+    return writer.toString();
+  }
+
   public static class User {
     public final String username;
 
@@ -0,0 +1,259 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mitchellbosecke.pebble.cache.CacheKey;
+import com.mitchellbosecke.pebble.cache.tag.CaffeineTagCache;
+import com.mitchellbosecke.pebble.cache.tag.OffHeapTagCache;
+import com.mitchellbosecke.pebble.cache.tag.RefreshableFragment;
+import com.mitchellbosecke.pebble.error.ParserException;
+import com.mitchellbosecke.pebble.extension.writer.EncodedWriter;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FragmentCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String GROUPED = "{% cache 'products' groups=['listing', 'catalog'] %}"
+      + "{{ value }}{% endcache %} {% cache 'menu' groups='navigation' %}{{ value }}{% endcache %}";
+
+  @Test
+  public void testFragmentExpiresAfterItsTimeToLive() throws IOException, InterruptedException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    String source = "{% cache 'fragment' ttl=0.05 %}{{ value }}{% endcache %}";
+
+    assertEquals("1", this.render(engine, source, 1));
+    assertEquals("1", this.render(engine, source, 2));
+    Thread.sleep(100);
+    assertEquals("3", this.render(engine, source, 3));
+  }
+
+  @Test
+  public void testFragmentExpiresAfterItsTimeToLiveInCaffeine() throws IOException {
+    AtomicLong time = new AtomicLong();
+    Cache<CacheKey, Object> cache = Caffeine.newBuilder()
+        .executor(Runnable::run)
+        .ticker(time::get)
+        .weigher(CaffeineTagCache.weigher())
+        .maximumWeight(CaffeineTagCache.DEFAULT_MAXIMUM_WEIGHT)
+        .expireAfter(CaffeineTagCache.expiry())
+        .build();
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(new CaffeineTagCache(cache))
+        .build();
+    String source = "{% cache 'fragment' ttl=60 %}{{ value }}{% endcache %}"
+        + "{% cache 'other' %}{{ value }}{% endcache %}";
+
+    assertEquals("11", this.render(engine, source, 1));
+    time.addAndGet(TimeUnit.SECONDS.toNanos(59));
+    assertEquals("11", this.render(engine, source, 2));
+    time.addAndGet(TimeUnit.SECONDS.toNanos(2));
+    assertEquals("31", this.render(engine, source, 3));
+  }
+
+  @Test
+  public void testFragmentsAreWeighedByTheirLengthInUtf8() {
+    assertEquals(10, CaffeineTagCache.weigher().weigh(null, "aé€😀"));
+  }
+
+  @Test
+  public void testFragmentsAreInvalidatedByGroup() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    assertEquals("1 1", this.render(engine, GROUPED, 1));
+    engine.invalidateFragmentGroup("catalog");
+    assertEquals("2 1", this.render(engine, GROUPED, 2));
+    engine.invalidateFragmentGroup("navigation");
+    assertEquals("2 3", this.render(engine, GROUPED, 3));
+  }
+
+  @Test
+  public void testFragmentsAreInvalidatedByName() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    assertEquals("1 1", this.render(engine, GROUPED, 1));
+    engine.invalidateFragments("menu");
+    assertEquals("1 2", this.render(engine, GROUPED, 2));
+  }
+
+  @Test
+  public void testStaleFragmentIsServedWhileItIsRefreshed()
+      throws IOException, InterruptedException {
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .executorService(executorService)
+        .build();
+    String source = "{% cache 'fragment' refresh=0.5 %}{{ value }}{% endcache %}";
+
+    assertEquals("1", this.render(engine, source, 1));
+    assertEquals("1", this.render(engine, source, 2));
+    Thread.sleep(600);
+    assertEquals("1", this.render(engine, source, 3));
+
+    executorService.shutdown();
+    assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals("3", this.render(engine, source, 4));
+  }
+
+  @Test
+  public void testFragmentIsRefreshedInlineWithoutExecutorService()
+      throws IOException, InterruptedException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    String source = "{% cache 'fragment' refresh=0.05 %}{{ value }}{% endcache %}";
+
+    assertEquals("1", this.render(engine, source, 1));
+    Thread.sleep(100);
+    assertEquals("2", this.render(engine, source, 2));
+    assertEquals("2", this.render(engine, source, 3));
+  }
+
+  @Test
+  public void testRefreshIsClaimedOnce() {
+    RefreshableFragment fragment = new RefreshableFragment("fragment", 0);
+
+    assertTrue(fragment.claimRefresh());
+    assertFalse(fragment.claimRefresh());
+    fragment.releaseRefresh();
+    assertTrue(fragment.claimRefresh());
+  }
+
+  @Test
+  public void testOffHeapFragmentIsStreamedToEncodedWriter() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(new OffHeapTagCache(1024))
+        .build();
+    String source = "{% cache 'fragment' %}{{ value }}{% endcache %}";
+
+    for (String expected : new String[]{"é1", "é1"}) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      EncodingWriter writer = new EncodingWriter(bytes);
+      Map<String, Object> context = new HashMap<>();
+      context.put("value", "é1");
+      engine.getTemplate(source).evaluate(writer, context);
+      writer.flush();
+
+      assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+      assertEquals(1, writer.encodedWrites);
+    }
+  }
+
+  @Test
+  public void testOldestOffHeapFragmentsAreEvicted() throws IOException {
+    OffHeapTagCache cache = new OffHeapTagCache(10);
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(cache)
+        .build();
+    String first = "{% cache 'first' %}{{ value }}{% endcache %}";
+    String second = "{% cache 'second' %}{{ value }}{% endcache %}";
+
+    assertEquals("12345678", this.render(engine, first, "12345678"));
+    assertEquals("abcdefgh", this.render(engine, second, "abcdefgh"));
+    assertEquals(8, cache.size());
+    assertEquals("ABCDEFGH", this.render(engine, first, "ABCDEFGH"));
+    assertEquals("ijklmnop", this.render(engine, second, "ijklmnop"));
+    assertEquals(8, cache.size());
+  }
+
+  @Test
+  public void testOffHeapFragmentsSurviveRestarts() throws IOException {
+    File directory = this.folder.newFolder("fragments");
+    String source = "{% cache 'fragment' ttl=60 %}{{ value }}{% endcache %}";
+
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(new OffHeapTagCache(1024, directory.toPath()))
+        .build();
+    assertEquals("1", this.render(engine, source, 1));
+
+    OffHeapTagCache cache = new OffHeapTagCache(1024, directory.toPath());
+    PebbleEngine restarted = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(cache)
+        .build();
+    assertEquals("1", this.render(restarted, source, 2));
+
+    cache.invalidateAll();
+    assertEquals(0, directory.list().length);
+    assertEquals("3", this.render(restarted, source, 3));
+  }
+
+  @Test(expected = ParserException.class)
+  public void testUnknownOptionIsRejected() {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    engine.getTemplate("{% cache 'fragment' expires=60 %}{% endcache %}");
+  }
+
+  /**
+   * Encodes into a stream like an {@link java.io.OutputStreamWriter}, and counts the content
+   * written to it already encoded.
+   */
+  private static class EncodingWriter extends OutputStreamWriter implements EncodedWriter {
+
+    private final OutputStream out;
+
+    private int encodedWrites;
+
+    private EncodingWriter(OutputStream out) {
+      super(out, StandardCharsets.UTF_8);
+      this.out = out;
+    }
+
+    @Override
+    public Charset getCharset() {
+      return StandardCharsets.UTF_8;
+    }
+
+    @Override
+    public void writeEncoded(ByteBuffer encoded) throws IOException {
+      this.flush();
+      ByteBuffer bytes = encoded.duplicate();
+      while (bytes.hasRemaining()) {
+        this.out.write(bytes.get());
+      }
+      this.encodedWrites++;
+    }
+  }
+
+  private String render(PebbleEngine engine, String source, Object value) throws IOException {
+    Map<String, Object> context = new HashMap<>();
+    context.put("value", value);
+    StringWriter writer = new StringWriter();
+    engine.getTemplate(source).evaluate(writer, context);
+    return writer.toString();
+  }
+}
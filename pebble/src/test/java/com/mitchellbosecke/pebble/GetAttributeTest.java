@@ -8,6 +8,7 @@
  */
 package com.mitchellbosecke.pebble;
 
+import com.mitchellbosecke.pebble.attributes.DefaultAttributeResolver;
 import com.mitchellbosecke.pebble.error.AttributeNotFoundException;
 import com.mitchellbosecke.pebble.error.ClassAccessException;
 import com.mitchellbosecke.pebble.error.PebbleException;
@@ -21,6 +22,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -809,6 +811,59 @@ public class GetAttributeTest {
   }
 
 
+  @Test
+  public void testPolymorphicAttributeAccessInLoop() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{% for object in objects %}{{ object.name }},{% endfor %}");
+    Map<String, Object> context = new HashMap<>();
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", "map");
+    context.put("objects", Arrays.asList(new SimpleObject(), new SimpleObject4(),
+        new CustomizableObject("a"), map, new SimpleObject5(), new SimpleObject6(),
+        new SimpleObject8(), new CustomizableObject("b"), new SimpleObject(), map));
+
+    for (int i = 0; i < 2; i++) {
+      Writer writer = new StringWriter();
+      template.evaluate(writer, context);
+      assertEquals("Steve,Steve,a,map,Steve,Steve,true,b,Steve,map,", writer.toString());
+    }
+  }
+
+  @Test
+  public void testAttributeAccessWithChangingArgumentTypes() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{% for n in numbers %}{{ object.number(n) }},{% endfor %}");
+    Map<String, Object> context = new HashMap<>();
+    context.put("object", new BeanWithMethodsThatHaveArguments());
+    context.put("numbers", Arrays.asList(2L, 2.5D, 3L, 1.5D));
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer, context);
+    assertEquals("2,5.0,3,3.0,", writer.toString());
+  }
+
+  @Test
+  public void testAttributeAccessWithDynamicAttributeName() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{% for key in keys %}{{ object[key] }},{% endfor %}");
+    Map<String, Object> context = new HashMap<>();
+    context.put("object", new Person());
+    context.put("keys", Arrays.asList("name", "surname", "name"));
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer, context);
+    assertEquals("Name,Surname,Name,", writer.toString());
+  }
+
   public class Person {
 
     public final String name = "Name";
@@ -978,6 +1033,93 @@ public class GetAttributeTest {
     assertEquals("hello ", writer.toString());
   }
 
+  @Test
+  public void testGeneratedAndReflectiveAccessorsAgree() throws PebbleException, IOException {
+    String source = "{{ object.name }} {{ primitives.stringFromLongs(1, 2) }} "
+        + "{{ primitives.stringFromBoolean(true) }} {{ hidden.name }} {{ hidden.count }} "
+        + "{{ hidden.version }} {{ hidden.reset }} {{ hidden.add(1, 2) }}";
+    String expected = "Steve 1 2 true hidden 42 1.0  3";
+    assertEquals(expected, this.renderWithAccessors(source, true));
+    assertEquals(expected, this.renderWithAccessors(source, false));
+  }
+
+  @Test
+  public void testExceptionInGeneratedAccessorIsWrappedLikeReflection() throws IOException {
+    for (boolean generate : new boolean[]{true, false}) {
+      try {
+        this.renderWithAccessors("{{ hidden.broken }}", generate);
+        fail("expected an exception");
+      } catch (RuntimeException e) {
+        assertEquals(java.lang.reflect.InvocationTargetException.class, e.getCause().getClass());
+        assertEquals("broken", e.getCause().getCause().getMessage());
+      }
+    }
+  }
+
+  private String renderWithAccessors(String source, boolean generateAttributeAccessors)
+      throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).generateAttributeAccessors(generateAttributeAccessors).build();
+
+    Map<String, Object> context = new HashMap<>();
+    context.put("object", new SimpleObject());
+    context.put("primitives", new PrimitiveArguments());
+    context.put("hidden", new HiddenObject());
+
+    Writer writer = new StringWriter();
+    pebble.getTemplate(source).evaluate(writer, context);
+    return writer.toString();
+  }
+
+  private static class HiddenObject {
+
+    public static final String VERSION = "1.0";
+
+    public final int count = 42;
+
+    public String getName() {
+      return "hidden";
+    }
+
+    public static String getVersion() {
+      return VERSION;
+    }
+
+    public void reset() {
+    }
+
+    public long add(long first, Long second) {
+      return first + second;
+    }
+
+    public String getBroken() {
+      throw new IllegalStateException("broken");
+    }
+  }
+
+  @Test
+  public void testMissingAttributeIsOnlyReflectedOnce() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+    DefaultAttributeResolver resolver = (DefaultAttributeResolver) pebble.getExtensionRegistry()
+        .getAttributeResolver().get(0);
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{{ object.missing }}{{ object.name }}{{ object.missing }}{{ map.missing }}");
+    Map<String, Object> context = new HashMap<>();
+    context.put("object", new SimpleObject());
+    context.put("map", new HashMap<>());
+
+    for (int i = 0; i < 3; i++) {
+      Writer writer = new StringWriter();
+      template.evaluate(writer, context);
+      assertEquals("Steve", writer.toString());
+    }
+    assertEquals(2, resolver.getReflectiveLookups());
+    assertEquals(5, resolver.getMissingMemberHits());
+    assertEquals(0, resolver.getReflectiveAccessors());
+  }
+
   public class PrimitiveArguments {
 
     public String getStringFromLong(long id) {
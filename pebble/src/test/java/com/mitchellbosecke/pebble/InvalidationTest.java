@@ -0,0 +1,149 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.mitchellbosecke.pebble.cache.CacheKey;
+import com.mitchellbosecke.pebble.cache.macro.NoOpMacroCache;
+import com.mitchellbosecke.pebble.cache.tag.ConcurrentMapTagCache;
+import com.mitchellbosecke.pebble.cache.template.ConcurrentMapTemplateCache;
+import com.mitchellbosecke.pebble.loader.FileLoader;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.Macro;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class InvalidationTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File templates;
+
+  private ConcurrentMap<CacheKey, Object> fragments = new ConcurrentHashMap<>();
+
+  private PebbleEngine engine;
+
+  @Before
+  public void setUp() throws IOException {
+    this.templates = this.folder.newFolder("templates");
+    this.write("base", "[{% block content %}base{% endblock %}]");
+    this.write("partial", "partial v1");
+    this.write("page",
+        "{% extends 'base' %}{% block content %}{% include 'partial' %}{% endblock %}");
+    this.write("subpage", "{% extends 'page' %}");
+    this.write("cached", "{% cache 'fragment' %}{% include 'partial' %}{% endcache %}");
+    this.write("other", "other");
+
+    FileLoader loader = new FileLoader();
+    loader.setPrefix(this.templates.getAbsolutePath());
+    this.engine = new PebbleEngine.Builder()
+        .loader(loader)
+        .tagCache(new ConcurrentMapTagCache(this.fragments))
+        .build();
+  }
+
+  @Test
+  public void testDependentTemplatesAreInvalidated() throws IOException {
+    PebbleTemplate page = this.engine.getTemplate("page");
+    PebbleTemplate other = this.engine.getTemplate("other");
+    assertEquals("[partial v1]", this.render("subpage"));
+
+    this.write("partial", "partial v2");
+    assertEquals("[partial v1]", this.render("subpage"));
+
+    this.engine.invalidate("partial");
+
+    assertEquals("[partial v2]", this.render("subpage"));
+    assertNotSame(page, this.engine.getTemplate("page"));
+    assertSame(other, this.engine.getTemplate("other"));
+  }
+
+  @Test
+  public void testTemplatesWhichAreReferencedAreNotInvalidated() throws IOException {
+    PebbleTemplate base = this.engine.getTemplate("base");
+    PebbleTemplate partial = this.engine.getTemplate("partial");
+    this.render("subpage");
+
+    this.engine.invalidate("page");
+
+    assertSame(base, this.engine.getTemplate("base"));
+    assertSame(partial, this.engine.getTemplate("partial"));
+  }
+
+  @Test
+  public void testCachedFragmentsOfDependentTemplatesAreInvalidated() throws IOException {
+    assertEquals("partial v1", this.render("cached"));
+    assertEquals(1, this.fragments.size());
+
+    this.write("partial", "partial v2");
+    this.engine.invalidate("other");
+    assertEquals(1, this.fragments.size());
+
+    this.engine.invalidate("partial");
+    assertEquals(0, this.fragments.size());
+    assertEquals("partial v2", this.render("cached"));
+  }
+
+  @Test
+  public void testEvictedLiteralTemplatesAreNotKeptReachable() throws IOException {
+    ConcurrentMapTemplateCache templateCache = new ConcurrentMapTemplateCache();
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .templateCache(templateCache)
+        .macroCache(new NoOpMacroCache())
+        .build();
+    String source = new String("{% macro greet() %}hi{% endmacro %}{{ greet() }}");
+    PebbleTemplateImpl template = (PebbleTemplateImpl) engine.getLiteralTemplate(source);
+    StringWriter writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("hi", writer.toString());
+
+    WeakReference<String> key = new WeakReference<>(source);
+    WeakReference<Macro> macro = new WeakReference<>(template.getMacros().get("greet"));
+    source = null;
+    template = null;
+    templateCache.invalidateAll();
+
+    for (int i = 0; i < 50 && (key.get() != null || macro.get() != null); i++) {
+      System.gc();
+      // the graph of the engine forgets collected templates when the next one is compiled
+      engine.getLiteralTemplate("other " + i);
+    }
+    assertNull(key.get());
+    assertNull(macro.get());
+  }
+
+  private String render(String templateName) throws IOException {
+    StringWriter writer = new StringWriter();
+    this.engine.getTemplate(templateName).evaluate(writer);
+    return writer.toString();
+  }
+
+  private void write(String templateName, String source) throws IOException {
+    Files.write(new File(this.templates, templateName).toPath(),
+        source.getBytes(StandardCharsets.UTF_8));
+  }
+}
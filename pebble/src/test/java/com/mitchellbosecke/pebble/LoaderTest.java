@@ -10,6 +10,7 @@ package com.mitchellbosecke.pebble;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import com.mitchellbosecke.pebble.error.LoaderException;
 import com.mitchellbosecke.pebble.error.PebbleException;
@@ -29,6 +30,8 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +93,57 @@ public class LoaderTest {
 
   }
 
+  @Test
+  public void testClassLoaderLoaderListsTemplates() {
+    Loader<?> loader = new ClasspathLoader();
+    loader.setPrefix("templates/relativepath");
+    loader.setSuffix(".peb");
+    assertEquals(Arrays.asList("subdirectory1/template.backwardslashes",
+        "subdirectory1/template.forwardslashes", "subdirectory2/template.relativeinclude2",
+        "template.relativeextends1", "template.relativeextends2", "template.relativeimport1",
+        "template.relativeimport2", "template.relativeinclude1", "template.relativeinclude2"),
+        loader.listTemplateNames());
+  }
+
+  @Test
+  public void testClassLoaderLoaderListsTemplatesInJar() {
+    URL resource = this.getClass().getResource("/templateinjar.jar");
+    Loader<?> loader = new ClasspathLoader(new URLClassLoader(new URL[]{resource}, null));
+    loader.setPrefix("templates");
+    loader.setSuffix(".peb");
+    assertEquals(Collections.singletonList("loader/template.loaderTest"),
+        loader.listTemplateNames());
+  }
+
+  @Test
+  public void testFileLoaderListsTemplates() throws URISyntaxException {
+    Loader<?> loader = new FileLoader();
+    URL url = this.getClass().getResource("/templates/loader");
+    loader.setPrefix(new File(url.toURI()).getPath());
+    loader.setSuffix(".peb");
+    assertEquals(Collections.singletonList("template.loaderTest"), loader.listTemplateNames());
+
+    loader.setSuffix(null);
+    assertEquals(Collections.singletonList("template.loaderTest.peb"),
+        loader.listTemplateNames());
+  }
+
+  @Test
+  public void testDelegatingLoaderListsTemplatesOfAllLoaders() throws URISyntaxException {
+    List<Loader<?>> loaders = new ArrayList<>();
+    loaders.add(new ClasspathLoader());
+    loaders.add(new FileLoader());
+    loaders.add(new StringLoader());
+    Loader<?> loader = new DelegatingLoader(loaders);
+    loader.setPrefix("templates/loader");
+    assertEquals(Collections.singletonList("template.loaderTest.peb"),
+        loader.listTemplateNames());
+
+    loader.setPrefix(new File(this.getClass().getResource("/templates").toURI()).getPath());
+    loader.setSuffix(".peb");
+    assertTrue(loader.listTemplateNames().contains("loader/template.loaderTest"));
+  }
+
   @Test
   public void testDelegatingLoader() throws PebbleException, IOException {
     List<Loader<?>> loaders = new ArrayList<>();
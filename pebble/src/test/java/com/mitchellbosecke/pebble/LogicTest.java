@@ -312,6 +312,68 @@ public class LogicTest {
     assertEquals("200-10", writer.toString());
   }
 
+  /**
+   * The operators specialize themselves on the operand types of the first evaluation, the results
+   * must not change when later evaluations use other types.
+   */
+  @Test
+  public void testBinaryOperatorsWithChangingOperandTypes() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+
+    String source = "{{ a + b * 2 }}|{{ a % b - 1 }}|{{ a * b }}|{{ a < b }}|{{ a == b * 2 }}";
+    PebbleTemplate template = pebble.getTemplate(source);
+
+    List<Pair<Object, Object>> operands = Arrays.asList(
+        new Pair<>(7, 2),
+        new Pair<>(7, 2),
+        new Pair<>(Integer.MAX_VALUE, 2),
+        new Pair<>(7L, 2),
+        new Pair<>(7.5, 2),
+        new Pair<>(7, 2.5),
+        new Pair<>(7.5, 2.5),
+        new Pair<>("7", 2),
+        new Pair<>(7, 2));
+    List<String> expected = Arrays.asList(
+        "11|0|14|false|false",
+        "11|0|14|false|false",
+        // an operation on two ints overflows like it does in java
+        "2147483651|0|-2|false|false",
+        "11|0|14|false|false",
+        "11.5|0.5|15.0|false|false",
+        "12.0|1.0|17.5|false|false",
+        "12.5|-1.0|18.75|false|false",
+        "74|",
+        "11|0|14|false|false");
+
+    for (int i = 0; i < operands.size(); i++) {
+      Map<String, Object> context = new HashMap<>();
+      context.put("a", operands.get(i).getLeft());
+      context.put("b", operands.get(i).getRight());
+      Writer writer = new StringWriter();
+      try {
+        template.evaluate(writer, context);
+      } catch (PebbleException e) {
+        // a string can only be added
+      }
+      assertEquals("evaluation " + i, expected.get(i), writer.toString());
+    }
+  }
+
+  @Test
+  public void testArithmeticOnLoopIndex() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+
+    String source = "{% for i in range(1, 300) %}{% if loop.index % 100 == 99 %}"
+        + "{{ (loop.index + 1) * i - i }}{{ loop.index >= 200 ? '.' : ',' }}{% endif %}{% endfor %}";
+    PebbleTemplate template = pebble.getTemplate(source);
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("9900,39800,89700.", writer.toString());
+  }
+
   /**
    * Problem existed where getAttribute would return an Object type which was an invalid operand for
    * java's algebraic operators.
@@ -2,15 +2,20 @@ package com.mitchellbosecke.pebble;
 
 import static org.junit.Assert.assertEquals;
 
+import com.mitchellbosecke.pebble.cache.macro.LruMacroCache;
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.extension.InvocationCountingFunction;
 import com.mitchellbosecke.pebble.extension.TestingExtension;
+import com.mitchellbosecke.pebble.extension.writer.SpecializedWriter;
 import com.mitchellbosecke.pebble.loader.StringLoader;
 import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.junit.Test;
 
@@ -193,4 +198,185 @@ public class MacroTest {
     template.evaluate(writer);
     assertEquals("barfoo", writer.toString());
   }
+
+  @Test
+  public void testPrintedMacroIsRenderedIntoWriter() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+    String templateContent = "{% macro outer(name) %}<{{ inner(name) }}>{% endmacro %}"
+        + "{% macro inner(name) %}[{{ name }}]{% endmacro %}"
+        + "{{ outer('<b>') }}{% set value = outer('a') %}{{ value }}";
+    PebbleTemplate template = pebble.getTemplate(templateContent);
+
+    List<String> writes = new ArrayList<>();
+    template.evaluate(new RecordingWriter(writes));
+
+    assertEquals("<[&lt;b&gt;]><[a]>", String.join("", writes));
+    // the macros wrote their pieces one by one instead of a single string
+    assertEquals(Arrays.asList("<", "[", "&lt;b&gt;", "]", ">", "<[a]>"), writes);
+  }
+
+  @Test
+  public void testCachedMacroIsRenderedOncePerArguments() throws PebbleException, IOException {
+    TestingExtension extension = new TestingExtension();
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false)
+        .extension(extension).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro icon(name, size=1) cached %}{{ name }}{{ size }}"
+            + "{{ invocationCountingFunction() }}{% endmacro %}"
+            + "{% for name in ['a', 'b', 'a'] %}{{ icon(name) }}|{% endfor %}"
+            + "{{ icon('a', 2) }}|{% set a = icon('a') %}{{ a }}");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("a11|b12|a11|a23|a11", writer.toString());
+
+    writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("a11|b12|a11|a23|a11", writer.toString());
+
+    assertEquals(3, extension.getInvocationCountingFunction().getInvocationCount());
+    assertEquals(10, pebble.getMacroCacheStatistics().getRequestCount());
+    assertEquals(3, pebble.getMacroCacheStatistics().getMissCount());
+    assertEquals(7, pebble.getMacroCacheStatistics().getHitCount());
+  }
+
+  @Test
+  public void testCachedMacroWithMutableArgumentIsNotCached() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro list(items) cached %}{{ items | join(',') }}{% endmacro %}{{ list(items) }}");
+    List<String> items = new ArrayList<>(Arrays.asList("a", "b"));
+    Map<String, Object> context = new HashMap<>();
+    context.put("items", items);
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer, context);
+    assertEquals("a,b", writer.toString());
+    items.add("c");
+    writer = new StringWriter();
+    template.evaluate(writer, context);
+    assertEquals("a,b,c", writer.toString());
+
+    assertEquals(0, pebble.getMacroCacheStatistics().getRequestCount());
+    assertEquals(2, pebble.getMacroCacheStatistics().getUncacheableCount());
+  }
+
+  @Test
+  public void testLeastRecentlyUsedMacroOutputIsEvicted() throws PebbleException, IOException {
+    TestingExtension extension = new TestingExtension();
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .extension(extension)
+        .macroCache(new LruMacroCache(2))
+        .build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro icon(name) cached %}{{ name }}{{ invocationCountingFunction() }}{% endmacro %}"
+            + "{{ icon('a') }}{{ icon('b') }}{{ icon('a') }}{{ icon('c') }}{{ icon('a') }}"
+            + "{{ icon('b') }}");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+
+    assertEquals("a1b2a1c3a1b4", writer.toString());
+  }
+
+  @Test
+  public void testCachedMacroCallingCachedMacro() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro button(label) cached %}<{{ icon(label) }}>{% endmacro %}"
+            + "{% macro icon(name) cached %}[{{ name }}]{% endmacro %}"
+            + "{{ button('x') }}{{ button('y') }}{{ button('x') }}");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("<[x]><[y]><[x]>", writer.toString());
+  }
+
+  @Test
+  public void testCachedMacroWithoutCache() throws PebbleException, IOException {
+    TestingExtension extension = new TestingExtension();
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(false)
+        .cacheActive(false)
+        .extension(extension).build();
+
+    PebbleTemplate template = pebble.getTemplate(
+        "{% macro counter() cached %}{{ invocationCountingFunction() }}{% endmacro %}"
+            + "{{ counter() }}{{ counter() }}");
+
+    Writer writer = new StringWriter();
+    template.evaluate(writer);
+    assertEquals("12", writer.toString());
+  }
+
+  /**
+   * Records every write. It is a {@link SpecializedWriter}, so that the template writes into it
+   * directly instead of through a buffer.
+   */
+  private static class RecordingWriter extends Writer implements SpecializedWriter {
+
+    private final List<String> writes;
+
+    private RecordingWriter(List<String> writes) {
+      this.writes = writes;
+    }
+
+    @Override
+    public void writeSpecialized(int i) {
+      this.writes.add(String.valueOf(i));
+    }
+
+    @Override
+    public void writeSpecialized(long l) {
+      this.writes.add(String.valueOf(l));
+    }
+
+    @Override
+    public void writeSpecialized(double d) {
+      this.writes.add(String.valueOf(d));
+    }
+
+    @Override
+    public void writeSpecialized(float f) {
+      this.writes.add(String.valueOf(f));
+    }
+
+    @Override
+    public void writeSpecialized(short s) {
+      this.writes.add(String.valueOf(s));
+    }
+
+    @Override
+    public void writeSpecialized(byte b) {
+      this.writes.add(String.valueOf(b));
+    }
+
+    @Override
+    public void writeSpecialized(char c) {
+      this.writes.add(String.valueOf(c));
+    }
+
+    @Override
+    public void writeSpecialized(String s) {
+      this.writes.add(s);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      this.writes.add(new String(cbuf, off, len));
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+  }
 }
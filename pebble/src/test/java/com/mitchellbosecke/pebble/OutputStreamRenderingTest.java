@@ -0,0 +1,136 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.mitchellbosecke.pebble.cache.tag.OffHeapTagCache;
+import com.mitchellbosecke.pebble.error.PebbleException;
+import com.mitchellbosecke.pebble.extension.writer.EncodingOutputStreamWriter;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.node.TextNode;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class OutputStreamRenderingTest {
+
+  private static final String SOURCE = "<p>Grüße, {{ name }}!</p>{% if true %} — ok{% endif %}";
+
+  @Test
+  public void testRenderToUtf8() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    assertEquals("<p>Grüße, Zoë 😀!</p> — ok",
+        this.render(engine.getTemplate(SOURCE), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRenderToIso88591ReplacesUnmappableCharacters() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    assertEquals("<p>Grüße, Zoë ?!</p> ? ok",
+        this.render(engine.getTemplate(SOURCE), StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  public void testRenderCompiledTemplate() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .compileToBytecode(true)
+        .build();
+
+    assertEquals("<p>Grüße, Zoë 😀!</p> — ok",
+        this.render(engine.getTemplate(SOURCE), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRenderCachedFragmentOffHeap() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(new OffHeapTagCache(1024))
+        .build();
+    PebbleTemplate template = engine.getTemplate("[{% cache 'name' %}{{ name }}{% endcache %}]");
+
+    assertEquals("[Zoë 😀]", this.render(template, StandardCharsets.UTF_8));
+    assertEquals("[Zoë 😀]", this.render(template, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testSurrogatePairSplitAcrossWrites() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    EncodingOutputStreamWriter writer =
+        new EncodingOutputStreamWriter(bytes, StandardCharsets.UTF_8);
+    String emoji = "😀";
+
+    writer.write(emoji.charAt(0));
+    writer.write(emoji.charAt(1));
+    writer.write(emoji.charAt(0));
+    writer.finish();
+
+    assertEquals("😀?", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testLargeOutputIsWrittenCompletely() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      text.append("é").append(i);
+    }
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = engine.getTemplate(text + "{{ name }}" + text);
+
+    assertEquals(text + "Zoë 😀" + text, this.render(template, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testOutputBeforeAFailureIsWritten() throws IOException {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+    PebbleTemplate template = engine.getTemplate("<p>Grüße, {{ name }}!</p>{{ missing }}");
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", "Zoë 😀");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try {
+      template.evaluate(bytes, StandardCharsets.UTF_8, context);
+      fail("expected a failure of the evaluation");
+    } catch (PebbleException e) {
+      assertEquals("<p>Grüße, Zoë 😀!</p>",
+          new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void testTextIsEncodedOncePerCharset() {
+    TextNode node = new TextNode("Grüße", 1);
+
+    assertSame(node.getEncoded(StandardCharsets.UTF_8), node.getEncoded(StandardCharsets.UTF_8));
+    byte[] latin1 = new byte[5];
+    node.getEncoded(StandardCharsets.ISO_8859_1).duplicate().get(latin1);
+    assertArrayEquals("Grüße".getBytes(StandardCharsets.ISO_8859_1), latin1);
+    assertSame(node.getEncoded(StandardCharsets.UTF_8), node.getEncoded(StandardCharsets.UTF_8));
+  }
+
+  private String render(PebbleTemplate template, Charset charset) throws IOException {
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", "Zoë 😀");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    template.evaluate(bytes, charset, context);
+    return new String(bytes.toByteArray(), charset);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.mitchellbosecke.pebble.PrecompilationReport.TemplateResult;
+import com.mitchellbosecke.pebble.error.ParserException;
+import com.mitchellbosecke.pebble.loader.ClasspathLoader;
+import com.mitchellbosecke.pebble.loader.Loader;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+
+public class PrecompilationTest {
+
+  @Test
+  public void testPrecompileFollowsLiteralReferences() {
+    Loader<?> loader = new ClasspathLoader();
+    loader.setPrefix("templates");
+    PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+
+    PrecompilationReport report = engine
+        .precompile(Collections.singletonList("template.child.peb"));
+
+    assertTrue(report.isSuccessful());
+    assertEquals(
+        Arrays.asList("template.child.peb", "template.grandfather.peb", "template.parent.peb"),
+        this.getTemplateNames(report.getResults()));
+    assertNull(report.getResults().get(0).getReferencedBy());
+    assertEquals("template.parent.peb", report.getResults().get(1).getReferencedBy());
+    assertEquals("template.child.peb", report.getResults().get(2).getReferencedBy());
+  }
+
+  @Test
+  public void testPrecompileAllInParallel() {
+    Loader<?> loader = new ClasspathLoader();
+    loader.setPrefix("templates/relativepath");
+    PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      PrecompilationReport report = engine.precompileAll(executor);
+
+      assertTrue(report.toString(), report.isSuccessful());
+      assertEquals(loader.listTemplateNames(), this.getTemplateNames(report.getResults()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPrecompileReportsErrors() {
+    PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader()).build();
+
+    PrecompilationReport report = engine
+        .precompile(Arrays.asList("{{ 'valid' }}", "{{ 'invalid }}"));
+
+    assertFalse(report.isSuccessful());
+    assertEquals(2, report.getResults().size());
+    List<TemplateResult> failures = report.getFailures();
+    assertEquals(1, failures.size());
+    assertEquals("{{ 'invalid }}", failures.get(0).getTemplateName());
+    assertTrue(failures.get(0).getError() instanceof ParserException);
+  }
+
+  private List<String> getTemplateNames(List<TemplateResult> results) {
+    List<String> names = new ArrayList<>();
+    for (TemplateResult result : results) {
+      names.add(result.getTemplateName());
+    }
+    return names;
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.mitchellbosecke.pebble.cache.CacheKey;
+import com.mitchellbosecke.pebble.cache.tag.ConcurrentMapTagCache;
+import com.mitchellbosecke.pebble.loader.FileLoader;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReloadingTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File templates;
+
+  private ConcurrentMap<CacheKey, Object> fragments = new ConcurrentHashMap<>();
+
+  private FileLoader loader;
+
+  private PebbleEngine engine;
+
+  @Before
+  public void setUp() throws IOException {
+    this.templates = this.folder.newFolder("templates");
+    this.write("base", "[{% block content %}base{% endblock %}]");
+    this.write("partial", "partial v1");
+    this.write("page",
+        "{% extends 'base' %}{% block content %}{% include 'partial' %}{% endblock %}");
+    this.write("cached", "{% cache 'fragment' %}{% include 'partial' %}{% endcache %}");
+
+    this.loader = new FileLoader();
+    this.loader.setPrefix(this.templates.getAbsolutePath());
+    this.loader.setPollInterval(50);
+    this.engine = new PebbleEngine.Builder()
+        .loader(this.loader)
+        .tagCache(new ConcurrentMapTagCache(this.fragments))
+        .build();
+  }
+
+  @After
+  public void tearDown() {
+    this.loader.setDetectChanges(false);
+  }
+
+  @Test
+  public void testChangedTemplateIsReloadedInTheBackground()
+      throws IOException, InterruptedException {
+    this.loader.setDetectChanges(true);
+    PebbleTemplate page = this.engine.getTemplate("page");
+    assertEquals("[partial v1]", this.render("page"));
+
+    this.write("partial", "partial version 2");
+
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!this.render("page").equals("[partial version 2]")
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(20);
+    }
+    assertEquals("[partial version 2]", this.render("page"));
+    assertSame(page, this.engine.getTemplate("page"));
+  }
+
+  @Test
+  public void testReloadSwapsTheTemplate() throws IOException {
+    PebbleTemplate partial = this.engine.getTemplate("partial");
+    PebbleTemplate page = this.engine.getTemplate("page");
+
+    this.write("partial", "partial v2");
+    this.engine.reload("partial");
+
+    assertNotSame(partial, this.engine.getTemplate("partial"));
+    assertSame(page, this.engine.getTemplate("page"));
+    assertEquals("[partial v2]", this.render("page"));
+  }
+
+  @Test
+  public void testPreviousVersionIsKeptIfTheTemplateCanNotBeCompiled() throws IOException {
+    assertEquals("[partial v1]", this.render("page"));
+
+    this.write("partial", "partial {% if %}");
+    this.engine.reload("partial");
+    assertEquals("[partial v1]", this.render("page"));
+
+    this.write("partial", "partial v3");
+    this.engine.reload("partial");
+    assertEquals("[partial v3]", this.render("page"));
+  }
+
+  @Test
+  public void testCachedFragmentsOfDependentTemplatesAreRemoved() throws IOException {
+    PebbleTemplate cached = this.engine.getTemplate("cached");
+    assertEquals("partial v1", this.render("cached"));
+    assertEquals(1, this.fragments.size());
+
+    this.write("partial", "partial v2");
+    this.engine.reload("partial");
+
+    assertEquals(0, this.fragments.size());
+    assertSame(cached, this.engine.getTemplate("cached"));
+    assertEquals("partial v2", this.render("cached"));
+  }
+
+  @Test
+  public void testClosedEngineStopsListening() {
+    ListenedLoader loader = new ListenedLoader();
+    PebbleEngine engine = new PebbleEngine.Builder().loader(loader).build();
+    assertEquals(1, loader.listeners.size());
+
+    engine.close();
+    assertEquals(0, loader.listeners.size());
+  }
+
+  @Test
+  public void testEngineIsNotKeptReachableByItsLoader() throws InterruptedException {
+    ListenedLoader loader = new ListenedLoader();
+    WeakReference<PebbleEngine> engine =
+        new WeakReference<>(new PebbleEngine.Builder().loader(loader).build());
+
+    for (int i = 0; i < 50 && engine.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(engine.get());
+    loader.listeners.get(0).accept("template");
+    assertEquals(0, loader.listeners.size());
+  }
+
+  private String render(String templateName) throws IOException {
+    StringWriter writer = new StringWriter();
+    this.engine.getTemplate(templateName).evaluate(writer);
+    return writer.toString();
+  }
+
+  private void write(String templateName, String source) throws IOException {
+    Files.write(new File(this.templates, templateName).toPath(),
+        source.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static class ListenedLoader extends StringLoader {
+
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void addChangeListener(Consumer<String> listener) {
+      this.listeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(Consumer<String> listener) {
+      this.listeners.remove(listener);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of Pebble.
+ * <p>
+ * Copyright (c) 2014 by Mitchell Bösecke
+ * <p>
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.mitchellbosecke.pebble.extension.writer.PooledSpecializedStringWriter;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.junit.Test;
+
+public class RenderToStringTest {
+
+  private final PebbleEngine engine = new PebbleEngine.Builder().loader(new StringLoader())
+      .build();
+
+  @Test
+  public void testRenderToString() throws IOException {
+    PebbleTemplate template = this.engine
+        .getTemplate("{{ text }} {{ integer }} {{ decimal }} {{ big }} {{ locale }}");
+    Map<String, Object> context = new HashMap<>();
+    context.put("text", "text");
+    context.put("integer", 42);
+    context.put("decimal", 1.5);
+    context.put("big", new BigDecimal("1E+3"));
+
+    assertEquals("text 42 1.5 1000 fr", template.render(context, Locale.FRENCH));
+    StringWriter writer = new StringWriter();
+    template.evaluate(writer, context, Locale.FRENCH);
+    assertEquals(writer.toString(), template.render(context, Locale.FRENCH));
+  }
+
+  @Test
+  public void testRenderAppendsToAppendable() throws IOException {
+    PebbleTemplate template = this.engine.getTemplate("Hello {{ name }}");
+    StringBuilder builder = new StringBuilder("> ");
+
+    template.render(builder, this.context("world"));
+    template.render(builder, this.context("again"));
+
+    assertEquals("> Hello worldHello again", builder.toString());
+  }
+
+  @Test
+  public void testNestedRendersDoNotShareTheirBuilder() throws IOException {
+    PebbleTemplate inner = this.engine.getTemplate("[{{ name }}]");
+    PebbleTemplate outer = this.engine.getTemplate("{{ name }} {{ renderer.render('inner') }} end");
+    Map<String, Object> context = this.context("outer");
+    context.put("renderer", new Renderer(inner));
+
+    assertEquals("outer [inner] end", outer.render(context));
+  }
+
+  @Test
+  public void testDecoratedTemplateRendersThroughEvaluate() throws IOException {
+    PebbleTemplate template = new DecoratedTemplate(
+        this.engine.getTemplate("Hello {{ name }} {{ locale }}"));
+    StringBuilder builder = new StringBuilder("> ");
+
+    template.render(builder, this.context("world"), Locale.FRENCH);
+
+    assertEquals("Hello world fr", template.render(this.context("world"), Locale.FRENCH));
+    assertEquals("> Hello world fr", builder.toString());
+  }
+
+  @Test
+  public void testPooledWriterIsReused() {
+    PooledSpecializedStringWriter writer = PooledSpecializedStringWriter.acquire(16);
+    PooledSpecializedStringWriter nested = PooledSpecializedStringWriter.acquire(16);
+    assertNotSame(writer, nested);
+    nested.release();
+    writer.release();
+
+    PooledSpecializedStringWriter again = PooledSpecializedStringWriter.acquire(16);
+    again.release();
+    assertSame(writer, again);
+  }
+
+  private Map<String, Object> context(String name) {
+    Map<String, Object> context = new HashMap<>();
+    context.put("name", name);
+    return context;
+  }
+
+  public static class Renderer {
+
+    private final PebbleTemplate template;
+
+    private Renderer(PebbleTemplate template) {
+      this.template = template;
+    }
+
+    public String render(String name) throws IOException {
+      Map<String, Object> context = new HashMap<>();
+      context.put("name", name);
+      return this.template.render(context);
+    }
+  }
+
+  /**
+   * A template implemented outside of the engine, which only delegates the abstract methods.
+   */
+  private static class DecoratedTemplate implements PebbleTemplate {
+
+    private final PebbleTemplate delegate;
+
+    private DecoratedTemplate(PebbleTemplate delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void evaluate(Writer writer) throws IOException {
+      this.delegate.evaluate(writer);
+    }
+
+    @Override
+    public void evaluate(Writer writer, Locale locale) throws IOException {
+      this.delegate.evaluate(writer, locale);
+    }
+
+    @Override
+    public void evaluate(Writer writer, Map<String, Object> context) throws IOException {
+      this.delegate.evaluate(writer, context);
+    }
+
+    @Override
+    public void evaluate(Writer writer, Map<String, Object> context, Locale locale)
+        throws IOException {
+      this.delegate.evaluate(writer, context, locale);
+    }
+
+    @Override
+    public void evaluateBlock(String blockName, Writer writer) throws IOException {
+      this.delegate.evaluateBlock(blockName, writer);
+    }
+
+    @Override
+    public void evaluateBlock(String blockName, Writer writer, Locale locale)
+        throws IOException {
+      this.delegate.evaluateBlock(blockName, writer, locale);
+    }
+
+    @Override
+    public void evaluateBlock(String blockName, Writer writer, Map<String, Object> context)
+        throws IOException {
+      this.delegate.evaluateBlock(blockName, writer, context);
+    }
+
+    @Override
+    public void evaluateBlock(String blockName, Writer writer, Map<String, Object> context,
+        Locale locale) throws IOException {
+      this.delegate.evaluateBlock(blockName, writer, context, locale);
+    }
+
+    @Override
+    public String getName() {
+      return this.delegate.getName();
+    }
+  }
+}
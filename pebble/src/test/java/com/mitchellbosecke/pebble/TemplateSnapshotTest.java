@@ -0,0 +1,204 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble;
+
+import static org.junit.Assert.assertEquals;
+
+import com.mitchellbosecke.pebble.cache.snapshot.MappedFileTemplateSnapshotStore;
+import com.mitchellbosecke.pebble.cache.snapshot.TemplateSnapshot;
+import com.mitchellbosecke.pebble.cache.snapshot.TemplateSnapshotStore;
+import com.mitchellbosecke.pebble.extension.AbstractExtension;
+import com.mitchellbosecke.pebble.extension.AbstractNodeVisitor;
+import com.mitchellbosecke.pebble.extension.NodeVisitorFactory;
+import com.mitchellbosecke.pebble.loader.FileLoader;
+import com.mitchellbosecke.pebble.loader.Loader;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import com.mitchellbosecke.pebble.template.PebbleTemplateImpl;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TemplateSnapshotTest {
+
+  private static final String PARENT = "{% macro greet(name, greeting='Hello') %}"
+      + "{{ greeting }}, {{ name | upper }}!{% endmacro %}"
+      + "<title>{% block title %}Default{% endblock %}</title>"
+      + "{% block content %}{% endblock %}";
+
+  private static final String CHILD = "{% extends 'parent' %}"
+      + "{% import 'parent' %}"
+      + "{% block title %}{{ parent() }} {{ 1 + 2 * 3 }}{% endblock %}"
+      + "{% block content %}"
+      + "{% for item in items %}{{ loop.index }}:{{ item.name | default('none') }} {% endfor %}"
+      + "{% if items is empty %}empty{% else %}{{ items | length > 1 ? 'many' : 'one' }}{% endif %}"
+      + "{% set map = {'key': 'value'} %} {{ map['key'] }} {{ greet('Pebble') }} {{ html }}"
+      + "{% endblock %}";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File templates;
+
+  private TemplateSnapshotStore store;
+
+  @Before
+  public void setUp() throws IOException {
+    this.templates = this.folder.newFolder("templates");
+    this.store = new MappedFileTemplateSnapshotStore(this.folder.newFolder("snapshots").toPath());
+    this.write("parent", PARENT);
+    this.write("child", CHILD);
+  }
+
+  @Test
+  public void testTemplateIsRestoredFromSnapshot() throws IOException {
+    CountingExtension parsing = new CountingExtension();
+    String parsed = this.render(this.buildEngine(parsing, true), "child");
+    assertEquals(2, parsing.visits.get());
+
+    CountingExtension restoring = new CountingExtension();
+    String restored = this.render(this.buildEngine(restoring, true), "child");
+    assertEquals(0, restoring.visits.get());
+
+    assertEquals("<title>Default 7</title>0:first 1:none many value Hello, PEBBLE! &lt;br&gt;",
+        parsed);
+    assertEquals(parsed, restored);
+  }
+
+  @Test
+  public void testChangedTemplateIsParsedAgain() throws IOException {
+    this.render(this.buildEngine(new CountingExtension(), true), "child");
+
+    this.write("parent", PARENT.replace("Default", "Changed"));
+    CountingExtension parsing = new CountingExtension();
+    String output = this.render(this.buildEngine(parsing, true), "child");
+
+    assertEquals(1, parsing.visits.get());
+    assertEquals("<title>Changed 7</title>", output.substring(0, output.indexOf("</title>") + 8));
+  }
+
+  @Test
+  public void testDifferentlyConfiguredEngineParsesAgain() throws IOException {
+    this.render(this.buildEngine(new CountingExtension(), true), "child");
+
+    CountingExtension parsing = new CountingExtension();
+    String output = this.render(this.buildEngine(parsing, false), "child");
+
+    assertEquals(2, parsing.visits.get());
+    assertEquals("<br>", output.substring(output.length() - 4));
+  }
+
+  @Test
+  public void testSnapshotWithForeignClassIsParsedAgain() throws IOException {
+    this.render(this.buildEngine(new CountingExtension(), true), "child");
+
+    TemplateSnapshotStore stored = this.store;
+    this.store = new TemplateSnapshotStore() {
+
+      @Override
+      public TemplateSnapshot load(Loader<?> loader, Object cacheKey) {
+        TemplateSnapshot snapshot = stored.load(loader, cacheKey);
+        return new TemplateSnapshot(snapshot.getConfiguration(), snapshot.getContentHash(),
+            withForeignMacro(snapshot.getTree()));
+      }
+
+      @Override
+      public void store(Loader<?> loader, Object cacheKey, TemplateSnapshot snapshot) {
+      }
+    };
+    CountingExtension parsing = new CountingExtension();
+    String output = this.render(this.buildEngine(parsing, true), "child");
+
+    assertEquals(2, parsing.visits.get());
+    assertEquals("<title>Default 7</title>", output.substring(0, output.indexOf("</title>") + 8));
+  }
+
+  /**
+   * Rewrites a snapshot so that its macros hold an object of a class which is not part of a
+   * template.
+   */
+  @SuppressWarnings("unchecked")
+  private static ByteBuffer withForeignMacro(ByteBuffer tree) {
+    byte[] original = new byte[tree.remaining()];
+    tree.duplicate().get(original);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(original));
+        ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(in.readObject());
+      out.writeObject(in.readObject());
+      Map<String, Object> macros = (Map<String, Object>) in.readObject();
+      macros.put("foreign", new Date());
+      out.writeObject(macros);
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  private PebbleEngine buildEngine(CountingExtension extension, boolean autoEscaping) {
+    FileLoader loader = new FileLoader();
+    loader.setPrefix(this.templates.getAbsolutePath());
+    return new PebbleEngine.Builder()
+        .loader(loader)
+        .extension(extension)
+        .autoEscaping(autoEscaping)
+        .templateSnapshotStore(this.store)
+        .build();
+  }
+
+  private String render(PebbleEngine engine, String templateName) throws IOException {
+    PebbleTemplate template = engine.getTemplate(templateName);
+    Map<String, Object> context = new HashMap<>();
+    Map<String, Object> item = new HashMap<>();
+    item.put("name", "first");
+    context.put("items", Arrays.asList(item, new HashMap<>()));
+    context.put("html", "<br>");
+    StringWriter writer = new StringWriter();
+    template.evaluate(writer, context);
+    return writer.toString();
+  }
+
+  private void write(String templateName, String source) throws IOException {
+    Files.write(new File(this.templates, templateName).toPath(),
+        source.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Counts the templates which are parsed, as only these are visited.
+   */
+  private static class CountingExtension extends AbstractExtension {
+
+    private final AtomicInteger visits = new AtomicInteger();
+
+    @Override
+    public List<NodeVisitorFactory> getNodeVisitors() {
+      return Collections.singletonList(template -> {
+        this.visits.incrementAndGet();
+        return new AbstractNodeVisitor((PebbleTemplateImpl) template);
+      });
+    }
+  }
+}
@@ -9,6 +9,7 @@
 package com.mitchellbosecke.pebble;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import com.mitchellbosecke.pebble.error.PebbleException;
 import com.mitchellbosecke.pebble.loader.StringLoader;
@@ -16,6 +17,7 @@ import com.mitchellbosecke.pebble.template.PebbleTemplate;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Executors;
@@ -68,6 +70,95 @@ public class WritingTest {
     }
   }
 
+  @Test
+  public void testOutputIsBufferedForOtherWriters() throws PebbleException, IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template = pebble.getTemplate(
+        "{% for value in values %}{{ value }},{% endfor %}{{ builder }} {{ 1.5 }}");
+    Map<String, Object> context = new HashMap<>();
+    context.put("values", Arrays.asList(0, -7, 42L, Long.MIN_VALUE, Integer.MAX_VALUE,
+        (short) -3, (byte) 8, 'c', 2.5f));
+    context.put("builder", new StringBuilder("built"));
+
+    CountingWriter writer = new CountingWriter();
+    template.evaluate(writer, context);
+
+    assertEquals("0,-7,42,-9223372036854775808,2147483647,-3,8,c,2.5,built 1.5", writer.toString());
+    assertEquals(1, writer.writes);
+  }
+
+  @Test
+  public void testBufferedOutputIsWrittenBeforeAFailure() throws IOException {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader())
+        .strictVariables(true).build();
+    PebbleTemplate template = pebble.getTemplate("before {{ missing }}");
+
+    CountingWriter writer = new CountingWriter();
+    try {
+      template.evaluate(writer);
+      fail();
+    } catch (PebbleException e) {
+      assertEquals("before ", writer.toString());
+    }
+  }
+
+  @Test
+  public void testFailureOfTheWriterIsThrownAsIOException() {
+    PebbleEngine pebble = new PebbleEngine.Builder().loader(new StringLoader()).build();
+    PebbleTemplate template =
+        pebble.getTemplate("{% for i in range(1, 3000) %}{{ i }}{% endfor %}");
+
+    try {
+      template.evaluate(new Writer() {
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+          throw new IOException("closed");
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+      });
+      fail();
+    } catch (IOException e) {
+      assertEquals("closed", e.getMessage());
+    }
+  }
+
+  /**
+   * Counts the writes which reach it.
+   */
+  private static class CountingWriter extends Writer {
+
+    private final StringBuilder content = new StringBuilder();
+
+    private int writes;
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+      this.content.append(cbuf, off, len);
+      this.writes++;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public String toString() {
+      return this.content.toString();
+    }
+  }
+
   public class SlowObject {
 
     public String first() {
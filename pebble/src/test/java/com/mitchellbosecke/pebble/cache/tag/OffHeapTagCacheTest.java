@@ -0,0 +1,45 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.cache.tag;
+
+import static org.junit.Assert.assertEquals;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.loader.StringLoader;
+import com.mitchellbosecke.pebble.template.PebbleTemplate;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class OffHeapTagCacheTest {
+
+  @Test
+  public void testRefreshedFragmentsDoNotAccumulate() throws IOException {
+    OffHeapTagCache cache = new OffHeapTagCache(1024 * 1024);
+    PebbleEngine engine = new PebbleEngine.Builder()
+        .loader(new StringLoader())
+        .tagCache(cache)
+        .build();
+    PebbleTemplate template = engine.getTemplate(
+        "{% cache 'fragment' refresh=0 %}{{ value }}{% endcache %}");
+
+    for (int i = 0; i < 1000; i++) {
+      Map<String, Object> context = new HashMap<>();
+      context.put("value", i);
+      StringWriter writer = new StringWriter();
+      template.evaluate(writer, context);
+      assertEquals(String.valueOf(i), writer.toString());
+    }
+
+    assertEquals(1, cache.count());
+    assertEquals(3, cache.size());
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * This file is part of Pebble.
+ *
+ * Copyright (c) 2014 by Mitchell Bösecke
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+package com.mitchellbosecke.pebble.lexer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.mitchellbosecke.pebble.PebbleEngine;
+import com.mitchellbosecke.pebble.extension.ExtensionRegistry;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+/**
+ * Checks that the {@link LexerImpl} produces the same tokens, or fails with the same error, as the
+ * regular expression based {@link RegexLexer} it replaced.
+ */
+public class LexerDifferentialTest {
+
+  private static final List<String> TEMPLATE_EXTENSIONS = Arrays
+      .asList("peb", "txt", "md", "html", "suffix");
+
+  /**
+   * Java string literals, which are where most of the templates of the tests are found.
+   */
+  private static final Pattern STRING_LITERAL = Pattern.compile("\"((?:[^\"\\\\\\n]|\\\\.)*)\"");
+
+  private static final String[] TEMPLATES = {
+      "",
+      "plain text only",
+      "{{ organization }} {{ a or b }} {{ a and not b }} {{ a is not null }} {{ a is null }}",
+      "{{ a==b }}{{ a!=b }}{{ a>=b }}{{ a<=b }}{{ a>b }}{{ a<b }}{{ -a + +b }}{{ a..b }}",
+      "{{ 1 }}{{ 12L }}{{ 1.5 }}{{ 1.2.3 }}{{ 12Lx }}{{ 3.x }}{{ 007 }}",
+      "{{ 'single \\' quoted' }}{{ \"double \\\" quoted\" }}{{ 'with # hash' }}{{ \"a\\\\\" }}",
+      "{{ \"hello #{name}!\" }}{{ \"#{ a + \"#{ b }\" } and #{c}\" }}{{ \"# not #{'interpolated'}\" }}",
+      "{{ \"a #b\" }}{{ \"multi\nline\" }}{{ 'multi\nline' }}",
+      "{{ [1, 2, {'a': (3)}] | join(',') }}{{ a ? b : c }}{{ a.b[c](d) }}",
+      "a  {{- b -}}  c\n{%- if true -%}\n  d  \n{%- endif -%}\n  e",
+      "a {#- comment -#} b {# comment -#} c {# comment #}\nd {#-#} e {#no trim-#}  f",
+      "{% verbatim %}{{ raw }}{% endverbatim %}{% verbatim -%}  x  {%- endverbatim -%}  y",
+      "{%verbatim%}  a  {%endverbatim%}\n{% verbatim %}\n b {% endverbatim %}\n\r\nc",
+      "{% if a %}\r\n\ta\n\r{% endif %} {{ b }} {{ c }}\u0085d",
+      "line\none\n{{\nfoo\n}}\n{%\nset\nx\n=\n'a\nb'\n%}\n{{ x }}",
+      "{{ a }",
+      "{{ a ]}}",
+      "{{ (a }}",
+      "{{ a ) }}",
+      "{# unclosed",
+      "{% verbatim %} unclosed",
+      "{{ 'unclosed }}",
+      "{{ $ }}",
+      "{{ \"unclosed #{a}",
+  };
+
+  @Test
+  public void testTemplatesOfTheTestCorpus() throws IOException, URISyntaxException {
+    Path resources = Paths.get(this.getClass().getResource("/templates").toURI()).getParent();
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(resources)) {
+      files = paths.filter(Files::isRegularFile)
+          .filter(path -> TEMPLATE_EXTENSIONS.contains(getExtension(path)))
+          .collect(Collectors.toList());
+    }
+    assertTrue(files.size() > 100);
+    for (Path file : files) {
+      String template = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      this.assertSameTokens(file.toString(), template);
+    }
+  }
+
+  @Test
+  public void testTemplatesOfTheTestSources() throws IOException {
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(Paths.get("src", "test", "java"))) {
+      files = paths.filter(path -> path.toString().endsWith(".java"))
+          .collect(Collectors.toList());
+    }
+    int count = 0;
+    for (Path file : files) {
+      String source = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+      Matcher matcher = STRING_LITERAL.matcher(source);
+      while (matcher.find()) {
+        this.assertSameTokens(file.toString(), unescape(matcher.group(1)));
+        count++;
+      }
+    }
+    assertTrue(count > 1000);
+  }
+
+  @Test
+  public void testEdgeCases() {
+    for (String template : TEMPLATES) {
+      this.assertSameTokens(template, template);
+    }
+  }
+
+  @Test
+  public void testCustomSyntax() {
+    Syntax syntax = new Syntax.Builder().setPrintOpenDelimiter("${")
+        .setPrintCloseDelimiter("}").setExecuteOpenDelimiter("<%").setExecuteCloseDelimiter("%>")
+        .setCommentOpenDelimiter("<#").setCommentCloseDelimiter("#>").setWhitespaceTrim("~")
+        .setEnableNewLineTrimming(false).build();
+    String[] templates = {
+        "a ${ b } <% if c ~%>\n d <%~ endif %> <# comment ~#>  e",
+        "${ {'a': [1]} }${ \"#{ x }\" }<% verbatim ~%> ${ raw } <%~ endverbatim %>\n",
+        "{{ not a tag }} {% neither %} ${ a ~} b",
+    };
+    for (String template : templates) {
+      this.assertSameTokens(template, template, syntax);
+    }
+  }
+
+  private void assertSameTokens(String name, String template) {
+    this.assertSameTokens(name, template, new Syntax.Builder().build());
+    this.assertSameTokens(name, template,
+        new Syntax.Builder().setEnableNewLineTrimming(false).build());
+  }
+
+  private void assertSameTokens(String name, String template, Syntax syntax) {
+    ExtensionRegistry registry = new PebbleEngine.Builder().build().getExtensionRegistry();
+    Lexer expected = new RegexLexer(syntax, registry.getUnaryOperators().values(),
+        registry.getBinaryOperators().values());
+    Lexer actual = new LexerImpl(syntax, registry.getUnaryOperators().values(),
+        registry.getBinaryOperators().values());
+    assertEquals(name, describe(expected, template), describe(actual, template));
+  }
+
+  private static String describe(Lexer lexer, String template) {
+    List<String> tokens = new ArrayList<>();
+    try {
+      TokenStream stream = lexer.tokenize(new StringReader(template), "template");
+      for (Token token : stream.getTokens()) {
+        tokens.add(token.getLineNumber() + ":" + token);
+      }
+    } catch (RuntimeException e) {
+      tokens.add(e.getClass().getName() + ": " + e.getMessage());
+    }
+    return String.join("\n", tokens);
+  }
+
+  private static String getExtension(Path path) {
+    String name = path.getFileName().toString();
+    return name.substring(name.lastIndexOf('.') + 1);
+  }
+
+  private static String unescape(String literal) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < literal.length(); i++) {
+      char c = literal.charAt(i);
+      if (c != '\\' || i + 1 == literal.length()) {
+        builder.append(c);
+        continue;
+      }
+      c = literal.charAt(++i);
+      switch (c) {
+        case 'n':
+          builder.append('\n');
+          break;
+        case 'r':
+          builder.append('\r');
+          break;
+        case 't':
+          builder.append('\t');
+          break;
+        case 'u':
+          builder.append((char) Integer.parseInt(literal.substring(i + 1, i + 5), 16));
+          i += 4;
+          break;
+        default:
+          builder.append(c);
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -131,7 +131,7 @@ public class TestMacroCalls {
 
   @Test
   public void testInvalidSameAliasMacroWithFromToken() throws IOException {
-    PebbleEngine pebble = new PebbleEngine.Builder().build();
+    PebbleEngine pebble = new PebbleEngine.Builder().extension(new PebbleExtension()).build();
 
     try {
       PebbleTemplate template = pebble.getTemplate("templates/macros/invalid.from.sameAlias.peb");
@@ -146,7 +146,7 @@ public class TestMacroCalls {
 
   @Test
   public void testInvalidSameAliasMacroWithImportAsToken() throws IOException {
-    PebbleEngine pebble = new PebbleEngine.Builder().build();
+    PebbleEngine pebble = new PebbleEngine.Builder().extension(new PebbleExtension()).build();
 
     try {
       PebbleTemplate template = pebble